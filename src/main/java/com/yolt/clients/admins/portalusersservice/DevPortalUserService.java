@@ -1,9 +1,9 @@
 package com.yolt.clients.admins.portalusersservice;
 
+import com.yolt.clients.http.OutboundHttpClients;
 import nl.ing.lovebird.clienttokens.ClientGroupToken;
 import nl.ing.lovebird.clienttokens.ClientToken;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
@@ -24,9 +24,9 @@ public class DevPortalUserService {
 
     public DevPortalUserService(
             @Value("${service.dev-portal.url}") String devPortalUrl,
-            RestTemplateBuilder restTemplateBuilder
+            OutboundHttpClients outboundHttpClients
     ) {
-        this.restTemplate = restTemplateBuilder.rootUri(devPortalUrl).build();
+        this.restTemplate = outboundHttpClients.restTemplateBuilder("dev-portal").rootUri(devPortalUrl).build();
     }
 
     public boolean isAdminForClientGroup(ClientGroupToken clientGroupToken, String email) {
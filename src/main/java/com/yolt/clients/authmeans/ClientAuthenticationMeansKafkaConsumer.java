@@ -2,47 +2,69 @@ package com.yolt.clients.authmeans;
 
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.yolt.clients.clientsite.ClientSitesUpdateProducer;
+import com.yolt.clients.clientsite.ClientSiteCatalogue;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.lang.Nullable;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.validation.constraints.NotNull;
-import java.util.UUID;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 class ClientAuthenticationMeansKafkaConsumer {
 
-    private final ClientGroupOnboardedProviderRepository clientGroupOnboardedProviderRepository;
-    private final ClientOnboardedProviderRepository clientOnboardedProviderRepository;
-    private final ClientOnboardedScrapingProviderRepository clientOnboardedScrapingProviderRepository;
-    private final ClientSitesUpdateProducer clientSitesUpdateProducer;
+    private final OnboardedProvidersJdbcRepository onboardedProvidersJdbcRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ClientSiteCatalogue clientSiteCatalogue;
+
+    /**
+     * Consumes the events in batches.  A batch is reduced to the net change per onboarding (the last event for an
+     * onboarding wins), which is applied in a single transaction, followed by a single client sites update.
+     */
     @KafkaListener(
             topics = "${yolt.kafka.topics.clientAuthenticationMeans.topic-name}",
-            concurrency = "${yolt.kafka.topics.clientAuthenticationMeans.listener-concurrency}"
+            concurrency = "${yolt.kafka.topics.clientAuthenticationMeans.listener-concurrency}",
+            batch = "true"
     )
-    public void clientAuthenticationMeansUpdate(
-            @Payload final ClientAuthenticationMeansEventDTO clientAuthenticationMeansUpdated,
-            @Header(value = "payload-type") final String payloadType
-    ) {
-        ClientAuthenticationMeansMessageType clientAuthenticationMeansMessageType = parse(payloadType);
+    public void clientAuthenticationMeansUpdate(final List<Message<ClientAuthenticationMeansEventDTO>> messages) {
+        var changes = new OnboardingChanges();
+        for (Message<ClientAuthenticationMeansEventDTO> message : messages) {
+            try {
+                ClientAuthenticationMeansMessageType clientAuthenticationMeansMessageType = parse(payloadType(message));
+                log.info("ClientAuthenticationMeansKafkaConsumer consumed payload-type={} with dto={}", clientAuthenticationMeansMessageType, message.getPayload()); //NOSHERIFF
+                changes.add(clientAuthenticationMeansMessageType, message.getPayload());
+            } catch (Exception e) {
+                log.error("Unexpected exception reading client authentication means update: {}", e.getMessage(), e); //NOSHERIFF
+            }
+        }
 
         try {
-            log.info("ClientAuthenticationMeansKafkaConsumer consumed payload-type={} with dto={}", clientAuthenticationMeansMessageType, clientAuthenticationMeansUpdated); //NOSHERIFF
-            clientAuthenticationMeansUpdated(clientAuthenticationMeansMessageType, clientAuthenticationMeansUpdated);
+            clientAuthenticationMeansUpdated(changes);
         } catch (Exception e) {
-            log.error("Unexpected exception reading client authentication means update: {}", e.getMessage(), e); //NOSHERIFF
+            log.error("Unexpected exception processing client authentication means updates: {}", e.getMessage(), e); //NOSHERIFF
         }
     }
 
+    private static String payloadType(Message<?> message) {
+        Object payloadType = message.getHeaders().get("payload-type");
+        if (payloadType instanceof byte[]) {
+            return new String((byte[]) payloadType, StandardCharsets.UTF_8);
+        }
+        return (String) Objects.requireNonNull(payloadType, "missing payload-type header");
+    }
+
     private ClientAuthenticationMeansMessageType parse(String payloadType) {
         // Handle JSON encoded strings. Remove when all pods on > 13.0.25
         // See: https://yolt.atlassian.net/browse/CHAP-145
@@ -52,67 +74,51 @@ class ClientAuthenticationMeansKafkaConsumer {
         return ClientAuthenticationMeansMessageType.valueOf(payloadType);
     }
 
-    void clientAuthenticationMeansUpdated(
-            ClientAuthenticationMeansMessageType messageTypeValue,
-            ClientAuthenticationMeansEventDTO dto
-    ) {
-        switch (messageTypeValue) {
-            case CLIENT_AUTHENTICATION_MEANS_UPDATED -> {
-                if (dto.isForScrapingProvider()) {
-                    clientOnboardedScrapingProviderRepository.save(ClientOnboardedScrapingProvider.builder()
-                            .clientOnboardedScrapingProviderId(ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId.builder()
-                                    .clientId(dto.getClientId())
-                                    .provider(dto.getProvider())
-                                    .serviceType(ServiceType.valueOf(dto.getServiceType().name()))
-                                    .build())
-                            .build());
-                } else {
-                    clientOnboardedProviderRepository.save(ClientOnboardedProvider.builder()
-                            .clientOnboardedProviderId(ClientOnboardedProvider.ClientOnboardedProviderId.builder()
-                                    .clientId(dto.getClientId())
-                                    .redirectUrlId(dto.getRedirectUrlId())
-                                    .provider(dto.getProvider())
-                                    .serviceType(ServiceType.valueOf(dto.getServiceType().name()))
-                                    .build())
-                            .build());
-                }
-            }
-            case CLIENT_AUTHENTICATION_MEANS_DELETED -> {
-                if (dto.isForScrapingProvider()) {
-                    clientOnboardedScrapingProviderRepository.deleteById(ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId.builder()
-                            .clientId(dto.getClientId())
-                            .provider(dto.getProvider())
-                            .serviceType(ServiceType.valueOf(dto.getServiceType().name()))
-                            .build());
-                } else {
-                    clientOnboardedProviderRepository.deleteById(ClientOnboardedProvider.ClientOnboardedProviderId.builder()
-                            .clientId(dto.getClientId())
-                            .redirectUrlId(dto.getRedirectUrlId())
-                            .provider(dto.getProvider())
-                            .serviceType(ServiceType.valueOf(dto.getServiceType().name()))
-                            .build());
-                }
-            }
-            case CLIENT_GROUP_AUTHENTICATION_MEANS_UPDATED -> {
-                clientGroupOnboardedProviderRepository.save(ClientGroupOnboardedProvider.builder()
-                        .clientGroupOnboardedProviderId(ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId.builder()
-                                .clientGroupId(dto.getClientGroupId())
-                                .provider(dto.getProvider())
-                                .serviceType(ServiceType.valueOf(dto.getServiceType().name()))
-                                .build())
-                        .build());
-            }
-            case CLIENT_GROUP_AUTHENTICATION_MEANS_DELETED -> {
-                clientGroupOnboardedProviderRepository.deleteById(ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId.builder()
-                        .clientGroupId(dto.getClientGroupId())
-                        .provider(dto.getProvider())
-                        .serviceType(ServiceType.valueOf(dto.getServiceType().name()))
-                        .build());
+    void clientAuthenticationMeansUpdated(OnboardingChanges changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> changes.applyTo(onboardedProvidersJdbcRepository));
+        } catch (DataAccessException e) {
+            // A single invalid event (for example for a client that doesn't exist) fails the whole batch, in that case
+            // apply the changes one by one so only the invalid ones are lost.
+            log.warn("Failed to apply {} onboarding changes at once, applying them one by one: {}", changes.size(), e.getMessage()); //NOSHERIFF
+            changes.applyOneByOneTo(onboardedProvidersJdbcRepository);
+        }
 
-            }
+        // This has potential effect on the client-sites-list, the catalogue also signals the consumers of client sites.
+        if (changes.isClientGroupChanged()) {
+            // A client group onboarding affects every client in the group.
+            clientSiteCatalogue.invalidateAll();
+        } else {
+            changes.getChangedClientIds().forEach(clientSiteCatalogue::invalidate);
         }
-        // This has potential effect on the client-sites-list.
-        clientSitesUpdateProducer.sendMessage();
+    }
+
+    private static ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId clientOnboardedScrapingProviderId(ClientAuthenticationMeansEventDTO dto) {
+        return ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId.builder()
+                .clientId(dto.getClientId())
+                .provider(dto.getProvider())
+                .serviceType(ServiceType.valueOf(dto.getServiceType().name()))
+                .build();
+    }
+
+    private static ClientOnboardedProvider.ClientOnboardedProviderId clientOnboardedProviderId(ClientAuthenticationMeansEventDTO dto) {
+        return ClientOnboardedProvider.ClientOnboardedProviderId.builder()
+                .clientId(dto.getClientId())
+                .redirectUrlId(dto.getRedirectUrlId())
+                .provider(dto.getProvider())
+                .serviceType(ServiceType.valueOf(dto.getServiceType().name()))
+                .build();
+    }
+
+    private static ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId clientGroupOnboardedProviderId(ClientAuthenticationMeansEventDTO dto) {
+        return ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId.builder()
+                .clientGroupId(dto.getClientGroupId())
+                .provider(dto.getProvider())
+                .serviceType(ServiceType.valueOf(dto.getServiceType().name()))
+                .build();
     }
 
     @Data
@@ -137,6 +143,94 @@ class ClientAuthenticationMeansKafkaConsumer {
         }
     }
 
+    /**
+     * The net change of a number of events: per onboarding whether it should exist (true) or not (false).
+     */
+    static class OnboardingChanges {
+        private final Map<ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId, Boolean> clientOnboardedScrapingProviders = new LinkedHashMap<>();
+        private final Map<ClientOnboardedProvider.ClientOnboardedProviderId, Boolean> clientOnboardedProviders = new LinkedHashMap<>();
+        private final Map<ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId, Boolean> clientGroupOnboardedProviders = new LinkedHashMap<>();
+        @Getter
+        private final Set<UUID> changedClientIds = new HashSet<>();
+        @Getter
+        private boolean clientGroupChanged;
+
+        void add(ClientAuthenticationMeansMessageType messageTypeValue, ClientAuthenticationMeansEventDTO dto) {
+            switch (messageTypeValue) {
+                case CLIENT_AUTHENTICATION_MEANS_UPDATED, CLIENT_AUTHENTICATION_MEANS_DELETED -> {
+                    boolean exists = messageTypeValue == ClientAuthenticationMeansMessageType.CLIENT_AUTHENTICATION_MEANS_UPDATED;
+                    if (dto.isForScrapingProvider()) {
+                        clientOnboardedScrapingProviders.put(clientOnboardedScrapingProviderId(dto), exists);
+                    } else {
+                        clientOnboardedProviders.put(clientOnboardedProviderId(dto), exists);
+                    }
+                    changedClientIds.add(dto.getClientId());
+                }
+                case CLIENT_GROUP_AUTHENTICATION_MEANS_UPDATED, CLIENT_GROUP_AUTHENTICATION_MEANS_DELETED -> {
+                    boolean exists = messageTypeValue == ClientAuthenticationMeansMessageType.CLIENT_GROUP_AUTHENTICATION_MEANS_UPDATED;
+                    clientGroupOnboardedProviders.put(clientGroupOnboardedProviderId(dto), exists);
+                    clientGroupChanged = true;
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return size() == 0;
+        }
+
+        int size() {
+            return clientOnboardedScrapingProviders.size() + clientOnboardedProviders.size() + clientGroupOnboardedProviders.size();
+        }
+
+        void applyTo(OnboardedProvidersJdbcRepository repository) {
+            repository.deleteClientOnboardedScrapingProviders(withValue(clientOnboardedScrapingProviders, false));
+            repository.insertClientOnboardedScrapingProviders(withValue(clientOnboardedScrapingProviders, true));
+            repository.deleteClientOnboardedProviders(withValue(clientOnboardedProviders, false));
+            repository.insertClientOnboardedProviders(withValue(clientOnboardedProviders, true));
+            repository.deleteClientGroupOnboardedProviders(withValue(clientGroupOnboardedProviders, false));
+            repository.insertClientGroupOnboardedProviders(withValue(clientGroupOnboardedProviders, true));
+        }
+
+        void applyOneByOneTo(OnboardedProvidersJdbcRepository repository) {
+            clientOnboardedScrapingProviders.forEach((id, exists) -> applyOne(id, () -> {
+                if (exists) {
+                    repository.insertClientOnboardedScrapingProviders(List.of(id));
+                } else {
+                    repository.deleteClientOnboardedScrapingProviders(List.of(id));
+                }
+            }));
+            clientOnboardedProviders.forEach((id, exists) -> applyOne(id, () -> {
+                if (exists) {
+                    repository.insertClientOnboardedProviders(List.of(id));
+                } else {
+                    repository.deleteClientOnboardedProviders(List.of(id));
+                }
+            }));
+            clientGroupOnboardedProviders.forEach((id, exists) -> applyOne(id, () -> {
+                if (exists) {
+                    repository.insertClientGroupOnboardedProviders(List.of(id));
+                } else {
+                    repository.deleteClientGroupOnboardedProviders(List.of(id));
+                }
+            }));
+        }
+
+        private static void applyOne(Object id, Runnable change) {
+            try {
+                change.run();
+            } catch (DataAccessException e) {
+                log.error("Failed to apply the onboarding change for {}: {}", id, e.getMessage(), e); //NOSHERIFF
+            }
+        }
+
+        private static <K> List<K> withValue(Map<K, Boolean> changes, boolean exists) {
+            return changes.entrySet().stream()
+                    .filter(it -> it.getValue() == exists)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+        }
+    }
+
     enum ClientAuthenticationMeansMessageType {
         CLIENT_AUTHENTICATION_MEANS_UPDATED,
         CLIENT_AUTHENTICATION_MEANS_DELETED,
@@ -1,84 +1,103 @@
 package com.yolt.clients.authmeans;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
-import javax.persistence.Query;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * The onboarded provider view. This is a view on {@link ClientGroupOnboardedProvider}, {@link ClientOnboardedProvider}
  * and {@link ClientOnboardedScrapingProvider}
  *
+ * It is read from the table onboarded_provider_materialized, which database triggers keep up to date with these
+ * tables (see V038__onboarded_provider_materialized.sql), and which is indexed on (client_id, provider).
+ *
  * This repository was written in a rather non-Java-ish way because we were tired of fighting with JPA/Hibernate and
- * just wanted to do a "select * from onboarded_provider_view" without having to appease JPA by adding primary keys
+ * just wanted to do a "select * from onboarded_provider_materialized" without having to appease JPA by adding primary keys
  * to an entity when it doesn't make sense (subsequently causing all sorts of strange behaviour when one of the PK
  * columns was null in practice, etc.).
+ *
+ * The rows are read with a {@link JdbcTemplate}, which binds the uuid columns as {@link UUID}s and maps every row
+ * directly to an {@link OnboardedProviderView} (see OnboardedProviderViewRowMappingBenchmark).  Unlike a native query
+ * through the {@link EntityManager} that does not flush pending changes first, so {@link #flushPendingChanges()} does.
  */
 @Repository
 @RequiredArgsConstructor
 public class OnboardedProviderViewRepository {
 
     private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
 
     public List<OnboardedProviderView> selectAllForClientAndProvider(UUID clientId, String provider) {
-        return executeNativeQuery(entityManager.createNativeQuery("""
-                        select cast(client_id as text)
+        flushPendingChanges();
+        return jdbcTemplate.query("""
+                        select client_id
                              , provider
                              , service_type
-                             , cast(redirect_url_id as text)
-                          from onboarded_provider_view
-                         where client_id = ?1
-                           and provider = ?2
-                        """)
-                .setParameter(1, clientId)
-                .setParameter(2, provider)
+                             , redirect_url_id
+                          from onboarded_provider_materialized
+                         where client_id = ?
+                           and provider = ?
+                        """,
+                OnboardedProviderViewRepository::mapRow,
+                clientId, provider
         );
     }
 
     public List<OnboardedProviderView> selectAllForClient(UUID clientId) {
-        return executeNativeQuery(entityManager.createNativeQuery("""
-                        select cast(client_id as text)
+        flushPendingChanges();
+        return jdbcTemplate.query("""
+                        select client_id
                              , provider
                              , service_type
-                             , cast(redirect_url_id as text)
-                          from onboarded_provider_view
-                         where client_id = ?1
-                        """)
-                .setParameter(1, clientId)
+                             , redirect_url_id
+                          from onboarded_provider_materialized
+                         where client_id = ?
+                        """,
+                OnboardedProviderViewRepository::mapRow,
+                clientId
         );
     }
 
     public List<OnboardedProviderView> selectAll() {
-        return executeNativeQuery(entityManager.createNativeQuery("""
-                select cast(client_id as text)
+        flushPendingChanges();
+        return jdbcTemplate.query("""
+                select client_id
                      , provider
                      , service_type
-                     , cast(redirect_url_id as text)
-                  from onboarded_provider_view
-                """)
+                     , redirect_url_id
+                  from onboarded_provider_materialized
+                """,
+                OnboardedProviderViewRepository::mapRow
         );
     }
 
-    private List<OnboardedProviderView> executeNativeQuery(Query q) {
-        //noinspection unchecked
-        return ((List<Object[]>) q.getResultList())
-                .stream()
-                .map(OnboardedProviderViewRepository::map)
-                .collect(Collectors.toList());
-    }
-
-    private static OnboardedProviderView map(Object[] row) {
+    /**
+     * Maps a row with the columns client_id, provider, service_type and redirect_url_id.
+     */
+    public static OnboardedProviderView mapRow(ResultSet rs, int rowNum) throws SQLException {
         return new OnboardedProviderView(
-                UUID.fromString((String) row[0]),
-                (String) row[1],
-                ServiceType.valueOf((String) row[2]),
+                rs.getObject("client_id", UUID.class),
+                rs.getString("provider"),
+                ServiceType.valueOf(rs.getString("service_type")),
                 // redirectUrlId is nullable
-                row[3] != null ? UUID.fromString((String) row[3]) : null
+                rs.getObject("redirect_url_id", UUID.class)
         );
     }
 
+    /**
+     * Onboardings saved through JPA earlier in the current transaction are only visible to the queries above once
+     * they have been flushed.
+     */
+    private void flushPendingChanges() {
+        if (entityManager.isJoinedToTransaction()) {
+            entityManager.flush();
+        }
+    }
+
 }
@@ -0,0 +1,231 @@
+package com.yolt.clients.authmeans;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.apache.commons.lang3.tuple.Pair;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk writes to the onboarded provider tables, which would otherwise be a select and an insert or delete per row
+ * through Hibernate (the ids are assigned, so Hibernate has to check whether a row exists first).
+ * <p>
+ * Rows are inserted with multi-row {@code insert ... on conflict do nothing} statements and deleted with multi-row
+ * {@code delete ... where (..) in (..)} statements, {@link #CHUNK_SIZE} rows per statement.
+ * <p>
+ * The replace methods replace the contents of a table with a new set of rows, touching only the rows that changed.
+ * The new rows are written to a temporary staging table (dropped at the end of the transaction), after which the rows
+ * that are no longer present are deleted and the rows that are new are inserted, both with a single statement.  The
+ * work done on the actual table, and the number of rows that have to be held in memory afterwards, is proportional to
+ * the size of the change rather than to the size of the table.
+ */
+@Repository
+@RequiredArgsConstructor
+class OnboardedProvidersJdbcRepository {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private static final Table<ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId> CLIENT_GROUP_ONBOARDED_PROVIDER = new Table<>(
+            "client_group_onboarded_provider",
+            List.of("client_group_id", "provider", "service_type"),
+            id -> new Object[]{id.getClientGroupId(), id.getProvider(), id.getServiceType().name()},
+            (rs, rowNum) -> new ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId(
+                    rs.getObject("client_group_id", UUID.class),
+                    rs.getString("provider"),
+                    ServiceType.valueOf(rs.getString("service_type"))
+            )
+    );
+    private static final Table<ClientOnboardedProvider.ClientOnboardedProviderId> CLIENT_ONBOARDED_PROVIDER = new Table<>(
+            "client_onboarded_provider",
+            List.of("client_id", "redirect_url_id", "service_type", "provider"),
+            id -> new Object[]{id.getClientId(), id.getRedirectUrlId(), id.getServiceType().name(), id.getProvider()},
+            (rs, rowNum) -> new ClientOnboardedProvider.ClientOnboardedProviderId(
+                    rs.getObject("client_id", UUID.class),
+                    rs.getObject("redirect_url_id", UUID.class),
+                    ServiceType.valueOf(rs.getString("service_type")),
+                    rs.getString("provider")
+            )
+    );
+    private static final Table<ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId> CLIENT_ONBOARDED_SCRAPING_PROVIDER = new Table<>(
+            "client_onboarded_scraping_provider",
+            List.of("client_id", "provider", "service_type"),
+            id -> new Object[]{id.getClientId(), id.getProvider(), id.getServiceType().name()},
+            (rs, rowNum) -> new ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId(
+                    rs.getObject("client_id", UUID.class),
+                    rs.getString("provider"),
+                    ServiceType.valueOf(rs.getString("service_type"))
+            )
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert the given ids, ids that are already present are ignored.
+     */
+    public void insertClientGroupOnboardedProviders(Collection<ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId> ids) {
+        insert(CLIENT_GROUP_ONBOARDED_PROVIDER.getName(), CLIENT_GROUP_ONBOARDED_PROVIDER, ids);
+    }
+
+    /**
+     * Insert the given ids, ids that are already present are ignored.
+     */
+    public void insertClientOnboardedProviders(Collection<ClientOnboardedProvider.ClientOnboardedProviderId> ids) {
+        insert(CLIENT_ONBOARDED_PROVIDER.getName(), CLIENT_ONBOARDED_PROVIDER, ids);
+    }
+
+    /**
+     * Insert the given ids, ids that are already present are ignored.
+     */
+    public void insertClientOnboardedScrapingProviders(Collection<ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId> ids) {
+        insert(CLIENT_ONBOARDED_SCRAPING_PROVIDER.getName(), CLIENT_ONBOARDED_SCRAPING_PROVIDER, ids);
+    }
+
+    /**
+     * Delete the given ids, ids that are not present are ignored.
+     */
+    public void deleteClientGroupOnboardedProviders(Collection<ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId> ids) {
+        delete(CLIENT_GROUP_ONBOARDED_PROVIDER, ids);
+    }
+
+    /**
+     * Delete the given ids, ids that are not present are ignored.
+     */
+    public void deleteClientOnboardedProviders(Collection<ClientOnboardedProvider.ClientOnboardedProviderId> ids) {
+        delete(CLIENT_ONBOARDED_PROVIDER, ids);
+    }
+
+    /**
+     * Delete the given ids, ids that are not present are ignored.
+     */
+    public void deleteClientOnboardedScrapingProviders(Collection<ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId> ids) {
+        delete(CLIENT_ONBOARDED_SCRAPING_PROVIDER, ids);
+    }
+
+    /**
+     * @return the ids of the removed rows (left) and the ids of the added rows (right)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Pair<Collection<ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId>, Collection<ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId>> replaceClientGroupOnboardedProviders(
+            Collection<ClientGroupOnboardedProvider> clientGroupOnboardedProviders
+    ) {
+        return replace(CLIENT_GROUP_ONBOARDED_PROVIDER, clientGroupOnboardedProviders.stream()
+                .map(ClientGroupOnboardedProvider::getClientGroupOnboardedProviderId)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * @return the ids of the removed rows (left) and the ids of the added rows (right)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Pair<Collection<ClientOnboardedProvider.ClientOnboardedProviderId>, Collection<ClientOnboardedProvider.ClientOnboardedProviderId>> replaceClientOnboardedProviders(
+            Collection<ClientOnboardedProvider> clientOnboardedProviders
+    ) {
+        return replace(CLIENT_ONBOARDED_PROVIDER, clientOnboardedProviders.stream()
+                .map(ClientOnboardedProvider::getClientOnboardedProviderId)
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * @return the ids of the removed rows (left) and the ids of the added rows (right)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Pair<Collection<ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId>, Collection<ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId>> replaceClientOnboardedScrapingProviders(
+            Collection<ClientOnboardedScrapingProvider> clientOnboardedScrapingProviders
+    ) {
+        return replace(CLIENT_ONBOARDED_SCRAPING_PROVIDER, clientOnboardedScrapingProviders.stream()
+                .map(ClientOnboardedScrapingProvider::getClientOnboardedScrapingProviderId)
+                .collect(Collectors.toList()));
+    }
+
+    private <K> Pair<Collection<K>, Collection<K>> replace(Table<K> table, Collection<K> ids) {
+        String staging = "staging_" + table.getName();
+        String columnList = String.join(", ", table.getColumns());
+        String joinCondition = table.getColumns().stream().map(column -> "s." + column + " = t." + column).collect(Collectors.joining(" and "));
+
+        jdbcTemplate.execute("create temporary table " + staging + " on commit drop as select " + columnList + " from " + table.getName() + " with no data");
+        insert(staging, table, ids);
+        jdbcTemplate.execute("analyze " + staging);
+
+        List<K> removed = jdbcTemplate.query(
+                "delete from " + table.getName() + " t where not exists (select 1 from " + staging + " s where " + joinCondition + ") returning " + columnList,
+                table.getToKey()
+        );
+        List<K> added = jdbcTemplate.query(
+                "insert into " + table.getName() + " (" + columnList + ") select " + columnList + " from " + staging + " except select " + columnList + " from " + table.getName() + " returning " + columnList,
+                table.getToKey()
+        );
+        return Pair.of(removed, added);
+    }
+
+    /**
+     * @param into the table to insert into, either {@code table} itself or a table with the same columns
+     */
+    private <K> void insert(String into, Table<K> table, Collection<K> ids) {
+        String columnList = String.join(", ", table.getColumns());
+        for (List<K> chunk : chunks(ids)) {
+            String sql = "insert into " + into + " (" + columnList + ") values " + table.rowPlaceholders(chunk.size()) + " on conflict do nothing";
+            jdbcTemplate.update(sql, table.values(chunk));
+        }
+    }
+
+    private <K> void delete(Table<K> table, Collection<K> ids) {
+        String columnList = String.join(", ", table.getColumns());
+        for (List<K> chunk : chunks(ids)) {
+            String sql = "delete from " + table.getName() + " where (" + columnList + ") in (" + table.rowPlaceholders(chunk.size()) + ")";
+            jdbcTemplate.update(sql, table.values(chunk));
+        }
+    }
+
+    private static <K> List<List<K>> chunks(Collection<K> ids) {
+        List<K> all = new ArrayList<>(ids);
+        List<List<K>> chunks = new ArrayList<>();
+        for (int i = 0; i < all.size(); i += CHUNK_SIZE) {
+            chunks.add(all.subList(i, Math.min(i + CHUNK_SIZE, all.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * An onboarded provider table, all its columns except created_at form the primary key.
+     */
+    @Value
+    private static class Table<K> {
+        String name;
+        /**
+         * The primary key columns.
+         */
+        List<String> columns;
+        /**
+         * Maps an id to the values of {@link #columns}.
+         */
+        Function<K, Object[]> toRow;
+        /**
+         * Maps a row with {@link #columns} to an id.
+         */
+        RowMapper<K> toKey;
+
+        String rowPlaceholders(int rows) {
+            String row = columns.stream().map(column -> "?").collect(Collectors.joining(", ", "(", ")"));
+            return String.join(", ", Collections.nCopies(rows, row));
+        }
+
+        Object[] values(List<K> ids) {
+            Object[] values = new Object[ids.size() * columns.size()];
+            for (int i = 0; i < ids.size(); i++) {
+                System.arraycopy(toRow.apply(ids.get(i)), 0, values, i * columns.size(), columns.size());
+            }
+            return values;
+        }
+    }
+}
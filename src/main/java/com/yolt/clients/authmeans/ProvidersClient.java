@@ -1,18 +1,16 @@
 package com.yolt.clients.authmeans;
 
+import com.yolt.clients.http.OutboundHttpClients;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import nl.ing.lovebird.providerdomain.ServiceType;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.RequestEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
-import java.net.URI;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -23,16 +21,13 @@ import java.util.UUID;
 class ProvidersClient {
 
     RestTemplate restTemplate;
-    URI endpoint;
 
-    public ProvidersClient(RestTemplateBuilder restTemplateBuilder, @Value("${service.providers.url}") String providersUrl) {
-        this.restTemplate = restTemplateBuilder.build();
-        this.endpoint = URI.create(providersUrl + "/all-onboarded-providers");
+    public ProvidersClient(OutboundHttpClients outboundHttpClients, @Value("${service.providers.url}") String providersUrl) {
+        this.restTemplate = outboundHttpClients.restTemplateBuilder("providers").rootUri(providersUrl).build();
     }
 
     public Optional<List<OnboardedProvider>> retrieveAllAuthenticationMeans() {
-        RequestEntity<?> entity = new RequestEntity<Void>(HttpMethod.GET, endpoint);
-        var response = restTemplate.exchange(entity, new ParameterizedTypeReference<List<OnboardedProvider>>() {
+        var response = restTemplate.exchange("/all-onboarded-providers", HttpMethod.GET, null, new ParameterizedTypeReference<List<OnboardedProvider>>() {
         });
 
         if (response.getStatusCode() != HttpStatus.OK) {
@@ -1,9 +1,9 @@
 package com.yolt.clients.authmeans;
 
 import com.yolt.clients.client.ClientsRepository;
-import com.yolt.clients.client.redirecturls.repository.RedirectURL;
 import com.yolt.clients.client.redirecturls.repository.RedirectURLRepository;
 import com.yolt.clients.clientgroup.ClientGroupRepository;
+import com.yolt.clients.clientsite.ClientSiteCatalogue;
 import com.yolt.clients.model.Client;
 import com.yolt.clients.model.ClientGroup;
 import lombok.RequiredArgsConstructor;
@@ -15,14 +15,15 @@ import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 /**
- * This service clears out the following tables and re-fills them after retrieving a snapshot
- * from the providers service.
+ * This service replaces the contents of the following tables with a snapshot retrieved from the providers service.
  * - {@link ClientGroupOnboardedProvider}
  * - {@link ClientOnboardedProvider}
  * - {@link ClientOnboardedScrapingProvider}
@@ -34,13 +35,12 @@ import java.util.stream.StreamSupport;
 class SynchronizeWithProvidersService {
 
     ProvidersClient providersClient;
-    ClientGroupOnboardedProviderRepository clientGroupOnboardedProviderRepository;
-    ClientOnboardedProviderRepository clientOnboardedProviderRepository;
-    ClientOnboardedScrapingProviderRepository clientOnboardedScrapingProviderRepository;
+    OnboardedProvidersJdbcRepository onboardedProvidersJdbcRepository;
     ClientGroupRepository clientGroupRepository;
     RedirectURLRepository redirectURLRepository;
     ClientsRepository clientsRepository;
     TransactionTemplate transactionTemplate;
+    ClientSiteCatalogue clientSiteCatalogue;
 
 
     /**
@@ -82,9 +82,11 @@ class SynchronizeWithProvidersService {
                                     .build())
                             .collect(Collectors.toList());
 
-                    List<RedirectURL> allRedirectUrls = StreamSupport.stream(redirectURLRepository.findAll().spliterator(), false).collect(Collectors.toList());
-                    List<UUID> allClientGroupIds = clientGroupRepository.findAll().stream().map(ClientGroup::getId).collect(Collectors.toList());
-                    List<UUID> allClientIds = clientsRepository.findAll().stream().map(Client::getClientId).collect(Collectors.toList());
+                    Set<Pair<UUID, UUID>> allRedirectUrls = StreamSupport.stream(redirectURLRepository.findAll().spliterator(), false)
+                            .map(redirectURL -> Pair.of(redirectURL.getClientId(), redirectURL.getRedirectURLId()))
+                            .collect(Collectors.toSet());
+                    Set<UUID> allClientGroupIds = clientGroupRepository.findAll().stream().map(ClientGroup::getId).collect(Collectors.toSet());
+                    Set<UUID> allClientIds = clientsRepository.findAll().stream().map(Client::getClientId).collect(Collectors.toSet());
                     replaceAllData(
                             filterUnknownClientGroups(clientGroupOnboardedProviders, allClientGroupIds),
                             filterUnknownRedirectUrlReferences(clientOnboardedProviders, allRedirectUrls),
@@ -96,41 +98,48 @@ class SynchronizeWithProvidersService {
         );
     }
 
-    private List<ClientOnboardedScrapingProvider> filterUnknownClients(List<ClientOnboardedScrapingProvider> clientOnboardedScrapingProviders, List<UUID> allClientIds) {
-        return clientOnboardedScrapingProviders.stream().filter(it -> {
-            if (!allClientIds.contains(it.getClientOnboardedScrapingProviderId().getClientId())) {
-                log.info("Dropping {} because the client group Id does not exist in clients.", it); //NOSHERIFF
-                return false;
-            }
-            return true;
-        }).collect(Collectors.toList());
+    private List<ClientOnboardedScrapingProvider> filterUnknownClients(List<ClientOnboardedScrapingProvider> clientOnboardedScrapingProviders, Set<UUID> allClientIds) {
+        return dropUnknownReferences(
+                clientOnboardedScrapingProviders,
+                it -> allClientIds.contains(it.getClientOnboardedScrapingProviderId().getClientId()),
+                "the client Id does not exist in clients"
+        );
     }
 
-    private List<ClientOnboardedProvider> filterUnknownRedirectUrlReferences(List<ClientOnboardedProvider> clientOnboardedProviders, List<RedirectURL> allRedirectUrls) {
-        return clientOnboardedProviders.stream().filter(it -> {
-            ClientOnboardedProvider.ClientOnboardedProviderId id = it.getClientOnboardedProviderId();
-            UUID clientId = id.getClientId();
-            UUID redirectUrlId = id.getRedirectUrlId();
-            if (allRedirectUrls.stream().noneMatch(redirectURL -> redirectURL.getRedirectURLId().equals(redirectUrlId) && redirectURL.getClientId().equals(clientId))) {
-                log.info("Dropping {} because the client redirect url does not exist in clients.", it); //NOSHERIFF
-                return false;
-            }
-            return true;
-        }).collect(Collectors.toList());
+    /**
+     * @param allRedirectUrls pairs of (clientId, redirectUrlId)
+     */
+    private List<ClientOnboardedProvider> filterUnknownRedirectUrlReferences(List<ClientOnboardedProvider> clientOnboardedProviders, Set<Pair<UUID, UUID>> allRedirectUrls) {
+        return dropUnknownReferences(
+                clientOnboardedProviders,
+                it -> allRedirectUrls.contains(Pair.of(it.getClientOnboardedProviderId().getClientId(), it.getClientOnboardedProviderId().getRedirectUrlId())),
+                "the client redirect url does not exist in clients"
+        );
     }
 
-    private List<ClientGroupOnboardedProvider> filterUnknownClientGroups(List<ClientGroupOnboardedProvider> clientGroupOnboardedProviders, List<UUID> allClientGroupIds) {
-        return clientGroupOnboardedProviders.stream().filter(it -> {
-            if (!allClientGroupIds.contains(it.getClientGroupOnboardedProviderId().getClientGroupId())) {
-                log.info("Dropping {} because the client group Id does not exist in clients.", it); //NOSHERIFF
-                return false;
-            }
-            return true;
-        }).collect(Collectors.toList());
+    private List<ClientGroupOnboardedProvider> filterUnknownClientGroups(List<ClientGroupOnboardedProvider> clientGroupOnboardedProviders, Set<UUID> allClientGroupIds) {
+        return dropUnknownReferences(
+                clientGroupOnboardedProviders,
+                it -> allClientGroupIds.contains(it.getClientGroupOnboardedProviderId().getClientGroupId()),
+                "the client group Id does not exist in clients"
+        );
+    }
+
+    /**
+     * Keep the entities that refer to something that exists, and log all others in a single line.
+     */
+    private static <E> List<E> dropUnknownReferences(List<E> entities, Predicate<E> isKnown, String reason) {
+        Map<Boolean, List<E>> entitiesByKnown = entities.stream().collect(Collectors.partitioningBy(isKnown));
+        List<E> dropped = entitiesByKnown.get(false);
+        if (!dropped.isEmpty()) {
+            log.info("Dropping {} entries because {}: {}", dropped.size(), reason, dropped); //NOSHERIFF
+        }
+        return entitiesByKnown.get(true);
     }
 
     /**
-     * Replace all data in a single transaction.
+     * Replace all data in a single transaction.  Only the rows that are different are deleted or inserted, see
+     * {@link OnboardedProvidersJdbcRepository}.
      */
     public void replaceAllData(
             Collection<ClientGroupOnboardedProvider> clientGroupOnboardedProviders,
@@ -139,59 +148,20 @@ class SynchronizeWithProvidersService {
             boolean dryrun
     ) {
         transactionTemplate.execute(ctx -> {
-            // Retrieve the current state.
-            List<ClientGroupOnboardedProvider> oldClientGroupOnboardedProviders = StreamSupport.stream(clientGroupOnboardedProviderRepository.findAll().spliterator(), false).collect(Collectors.toList());
-            List<ClientOnboardedProvider> oldClientOnboardedProviders = StreamSupport.stream(clientOnboardedProviderRepository.findAll().spliterator(), false).collect(Collectors.toList());
-            List<ClientOnboardedScrapingProvider> oldClientOnboardedScrapingProviders = StreamSupport.stream(clientOnboardedScrapingProviderRepository.findAll().spliterator(), false).collect(Collectors.toList());
-
-            // Delete all the data.
-            clientGroupOnboardedProviderRepository.deleteAll();
-            clientOnboardedProviderRepository.deleteAll();
-            clientOnboardedScrapingProviderRepository.deleteAll();
-
-            // Insert all the new data.
-            clientGroupOnboardedProviderRepository.saveAll(clientGroupOnboardedProviders);
-            clientOnboardedProviderRepository.saveAll(clientOnboardedProviders);
-            clientOnboardedScrapingProviderRepository.saveAll(clientOnboardedScrapingProviders);
-
-            // Retrieve the new state.
-            List<ClientGroupOnboardedProvider> newClientGroupOnboardedProviders = StreamSupport.stream(clientGroupOnboardedProviderRepository.findAll().spliterator(), false).collect(Collectors.toList());
-            List<ClientOnboardedProvider> newClientOnboardedProviders = StreamSupport.stream(clientOnboardedProviderRepository.findAll().spliterator(), false).collect(Collectors.toList());
-            List<ClientOnboardedScrapingProvider> newClientOnboardedScrapingProviders = StreamSupport.stream(clientOnboardedScrapingProviderRepository.findAll().spliterator(), false).collect(Collectors.toList());
-
-            // Output a diff.
-            logDiff(dryrun, diff(
-                    oldClientGroupOnboardedProviders,
-                    newClientGroupOnboardedProviders,
-                    ClientGroupOnboardedProvider::getClientGroupOnboardedProviderId
-            ));
-            logDiff(dryrun, diff(
-                    oldClientOnboardedProviders,
-                    newClientOnboardedProviders,
-                    ClientOnboardedProvider::getClientOnboardedProviderId
-            ));
-            logDiff(dryrun, diff(
-                    oldClientOnboardedScrapingProviders,
-                    newClientOnboardedScrapingProviders,
-                    ClientOnboardedScrapingProvider::getClientOnboardedScrapingProviderId
-            ));
+            logDiff(dryrun, onboardedProvidersJdbcRepository.replaceClientGroupOnboardedProviders(clientGroupOnboardedProviders));
+            logDiff(dryrun, onboardedProvidersJdbcRepository.replaceClientOnboardedProviders(clientOnboardedProviders));
+            logDiff(dryrun, onboardedProvidersJdbcRepository.replaceClientOnboardedScrapingProviders(clientOnboardedScrapingProviders));
 
             if (dryrun) {
                 ctx.setRollbackOnly();
+            } else {
+                clientSiteCatalogue.invalidateAll();
             }
 
             return null;
         });
     }
 
-    static <E, K> Pair<Collection<K>, Collection<K>> diff(Collection<E> lhs, Collection<E> rhs, Function<E, K> extractKey) {
-        var lhsKeys = lhs.stream().map(extractKey).collect(Collectors.toSet());
-        var rhsKeys = rhs.stream().map(extractKey).collect(Collectors.toSet());
-        var deleted = lhsKeys.stream().filter(k -> !rhsKeys.contains(k)).collect(Collectors.toList());
-        var added = rhsKeys.stream().filter(k -> !lhsKeys.contains(k)).collect(Collectors.toList());
-        return Pair.of(deleted, added);
-    }
-
     static <K> void logDiff(boolean dryrun, Pair<Collection<K>, Collection<K>> diff) {
         log.info("{} {}", dryrun ? "would remove" : "did remove", diff.getLeft());
         log.info("{} {}", dryrun ? "would add" : "did add", diff.getRight());
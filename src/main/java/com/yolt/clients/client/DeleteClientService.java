@@ -10,7 +10,7 @@ import com.yolt.clients.client.redirecturls.RedirectURLService;
 import com.yolt.clients.client.requesttokenpublickeys.RequestTokenPublicKeyService;
 import com.yolt.clients.client.webhooks.WebhookService;
 import com.yolt.clients.events.ClientDeletedEvent;
-import com.yolt.clients.jira.JiraService;
+import com.yolt.clients.jira.JiraOutbox;
 import lombok.RequiredArgsConstructor;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
@@ -39,7 +39,7 @@ public class DeleteClientService {
 
     private final OutboundAllowListService outboundAllowListService;
     private final IPAllowListService ipAllowListService;
-    private final JiraService jiraService;
+    private final JiraOutbox jiraOutbox;
 
     private final ClientDeletedEventProducer clientDeletedEventProducer;
 
@@ -89,7 +89,7 @@ public class DeleteClientService {
         // TODO add cleanup job for DN allow list
 
         // create tasks to clean up other systems
-        jiraService.createIssue(
+        jiraOutbox.createIssue(
                 clientToken,
                 """
                         Delete client: %s
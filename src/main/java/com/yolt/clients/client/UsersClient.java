@@ -1,11 +1,11 @@
 package com.yolt.clients.client;
 
 import com.yolt.clients.client.dto.CountDTO;
+import com.yolt.clients.http.OutboundHttpClients;
 import lombok.extern.slf4j.Slf4j;
 import nl.ing.lovebird.clienttokens.ClientToken;
 import nl.ing.lovebird.clienttokens.constants.ClientTokenConstants;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -19,9 +19,9 @@ public class UsersClient {
 
     private final RestTemplate usersRestTemplate;
 
-    public UsersClient(RestTemplateBuilder restTemplateBuilder,
+    public UsersClient(OutboundHttpClients outboundHttpClients,
                        @Value("${service.users.url}") String usersUrl) {
-        this.usersRestTemplate = restTemplateBuilder.rootUri(usersUrl).build();
+        this.usersRestTemplate = outboundHttpClients.restTemplateBuilder("users").rootUri(usersUrl).build();
     }
 
     public long getCount(ClientToken clientToken) {
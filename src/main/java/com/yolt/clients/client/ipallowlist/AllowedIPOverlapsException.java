@@ -0,0 +1,7 @@
+package com.yolt.clients.client.ipallowlist;
+
+public class AllowedIPOverlapsException extends RuntimeException {
+    public AllowedIPOverlapsException(String cidr) {
+        super("the ip block %s overlaps with another ip block of the client".formatted(cidr));
+    }
+}
@@ -0,0 +1,76 @@
+package com.yolt.clients.client.ipallowlist;
+
+import inet.ipaddr.IPAddress;
+import inet.ipaddr.IPAddressString;
+import inet.ipaddr.IPAddressStringParameters;
+import inet.ipaddr.ipv4.IPv4AddressTrie;
+import inet.ipaddr.ipv6.IPv6AddressTrie;
+
+/**
+ * A set of ip blocks in a binary radix trie per ip version, which answers whether an address or block is covered by
+ * any of the blocks without looking at the other blocks.
+ * <p>
+ * Not thread-safe for writes: a trie that is shared between threads must not be modified anymore.
+ */
+class AllowedIPTrie {
+
+    private static final IPAddressStringParameters PARAMETERS = new IPAddressStringParameters.Builder()
+            .allowEmpty(false)
+            .toParams();
+
+    private final IPv4AddressTrie ipv4 = new IPv4AddressTrie();
+    private final IPv6AddressTrie ipv6 = new IPv6AddressTrie();
+
+    /**
+     * @throws IllegalArgumentException if ip is not an ip address or block
+     */
+    static IPAddress toAddress(String ip) {
+        IPAddress address = new IPAddressString(ip, PARAMETERS).getAddress();
+        if (address == null) {
+            throw new IllegalArgumentException("not an ip address or block: " + ip);
+        }
+        return address;
+    }
+
+    /**
+     * @param cidr an ip block in cidr notation, or a single address
+     * @return the block, with the host bits of the address zeroed
+     * @throws IllegalArgumentException if cidr is not an ip block or address
+     */
+    static IPAddress toBlock(String cidr) {
+        return toAddress(cidr).toPrefixBlock();
+    }
+
+    void add(IPAddress block) {
+        if (block.isIPv4()) {
+            ipv4.add(block.toIPv4());
+        } else {
+            ipv6.add(block.toIPv6());
+        }
+    }
+
+    /**
+     * @return whether exactly this block has been added
+     */
+    boolean contains(IPAddress block) {
+        return block.isIPv4() ? ipv4.contains(block.toIPv4()) : ipv6.contains(block.toIPv6());
+    }
+
+    /**
+     * @return whether an added block contains the given address or block
+     */
+    boolean covers(IPAddress address) {
+        return address.isIPv4() ? ipv4.elementContains(address.toIPv4()) : ipv6.elementContains(address.toIPv6());
+    }
+
+    /**
+     * @return whether an added block contains, or is contained by, the given block.  Prefix blocks cannot overlap
+     * partially, so this is whether the block shares an address with any of the added blocks.
+     */
+    boolean overlaps(IPAddress block) {
+        if (block.isIPv4()) {
+            return ipv4.elementContains(block.toIPv4()) || ipv4.elementsContainedBy(block.toIPv4()) != null;
+        }
+        return ipv6.elementContains(block.toIPv6()) || ipv6.elementsContainedBy(block.toIPv6()) != null;
+    }
+}
@@ -2,6 +2,8 @@ package com.yolt.clients.client.ipallowlist;
 
 import com.yolt.clients.client.ipallowlist.dto.AllowedIPDTO;
 import com.yolt.clients.client.ipallowlist.dto.AllowedIPIdListDTO;
+import com.yolt.clients.client.ipallowlist.dto.IPAddressesDTO;
+import com.yolt.clients.client.ipallowlist.dto.IPAllowedDTO;
 import com.yolt.clients.client.ipallowlist.dto.NewAllowedIPsDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +29,7 @@ public class IPAllowListController {
 
     private static final String ASSISTANCE_PORTAL_YTS = "assistance-portal-yts";
     private static final String DEV_PORTAL = "dev-portal";
+    private static final String API_GATEWAY = "api-gateway";
 
     private final IPAllowListService ipAllowListService;
     private final ClientIdVerificationService clientIdVerificationService;
@@ -47,6 +50,43 @@ public class IPAllowListController {
         return ipAllowListService.findAll(clientId);
     }
 
+    /**
+     * Check whether an ip address is in one of the applied ip blocks of a client, for components that enforce the
+     * allowlist.
+     *
+     * @param clientToken the client token of the client
+     * @param clientId    the client id of the client
+     * @param ip          the ip address (v4 or v6) to check
+     * @return whether the address is allowed
+     */
+    @GetMapping(value = "allowed", produces = APPLICATION_JSON_VALUE)
+    public IPAllowedDTO isAllowed(
+            @VerifiedClientToken(restrictedTo = {API_GATEWAY}) final ClientToken clientToken,
+            @PathVariable final UUID clientId,
+            @RequestParam final String ip
+    ) {
+        clientIdVerificationService.verify(clientToken, clientId);
+        return ipAllowListService.isAllowed(clientId, ip);
+    }
+
+    /**
+     * Check for a number of ip addresses whether they are in one of the applied ip blocks of a client.
+     *
+     * @param clientToken    the client token of the client
+     * @param clientId       the client id of the client
+     * @param ipAddressesDTO the ip addresses (v4 or v6) to check
+     * @return for every address whether it is allowed
+     */
+    @PostMapping(value = "allowed", produces = APPLICATION_JSON_VALUE)
+    public Set<IPAllowedDTO> areAllowed(
+            @VerifiedClientToken(restrictedTo = {API_GATEWAY}) final ClientToken clientToken,
+            @PathVariable final UUID clientId,
+            @Valid @RequestBody final IPAddressesDTO ipAddressesDTO
+    ) {
+        clientIdVerificationService.verify(clientToken, clientId);
+        return ipAllowListService.areAllowed(clientId, ipAddressesDTO.getIps());
+    }
+
     /**
      * Create or re-add allowed ip blocks.
      *
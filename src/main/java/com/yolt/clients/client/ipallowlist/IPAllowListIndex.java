@@ -0,0 +1,91 @@
+package com.yolt.clients.client.ipallowlist;
+
+import com.yolt.clients.config.TransactionCallbacks;
+import com.yolt.clients.jira.Status;
+import inet.ipaddr.IPAddress;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory, per-client {@link AllowedIPTrie} of the applied ip blocks, the blocks that are {@link Status#ADDED} or
+ * still {@link Status#PENDING_REMOVAL}, to answer whether an address is allowed for a client.
+ * <p>
+ * A trie is built on the first lookup for a client.  The {@link IPAllowListService} invalidates the trie of a client
+ * after a commit that changed its blocks, other pods pick up the change once their trie is older than
+ * {@code clients.ip-allow-list.index-max-age}.  A rebuild that raced with an invalidation is served, but not stored.
+ */
+@Slf4j
+@Component
+class IPAllowListIndex {
+
+    private static final Set<Status> APPLIED = Set.of(Status.ADDED, Status.PENDING_REMOVAL);
+
+    private final IPAllowListRepository ipAllowListRepository;
+    private final Clock clock;
+    private final Duration maxAge;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    IPAllowListIndex(IPAllowListRepository ipAllowListRepository,
+                     Clock clock,
+                     @org.springframework.beans.factory.annotation.Value("${clients.ip-allow-list.index-max-age:1m}") Duration maxAge) {
+        this.ipAllowListRepository = ipAllowListRepository;
+        this.clock = clock;
+        this.maxAge = maxAge;
+    }
+
+    boolean isAllowed(UUID clientId, IPAddress address) {
+        return getOrLoad(clientId).getTrie().covers(address);
+    }
+
+    /**
+     * Drop the trie of the client, after the surrounding transaction commits if there is one.
+     */
+    void invalidate(UUID clientId) {
+        TransactionCallbacks.afterCommit(() -> remove(clientId));
+    }
+
+    private void remove(UUID clientId) {
+        version.incrementAndGet();
+        entries.remove(clientId);
+    }
+
+    private Entry getOrLoad(UUID clientId) {
+        Instant now = Instant.now(clock);
+        Entry entry = entries.get(clientId);
+        if (entry != null && entry.getLoadedAt().plus(maxAge).isAfter(now)) {
+            return entry;
+        }
+
+        long versionBeforeLoad = version.get();
+        var trie = new AllowedIPTrie();
+        ipAllowListRepository.findAllByClientIdAndStatusIn(clientId, APPLIED).forEach(allowedIP -> {
+            try {
+                trie.add(AllowedIPTrie.toBlock(allowedIP.getCidr()));
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping allowed ip {} of client {}: {}", allowedIP.getId(), clientId, e.getMessage()); //NOSHERIFF
+            }
+        });
+        Entry loaded = new Entry(trie, now);
+        // The version is checked while the key is locked, an invalidation either happened before this check or removes
+        // the stored entry after it.
+        entries.compute(clientId, (id, current) -> version.get() == versionBeforeLoad ? loaded : current);
+        return loaded;
+    }
+
+    @Value
+    private static class Entry {
+        AllowedIPTrie trie;
+        Instant loadedAt;
+    }
+}
@@ -15,7 +15,7 @@ public interface IPAllowListRepository extends CrudRepository<AllowedIP, UUID> {
 
     Optional<AllowedIP> findByClientIdAndId(UUID clientId, UUID id);
 
-    Optional<AllowedIP> findByClientIdAndCidr(UUID clientId, String cidr);
+    Set<AllowedIP> findAllByClientIdAndStatusIn(UUID clientId, Set<Status> statuses);
 
     Set<AllowedIP> findAllByClientIdAndLastUpdatedAfterAndJiraTicketNotNull(UUID clientId, LocalDateTime after);
 
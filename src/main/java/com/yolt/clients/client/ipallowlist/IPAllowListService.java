@@ -2,20 +2,27 @@ package com.yolt.clients.client.ipallowlist;
 
 import com.yolt.clients.client.ipallowlist.dto.AllowedIPDTO;
 import com.yolt.clients.client.ipallowlist.dto.AllowedIPIdListDTO;
+import com.yolt.clients.client.ipallowlist.dto.IPAllowedDTO;
 import com.yolt.clients.client.ipallowlist.dto.NewAllowedIPsDTO;
 import com.yolt.clients.client.redirecturls.Action;
-import com.yolt.clients.jira.JiraService;
+import com.yolt.clients.jira.JiraOutbox;
+import com.yolt.clients.jira.JiraTicketRateLimiter;
+import com.yolt.clients.jira.JiraTicketRateLimiter.Resource;
 import com.yolt.clients.jira.Status;
+import inet.ipaddr.IPAddress;
 import lombok.extern.slf4j.Slf4j;
 import nl.ing.lovebird.clienttokens.ClientToken;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -24,18 +31,21 @@ import java.util.stream.Collectors;
 public class IPAllowListService {
 
     private final IPAllowListRepository ipAllowListRepository;
-    private final JiraService jiraService;
+    private final JiraOutbox jiraOutbox;
     private final Clock clock;
-    private final int maxOpenTicketsInLast24Hours;
+    private final JiraTicketRateLimiter jiraTicketRateLimiter;
+    private final IPAllowListIndex ipAllowListIndex;
 
     public IPAllowListService(IPAllowListRepository ipAllowListRepository,
-                              JiraService jiraService,
+                              JiraOutbox jiraOutbox,
                               Clock clock,
-                              @Value("${yolt.jira.max_open_tickets}") int maxOpenTicketsInLast24Hours) {
+                              JiraTicketRateLimiter jiraTicketRateLimiter,
+                              IPAllowListIndex ipAllowListIndex) {
         this.ipAllowListRepository = ipAllowListRepository;
-        this.jiraService = jiraService;
+        this.jiraOutbox = jiraOutbox;
         this.clock = clock;
-        this.maxOpenTicketsInLast24Hours = maxOpenTicketsInLast24Hours;
+        this.jiraTicketRateLimiter = jiraTicketRateLimiter;
+        this.ipAllowListIndex = ipAllowListIndex;
     }
 
     public Set<AllowedIPDTO> findAll(UUID clientId) {
@@ -54,17 +64,33 @@ public class IPAllowListService {
         return ipAllowListRepository.existsByClientIdAndStatus(clientToken.getClientIdClaim(), Status.PENDING_ADDITION);
     }
 
+    public IPAllowedDTO isAllowed(UUID clientId, String ip) {
+        return new IPAllowedDTO(ip, ipAllowListIndex.isAllowed(clientId, toAddress(ip)));
+    }
+
+    public Set<IPAllowedDTO> areAllowed(UUID clientId, Set<String> ips) {
+        return ips.stream()
+                .map(ip -> isAllowed(clientId, ip))
+                .collect(Collectors.toSet());
+    }
+
+    @Transactional
     public Set<AllowedIPDTO> create(ClientToken clientToken, NewAllowedIPsDTO newAllowedIPsDTO) {
         final UUID clientId = clientToken.getClientIdClaim();
-        rateLimit(clientId);
+        jiraTicketRateLimiter.check(clientId, Resource.IP_ALLOW_LIST);
         final var jiraData = new JiraAllowedIPData(Action.CREATE);
 
+        Map<IPAddress, AllowedIP> existingIPs = ipAllowListRepository.findAllByClientIdOrderByLastUpdatedDesc(clientId).stream()
+                .collect(Collectors.toMap(allowedIP -> AllowedIPTrie.toBlock(allowedIP.getCidr()), Function.identity(), (first, second) -> first));
+        validateNoOverlap(newAllowedIPsDTO.getCidrs(), existingIPs.values());
+
         Set<AllowedIP> result = newAllowedIPsDTO.getCidrs().stream()
-                .map(cidr -> findOrCreateAllowedIpItem(clientId, cidr, jiraData))
+                .map(cidr -> findOrCreateAllowedIpItem(clientId, cidr, existingIPs, jiraData))
                 .map(allowedIP -> markAsAddedIfRequired(allowedIP, jiraData))
                 .collect(Collectors.toSet());
 
-        String jiraTicket = jiraService.createIssue(clientToken, jiraData);
+        String jiraTicket = jiraOutbox.createIssue(clientToken, jiraData);
+        ipAllowListIndex.invalidate(clientId);
 
         return result.stream()
                 .map(allowedIP -> setJiraTicketIfApplicable(jiraData, jiraTicket, allowedIP))
@@ -73,9 +99,10 @@ public class IPAllowListService {
                 .collect(Collectors.toSet());
     }
 
+    @Transactional
     public Set<AllowedIPDTO> deleteLimited(ClientToken clientToken, AllowedIPIdListDTO itemsToRemove) {
         var clientId = clientToken.getClientIdClaim();
-        rateLimit(clientId);
+        jiraTicketRateLimiter.check(clientId, Resource.IP_ALLOW_LIST);
         var jiraData = new JiraAllowedIPData(Action.DELETE);
         var result = itemsToRemove.getIds().stream()
                 .map(id -> getAllowedIP(clientId, id))
@@ -83,8 +110,9 @@ public class IPAllowListService {
                 .map(allowedIP -> markAsRemovedIfRequired(jiraData, allowedIP))
                 .collect(Collectors.toSet());
 
-        var jiraTicket = jiraService.createIssue(clientToken, jiraData);
-        jiraService.updateIssue(jiraData);
+        var jiraTicket = jiraOutbox.createIssue(clientToken, jiraData);
+        jiraOutbox.updateIssue(jiraData);
+        ipAllowListIndex.invalidate(clientId);
 
         return result.stream()
                 .map(allowedIP -> setJiraTicketIfApplicable(jiraData, jiraTicket, allowedIP))
@@ -93,6 +121,7 @@ public class IPAllowListService {
                 .collect(Collectors.toSet());
     }
 
+    @Transactional
     public void delete(ClientToken clientToken) {
         var clientId = clientToken.getClientIdClaim();
         var jiraData = new JiraAllowedIPData(Action.DELETE);
@@ -100,32 +129,23 @@ public class IPAllowListService {
                 .map(allowedIP -> markAsRemovedIfRequired(jiraData, allowedIP))
                 .collect(Collectors.toSet());
 
-        jiraService.createIssue(clientToken, jiraData);
-        jiraService.updateIssue(jiraData);
+        jiraOutbox.createIssue(clientToken, jiraData);
+        jiraOutbox.updateIssue(jiraData);
         ipAllowListRepository.deleteAll(allowedIPs);
+        ipAllowListIndex.invalidate(clientId);
     }
 
     public Set<AllowedIPDTO> markApplied(ClientToken clientToken, AllowedIPIdListDTO itemsToMarkApplied) {
         UUID clientId = clientToken.getClientIdClaim();
 
-        return itemsToMarkApplied.getIds().stream()
+        Set<AllowedIPDTO> result = itemsToMarkApplied.getIds().stream()
                 .map(id -> getAllowedIP(clientId, id))
                 .filter(Predicate.not(Objects::isNull))
                 .map(this::markAsAppliedIfRequired)
                 .map(allowedIP -> mapToDTO(ipAllowListRepository.save(allowedIP)))
                 .collect(Collectors.toSet());
-    }
-
-    private void rateLimit(UUID clientId) {
-        LocalDateTime countAfter = LocalDateTime.now(clock).minusDays(1);
-        long numberOfJiraTickets = ipAllowListRepository.findAllByClientIdAndLastUpdatedAfterAndJiraTicketNotNull(clientId, countAfter)
-                .stream()
-                .map(AllowedIP::getJiraTicket)
-                .distinct()
-                .count();
-        if (numberOfJiraTickets >= maxOpenTicketsInLast24Hours) {
-            throw new TooManyPendingTasksException(clientId);
-        }
+        ipAllowListIndex.invalidate(clientId);
+        return result;
     }
 
     public Set<AllowedIPDTO> markDenied(ClientToken clientToken, AllowedIPIdListDTO itemsToMarkDenied) {
@@ -140,13 +160,42 @@ public class IPAllowListService {
                 .collect(Collectors.toSet());
     }
 
-    private AllowedIP findOrCreateAllowedIpItem(UUID clientId, String cidr, JiraAllowedIPData jiraData) {
-        return ipAllowListRepository.findByClientIdAndCidr(clientId, cidr)
-                .orElseGet(() -> {
-                    var newAllowedIP = new AllowedIP(UUID.randomUUID(), clientId, cidr, Status.PENDING_ADDITION, LocalDateTime.now(clock), null);
-                    jiraData.withItemToBeAdded(newAllowedIP);
-                    return newAllowedIP;
-                });
+    /**
+     * Reject ip blocks that overlap with, but are not the same as, a block of the client that is or will be added, or
+     * with another requested block.  Re-adding a block that the client already has is allowed.
+     */
+    private void validateNoOverlap(Set<String> cidrs, Collection<AllowedIP> existingIPs) {
+        var activeBlocks = new AllowedIPTrie();
+        existingIPs.stream()
+                .filter(allowedIP -> allowedIP.getStatus() == Status.ADDED || allowedIP.getStatus() == Status.PENDING_ADDITION)
+                .forEach(allowedIP -> activeBlocks.add(AllowedIPTrie.toBlock(allowedIP.getCidr())));
+
+        var requestedBlocks = new AllowedIPTrie();
+        for (String cidr : cidrs) {
+            IPAddress block = AllowedIPTrie.toBlock(cidr);
+            if (requestedBlocks.overlaps(block) || !activeBlocks.contains(block) && activeBlocks.overlaps(block)) {
+                throw new AllowedIPOverlapsException(cidr);
+            }
+            requestedBlocks.add(block);
+        }
+    }
+
+    private AllowedIP findOrCreateAllowedIpItem(UUID clientId, String cidr, Map<IPAddress, AllowedIP> existingIPs, JiraAllowedIPData jiraData) {
+        AllowedIP existingIP = existingIPs.get(AllowedIPTrie.toBlock(cidr));
+        if (existingIP != null) {
+            return existingIP;
+        }
+        var newAllowedIP = new AllowedIP(UUID.randomUUID(), clientId, cidr, Status.PENDING_ADDITION, LocalDateTime.now(clock), null);
+        jiraData.withItemToBeAdded(newAllowedIP);
+        return newAllowedIP;
+    }
+
+    private static IPAddress toAddress(String ip) {
+        try {
+            return AllowedIPTrie.toAddress(ip);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidIPAddressException(ip);
+        }
     }
 
     private AllowedIP getAllowedIP(UUID clientId, UUID id) {
@@ -218,6 +267,6 @@ public class IPAllowListService {
     }
 
     private AllowedIPDTO mapToDTO(AllowedIP allowedIP) {
-        return new AllowedIPDTO(allowedIP.getId(), allowedIP.getCidr(), allowedIP.getLastUpdated(), allowedIP.getStatus(), allowedIP.getJiraTicket());
+        return new AllowedIPDTO(allowedIP.getId(), allowedIP.getCidr(), allowedIP.getLastUpdated(), allowedIP.getStatus(), JiraOutbox.publicTicket(allowedIP.getJiraTicket()));
     }
 }
@@ -0,0 +1,7 @@
+package com.yolt.clients.client.ipallowlist;
+
+public class InvalidIPAddressException extends RuntimeException {
+    public InvalidIPAddressException(String ip) {
+        super("not a valid ip address: %s".formatted(ip));
+    }
+}
@@ -0,0 +1,16 @@
+package com.yolt.clients.client.ipallowlist.dto;
+
+import lombok.Value;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.Set;
+
+@Value
+public class IPAddressesDTO {
+    @NotNull
+    @NotEmpty
+    @Size(max = 10000)
+    Set<@NotNull String> ips;
+}
@@ -0,0 +1,9 @@
+package com.yolt.clients.client.ipallowlist.dto;
+
+import lombok.Value;
+
+@Value
+public class IPAllowedDTO {
+    String ip;
+    boolean allowed;
+}
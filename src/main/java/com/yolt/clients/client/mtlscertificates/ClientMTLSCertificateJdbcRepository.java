@@ -0,0 +1,68 @@
+package com.yolt.clients.client.mtlscertificates;
+
+import com.yolt.clients.client.mtlscertificates.ClientMTLSCertificate.CompositeKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Writes the seen timestamps of client mTLS certificates with multi-row statements, {@link #CHUNK_SIZE} certificates
+ * per statement.
+ */
+@Repository
+@RequiredArgsConstructor
+class ClientMTLSCertificateJdbcRepository {
+
+    private static final int CHUNK_SIZE = 500;
+    private static final String ROW_PLACEHOLDER = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Insert the given certificates.  For certificates that already exist only first_seen is moved back and last_seen
+     * (and with it sort_date) is moved forward, the other columns are left as they are.
+     *
+     * @return per written certificate whether it was inserted (true) or already existed (false)
+     */
+    public Map<CompositeKey, Boolean> upsertSeen(Collection<ClientMTLSCertificate> certificates) {
+        List<ClientMTLSCertificate> all = new ArrayList<>(certificates);
+        Map<CompositeKey, Boolean> inserted = new HashMap<>();
+        for (int i = 0; i < all.size(); i += CHUNK_SIZE) {
+            List<ClientMTLSCertificate> chunk = all.subList(i, Math.min(i + CHUNK_SIZE, all.size()));
+            String sql = """
+                    insert into client_mtls_certificates (client_id, fingerprint, serial, subject_dn, issuer_dn, valid_start, valid_end, first_seen, last_seen, certificate, sort_date)
+                    values %s
+                    on conflict (client_id, fingerprint) do update
+                       set first_seen = least(client_mtls_certificates.first_seen, excluded.first_seen)
+                         , last_seen = greatest(client_mtls_certificates.last_seen, excluded.last_seen)
+                         , sort_date = greatest(client_mtls_certificates.last_seen, excluded.last_seen)
+                    returning client_id, fingerprint, (xmax = 0) as inserted
+                    """.formatted(String.join(", ", Collections.nCopies(chunk.size(), ROW_PLACEHOLDER)));
+            jdbcTemplate.query(sql, rs -> {
+                inserted.put(new CompositeKey(rs.getObject("client_id", UUID.class), rs.getString("fingerprint")), rs.getBoolean("inserted"));
+            }, values(chunk));
+        }
+        return inserted;
+    }
+
+    private static Object[] values(List<ClientMTLSCertificate> certificates) {
+        List<Object> values = new ArrayList<>(certificates.size() * 11);
+        for (ClientMTLSCertificate certificate : certificates) {
+            values.add(certificate.getClientId());
+            values.add(certificate.getFingerprint());
+            values.add(new BigDecimal(certificate.getSerial()));
+            values.add(certificate.getSubjectDN());
+            values.add(certificate.getIssuerDN());
+            values.add(certificate.getValidStart());
+            values.add(certificate.getValidEnd());
+            values.add(certificate.getFirstSeen());
+            values.add(certificate.getLastSeen());
+            values.add(certificate.getCertificate());
+            values.add(certificate.getSortDate());
+        }
+        return values.toArray();
+    }
+}
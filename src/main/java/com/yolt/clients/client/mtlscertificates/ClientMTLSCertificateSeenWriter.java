@@ -0,0 +1,155 @@
+package com.yolt.clients.client.mtlscertificates;
+
+import com.yolt.clients.client.mtlscertificates.ClientMTLSCertificate.CompositeKey;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.openssl.PEMParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records when client mTLS certificates are seen.  The gateway reports a certificate on every handshake, so a
+ * certificate is typically seen many times in a short period.
+ * <p>
+ * {@link #add} therefore only keeps the first and last time a certificate was seen in memory.  The first
+ * {@link #add} after a flush schedules the next flush at the end of a window of
+ * {@code clients.mtls-certificates.seen-flush-interval}, which writes all certificates seen within that window
+ * with a single upsert (per {@link ClientMTLSCertificateJdbcRepository} chunk) and updates the
+ * {@link MTLSCertificateProbeRegistry}.  What is seen in the last window before a crash is lost, the next handshake
+ * reports it again.
+ */
+@Slf4j
+@Component
+class ClientMTLSCertificateSeenWriter {
+
+    private final ClientMTLSCertificateJdbcRepository clientMTLSCertificateJdbcRepository;
+    private final MTLSCertificateProbeRegistry certificateProbeRegistry;
+    private final TaskScheduler taskScheduler;
+    private final Clock clock;
+    private final Duration flushInterval;
+    private final ConcurrentMap<CompositeKey, Seen> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    ClientMTLSCertificateSeenWriter(ClientMTLSCertificateJdbcRepository clientMTLSCertificateJdbcRepository,
+                                    MTLSCertificateProbeRegistry certificateProbeRegistry,
+                                    TaskScheduler taskScheduler,
+                                    Clock clock,
+                                    @Value("${clients.mtls-certificates.seen-flush-interval:10s}") Duration flushInterval) {
+        this.clientMTLSCertificateJdbcRepository = clientMTLSCertificateJdbcRepository;
+        this.certificateProbeRegistry = certificateProbeRegistry;
+        this.taskScheduler = taskScheduler;
+        this.clock = clock;
+        this.flushInterval = flushInterval;
+    }
+
+    void add(ClientCertificateEvent event) {
+        pending.merge(
+                new CompositeKey(event.getClientId(), event.getCertificateFingerprint()),
+                new Seen(event.getCertificate(), event.getSeen(), event.getSeen()),
+                Seen::merge
+        );
+        if (scheduled.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, Instant.now(clock).plus(flushInterval));
+        }
+    }
+
+    /**
+     * Write everything seen so far, also when the application stops.
+     */
+    @PreDestroy
+    synchronized void flush() {
+        // Reset before writing, a certificate seen while writing schedules a new flush.
+        scheduled.set(false);
+        List<ClientMTLSCertificate> certificates = new ArrayList<>();
+        for (CompositeKey key : pending.keySet()) {
+            Seen seen = pending.remove(key);
+            if (seen != null) {
+                try {
+                    certificates.add(toCertificate(key, seen));
+                } catch (IOException | RuntimeException e) {
+                    log.error("Failed to read mTLS certificate {} of client {}: {}", key.getFingerprint(), key.getClientId(), e.getMessage(), e); //NOSHERIFF
+                }
+            }
+        }
+        if (certificates.isEmpty()) {
+            return;
+        }
+
+        Map<CompositeKey, Boolean> written;
+        try {
+            written = clientMTLSCertificateJdbcRepository.upsertSeen(certificates);
+        } catch (DataAccessException e) {
+            // A single invalid certificate (for example of a client that was deleted) fails the whole statement, in
+            // that case write the certificates one by one so only the invalid ones are lost.
+            log.warn("Failed to write {} seen mTLS certificates at once, writing them one by one: {}", certificates.size(), e.getMessage()); //NOSHERIFF
+            written = new HashMap<>();
+            for (ClientMTLSCertificate certificate : certificates) {
+                try {
+                    written.putAll(clientMTLSCertificateJdbcRepository.upsertSeen(List.of(certificate)));
+                } catch (DataAccessException e2) {
+                    log.error("Failed to write seen mTLS certificate {} of client {}: {}", certificate.getFingerprint(), certificate.getClientId(), e2.getMessage(), e2); //NOSHERIFF
+                }
+            }
+        }
+
+        for (ClientMTLSCertificate certificate : certificates) {
+            Boolean inserted = written.get(new CompositeKey(certificate.getClientId(), certificate.getFingerprint()));
+            if (Boolean.TRUE.equals(inserted)) {
+                certificateProbeRegistry.registerProbeAndCertificate(certificate);
+            } else if (Boolean.FALSE.equals(inserted)) {
+                certificateProbeRegistry.updateCertificateCache(certificate.getClientId(), certificate.getFingerprint(), certificate.getLastSeen());
+            }
+        }
+    }
+
+    private static ClientMTLSCertificate toCertificate(CompositeKey key, Seen seen) throws IOException {
+        try (PEMParser pemParser = new PEMParser(new StringReader(seen.getCertificate()))) {
+            // Object type has been validated by the @Pem annotation on the input object.
+            X509CertificateHolder pemObject = (X509CertificateHolder) pemParser.readObject();
+            return new ClientMTLSCertificate(
+                    key.getClientId(),
+                    key.getFingerprint(),
+                    pemObject.getSerialNumber(),
+                    StringUtils.substring(pemObject.getSubject().toString(), 0, 1024),
+                    StringUtils.substring(pemObject.getIssuer().toString(), 0, 1024),
+                    pemObject.getNotBefore().toInstant().atZone(ZoneOffset.UTC).toLocalDateTime(),
+                    pemObject.getNotAfter().toInstant().atZone(ZoneOffset.UTC).toLocalDateTime(),
+                    seen.getFirstSeen(),
+                    seen.getLastSeen(),
+                    seen.getCertificate(),
+                    seen.getLastSeen()
+            );
+        }
+    }
+
+    @lombok.Value
+    private static class Seen {
+        String certificate;
+        LocalDateTime firstSeen;
+        LocalDateTime lastSeen;
+
+        Seen merge(Seen other) {
+            return new Seen(
+                    certificate,
+                    firstSeen.isAfter(other.firstSeen) ? other.firstSeen : firstSeen,
+                    lastSeen.isBefore(other.lastSeen) ? other.lastSeen : lastSeen
+            );
+        }
+    }
+}
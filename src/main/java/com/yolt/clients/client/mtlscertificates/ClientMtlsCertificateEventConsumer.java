@@ -1,25 +1,22 @@
 package com.yolt.clients.client.mtlscertificates;
 
 import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
 import nl.ing.lovebird.clienttokens.ClientToken;
 import nl.ing.lovebird.clienttokens.verification.ClientIdVerificationService;
-import org.apache.commons.lang3.StringUtils;
-import org.bouncycastle.cert.X509CertificateHolder;
-import org.bouncycastle.openssl.PEMParser;
+import nl.ing.lovebird.clienttokens.verification.ClientTokenParser;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.Message;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import javax.validation.Valid;
-import java.io.StringReader;
-import java.time.Clock;
-import java.time.ZoneOffset;
+import javax.validation.ConstraintViolation;
+import javax.validation.ConstraintViolationException;
+import javax.validation.Validator;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
 
-import static java.time.LocalDateTime.now;
 import static nl.ing.lovebird.clienttokens.constants.ClientTokenConstants.CLIENT_TOKEN_HEADER_NAME;
 
 @Service
@@ -28,44 +25,50 @@ import static nl.ing.lovebird.clienttokens.constants.ClientTokenConstants.CLIENT
 public class ClientMtlsCertificateEventConsumer {
 
     private final ClientIdVerificationService clientIdVerificationService;
-    private final ClientMTLSCertificateRepository clientMTLSCertificateRepository;
-    private final MTLSCertificateProbeRegistry certificateProbeRegistry;
-    private final Clock clock;
+    private final ClientTokenParser clientTokenParser;
+    private final Validator validator;
+    private final ClientMTLSCertificateSeenWriter clientMTLSCertificateSeenWriter;
 
-    @SneakyThrows
+    /**
+     * Consumes the events in batches.  The events are only verified here, writing them is left to the
+     * {@link ClientMTLSCertificateSeenWriter}, which aggregates the events per certificate.  An invalid event is
+     * logged and skipped, it doesn't fail the rest of the batch.
+     * <p>
+     * The offsets of a batch are committed when this method returns, before the writer flushes the events, up to
+     * {@code clients.mtls-certificates.seen-flush-interval} later.  The events are therefore consumed at most once: if
+     * the pod dies in between, the events of that interval are not written.  A pod that stops normally stops consuming
+     * before the writer flushes one last time.  This is accepted because the gateway reports a certificate on every
+     * handshake, so the next handshake records it again, and it keeps the number of writes independent of the number
+     * of batches.
+     */
     @KafkaListener(
             topics = "${yolt.kafka.topics.client-mtls-certificate.topic-name}",
-            concurrency = "${yolt.kafka.topics.client-mtls-certificate.listener-concurrency}"
+            concurrency = "${yolt.kafka.topics.client-mtls-certificate.listener-concurrency}",
+            batch = "true"
     )
-    @Transactional
-    public void consumeClientCertificateEvent(@Payload @Valid ClientCertificateEvent event,
-                                              @Header(value = CLIENT_TOKEN_HEADER_NAME) final ClientToken clientToken) {
-        clientIdVerificationService.verify(clientToken, event.getClientId());
+    public void consumeClientCertificateEvents(final List<Message<ClientCertificateEvent>> messages) {
+        for (Message<ClientCertificateEvent> message : messages) {
+            try {
+                ClientCertificateEvent event = message.getPayload();
+                Set<ConstraintViolation<ClientCertificateEvent>> violations = validator.validate(event);
+                if (!violations.isEmpty()) {
+                    throw new ConstraintViolationException(violations);
+                }
+                ClientToken clientToken = clientTokenParser.parseClientToken(clientToken(message));
+                clientIdVerificationService.verify(clientToken, event.getClientId());
 
-        if (clientMTLSCertificateRepository.existsByClientIdAndFingerprint(event.getClientId(), event.getCertificateFingerprint())) {
-            clientMTLSCertificateRepository.updateFirstSeen(event.getClientId(), event.getCertificateFingerprint(), event.getSeen());
-            clientMTLSCertificateRepository.updateLastSeen(event.getClientId(), event.getCertificateFingerprint(), event.getSeen());
-            certificateProbeRegistry.updateCertificateCache(event.getClientId(), event.getCertificateFingerprint(), event.getSeen());
-        } else {
-            PEMParser pemParser = new PEMParser(new StringReader(event.getCertificate()));
-            // Object type has been validated by the @Pem annotation on the input object.
-            X509CertificateHolder pemObject = (X509CertificateHolder) pemParser.readObject();
+                clientMTLSCertificateSeenWriter.add(event);
+            } catch (Exception e) {
+                log.error("Unexpected exception reading client mTLS certificate event: {}", e.getMessage(), e); //NOSHERIFF
+            }
+        }
+    }
 
-            ClientMTLSCertificate clientMTLSCertificate = new ClientMTLSCertificate(
-                    event.getClientId(),
-                    event.getCertificateFingerprint(),
-                    pemObject.getSerialNumber(),
-                    StringUtils.substring(pemObject.getSubject().toString(), 0, 1024),
-                    StringUtils.substring(pemObject.getIssuer().toString(), 0, 1024),
-                    pemObject.getNotBefore().toInstant().atZone(ZoneOffset.UTC).toLocalDateTime(),
-                    pemObject.getNotAfter().toInstant().atZone(ZoneOffset.UTC).toLocalDateTime(),
-                    event.getSeen(),
-                    event.getSeen(),
-                    event.getCertificate(),
-                    event.getSeen()
-            );
-            clientMTLSCertificateRepository.save(clientMTLSCertificate);
-            certificateProbeRegistry.registerProbeAndCertificate(clientMTLSCertificate, now(clock));
+    private static String clientToken(Message<?> message) {
+        Object clientToken = message.getHeaders().get(CLIENT_TOKEN_HEADER_NAME);
+        if (clientToken instanceof byte[]) {
+            return new String((byte[]) clientToken, StandardCharsets.UTF_8);
         }
+        return (String) Objects.requireNonNull(clientToken, "missing client-token header");
     }
 }
@@ -2,31 +2,56 @@ package com.yolt.clients.client.mtlscertificates;
 
 import com.yolt.clients.client.mtlscertificates.ClientMTLSCertificate.CompositeKey;
 import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
 
 import static java.time.LocalDateTime.now;
 import static java.time.temporal.ChronoUnit.DAYS;
-import static java.util.function.Function.identity;
-import static java.util.stream.Collectors.toConcurrentMap;
 import static java.util.stream.StreamSupport.stream;
 
+/**
+ * Exposes the expiration of the mTLS certificates of the clients as metrics, with a number of meters that does not
+ * grow with the number of certificates:
+ * - client_mtls_certificates_expiring{client_id, within_days}: the number of valid certificates of a client that
+ * expire within 7, 30 or 90 days, or at all (+Inf).  The counts are computed when they are scraped.
+ * - client_mtls_certificate_expiration and client_mtls_certificate_last_seen{client_id, fingerprint}: the days until
+ * the certificate expires and the days since it was last seen, only for the {@link #TOP_N} certificates that expire
+ * first.
+ * <p>
+ * The valid certificates are kept ordered by their expiration.  {@link #refresh()} drops the expired certificates from
+ * the head of that order, removes the gauges of the clients that have no valid certificates left and moves the per
+ * certificate gauges to the certificates that now expire first.
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class MTLSCertificateProbeRegistry {
 
+    static final int TOP_N = 20;
+    private static final int[] WITHIN_DAYS = {7, 30, 90};
+    /**
+     * The counts are computed at most once per scrape, rather than once per gauge.
+     */
+    private static final Duration EXPIRING_COUNTS_MAX_AGE = Duration.ofSeconds(10);
+
     @Autowired
     private final MeterRegistry meterRegistry;
     @Autowired
@@ -34,60 +59,179 @@ public class MTLSCertificateProbeRegistry {
     @Autowired
     private final Clock clock;
 
-    private ConcurrentMap<CompositeKey, ClientMTLSCertificate> CERTS;
+    private final ConcurrentMap<CompositeKey, Probe> probes = new ConcurrentHashMap<>();
+    private final NavigableSet<Probe> probesByExpiration = new ConcurrentSkipListSet<>(Comparator
+            .comparing(Probe::getValidEnd)
+            .thenComparing(probe -> probe.getKey().getClientId())
+            .thenComparing(probe -> probe.getKey().getFingerprint()));
+    /**
+     * The client_mtls_certificates_expiring gauges, by the client they count for.
+     */
+    private final Map<UUID, List<Meter>> expiringGauges = new HashMap<>();
+    /**
+     * The per certificate gauges, by the probe they read from.  A {@link Probe} is only equal to itself, so a
+     * certificate that is registered again gets new gauges.
+     */
+    private final Map<Probe, List<Meter>> certificateGauges = new HashMap<>();
+    private volatile ExpiringCounts expiringCounts = ExpiringCounts.EMPTY;
 
     @PostConstruct
     void customizeMeterRegistry() {
         log.info("Creating gauges for mTLS certificates");
         LocalDateTime today = now(clock);
-        CERTS = stream(repository.findAll().spliterator(), false)
+        stream(repository.findAll().spliterator(), false)
                 .filter(cert -> cert.getValidEnd().isAfter(today))
-                .collect(toConcurrentMap(cert -> new CompositeKey(cert.getClientId(), cert.getFingerprint()), identity()));
-
-        CERTS.values().forEach(certificate -> registerProbe(certificate, today));
+                .forEach(this::addProbe);
+        refreshCertificateGauges();
     }
 
     public void updateCertificateCache(UUID clientId, String fingerprint, LocalDateTime lastSeen) {
-        CERTS.computeIfPresent(new CompositeKey(clientId, fingerprint), (key, cert) -> {
-            cert.setLastSeen(lastSeen);
-            return cert;
+        Probe probe = probes.get(new CompositeKey(clientId, fingerprint));
+        if (probe != null) {
+            probe.setLastSeen(lastSeen);
+        }
+    }
+
+    public void registerProbeAndCertificate(ClientMTLSCertificate certificate) {
+        if (certificate.getValidEnd().isAfter(now(clock))) {
+            addProbe(certificate);
+            refreshCertificateGauges();
+        }
+    }
+
+    /**
+     * Drop the certificates that expired, and move the per certificate gauges to the certificates that expire first.
+     */
+    @Scheduled(cron = "0 * * * * *")
+    public void refresh() {
+        LocalDateTime today = now(clock);
+        synchronized (this) {
+            Set<UUID> clientsWithExpiredProbes = new HashSet<>();
+            while (!probesByExpiration.isEmpty() && !probesByExpiration.first().getValidEnd().isAfter(today)) {
+                CompositeKey key = probesByExpiration.pollFirst().getKey();
+                probes.remove(key);
+                clientsWithExpiredProbes.add(key.getClientId());
+            }
+            if (!clientsWithExpiredProbes.isEmpty()) {
+                probes.keySet().forEach(key -> clientsWithExpiredProbes.remove(key.getClientId()));
+                clientsWithExpiredProbes.forEach(clientId -> expiringGauges.remove(clientId).forEach(meterRegistry::remove));
+            }
+        }
+        expiringCounts = ExpiringCounts.EMPTY;
+        refreshCertificateGauges();
+    }
+
+    private synchronized void addProbe(ClientMTLSCertificate certificate) {
+        var probe = new Probe(new CompositeKey(certificate.getClientId(), certificate.getFingerprint()), certificate.getValidEnd());
+        probe.setLastSeen(certificate.getLastSeen());
+        Probe previous = probes.put(probe.getKey(), probe);
+        if (previous != null) {
+            probesByExpiration.remove(previous);
+        }
+        probesByExpiration.add(probe);
+        expiringCounts = ExpiringCounts.EMPTY;
+
+        expiringGauges.computeIfAbsent(certificate.getClientId(), this::registerExpiringGauges);
+    }
+
+    private List<Meter> registerExpiringGauges(UUID clientId) {
+        List<Meter> gauges = new ArrayList<>();
+        for (int i = 0; i <= WITHIN_DAYS.length; i++) {
+            int bucket = i;
+            gauges.add(Gauge.builder("client_mtls_certificates_expiring", this, registry -> registry.countExpiring(clientId, bucket))
+                    .description("number of valid mTLS certificates that expire within the given number of days")
+                    .tags(Tags.of(
+                            "client_id", clientId.toString(),
+                            "within_days", i < WITHIN_DAYS.length ? String.valueOf(WITHIN_DAYS[i]) : "+Inf"
+                    ))
+                    .register(meterRegistry));
+        }
+        return gauges;
+    }
+
+    private synchronized void refreshCertificateGauges() {
+        Set<Probe> top = new HashSet<>();
+        for (Probe probe : probesByExpiration) {
+            if (top.size() == TOP_N) {
+                break;
+            }
+            top.add(probe);
+        }
+
+        certificateGauges.entrySet().removeIf(entry -> {
+            if (top.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().forEach(meterRegistry::remove);
+            return true;
         });
+        top.forEach(probe -> certificateGauges.computeIfAbsent(probe, this::registerCertificateGauges));
     }
 
-    public void registerProbeAndCertificate(ClientMTLSCertificate certificate, LocalDateTime today) {
-        CERTS.put(new CompositeKey(certificate.getClientId(), certificate.getFingerprint()), certificate);
-        registerProbe(certificate, today);
+    private List<Meter> registerCertificateGauges(Probe probe) {
+        Tags tags = Tags.of(
+                "client_id", probe.getKey().getClientId().toString(),
+                "fingerprint", probe.getKey().getFingerprint()
+        );
+        return List.of(
+                Gauge.builder("client_mtls_certificate_expiration", probe, it -> DAYS.between(now(clock), it.getValidEnd()))
+                        .description("days left for mTLS certificate")
+                        .tags(tags)
+                        .baseUnit("days")
+                        .strongReference(true)
+                        .register(meterRegistry),
+                Gauge.builder("client_mtls_certificate_last_seen", probe, it -> it.getLastSeen() == null ? -1 : DAYS.between(it.getLastSeen(), now(clock)))
+                        .description("days passed last seen")
+                        .tags(tags)
+                        .baseUnit("days")
+                        .strongReference(true)
+                        .register(meterRegistry)
+        );
     }
 
-    public void registerProbe(ClientMTLSCertificate certificate, LocalDateTime today) {
-        Gauge.builder("client_mtls_certificate_expiration", certificate, cert -> getDaysUntilExpiration(cert, today))
-                .description("days left for mTLS certificate")
-                .tags(Tags.of(
-                        "client_id", certificate.getClientId().toString(),
-                        "fingerprint", certificate.getFingerprint()
-                ))
-                .baseUnit("days")
-                .register(meterRegistry);
-
-        Gauge.builder("client_mtls_certificate_last_seen", certificate, cert -> getDaysSinceLastSeen(cert, today))
-                .description("days passed last seen")
-                .tags(Tags.of(
-                        "client_id", certificate.getClientId().toString(),
-                        "fingerprint", certificate.getFingerprint()
-                ))
-                .baseUnit("days")
-                .register(meterRegistry);
+    private double countExpiring(UUID clientId, int bucket) {
+        ExpiringCounts counts = expiringCounts;
+        Instant now = clock.instant();
+        if (counts.getComputedAt().plus(EXPIRING_COUNTS_MAX_AGE).isBefore(now)) {
+            counts = computeExpiringCounts(now);
+            expiringCounts = counts;
+        }
+        long[] countsOfClient = counts.getPerClient().get(clientId);
+        return countsOfClient == null ? 0 : countsOfClient[bucket];
     }
 
-    private double getDaysUntilExpiration(ClientMTLSCertificate certificate, LocalDateTime today) {
-        return DAYS.between(today, certificate.getValidEnd());
+    private ExpiringCounts computeExpiringCounts(Instant now) {
+        LocalDateTime today = LocalDateTime.ofInstant(now, clock.getZone());
+        Map<UUID, long[]> perClient = new HashMap<>();
+        for (Probe probe : probesByExpiration) {
+            if (!probe.getValidEnd().isAfter(today)) {
+                continue;
+            }
+            long[] counts = perClient.computeIfAbsent(probe.getKey().getClientId(), clientId -> new long[WITHIN_DAYS.length + 1]);
+            for (int i = 0; i < WITHIN_DAYS.length; i++) {
+                if (!probe.getValidEnd().isAfter(today.plusDays(WITHIN_DAYS[i]))) {
+                    counts[i]++;
+                }
+            }
+            counts[WITHIN_DAYS.length]++;
+        }
+        return new ExpiringCounts(now, perClient);
     }
 
-    private double getDaysSinceLastSeen(ClientMTLSCertificate certificate, LocalDateTime today) {
-        return Optional.ofNullable(CERTS.get(new CompositeKey(certificate.getClientId(), certificate.getFingerprint())))
-                .map(ClientMTLSCertificate::getLastSeen)
-                .map(lastSeen -> DAYS.between(lastSeen, today))
-                .orElse(-1L);
+    @Getter
+    @RequiredArgsConstructor
+    private static class Probe {
+        private final CompositeKey key;
+        private final LocalDateTime validEnd;
+        @lombok.Setter
+        private volatile LocalDateTime lastSeen;
     }
 
+    @Value
+    private static class ExpiringCounts {
+        static final ExpiringCounts EMPTY = new ExpiringCounts(Instant.MIN, Map.of());
+
+        Instant computedAt;
+        Map<UUID, long[]> perClient;
+    }
 }
@@ -1,13 +1,14 @@
 package com.yolt.clients.client.mtlsdn;
 
-import com.yolt.clients.client.ipallowlist.TooManyPendingTasksException;
 import com.yolt.clients.client.mtlsdn.dto.DistinguishedNameDTO;
 import com.yolt.clients.client.mtlsdn.dto.DistinguishedNameIdListDTO;
 import com.yolt.clients.client.mtlsdn.dto.NewDistinguishedNameDTO;
 import com.yolt.clients.client.mtlsdn.exceptions.DistinguishedNameDeniedException;
 import com.yolt.clients.client.mtlsdn.respository.ClientMTLSCertificateDN;
 import com.yolt.clients.client.mtlsdn.respository.ClientMTLSCertificateDNRepository;
-import com.yolt.clients.jira.JiraService;
+import com.yolt.clients.jira.JiraOutbox;
+import com.yolt.clients.jira.JiraTicketRateLimiter;
+import com.yolt.clients.jira.JiraTicketRateLimiter.Resource;
 import com.yolt.clients.jira.Status;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
@@ -15,8 +16,8 @@ import nl.ing.lovebird.clienttokens.ClientToken;
 import org.apache.commons.lang3.StringUtils;
 import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.openssl.PEMParser;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.io.StringReader;
 import java.time.Clock;
@@ -36,18 +37,18 @@ public class DistinguishedNameService {
     private static final Set<Status> PENDING_STATUSES = Set.of(PENDING_ADDITION);
 
     private final ClientMTLSCertificateDNRepository clientMTLSCertificateDNRepository;
-    private final JiraService jiraService;
+    private final JiraOutbox jiraOutbox;
     private final Clock clock;
-    private final int maxOpenTicketsInLast24Hours;
+    private final JiraTicketRateLimiter jiraTicketRateLimiter;
 
     public DistinguishedNameService(ClientMTLSCertificateDNRepository clientMTLSCertificateDNRepository,
-                                    JiraService jiraService,
+                                    JiraOutbox jiraOutbox,
                                     Clock clock,
-                                    @Value("${yolt.jira.max_open_tickets}") int maxOpenTicketsInLast24Hours) {
+                                    JiraTicketRateLimiter jiraTicketRateLimiter) {
         this.clientMTLSCertificateDNRepository = clientMTLSCertificateDNRepository;
-        this.jiraService = jiraService;
+        this.jiraOutbox = jiraOutbox;
         this.clock = clock;
-        this.maxOpenTicketsInLast24Hours = maxOpenTicketsInLast24Hours;
+        this.jiraTicketRateLimiter = jiraTicketRateLimiter;
     }
 
     public boolean hasActiveCertificates(UUID clientId) {
@@ -66,9 +67,10 @@ public class DistinguishedNameService {
                 .collect(Collectors.toSet());
     }
 
+    @Transactional
     public DistinguishedNameDTO create(ClientToken clientToken, NewDistinguishedNameDTO newDistinguishedNameDTO) {
         UUID clientId = clientToken.getClientIdClaim();
-        rateLimit(clientId);
+        jiraTicketRateLimiter.check(clientId, Resource.DISTINGUISHED_NAMES);
 
         var certificate = getClientCertificate(newDistinguishedNameDTO.getCertificateChain());
 
@@ -97,16 +99,17 @@ public class DistinguishedNameService {
                     );
                     var jiraData = new JiraDistinguishedNameData();
                     jiraData.withItemToBeAdded(clientMTLSCertificateDN);
-                    var jiraTicket = jiraService.createIssue(clientToken, jiraData);
+                    var jiraTicket = jiraOutbox.createIssue(clientToken, jiraData);
                     clientMTLSCertificateDN.setJiraTicket(jiraTicket);
 
                     return mapToDTO(clientMTLSCertificateDNRepository.save(clientMTLSCertificateDN));
                 });
     }
 
+    @Transactional
     public Set<DistinguishedNameDTO> deleteLimited(ClientToken clientToken, DistinguishedNameIdListDTO itemsToRemove) {
         UUID clientId = clientToken.getClientIdClaim();
-        rateLimit(clientId);
+        jiraTicketRateLimiter.check(clientId, Resource.DISTINGUISHED_NAMES);
         var jiraData = new JiraDistinguishedNameData();
         return applyFunction(
                 clientToken,
@@ -134,6 +137,7 @@ public class DistinguishedNameService {
         );
     }
 
+    @Transactional
     public Set<DistinguishedNameDTO> markApplied(ClientToken clientToken, DistinguishedNameIdListDTO itemsToMarkApplied) {
         var jiraData = new JiraDistinguishedNameData();
         return applyFunction(
@@ -160,6 +164,7 @@ public class DistinguishedNameService {
         );
     }
 
+    @Transactional
     public Set<DistinguishedNameDTO> markDenied(ClientToken clientToken, DistinguishedNameIdListDTO itemsToMarkDenied) {
         var jiraData = new JiraDistinguishedNameData();
         return applyFunction(
@@ -191,8 +196,8 @@ public class DistinguishedNameService {
                 .map(function)
                 .collect(Collectors.toSet());
 
-        var jiraTicket = jiraService.createIssue(clientToken, jiraData);
-        jiraService.updateIssue(jiraData);
+        var jiraTicket = jiraOutbox.createIssue(clientToken, jiraData);
+        jiraOutbox.updateIssue(jiraData);
 
         return intermediate.stream()
                 .map(clientMTLSCertificateDN -> {
@@ -216,22 +221,10 @@ public class DistinguishedNameService {
                 clientMTLSCertificateDN.getStatus(),
                 clientMTLSCertificateDN.getCreatedAt(),
                 clientMTLSCertificateDN.getUpdatedAt(),
-                clientMTLSCertificateDN.getJiraTicket()
+                JiraOutbox.publicTicket(clientMTLSCertificateDN.getJiraTicket())
         );
     }
 
-    private void rateLimit(UUID clientId) {
-        LocalDateTime countAfter = LocalDateTime.now(clock).minusDays(1);
-        long numberOfJiraTickets = clientMTLSCertificateDNRepository.findAllByClientIdAndUpdatedAtAfterAndJiraTicketNotNull(clientId, countAfter)
-                .stream()
-                .map(ClientMTLSCertificateDN::getJiraTicket)
-                .distinct()
-                .count();
-        if (numberOfJiraTickets >= maxOpenTicketsInLast24Hours) {
-            throw new TooManyPendingTasksException(clientId);
-        }
-    }
-
     @SneakyThrows
     private X509CertificateHolder getClientCertificate(String certificateChainString) {
         PEMParser pemParser = new PEMParser(new StringReader(certificateChainString));
@@ -243,7 +236,7 @@ public class DistinguishedNameService {
         clientMTLSCertificateDN.setUpdatedAt(LocalDateTime.now(clock));
         var jiraData = new JiraDistinguishedNameData();
         jiraData.withItemToBeAdded(clientMTLSCertificateDN);
-        var jiraTicket = jiraService.createIssue(clientToken, jiraData);
+        var jiraTicket = jiraOutbox.createIssue(clientToken, jiraData);
         clientMTLSCertificateDN.setJiraTicket(jiraTicket);
         return clientMTLSCertificateDNRepository.save(clientMTLSCertificateDN);
     }
@@ -254,7 +247,7 @@ public class DistinguishedNameService {
         clientMTLSCertificateDN.setStatus(Status.ADDED);
         clientMTLSCertificateDN.setJiraTicket(null);
         clientMTLSCertificateDN.setUpdatedAt(LocalDateTime.now(clock));
-        jiraService.updateIssue(jiraData);
+        jiraOutbox.updateIssue(jiraData);
         return clientMTLSCertificateDNRepository.save(clientMTLSCertificateDN);
     }
 }
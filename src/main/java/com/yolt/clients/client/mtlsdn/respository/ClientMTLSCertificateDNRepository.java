@@ -3,7 +3,6 @@ package com.yolt.clients.client.mtlsdn.respository;
 import com.yolt.clients.jira.Status;
 import org.springframework.data.repository.CrudRepository;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -16,7 +15,5 @@ public interface ClientMTLSCertificateDNRepository extends CrudRepository<Client
 
     List<ClientMTLSCertificateDN> findAllByClientId(UUID clientId);
 
-    List<ClientMTLSCertificateDN> findAllByClientIdAndUpdatedAtAfterAndJiraTicketNotNull(UUID clientId, LocalDateTime after);
-
     Optional<ClientMTLSCertificateDN> findByClientIdAndSubjectDNAndIssuerDN(UUID clientId, String subjectDN, String issuerDN);
 }
@@ -0,0 +1,86 @@
+package com.yolt.clients.client.outboundallowlist;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A set of host names in a trie of their labels in reverse order (com -> example -> api), which answers whether a host
+ * is allowed in a number of steps that depends on the length of the host rather than on the number of hosts.
+ * <p>
+ * A host name is matched case-insensitively.  An entry "*.example.com" allows every sub-domain of example.com, at any
+ * depth, but not example.com itself.
+ * <p>
+ * Not thread-safe for writes: a trie that is shared between threads must not be modified anymore.
+ */
+class AllowedHostTrie {
+
+    static final String WILDCARD_PREFIX = "*.";
+
+    private final Node root = new Node();
+
+    void add(String host) {
+        String normalized = normalize(host);
+        boolean wildcard = normalized.startsWith(WILDCARD_PREFIX);
+        String[] labels = (wildcard ? normalized.substring(WILDCARD_PREFIX.length()) : normalized).split("\\.");
+
+        Node node = root;
+        for (int i = labels.length - 1; i >= 0; i--) {
+            node = node.children.computeIfAbsent(labels[i], label -> new Node());
+        }
+        if (wildcard) {
+            node.subDomains = true;
+        } else {
+            node.host = true;
+        }
+    }
+
+    boolean allows(String host) {
+        String[] labels = normalize(host).split("\\.");
+
+        Node node = root;
+        for (int i = labels.length - 1; i >= 0; i--) {
+            node = node.children.get(labels[i]);
+            if (node == null) {
+                return false;
+            }
+            if (node.subDomains && i > 0) {
+                return true;
+            }
+        }
+        return node.host;
+    }
+
+    /**
+     * @return the entries that allow the host by themselves, normalized like {@link #normalize}: the host and a wildcard
+     * for each of its parent domains
+     */
+    static List<String> entriesAllowing(String host) {
+        String normalized = normalize(host);
+        List<String> entries = new ArrayList<>();
+        entries.add(normalized);
+        for (int i = normalized.indexOf('.'); i >= 0; i = normalized.indexOf('.', i + 1)) {
+            entries.add(WILDCARD_PREFIX + normalized.substring(i + 1));
+        }
+        return entries;
+    }
+
+    static String normalize(String host) {
+        String lowerCase = host.toLowerCase(Locale.ROOT);
+        return lowerCase.endsWith(".") ? lowerCase.substring(0, lowerCase.length() - 1) : lowerCase;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        /**
+         * Whether the host that ends at this node has been added.
+         */
+        private boolean host;
+        /**
+         * Whether the sub-domains of the host that ends at this node have been added.
+         */
+        private boolean subDomains;
+    }
+}
@@ -0,0 +1,93 @@
+package com.yolt.clients.client.outboundallowlist;
+
+import com.yolt.clients.config.TransactionCallbacks;
+import com.yolt.clients.jira.Status;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory, per-client {@link AllowedHostTrie} of the {@link Status#ADDED} outbound hosts, to answer whether a client
+ * is allowed to call a host without a query per check.
+ * <p>
+ * A trie is built on the first lookup for a client.  The {@link OutboundAllowListService} invalidates the trie of a
+ * client after a commit that changed the status of its hosts, other pods pick up the change once their trie is older
+ * than {@code clients.outbound-allow-list.index-max-age}.  A rebuild that raced with an invalidation is served, but not
+ * stored.  Because of that delay {@link #isAllowed} is only used to check many hosts at once, a check that must see
+ * every committed change uses {@link #isAllowedUncached}, which looks the host and its wildcards up in the database.
+ */
+@Component
+class AllowedOutboundHostIndex {
+
+    private final AllowedOutboundHostRepository allowedOutboundHostRepository;
+    private final Clock clock;
+    private final Duration maxAge;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    AllowedOutboundHostIndex(AllowedOutboundHostRepository allowedOutboundHostRepository,
+                             Clock clock,
+                             @org.springframework.beans.factory.annotation.Value("${clients.outbound-allow-list.index-max-age:1m}") Duration maxAge) {
+        this.allowedOutboundHostRepository = allowedOutboundHostRepository;
+        this.clock = clock;
+        this.maxAge = maxAge;
+    }
+
+    boolean isAllowed(UUID clientId, String host) {
+        return getOrLoad(clientId).getTrie().allows(host);
+    }
+
+    /**
+     * Check with a single indexed query for the entries that would allow the host in a trie.
+     */
+    boolean isAllowedUncached(UUID clientId, String host) {
+        return allowedOutboundHostRepository.existsByClientIdAndNormalizedHostInAndStatus(clientId, AllowedHostTrie.entriesAllowing(host), Status.ADDED.name());
+    }
+
+    /**
+     * Drop the trie of the client, after the surrounding transaction commits if there is one.
+     */
+    void invalidate(UUID clientId) {
+        TransactionCallbacks.afterCommit(() -> remove(clientId));
+    }
+
+    private void remove(UUID clientId) {
+        version.incrementAndGet();
+        entries.remove(clientId);
+    }
+
+    private Entry getOrLoad(UUID clientId) {
+        Instant now = Instant.now(clock);
+        Entry entry = entries.get(clientId);
+        if (entry != null && entry.getLoadedAt().plus(maxAge).isAfter(now)) {
+            return entry;
+        }
+
+        long versionBeforeLoad = version.get();
+        Entry loaded = new Entry(load(clientId), now);
+        // The version is checked while the key is locked, an invalidation either happened before this check or removes
+        // the stored entry after it.
+        entries.compute(clientId, (id, current) -> version.get() == versionBeforeLoad ? loaded : current);
+        return loaded;
+    }
+
+    private AllowedHostTrie load(UUID clientId) {
+        var trie = new AllowedHostTrie();
+        allowedOutboundHostRepository.findAllByClientIdAndStatus(clientId, Status.ADDED)
+                .forEach(allowedOutboundHost -> trie.add(allowedOutboundHost.getHost()));
+        return trie;
+    }
+
+    @Value
+    private static class Entry {
+        AllowedHostTrie trie;
+        Instant loadedAt;
+    }
+}
@@ -1,9 +1,11 @@
 package com.yolt.clients.client.outboundallowlist;
 
 import com.yolt.clients.jira.Status;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -15,9 +17,22 @@ public interface AllowedOutboundHostRepository extends CrudRepository<AllowedOut
 
     Optional<AllowedOutboundHost> findByClientIdAndHost(UUID clientId, String host);
 
-    boolean existsByClientIdAndHostAndStatus(UUID clientId, String host, Status status);
+    Set<AllowedOutboundHost> findAllByClientIdAndStatus(UUID clientId, Status status);
 
     Set<AllowedOutboundHost> findAllByClientIdAndLastUpdatedAfterAndJiraTicketNotNull(UUID clientId, LocalDateTime after);
 
     boolean existsByClientIdAndStatus(UUID clientIdClaim, Status status);
+
+    /**
+     * @param hosts host names in the form of {@link AllowedHostTrie#normalize}, matched against the hosts of the client
+     *              normalized the same way
+     */
+    @Query(nativeQuery = true, value = """
+            SELECT EXISTS(SELECT 1
+                          FROM allowed_outbound_hosts
+                          WHERE client_id = :clientId
+                            AND rtrim(lower(host), '.') IN (:hosts)
+                            AND status = :status)
+            """)
+    boolean existsByClientIdAndNormalizedHostInAndStatus(UUID clientId, Collection<String> hosts, String status);
 }
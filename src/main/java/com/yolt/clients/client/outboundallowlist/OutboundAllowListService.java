@@ -1,15 +1,16 @@
 package com.yolt.clients.client.outboundallowlist;
 
-import com.yolt.clients.client.ipallowlist.TooManyPendingTasksException;
 import com.yolt.clients.client.outboundallowlist.dto.AllowedOutboundHostDTO;
 import com.yolt.clients.client.outboundallowlist.dto.AllowedOutboundHostIdListDTO;
 import com.yolt.clients.client.outboundallowlist.dto.NewAllowedOutboundHostsDTO;
-import com.yolt.clients.jira.JiraService;
+import com.yolt.clients.jira.JiraOutbox;
+import com.yolt.clients.jira.JiraTicketRateLimiter;
+import com.yolt.clients.jira.JiraTicketRateLimiter.Resource;
 import com.yolt.clients.jira.Status;
 import lombok.extern.slf4j.Slf4j;
 import nl.ing.lovebird.clienttokens.ClientToken;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Clock;
 import java.time.LocalDateTime;
@@ -24,22 +25,37 @@ import java.util.stream.Collectors;
 public class OutboundAllowListService {
 
     private final AllowedOutboundHostRepository allowedOutboundHostRepository;
-    private final JiraService jiraService;
+    private final JiraOutbox jiraOutbox;
     private final Clock clock;
-    private final int maxOpenTicketsInLast24Hours;
+    private final JiraTicketRateLimiter jiraTicketRateLimiter;
+    private final AllowedOutboundHostIndex allowedOutboundHostIndex;
 
     public OutboundAllowListService(AllowedOutboundHostRepository allowedOutboundHostRepository,
-                                    JiraService jiraService,
+                                    JiraOutbox jiraOutbox,
                                     Clock clock,
-                                    @Value("${yolt.jira.max_open_tickets}") int maxOpenTicketsInLast24Hours) {
+                                    JiraTicketRateLimiter jiraTicketRateLimiter,
+                                    AllowedOutboundHostIndex allowedOutboundHostIndex) {
         this.allowedOutboundHostRepository = allowedOutboundHostRepository;
-        this.jiraService = jiraService;
+        this.jiraOutbox = jiraOutbox;
         this.clock = clock;
-        this.maxOpenTicketsInLast24Hours = maxOpenTicketsInLast24Hours;
+        this.jiraTicketRateLimiter = jiraTicketRateLimiter;
+        this.allowedOutboundHostIndex = allowedOutboundHostIndex;
     }
 
+    /**
+     * @return whether the client is allowed to call the host, as of the last commit
+     */
     public boolean hasAllowedOutboundHost(UUID clientId, String host) {
-        return allowedOutboundHostRepository.existsByClientIdAndHostAndStatus(clientId, host, Status.ADDED);
+        return allowedOutboundHostIndex.isAllowedUncached(clientId, host);
+    }
+
+    /**
+     * Like {@link #hasAllowedOutboundHost}, but from the {@link AllowedOutboundHostIndex}, which can miss the changes
+     * made on other pods for up to {@code clients.outbound-allow-list.index-max-age}.  For checking many hosts at once,
+     * not for deciding what is stored.
+     */
+    public boolean hasAllowedOutboundHostIndexed(UUID clientId, String host) {
+        return allowedOutboundHostIndex.isAllowed(clientId, host);
     }
 
     public Set<AllowedOutboundHostDTO> findAll(UUID clientId) {
@@ -50,9 +66,10 @@ public class OutboundAllowListService {
                 .collect(Collectors.toSet());
     }
 
+    @Transactional
     public Set<AllowedOutboundHostDTO> create(ClientToken clientToken, NewAllowedOutboundHostsDTO newAllowedOutboundHostsDTO) {
         final UUID clientId = clientToken.getClientIdClaim();
-        rateLimit(clientToken.getClientIdClaim());
+        jiraTicketRateLimiter.check(clientToken.getClientIdClaim(), Resource.OUTBOUND_ALLOW_LIST);
         final var jiraData = new JiraAllowedOutboundHostData();
 
         Set<AllowedOutboundHost> result = newAllowedOutboundHostsDTO.getHosts().stream()
@@ -60,7 +77,8 @@ public class OutboundAllowListService {
                 .map(allowedHost -> markAsAddedIfRequired(allowedHost, jiraData))
                 .collect(Collectors.toSet());
 
-        String jiraTicket = jiraService.createIssue(clientToken, jiraData);
+        String jiraTicket = jiraOutbox.createIssue(clientToken, jiraData);
+        allowedOutboundHostIndex.invalidate(clientId);
 
         return result.stream()
                 .map(allowedOutboundHost -> setJiraTicketIfApplicable(jiraData, jiraTicket, allowedOutboundHost))
@@ -69,9 +87,10 @@ public class OutboundAllowListService {
                 .collect(Collectors.toSet());
     }
 
+    @Transactional
     public Set<AllowedOutboundHostDTO> deleteLimited(ClientToken clientToken, AllowedOutboundHostIdListDTO itemsToRemove) {
         var clientId = clientToken.getClientIdClaim();
-        rateLimit(clientId);
+        jiraTicketRateLimiter.check(clientId, Resource.OUTBOUND_ALLOW_LIST);
         var jiraData = new JiraAllowedOutboundHostData();
         var result = itemsToRemove.getIds().stream()
                 .map(id -> getAllowedIP(clientId, id))
@@ -79,8 +98,9 @@ public class OutboundAllowListService {
                 .map(allowedOutboundHost -> markAsRemovedIfRequired(jiraData, allowedOutboundHost))
                 .collect(Collectors.toSet());
 
-        var jiraTicket = jiraService.createIssue(clientToken, jiraData);
-        jiraService.updateIssue(jiraData);
+        var jiraTicket = jiraOutbox.createIssue(clientToken, jiraData);
+        jiraOutbox.updateIssue(jiraData);
+        allowedOutboundHostIndex.invalidate(clientId);
 
         return result.stream()
                 .map(allowedOutboundHost -> setJiraTicketIfApplicable(jiraData, jiraTicket, allowedOutboundHost))
@@ -89,6 +109,7 @@ public class OutboundAllowListService {
                 .collect(Collectors.toSet());
     }
 
+    @Transactional
     public void delete(ClientToken clientToken) {
         var clientId = clientToken.getClientIdClaim();
         var jiraData = new JiraAllowedOutboundHostData();
@@ -96,32 +117,23 @@ public class OutboundAllowListService {
                 .map(allowedOutboundHost -> markAsRemovedIfRequired(jiraData, allowedOutboundHost))
                 .collect(Collectors.toSet());
 
-        jiraService.createIssue(clientToken, jiraData);
-        jiraService.updateIssue(jiraData);
+        jiraOutbox.createIssue(clientToken, jiraData);
+        jiraOutbox.updateIssue(jiraData);
         allowedOutboundHostRepository.deleteAll(allowedHosts);
+        allowedOutboundHostIndex.invalidate(clientId);
     }
 
     public Set<AllowedOutboundHostDTO> markApplied(ClientToken clientToken, AllowedOutboundHostIdListDTO itemsToMarkApplied) {
         UUID clientId = clientToken.getClientIdClaim();
 
-        return itemsToMarkApplied.getIds().stream()
+        Set<AllowedOutboundHostDTO> result = itemsToMarkApplied.getIds().stream()
                 .map(id -> getAllowedIP(clientId, id))
                 .filter(Predicate.not(Objects::isNull))
                 .map(this::markAsAppliedIfRequired)
                 .map(allowedOutboundHost -> mapToDTO(allowedOutboundHostRepository.save(allowedOutboundHost)))
                 .collect(Collectors.toSet());
-    }
-
-    private void rateLimit(UUID clientId) {
-        LocalDateTime countAfter = LocalDateTime.now(clock).minusDays(1);
-        long numberOfJiraTickets = allowedOutboundHostRepository.findAllByClientIdAndLastUpdatedAfterAndJiraTicketNotNull(clientId, countAfter)
-                .stream()
-                .map(AllowedOutboundHost::getJiraTicket)
-                .distinct()
-                .count();
-        if (numberOfJiraTickets >= maxOpenTicketsInLast24Hours) {
-            throw new TooManyPendingTasksException(clientId);
-        }
+        allowedOutboundHostIndex.invalidate(clientId);
+        return result;
     }
 
     public Set<AllowedOutboundHostDTO> markDenied(ClientToken clientToken, AllowedOutboundHostIdListDTO itemsToMarkDenied) {
@@ -214,7 +226,7 @@ public class OutboundAllowListService {
     }
 
     private AllowedOutboundHostDTO mapToDTO(AllowedOutboundHost allowedOutboundHost) {
-        return new AllowedOutboundHostDTO(allowedOutboundHost.getId(), allowedOutboundHost.getHost(), allowedOutboundHost.getLastUpdated(), allowedOutboundHost.getStatus(), allowedOutboundHost.getJiraTicket());
+        return new AllowedOutboundHostDTO(allowedOutboundHost.getId(), allowedOutboundHost.getHost(), allowedOutboundHost.getLastUpdated(), allowedOutboundHost.getStatus(), JiraOutbox.publicTicket(allowedOutboundHost.getJiraTicket()));
     }
 
     public boolean hasAddedWebhookDomainAllowListItems(ClientToken clientToken) {
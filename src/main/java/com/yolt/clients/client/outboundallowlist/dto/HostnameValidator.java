@@ -10,12 +10,25 @@ import javax.validation.ConstraintValidatorContext;
 @Slf4j
 public class HostnameValidator implements ConstraintValidator<Hostname, String> {
 
+    private static final String WILDCARD_PREFIX = "*.";
+
     @Override
     public void initialize(Hostname constraint) {
     }
 
+    /**
+     * A host name, or a wildcard for the sub-domains of a host name with at least two labels: "*.example.com".
+     */
     @Override
     public boolean isValid(String payload, ConstraintValidatorContext context) {
+        if (payload != null && payload.startsWith(WILDCARD_PREFIX)) {
+            String domain = payload.substring(WILDCARD_PREFIX.length());
+            return domain.contains(".") && isValidHostname(domain);
+        }
+        return isValidHostname(payload);
+    }
+
+    private static boolean isValidHostname(String payload) {
         HostName host = new HostName(payload, new HostNameParameters.Builder()
                 .allowEmpty(false)
                 .setEmptyAsLoopback(false)
@@ -8,11 +8,12 @@ import com.yolt.clients.client.redirecturls.repository.RedirectURL;
 import com.yolt.clients.client.redirecturls.repository.RedirectURLChangelogEntry;
 import com.yolt.clients.client.redirecturls.repository.RedirectURLChangelogRepository;
 import com.yolt.clients.client.redirecturls.repository.RedirectURLRepository;
-import com.yolt.clients.jira.JiraService;
+import com.yolt.clients.jira.JiraOutbox;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nl.ing.lovebird.clienttokens.ClientToken;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.Clock;
@@ -30,7 +31,7 @@ public class RedirectURLChangelogService {
 
     private final RedirectURLChangelogRepository changelogRepository;
     private final RedirectURLRepository urlRepository;
-    private final JiraService jiraService;
+    private final JiraOutbox jiraOutbox;
     private final Clock clock;
 
     public List<RedirectURLChangelogDTO> findAll(final UUID clientId) {
@@ -41,6 +42,7 @@ public class RedirectURLChangelogService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional
     public RedirectURLChangelogDTO createAddRequest(final ClientToken clientToken, final NewAddRequestDTO payload) {
         final var clientId = clientToken.getClientIdClaim();
 
@@ -58,6 +60,7 @@ public class RedirectURLChangelogService {
         return setJiraTicketAndSave(clientToken, changelogEntry, jiraData);
     }
 
+    @Transactional
     public RedirectURLChangelogDTO createUpdateRequest(final ClientToken clientToken, final NewUpdateRequestDTO payload) {
         final var clientId = clientToken.getClientIdClaim();
 
@@ -78,6 +81,7 @@ public class RedirectURLChangelogService {
         return setJiraTicketAndSave(clientToken, changelogEntry, jiraData);
     }
 
+    @Transactional
     public RedirectURLChangelogDTO createDeleteRequest(final ClientToken clientToken, final NewDeleteRequestDTO payload) {
         final var clientId = clientToken.getClientIdClaim();
 
@@ -135,7 +139,7 @@ public class RedirectURLChangelogService {
     }
 
     private RedirectURLChangelogDTO setJiraTicketAndSave(ClientToken clientToken, RedirectURLChangelogEntry changelogEntry, RedirectURLChangelogJiraData jiraData) {
-        final var jiraTicket = jiraService.createIssue(clientToken, jiraData);
+        final var jiraTicket = jiraOutbox.createIssue(clientToken, jiraData);
         changelogEntry.setJiraTicket(jiraTicket);
 
         final var saved = changelogRepository.save(changelogEntry);
@@ -151,10 +155,11 @@ public class RedirectURLChangelogService {
                 redirectURLChangelogEntry.getRedirectURL(),
                 redirectURLChangelogEntry.getNewRedirectURL(),
                 redirectURLChangelogEntry.getStatus(),
-                redirectURLChangelogEntry.getJiraTicket()
+                JiraOutbox.publicTicket(redirectURLChangelogEntry.getJiraTicket())
         );
     }
 
+    @Transactional
     public void delete(ClientToken clientToken) {
         var clientId = clientToken.getClientIdClaim();
         var jiraData = new RedirectURLChangelogJiraData();
@@ -165,7 +170,7 @@ public class RedirectURLChangelogService {
                 .filter(item -> StringUtils.hasText(item.getJiraTicket()))
                 .forEach(item -> jiraData.withJiraTicketToBeEdited(item.getJiraTicket(), item));
 
-        jiraService.updateIssue(jiraData);
+        jiraOutbox.updateIssue(jiraData);
 
         changelogRepository.deleteAll(changelogItems);
     }
@@ -97,6 +97,7 @@ public class RedirectURLService {
         if (autoRegistrationEnabled) {
             registerRedirectUrl(clientToken, redirectURLId);
         }
+        clientSiteService.redirectUrlsChanged(clientToken.getClientIdClaim());
 
         return redirectURLDTO;
     }
@@ -175,6 +176,7 @@ public class RedirectURLService {
 
         var redirectURLDTO = mapToDTO(redirectURL);
         redirectURLProducer.sendMessage(clientToken, redirectURLDTO, RedirectURLMessageType.CLIENT_REDIRECT_URL_DELETED);
+        clientSiteService.redirectUrlsChanged(clientToken.getClientIdClaim());
         return redirectURLDTO;
     }
 
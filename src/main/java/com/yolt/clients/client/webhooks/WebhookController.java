@@ -2,6 +2,8 @@ package com.yolt.clients.client.webhooks;
 
 import com.yolt.clients.client.webhooks.dto.WebhookDTO;
 import com.yolt.clients.client.webhooks.dto.WebhookURLDTO;
+import com.yolt.clients.client.webhooks.dto.WebhookURLValidationDTO;
+import com.yolt.clients.client.webhooks.dto.WebhookURLsDTO;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import nl.ing.lovebird.clienttokens.ClientToken;
@@ -51,6 +53,16 @@ public class WebhookController {
         return webhookService.upsert(clientToken, webhookDTO.getUrl(), webhookDTO.isEnabled());
     }
 
+    @PostMapping(value = "/validate", produces = APPLICATION_JSON_VALUE)
+    public List<WebhookURLValidationDTO> validate(
+            @VerifiedClientToken(restrictedTo = {SERVICE_ASSISTANCE_PORTAL_YTS, SERVICE_DEV_PORTAL}) final ClientToken clientToken,
+            @PathVariable final UUID clientId,
+            @Valid @RequestBody final WebhookURLsDTO webhookURLsDTO
+    ) {
+        clientIdVerificationService.verify(clientToken, clientId);
+        return webhookService.validate(clientToken, webhookURLsDTO.getUrls());
+    }
+
     @NonDeletedClient
     @DeleteMapping(produces = APPLICATION_JSON_VALUE)
     @ResponseStatus(HttpStatus.NO_CONTENT)
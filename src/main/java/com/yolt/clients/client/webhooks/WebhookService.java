@@ -1,6 +1,7 @@
 package com.yolt.clients.client.webhooks;
 
 import com.yolt.clients.client.webhooks.dto.WebhookDTO;
+import com.yolt.clients.client.webhooks.dto.WebhookURLValidationDTO;
 import com.yolt.clients.client.outboundallowlist.OutboundAllowListService;
 import com.yolt.clients.client.webhooks.exceptions.OutboundHostNotAllowedException;
 import com.yolt.clients.client.webhooks.exceptions.WebhookMalformedException;
@@ -78,6 +79,27 @@ public class WebhookService {
         return webhookDTO;
     }
 
+    /**
+     * Check for a number of urls whether a webhook can be created for them, without creating the webhooks.
+     */
+    public List<WebhookURLValidationDTO> validate(ClientToken clientToken, List<String> webhookURLs) {
+        return webhookURLs.stream()
+                .map(webhookURL -> new WebhookURLValidationDTO(webhookURL, isAllowed(clientToken.getClientIdClaim(), webhookURL)))
+                .collect(Collectors.toList());
+    }
+
+    private boolean isAllowed(UUID clientId, String webhookURL) {
+        URI uri;
+        try {
+            uri = new URI(webhookURL);
+        } catch (URISyntaxException e) {
+            return false;
+        }
+        return "https".equalsIgnoreCase(uri.getScheme())
+                && uri.getHost() != null
+                && (!outboundAllowListCheckEnabled || outboundAllowListService.hasAllowedOutboundHostIndexed(clientId, uri.getHost()));
+    }
+
     private void validateHostWhitelisted(ClientToken clientToken, String webhookURL) {
         var host = getUri(clientToken, webhookURL).getHost();
         if (outboundAllowListCheckEnabled && !outboundAllowListService.hasAllowedOutboundHost(clientToken.getClientIdClaim(), host)) {
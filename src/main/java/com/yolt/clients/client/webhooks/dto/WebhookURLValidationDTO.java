@@ -0,0 +1,14 @@
+package com.yolt.clients.client.webhooks.dto;
+
+import lombok.Data;
+
+@Data
+public class WebhookURLValidationDTO {
+
+    private final String url;
+
+    /**
+     * Whether a webhook can be created for the url: it is an https url of which the host is on the outbound allowlist.
+     */
+    private final boolean allowed;
+}
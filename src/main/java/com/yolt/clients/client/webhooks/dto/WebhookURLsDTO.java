@@ -0,0 +1,17 @@
+package com.yolt.clients.client.webhooks.dto;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+public class WebhookURLsDTO {
+
+    @NotNull
+    @NotEmpty
+    @Size(max = 1000)
+    private final List<@NotNull @Size(max = 2000) String> urls;
+}
@@ -0,0 +1,68 @@
+package com.yolt.clients.clientgroup.certificatemanagement;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import org.bouncycastle.util.encoders.Hex;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Remembers which certificate chains have been validated against which {@link TrustAnchors}, so validating the same
+ * chain again, e.g. when the JWKS of a client group is rebuilt, does not repeat the PKIX path validation.
+ * <p>
+ * An entry is keyed by the trust anchors and the SHA-256 hash of the chain, and it expires at the earliest notAfter
+ * of the certificates in the chain.  Only valid chains are remembered, up to
+ * {@code clients.certificates.cert-path-cache-size} of them.
+ */
+@Component
+class CertPathValidationCache {
+
+    private final Clock clock;
+    private final ExpiringCache<Key> valid;
+
+    CertPathValidationCache(Clock clock,
+                            MeterRegistry meterRegistry,
+                            @org.springframework.beans.factory.annotation.Value("${clients.certificates.cert-path-cache-size:10000}") int maxSize) {
+        this.clock = clock;
+        this.valid = new ExpiringCache<>(clock, meterRegistry, "certificate_path_validation_cache", "validated certificate chains", maxSize);
+    }
+
+    boolean isValid(TrustAnchors trustAnchors, List<X509Certificate> certificateChain) {
+        return valid.contains(new Key(trustAnchors.getId(), hash(certificateChain)));
+    }
+
+    void putValid(TrustAnchors trustAnchors, List<X509Certificate> certificateChain) {
+        Instant expiresAt = certificateChain.stream()
+                .map(certificate -> certificate.getNotAfter().toInstant())
+                .min(Instant::compareTo)
+                .orElse(Instant.now(clock));
+        valid.add(new Key(trustAnchors.getId(), hash(certificateChain)), expiresAt);
+    }
+
+    private static String hash(List<X509Certificate> certificateChain) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (X509Certificate certificate : certificateChain) {
+                // Hash the hash of every certificate, so the boundaries between certificates are part of the hash.
+                digest.update(MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded()));
+            }
+            return Hex.toHexString(digest.digest());
+        } catch (CertificateEncodingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Error occurred while computing the certificate chain hash", e);
+        }
+    }
+
+    @Value
+    private static class Key {
+        UUID trustAnchorsId;
+        String chainHash;
+    }
+}
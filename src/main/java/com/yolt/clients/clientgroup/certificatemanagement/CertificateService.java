@@ -35,17 +35,20 @@ public class CertificateService {
     private final CryptoService cryptoService;
     private final CertificateValidationService certificateValidationService;
     private final ProvidersService providersService;
+    private final VerifiedKeyCache verifiedKeyCache;
     private final int certificatesLimit;
 
     public CertificateService(CertificateRepository certificateRepository,
                               CryptoService cryptoService,
                               CertificateValidationService certificateValidationService,
                               ProvidersService providersService,
+                              VerifiedKeyCache verifiedKeyCache,
                               @Value("${clients.certificates.limit}") int certificatesLimit) {
         this.certificateRepository = certificateRepository;
         this.cryptoService = cryptoService;
         this.certificateValidationService = certificateValidationService;
         this.providersService = providersService;
+        this.verifiedKeyCache = verifiedKeyCache;
         this.certificatesLimit = certificatesLimit;
     }
 
@@ -238,6 +241,7 @@ public class CertificateService {
         certificateRepository.findCertificateByClientGroupIdAndKid(clientGroupToken.getClientGroupIdClaim(), certificateId)
                 .ifPresentOrElse(certificate -> {
                     cryptoService.deletePrivateKey(clientGroupToken, certificateId);
+                    verifiedKeyCache.evict(clientGroupToken.getClientGroupIdClaim(), certificateId);
                     certificateRepository.delete(certificate);
                 }, () -> {
                     throw new CertificateNotFoundException(
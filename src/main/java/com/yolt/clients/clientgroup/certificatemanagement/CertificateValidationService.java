@@ -17,9 +17,7 @@ import java.security.cert.*;
 import java.time.Clock;
 import java.time.Instant;
 import java.util.Date;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import static java.security.cert.CertPathValidatorException.BasicReason.UNSPECIFIED;
 
@@ -29,6 +27,8 @@ import static java.security.cert.CertPathValidatorException.BasicReason.UNSPECIF
 public class CertificateValidationService {
     private static final byte[] SECRET = "We walked in darkness, kept hittin' the walls".getBytes(StandardCharsets.UTF_8);
     private final CryptoService cryptoService;
+    private final VerifiedKeyCache verifiedKeyCache;
+    private final CertPathValidationCache certPathValidationCache;
     private final Clock clock;
 
     public void validateValidity(X509Certificate leafCertificate) throws CertificateValidationException {
@@ -39,7 +39,14 @@ public class CertificateValidationService {
         }
     }
 
+    /**
+     * Verify that the leaf certificate belongs to the private key with kid certificateId, by letting crypto sign with
+     * that key.  A successful verification is remembered until the certificate expires, see {@link VerifiedKeyCache}.
+     */
     public void validateCertificateWithPrivateKey(ClientGroupToken clientGroupToken, CertificateUsageType usageType, String certificateId, X509Certificate leafCertificate) throws CertificateValidationException {
+        if (verifiedKeyCache.isVerified(clientGroupToken.getClientGroupIdClaim(), certificateId, leafCertificate)) {
+            return;
+        }
         SignatureAlgorithm signatureAlgorithm = SignatureAlgorithm.SHA256_WITH_RSA;
         String encodedSignature = cryptoService.sign(clientGroupToken, usageType, certificateId, signatureAlgorithm, SECRET);
         try {
@@ -49,6 +56,7 @@ public class CertificateValidationService {
             if (!signature.verify(Base64.decode(encodedSignature))) {
                 throw new CertificateValidationException("Verification of certificate failed.");
             }
+            verifiedKeyCache.putVerified(clientGroupToken.getClientGroupIdClaim(), certificateId, leafCertificate);
         } catch (InvalidKeyException | NoSuchAlgorithmException | NoSuchProviderException | SignatureException e) {
             throw new CertificateValidationException("Unable to verify certificate", e);
         }
@@ -61,19 +69,23 @@ public class CertificateValidationService {
         }
     }
 
-    public void validateCertPath(X509Certificate[] trustedCAs, List<X509Certificate> certificateChain) throws CertificateValidationException {
+    /**
+     * Validate the chain against the trust anchors.  A valid chain is remembered until the first of its certificates
+     * expires, see {@link CertPathValidationCache}.
+     */
+    public void validateCertPath(TrustAnchors trustAnchors, List<X509Certificate> certificateChain) throws CertificateValidationException {
+        if (certPathValidationCache.isValid(trustAnchors, certificateChain)) {
+            return;
+        }
         try {
             CertPath certPath = CertificateFactory.getInstance("X.509", "BC").generateCertPath(certificateChain);
-            Set<TrustAnchor> trust = new HashSet<>();
-            for (X509Certificate trustedCA : trustedCAs) {
-                trust.add(new TrustAnchor(trustedCA, null));
-            }
             CertPathValidator certPathValidator = CertPathValidator.getInstance("PKIX", "BC");
-            PKIXParameters param = new PKIXParameters(trust);
+            PKIXParameters param = new PKIXParameters(trustAnchors.candidates(certificateChain.get(certificateChain.size() - 1)));
             param.setRevocationEnabled(false);
             param.setDate(Date.from(Instant.now(clock)));
 
             certPathValidator.validate(certPath, param);
+            certPathValidationCache.putValid(trustAnchors, certificateChain);
         } catch (CertPathValidatorException e) {
             if (e.getReason().equals(UNSPECIFIED)
                     && e.getMessage().equals("Trust anchor for certification path not found.")
@@ -0,0 +1,83 @@
+package com.yolt.clients.clientgroup.certificatemanagement;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * A bounded set of keys that each expire at their own time, with the metrics {@code <name>_lookups{result=hit|miss}}
+ * and {@code <name>_size}.
+ * <p>
+ * When the cache holds maxSize keys the expired keys are dropped, and a new key is not added if that did not make room.
+ */
+class ExpiringCache<K> {
+
+    private final Clock clock;
+    private final int maxSize;
+    private final Map<K, Instant> entries = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * @param name        the prefix of the metric names
+     * @param description what the keys are, e.g. "validated certificate chains"
+     */
+    ExpiringCache(Clock clock, MeterRegistry meterRegistry, String name, String description, int maxSize) {
+        this.clock = clock;
+        this.maxSize = maxSize;
+        this.hits = Counter.builder(name + "_lookups")
+                .description("number of lookups of " + description)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder(name + "_lookups")
+                .description("number of lookups of " + description)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder(name + "_size", entries, Map::size)
+                .description("number of " + description + " in the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return whether the key was added and has not expired yet
+     */
+    boolean contains(K key) {
+        Instant expiresAt = entries.get(key);
+        if (expiresAt != null && expiresAt.isAfter(Instant.now(clock))) {
+            hits.increment();
+            return true;
+        }
+        if (expiresAt != null) {
+            entries.remove(key, expiresAt);
+        }
+        misses.increment();
+        return false;
+    }
+
+    void add(K key, Instant expiresAt) {
+        Instant now = Instant.now(clock);
+        if (!expiresAt.isAfter(now)) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            entries.values().removeIf(entryExpiresAt -> !entryExpiresAt.isAfter(now));
+            if (entries.size() >= maxSize) {
+                return;
+            }
+        }
+        entries.put(key, expiresAt);
+    }
+
+    /**
+     * Drop the keys that match, before they expire.
+     */
+    void removeIf(Predicate<K> predicate) {
+        entries.keySet().removeIf(predicate);
+    }
+}
@@ -0,0 +1,55 @@
+package com.yolt.clients.clientgroup.certificatemanagement;
+
+import javax.security.auth.x500.X500Principal;
+import java.security.cert.TrustAnchor;
+import java.security.cert.X509Certificate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The trusted CAs of a truststore as an immutable set of {@link TrustAnchor}s, to be built once per truststore and
+ * passed to {@link CertificateValidationService#validateCertPath}.
+ * <p>
+ * The anchors are indexed by subject, so a chain is validated against the anchors that could have issued its last
+ * certificate instead of against the whole truststore.  A chain without such an anchor is validated against all of
+ * them, which fails with the usual "trust anchor not found" error.
+ */
+public final class TrustAnchors {
+
+    /**
+     * Identifies these trust anchors in the {@link CertPathValidationCache}.
+     */
+    private final UUID id = UUID.randomUUID();
+    private final List<X509Certificate> certificates;
+    private final Set<TrustAnchor> all;
+    private final Map<X500Principal, Set<TrustAnchor>> bySubject;
+
+    private TrustAnchors(List<X509Certificate> certificates) {
+        this.certificates = List.copyOf(certificates);
+        this.all = this.certificates.stream()
+                .map(certificate -> new TrustAnchor(certificate, null))
+                .collect(Collectors.toUnmodifiableSet());
+        this.bySubject = all.stream()
+                .collect(Collectors.groupingBy(anchor -> anchor.getTrustedCert().getSubjectX500Principal(), Collectors.toUnmodifiableSet()));
+    }
+
+    public static TrustAnchors of(X509Certificate[] trustedCAs) {
+        return new TrustAnchors(Arrays.asList(trustedCAs));
+    }
+
+    public List<X509Certificate> getCertificates() {
+        return certificates;
+    }
+
+    UUID getId() {
+        return id;
+    }
+
+    /**
+     * @param lastCertificate the certificate at the top of the chain, which is either signed by an anchor or is one
+     * @return the anchors that can validate a chain ending in lastCertificate, or all of them if there are none
+     */
+    Set<TrustAnchor> candidates(X509Certificate lastCertificate) {
+        return bySubject.getOrDefault(lastCertificate.getIssuerX500Principal(), all);
+    }
+}
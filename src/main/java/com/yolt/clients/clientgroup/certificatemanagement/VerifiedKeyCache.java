@@ -0,0 +1,63 @@
+package com.yolt.clients.clientgroup.certificatemanagement;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import org.bouncycastle.util.encoders.Hex;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.time.Clock;
+import java.util.UUID;
+
+/**
+ * Remembers which leaf certificates have been verified to belong to the private key of a kid, so a repeated validation
+ * of the same certificate does not need a signature from crypto.
+ * <p>
+ * An entry is keyed by the client group, the kid and the SHA-256 fingerprint of the leaf certificate, and it expires
+ * at the notAfter of the certificate, or when the private key of the kid is deleted.  Only successful verifications
+ * are remembered, in an {@link ExpiringCache} of at most {@code clients.certificates.verified-key-cache-size} entries.
+ */
+@Component
+class VerifiedKeyCache {
+
+    private final ExpiringCache<Key> verified;
+
+    VerifiedKeyCache(Clock clock,
+                     MeterRegistry meterRegistry,
+                     @org.springframework.beans.factory.annotation.Value("${clients.certificates.verified-key-cache-size:10000}") int maxSize) {
+        this.verified = new ExpiringCache<>(clock, meterRegistry, "certificate_verified_key_cache", "verified certificate and private key pairs", maxSize);
+    }
+
+    boolean isVerified(UUID clientGroupId, String kid, X509Certificate leafCertificate) {
+        return verified.contains(new Key(clientGroupId, kid, fingerprint(leafCertificate)));
+    }
+
+    void putVerified(UUID clientGroupId, String kid, X509Certificate leafCertificate) {
+        verified.add(new Key(clientGroupId, kid, fingerprint(leafCertificate)), leafCertificate.getNotAfter().toInstant());
+    }
+
+    /**
+     * Forget the certificates verified for the kid, its private key no longer exists.
+     */
+    void evict(UUID clientGroupId, String kid) {
+        verified.removeIf(key -> key.getClientGroupId().equals(clientGroupId) && key.getKid().equals(kid));
+    }
+
+    private static String fingerprint(X509Certificate certificate) {
+        try {
+            return Hex.toHexString(MessageDigest.getInstance("SHA-256").digest(certificate.getEncoded()));
+        } catch (CertificateEncodingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Error occurred while computing the certificate fingerprint", e);
+        }
+    }
+
+    @Value
+    private static class Key {
+        UUID clientGroupId;
+        String kid;
+        String fingerprint;
+    }
+}
@@ -1,11 +1,16 @@
 package com.yolt.clients.clientgroup.certificatemanagement.aws;
 
 import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.core.retry.RetryPolicy;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.HeadBucketRequest;
 
@@ -27,11 +32,27 @@ public class S3Configuration {
         return s3Client;
     }
 
+    @Bean
+    @ConditionalOnProperty("s3properties.async-uploads")
+    public S3AsyncClient s3AsyncClient(
+            S3Properties s3Properties,
+            AwsCredentialsProvider awsCredentialsFromVaultProvider
+    ) {
+        return S3AsyncClient.builder()
+                .region(Region.of(s3Properties.getRegion()))
+                .credentialsProvider(awsCredentialsFromVaultProvider)
+                .overrideConfiguration(configuration -> configuration
+                        .retryPolicy(RetryPolicy.builder().numRetries(s3Properties.getUploadRetries()).build()))
+                .build();
+    }
+
     @Bean
     public S3StorageClient certificateStorageClient(
             S3Properties s3Properties,
-            S3Client s3Client
+            S3Client s3Client,
+            ObjectProvider<S3AsyncClient> s3AsyncClient,
+            MeterRegistry meterRegistry
     ) {
-        return new S3StorageClient(s3Properties, s3Client);
+        return new S3StorageClient(s3Properties, s3Client, s3AsyncClient.getIfAvailable(), meterRegistry);
     }
 }
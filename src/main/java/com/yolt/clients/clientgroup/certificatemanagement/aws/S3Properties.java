@@ -5,6 +5,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.validation.annotation.Validated;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 @Validated
@@ -14,4 +15,13 @@ import javax.validation.constraints.NotNull;
 public class S3Properties {
     private @NotNull String bucket;
     private @NotNull String region;
+    /**
+     * Upload the objects of a certificate concurrently with an {@link software.amazon.awssdk.services.s3.S3AsyncClient}
+     * instead of one after the other.
+     */
+    private boolean asyncUploads = false;
+    /**
+     * The number of times a failed asynchronous upload is retried.
+     */
+    private @Min(0) int uploadRetries = 3;
 }
@@ -2,14 +2,18 @@ package com.yolt.clients.clientgroup.certificatemanagement.aws;
 
 import com.yolt.clients.clientgroup.certificatemanagement.KeyUtil;
 import com.yolt.clients.clientgroup.certificatemanagement.exceptions.CertificateValidationException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
-import nl.ing.lovebird.clienttokens.AbstractClientToken;
 import org.bouncycastle.util.Fingerprint;
 import org.jose4j.jwk.JsonWebKeySet;
 import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
@@ -17,30 +21,57 @@ import javax.validation.constraints.NotNull;
 import java.nio.charset.StandardCharsets;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
+/**
+ * Stores certificates and JWKS in S3.
+ * <p>
+ * The PEM, DER and chain PEM of a certificate are uploaded one after the other with the {@link S3Client}, or, if
+ * {@code s3properties.async-uploads} is enabled, concurrently with the {@link S3AsyncClient} so storing a certificate
+ * takes as long as the slowest upload.  Every upload is timed in {@code s3_uploads} by the kind of object.
+ */
 @Service
 @Slf4j
 public class S3StorageClient {
     private final S3Client s3Client;
+    @Nullable
+    private final S3AsyncClient s3AsyncClient;
     private final S3Properties s3Properties;
+    private final MeterRegistry meterRegistry;
 
-    public S3StorageClient(@NotNull S3Properties s3Properties, @NotNull S3Client s3Client) {
+    public S3StorageClient(@NotNull S3Properties s3Properties, @NotNull S3Client s3Client, @Nullable S3AsyncClient s3AsyncClient, @NotNull MeterRegistry meterRegistry) {
         this.s3Properties = s3Properties;
         this.s3Client = s3Client;
+        this.s3AsyncClient = s3AsyncClient;
+        this.meterRegistry = meterRegistry;
     }
 
     public void storeCertificate(List<X509Certificate> x509Certificates) throws CertificateValidationException {
+        if (s3AsyncClient != null) {
+            try {
+                storeCertificateAsync(x509Certificates).join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+            return;
+        }
         try {
             X509Certificate leaf = x509Certificates.get(0);
             String leafPEM = KeyUtil.writeToPem("CERTIFICATE", leaf.getEncoded());
             Fingerprint fingerprint = new Fingerprint(leaf.getEncoded(), true);
-            upload(leafPEM.getBytes(StandardCharsets.UTF_8), fingerprint + ".pem");
-            upload(leaf.getEncoded(), fingerprint + ".der");
+            upload(leafPEM.getBytes(StandardCharsets.UTF_8), fingerprint + ".pem", "pem");
+            upload(leaf.getEncoded(), fingerprint + ".der", "der");
 
             if (x509Certificates.size() > 1) {
                 String chainPEM = KeyUtil.writeToPemChain(x509Certificates);
-                upload(chainPEM.getBytes(StandardCharsets.UTF_8), fingerprint + "-chain.pem");
+                upload(chainPEM.getBytes(StandardCharsets.UTF_8), fingerprint + "-chain.pem", "chain");
             }
 
             log.info("Successfully saved certificate chain in S3");
@@ -50,25 +81,85 @@ public class S3StorageClient {
         }
     }
 
-    public void storeJWKS(AbstractClientToken clientGroupIdClaim, JsonWebKeySet jwksJson) {
-        String key = "jwks/" + clientGroupIdClaim.getClientGroupIdClaim() + "/keys";
+    /**
+     * Upload the PEM, DER and chain PEM of a certificate concurrently.  Requires {@code s3properties.async-uploads}.
+     *
+     * @return a future that completes when all objects are stored, or completes exceptionally if any upload failed
+     */
+    public CompletableFuture<Void> storeCertificateAsync(List<X509Certificate> x509Certificates) throws CertificateValidationException {
+        if (s3AsyncClient == null) {
+            throw new IllegalStateException("Asynchronous uploads are not enabled, set s3properties.async-uploads");
+        }
+        try {
+            X509Certificate leaf = x509Certificates.get(0);
+            String leafPEM = KeyUtil.writeToPem("CERTIFICATE", leaf.getEncoded());
+            Fingerprint fingerprint = new Fingerprint(leaf.getEncoded(), true);
+            List<CompletableFuture<?>> uploads = new ArrayList<>();
+            uploads.add(uploadAsync(leafPEM.getBytes(StandardCharsets.UTF_8), fingerprint + ".pem", "pem"));
+            uploads.add(uploadAsync(leaf.getEncoded(), fingerprint + ".der", "der"));
+
+            if (x509Certificates.size() > 1) {
+                String chainPEM = KeyUtil.writeToPemChain(x509Certificates);
+                uploads.add(uploadAsync(chainPEM.getBytes(StandardCharsets.UTF_8), fingerprint + "-chain.pem", "chain"));
+            }
+
+            return CompletableFuture.allOf(uploads.toArray(CompletableFuture[]::new))
+                    .thenRun(() -> log.info("Successfully saved certificate chain in S3"));
+        } catch (CertificateEncodingException e) {
+            throw new CertificateValidationException("Certificate is not valid", e);
+        }
+    }
+
+    public void storeJWKS(UUID clientGroupId, JsonWebKeySet jwksJson) {
+        String key = "jwks/" + clientGroupId + "/keys";
         byte[] bytes = jwksJson.toJson().getBytes(StandardCharsets.UTF_8);
-        upload(bytes, key, MediaType.APPLICATION_JSON_VALUE);
+        upload(bytes, key, MediaType.APPLICATION_JSON_VALUE, "jwks");
     }
 
-    private void upload(byte[] object, String key) {
-        upload(object, key, null);
+    private void upload(byte[] object, String key, String kind) {
+        upload(object, key, null, kind);
     }
 
-    private void upload(byte[] object, String key, String contentType) {
+    private void upload(byte[] object, String key, String contentType, String kind) {
+        PutObjectRequest putObjectRequest = putObjectRequest(key, contentType);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            s3Client.putObject(putObjectRequest, RequestBody.fromBytes(object));
+        } catch (RuntimeException e) {
+            sample.stop(uploadTimer(kind, "failure"));
+            throw e;
+        }
+        sample.stop(uploadTimer(kind, "success"));
+        log.info("Stored object in bucket {} with key {}", s3Properties.getBucket(), key); //NOSHERIFF
+    }
+
+    private CompletableFuture<?> uploadAsync(byte[] object, String key, String kind) {
+        PutObjectRequest putObjectRequest = putObjectRequest(key, null);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        return s3AsyncClient.putObject(putObjectRequest, AsyncRequestBody.fromBytes(object))
+                .whenComplete((response, throwable) -> {
+                    sample.stop(uploadTimer(kind, throwable == null ? "success" : "failure"));
+                    if (throwable == null) {
+                        log.info("Stored object in bucket {} with key {}", s3Properties.getBucket(), key); //NOSHERIFF
+                    }
+                });
+    }
+
+    private PutObjectRequest putObjectRequest(String key, String contentType) {
         PutObjectRequest.Builder builder = PutObjectRequest.builder()
                 .bucket(s3Properties.getBucket());
         if (StringUtils.hasText(contentType)) {
             builder.contentType(contentType);
         }
-        PutObjectRequest putObjectRequest = builder
+        return builder
                 .key(key).build();
-        s3Client.putObject(putObjectRequest, RequestBody.fromBytes(object));
-        log.info("Stored object in bucket {} with key {}", s3Properties.getBucket(), key); //NOSHERIFF
+    }
+
+    private Timer uploadTimer(String kind, String result) {
+        return Timer.builder("s3_uploads")
+                .description("time until an upload to S3 completed")
+                .tag("kind", kind)
+                .tag("result", result)
+                .register(meterRegistry);
     }
 }
@@ -3,6 +3,7 @@ package com.yolt.clients.clientgroup.certificatemanagement.crypto;
 import com.yolt.clients.clientgroup.certificatemanagement.crypto.dto.*;
 import com.yolt.clients.clientgroup.certificatemanagement.dto.CertificateUsageType;
 import com.yolt.clients.clientgroup.certificatemanagement.dto.SimpleDistinguishedNameElement;
+import com.yolt.clients.http.OutboundHttpClients;
 import lombok.extern.slf4j.Slf4j;
 import nl.ing.lovebird.clienttokens.AbstractClientToken;
 import nl.ing.lovebird.clienttokens.ClientGroupToken;
@@ -12,7 +13,6 @@ import nl.ing.lovebird.logging.MDCContextCreator;
 import nl.ing.lovebird.providerdomain.ServiceType;
 import org.bouncycastle.util.encoders.Base64;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpStatusCodeException;
@@ -31,8 +31,8 @@ import static nl.ing.lovebird.clienttokens.constants.ClientTokenConstants.CLIENT
 public class CryptoService {
     private final RestTemplate restTemplate;
 
-    public CryptoService(@Value("${service.crypto.url}") String cryptoUrl, RestTemplateBuilder restTemplateBuilder) {
-        this.restTemplate = restTemplateBuilder.rootUri(cryptoUrl).build();
+    public CryptoService(@Value("${service.crypto.url}") String cryptoUrl, OutboundHttpClients outboundHttpClients) {
+        this.restTemplate = outboundHttpClients.restTemplateBuilder("crypto").rootUri(cryptoUrl).build();
     }
 
     public String createPrivateKey(ClientGroupToken clientGroupToken, String keyAlgorithm, CertificateUsageType usageType) {
@@ -0,0 +1,58 @@
+package com.yolt.clients.clientgroup.certificatemanagement.eidas;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+class ClientGroupJWKSRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Lock the published JWKS of the client group until the end of the transaction, so concurrent updates of the JWKS
+     * of a client group are applied one after the other.
+     *
+     * @return the published JWKS, with a null jwks and hash if nothing has been published yet
+     */
+    PublishedJWKS lock(UUID clientGroupId) {
+        jdbcTemplate.update("insert into client_group_jwks (client_group_id) values (?) on conflict do nothing", clientGroupId);
+        return jdbcTemplate.queryForObject("select jwks, content_hash from client_group_jwks where client_group_id = ? for update",
+                (rs, rowNum) -> new PublishedJWKS(rs.getString("jwks"), rs.getString("content_hash")),
+                clientGroupId);
+    }
+
+    void save(UUID clientGroupId, String jwks, String contentHash, LocalDateTime publishedAt) {
+        jdbcTemplate.update("update client_group_jwks set jwks = ?, content_hash = ?, published_at = ? where client_group_id = ?",
+                jwks, contentHash, publishedAt, clientGroupId);
+    }
+
+    /**
+     * @return the client groups that have a signed EIDAS certificate or a published JWKS
+     */
+    List<UUID> findClientGroupIds() {
+        return jdbcTemplate.queryForList("""
+                        select client_group_id
+                          from client_group_certificates
+                         where certificate_type = 'EIDAS'
+                           and signed_certificate_chain is not null
+                         union
+                        select client_group_id
+                          from client_group_jwks
+                        """,
+                UUID.class);
+    }
+
+    @Value
+    static class PublishedJWKS {
+        @Nullable String jwks;
+        @Nullable String contentHash;
+    }
+}
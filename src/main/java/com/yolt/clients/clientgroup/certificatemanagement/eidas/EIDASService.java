@@ -59,7 +59,7 @@ public class EIDASService {
         eidasValidationService.validateCertificateChain(certificateChain);
         List<CertificateInfoDTO> certificateChainInfo = certificateService.updateCertificateChainForId(clientGroupToken, CERTIFICATE_TYPE, certificateId, certificateChain);
         s3StorageClient.storeCertificate(certificateChain);
-        jwksService.createJWKSJsonOnS3(clientGroupToken);
+        jwksService.updateJWKSOnS3(clientGroupToken, certificateId);
         return certificateChainInfo;
     }
 
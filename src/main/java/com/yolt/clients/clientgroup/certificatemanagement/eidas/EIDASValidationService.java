@@ -1,6 +1,7 @@
 package com.yolt.clients.clientgroup.certificatemanagement.eidas;
 
 import com.yolt.clients.clientgroup.certificatemanagement.CertificateValidationService;
+import com.yolt.clients.clientgroup.certificatemanagement.TrustAnchors;
 import com.yolt.clients.clientgroup.certificatemanagement.exceptions.CertificateValidationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -25,7 +26,7 @@ public class EIDASValidationService {
     private static final char[] TRUSTSTORE_WITH_YOLTBANK_PASS = "changeit".toCharArray();
 
     private final CertificateValidationService certificateValidationService;
-    private final X509Certificate[] trustedCAs;
+    private final TrustAnchors trustAnchors;
 
     public EIDASValidationService(
             @Value("${yolt.eidas.validation.yoltbank-ca-allowed:false}") boolean isYoltbankCAAllowed,
@@ -33,7 +34,7 @@ public class EIDASValidationService {
             CertificateValidationService certificateValidationService
     ) {
         this.certificateValidationService = certificateValidationService;
-        trustedCAs = getTrustedCAs(isYoltbankCAAllowed, trustStoreLocation);
+        trustAnchors = TrustAnchors.of(getTrustedCAs(isYoltbankCAAllowed, trustStoreLocation));
     }
 
     private static X509Certificate[] getTrustedCAs(boolean isYoltbankCAAllowed, String trustStoreLocation) {
@@ -60,7 +61,7 @@ public class EIDASValidationService {
     }
 
     public void validateCertificateChain(List<X509Certificate> certificateChain) throws CertificateValidationException {
-        certificateValidationService.validateCertPath(trustedCAs, certificateChain);
+        certificateValidationService.validateCertPath(trustAnchors, certificateChain);
         certificateValidationService.hasQCStatementsExtension(certificateChain.get(0));
     }
 }
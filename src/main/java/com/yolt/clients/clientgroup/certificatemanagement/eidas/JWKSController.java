@@ -0,0 +1,21 @@
+package com.yolt.clients.clientgroup.certificatemanagement.eidas;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+
+@RestController
+@RequiredArgsConstructor
+public class JWKSController {
+
+    private final JWKSService jwksService;
+
+    @PostMapping(value = "/batch/jwks-rebuild", produces = APPLICATION_JSON_VALUE)
+    public ResponseEntity<Void> rebuildAllJWKS() {
+        jwksService.rebuildAllJWKS();
+        return ResponseEntity.accepted().build();
+    }
+}
@@ -7,36 +7,185 @@ import com.yolt.clients.clientgroup.certificatemanagement.dto.CertificateUsageTy
 import com.yolt.clients.clientgroup.certificatemanagement.exceptions.CertificateValidationException;
 import com.yolt.clients.clientgroup.certificatemanagement.repository.Certificate;
 import com.yolt.clients.clientgroup.certificatemanagement.repository.CertificateRepository;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import nl.ing.lovebird.clienttokens.ClientGroupToken;
 import org.apache.commons.lang3.StringUtils;
+import org.bouncycastle.util.encoders.Hex;
+import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwk.JsonWebKeySet;
 import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.lang.JoseException;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.cert.CertPathValidatorException;
 import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAPublicKey;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
+/**
+ * Publishes the public keys of the signed EIDAS certificates of a client group as a JWKS on S3.
+ * <p>
+ * The published JWKS is kept in {@link ClientGroupJWKSRepository}.  When a single certificate is signed only its key
+ * is replaced in the published JWKS, the chains of the other certificates are not read and validated again.  A JWKS
+ * is only uploaded when its content differs from the published one.  A full rebuild, e.g. to drop keys of which the
+ * chain is no longer valid, is done by {@link #createJWKSJsonOnS3} for one client group and by {@link #rebuildAllJWKS}
+ * for all of them.
+ */
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class JWKSService {
     private final CertificateRepository certificateRepository;
     private final S3StorageClient s3StorageClient;
     private final EIDASValidationService eidasValidationService;
+    private final ClientGroupJWKSRepository clientGroupJWKSRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final Counter uploaded;
+    private final Counter unchanged;
 
+    public JWKSService(CertificateRepository certificateRepository,
+                       S3StorageClient s3StorageClient,
+                       EIDASValidationService eidasValidationService,
+                       ClientGroupJWKSRepository clientGroupJWKSRepository,
+                       TransactionTemplate transactionTemplate,
+                       Clock clock,
+                       MeterRegistry meterRegistry) {
+        this.certificateRepository = certificateRepository;
+        this.s3StorageClient = s3StorageClient;
+        this.eidasValidationService = eidasValidationService;
+        this.clientGroupJWKSRepository = clientGroupJWKSRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.uploaded = Counter.builder("jwks_publications")
+                .description("number of times the JWKS of a client group has been published")
+                .tag("result", "uploaded")
+                .register(meterRegistry);
+        this.unchanged = Counter.builder("jwks_publications")
+                .description("number of times the JWKS of a client group has been published")
+                .tag("result", "unchanged")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Rebuild the JWKS of the client group from all its EIDAS certificates, and upload it if it changed.
+     */
     public void createJWKSJsonOnS3(final ClientGroupToken clientToken) {
-        JsonWebKeySet jwks = fetchJWKSJson(clientToken);
-        s3StorageClient.storeJWKS(clientToken, jwks);
+        rebuildJWKS(clientToken.getClientGroupIdClaim());
+    }
+
+    /**
+     * Replace the key of one EIDAS certificate in the published JWKS of the client group, and upload it if it changed.
+     * The key is removed if the certificate no longer exists or its chain is not valid.  Nothing has to be published yet
+     * for the client group, in that case the JWKS is built from all certificates.
+     */
+    public void updateJWKSOnS3(final ClientGroupToken clientGroupToken, String certificateId) {
+        UUID clientGroupId = clientGroupToken.getClientGroupIdClaim();
+        transactionTemplate.executeWithoutResult(status -> {
+            ClientGroupJWKSRepository.PublishedJWKS published = clientGroupJWKSRepository.lock(clientGroupId);
+            Optional<List<JsonWebKey>> publishedKeys = parseKeys(clientGroupId, published);
+            if (publishedKeys.isEmpty()) {
+                publish(clientGroupId, fetchJWKSJson(clientGroupId), published);
+                return;
+            }
+
+            List<JsonWebKey> keys = new ArrayList<>(publishedKeys.get());
+            Optional<RsaJsonWebKey> key = certificateRepository.findCertificateByClientGroupIdAndCertificateTypeAndKid(clientGroupId, CertificateType.EIDAS, certificateId)
+                    .filter(signedCertificate -> StringUtils.isNotBlank(signedCertificate.getSignedCertificateChain()))
+                    .map(this::convertToRSAKey);
+            int index = indexOfKeyId(keys, certificateId);
+            if (key.isPresent() && index >= 0) {
+                keys.set(index, key.get());
+            } else if (key.isPresent()) {
+                keys.add(key.get());
+            } else if (index >= 0) {
+                keys.remove(index);
+            }
+            publish(clientGroupId, new JsonWebKeySet(keys), published);
+        });
+    }
+
+    /**
+     * Rebuild the JWKS of every client group with a signed EIDAS certificate or a published JWKS, in the background.
+     */
+    @Async("syncClientsExecutor")
+    public void rebuildAllJWKS() {
+        List<UUID> clientGroupIds = clientGroupJWKSRepository.findClientGroupIds();
+        log.info("Rebuilding the JWKS of {} client groups.", clientGroupIds.size());
+        for (UUID clientGroupId : clientGroupIds) {
+            try {
+                rebuildJWKS(clientGroupId);
+            } catch (RuntimeException e) {
+                log.warn("Failed to rebuild the JWKS of clientGroupId={}", clientGroupId, e); //NOSHERIFF
+            }
+        }
+        log.info("Rebuilt the JWKS of {} client groups.", clientGroupIds.size());
+    }
+
+    private void rebuildJWKS(UUID clientGroupId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ClientGroupJWKSRepository.PublishedJWKS published = clientGroupJWKSRepository.lock(clientGroupId);
+            publish(clientGroupId, fetchJWKSJson(clientGroupId), published);
+        });
+    }
+
+    private void publish(UUID clientGroupId, JsonWebKeySet jwks, ClientGroupJWKSRepository.PublishedJWKS published) {
+        String json = jwks.toJson();
+        String contentHash = sha256(json);
+        if (contentHash.equals(published.getContentHash())) {
+            unchanged.increment();
+            log.info("The JWKS of clientGroupId={} did not change, not uploading it.", clientGroupId); //NOSHERIFF
+            return;
+        }
+        s3StorageClient.storeJWKS(clientGroupId, jwks);
+        clientGroupJWKSRepository.save(clientGroupId, json, contentHash, LocalDateTime.now(clock));
+        uploaded.increment();
+    }
+
+    private Optional<List<JsonWebKey>> parseKeys(UUID clientGroupId, ClientGroupJWKSRepository.PublishedJWKS published) {
+        if (published.getJwks() == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new JsonWebKeySet(published.getJwks()).getJsonWebKeys());
+        } catch (JoseException e) {
+            log.warn("The published JWKS of clientGroupId={} cannot be parsed, rebuilding it.", clientGroupId, e); //NOSHERIFF
+            return Optional.empty();
+        }
+    }
+
+    private static int indexOfKeyId(List<JsonWebKey> keys, String keyId) {
+        for (int i = 0; i < keys.size(); i++) {
+            if (keyId.equals(keys.get(i).getKeyId())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String sha256(String json) {
+        try {
+            return Hex.toHexString(MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
     }
 
-    private JsonWebKeySet fetchJWKSJson(final ClientGroupToken clientGroupToken) {
-        List<Certificate> certificates = certificateRepository.findCertificatesByClientGroupIdAndCertificateType(clientGroupToken.getClientGroupIdClaim(), CertificateType.EIDAS);
+    private JsonWebKeySet fetchJWKSJson(final UUID clientGroupId) {
+        List<Certificate> certificates = certificateRepository.findCertificatesByClientGroupIdAndCertificateType(clientGroupId, CertificateType.EIDAS);
         List<RsaJsonWebKey> rsaKeys = certificates
                 .stream()
                 .filter(signedCertificate -> StringUtils.isNotBlank(signedCertificate.getSignedCertificateChain()))
@@ -1,6 +1,7 @@
 package com.yolt.clients.clientgroup.certificatemanagement.openbanking;
 
 import com.yolt.clients.clientgroup.certificatemanagement.CertificateValidationService;
+import com.yolt.clients.clientgroup.certificatemanagement.TrustAnchors;
 import com.yolt.clients.clientgroup.certificatemanagement.exceptions.CertificateValidationException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -32,7 +33,7 @@ public class OpenBankingValidationService {
     private static final String ALLOWED_C_VALUE = "GB";
     private static final String ALLOWED_O_VALUE = "OpenBanking";
 
-    private final X509Certificate[] trustedCAs;
+    private final TrustAnchors trustAnchors;
     private final CertificateValidationService certificateValidationService;
 
     public OpenBankingValidationService(
@@ -40,16 +41,16 @@ public class OpenBankingValidationService {
             CertificateValidationService certificateValidationService
     ) {
         this.certificateValidationService = certificateValidationService;
-        this.trustedCAs = getTrustedCAs(trustStoreLocation);
+        this.trustAnchors = TrustAnchors.of(getTrustedCAs(trustStoreLocation));
     }
 
     public void validateLegacyCertificateChain(List<X509Certificate> certificateChain) throws CertificateValidationException {
-        certificateValidationService.validateCertPath(trustedCAs, certificateChain);
+        certificateValidationService.validateCertPath(trustAnchors, certificateChain);
         validateOBLegacySubject(certificateChain.get(0));
     }
 
     public void validateEtsiCertificateChain(List<X509Certificate> certificateChain) throws CertificateValidationException {
-        certificateValidationService.validateCertPath(trustedCAs, certificateChain);
+        certificateValidationService.validateCertPath(trustAnchors, certificateChain);
         certificateValidationService.hasQCStatementsExtension(certificateChain.get(0));
     }
 
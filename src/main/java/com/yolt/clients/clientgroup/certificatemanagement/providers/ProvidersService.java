@@ -5,9 +5,9 @@ import com.yolt.clients.clientgroup.certificatemanagement.providers.dto.Provider
 import com.yolt.clients.clientgroup.certificatemanagement.providers.dto.ProviderInfo;
 import com.yolt.clients.clientgroup.certificatemanagement.providers.exceptions.ProviderInfoFetchException;
 import com.yolt.clients.clientgroup.certificatemanagement.yoltbank.dto.CertificateSigningResponse;
+import com.yolt.clients.http.OutboundHttpClients;
 import nl.ing.lovebird.clienttokens.ClientToken;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
@@ -29,8 +29,8 @@ import static nl.ing.lovebird.providerdomain.ServiceType.PIS;
 public class ProvidersService {
     private final RestTemplate restTemplate;
 
-    public ProvidersService(@Value("${service.providers.url}") String providersUrl, RestTemplateBuilder restTemplateBuilder) {
-        this.restTemplate = restTemplateBuilder.rootUri(providersUrl).build();
+    public ProvidersService(@Value("${service.providers.url}") String providersUrl, OutboundHttpClients outboundHttpClients) {
+        this.restTemplate = outboundHttpClients.restTemplateBuilder("providers").rootUri(providersUrl).build();
     }
 
     public ProviderInfo getProviderInfo(String providerKey) {
@@ -1,8 +1,8 @@
 package com.yolt.clients.clientgroup.certificatemanagement.yoltbank;
 
 import com.yolt.clients.clientgroup.certificatemanagement.yoltbank.dto.CertificateSigningResponse;
+import com.yolt.clients.http.OutboundHttpClients;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpStatusCodeException;
@@ -13,9 +13,9 @@ public class YoltbankService {
     private final RestTemplate yoltbank;
 
     public YoltbankService(
-            RestTemplateBuilder restTemplateBuilder,
+            OutboundHttpClients outboundHttpClients,
             @Value("${service.yoltbank.url}") String yoltbankUrl) {
-        yoltbank = restTemplateBuilder.rootUri(yoltbankUrl).build();
+        yoltbank = outboundHttpClients.restTemplateBuilder("yoltbank").rootUri(yoltbankUrl).build();
     }
 
     public String signCSR(String csr) {
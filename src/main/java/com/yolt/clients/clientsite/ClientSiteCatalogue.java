@@ -0,0 +1,217 @@
+package com.yolt.clients.clientsite;
+
+import com.yolt.clients.clientsite.dto.ClientSiteDTO;
+import com.yolt.clients.config.TransactionCallbacks;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory, per-client materialization of the enabled client sites as served by GET /v2/sites.
+ * <p>
+ * An entry holds the enabled {@link ClientSite}s of a client sorted by name, together with the {@link ClientSiteDTO}
+ * for every one of them.  Entries are built lazily on the first request for a client and are dropped whenever one
+ * of the inputs changes:
+ * - {@link ClientSiteService} invalidates a single client when its site metadata is saved,
+ * - {@link com.yolt.clients.authmeans.ClientAuthenticationMeansKafkaConsumer} invalidates a client (or everything, for
+ * client group onboardings) when an onboarding changes,
+ * - {@link com.yolt.clients.client.redirecturls.RedirectURLService} invalidates a client when its redirect urls change,
+ * - the synchronizations with providers and site-management invalidate everything,
+ * - {@link com.yolt.clients.sites.SitesProvider} invalidates everything when the sites list changed,
+ * - {@link ClientSitesUpdateConsumer} invalidates the clients (or everything) another pod signalled a change for.
+ * <p>
+ * {@link #invalidate} and {@link #invalidateAll} also request a {@link ClientSitesUpdateProducer} message, so the
+ * other pods drop the same entries.  Only changes that every pod applies by itself, like a refresh of the sites list
+ * or such a message, use {@link #invalidateLocally} and {@link #invalidateAllLocally}.
+ * <p>
+ * Invalidations issued inside a transaction are applied after the commit, so a concurrent request cannot re-populate
+ * the catalogue with data that is about to change.  A rebuild that raced with an invalidation is served, but not
+ * stored.
+ * <p>
+ * The catalogue is not bounded: it contains at most one entry per client.  The cached DTOs are shared between
+ * requests and must not be modified.
+ * <p>
+ * Next to the entries the catalogue keeps an ETag per client, see {@link #getETag}.  It is dropped together with the
+ * entry of the client, so a conditional request can be answered without reading the client sites.
+ */
+@Component
+public class ClientSiteCatalogue {
+
+    private final ClientSiteDTOMapper clientSiteDTOMapper;
+    private final ClientSitesUpdateProducer clientSitesUpdateProducer;
+    private final Map<UUID, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private final Map<UUID, String> eTags = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+
+    ClientSiteCatalogue(ClientSiteDTOMapper clientSiteDTOMapper, ClientSitesUpdateProducer clientSitesUpdateProducer, MeterRegistry meterRegistry) {
+        this.clientSiteDTOMapper = clientSiteDTOMapper;
+        this.clientSitesUpdateProducer = clientSitesUpdateProducer;
+        this.hits = Counter.builder("client_site_catalogue_lookups")
+                .description("number of client site catalogue lookups")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("client_site_catalogue_lookups")
+                .description("number of client site catalogue lookups")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        Gauge.builder("client_site_catalogue_size", entries, Map::size)
+                .description("number of clients in the client site catalogue")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param clientId the client for which to retrieve the catalogue
+     * @param loader   retrieves the enabled client sites of the client, only called if there is no entry yet
+     */
+    Entry getOrLoad(UUID clientId, Supplier<List<ClientSite>> loader) {
+        Entry entry = entries.get(clientId);
+        if (entry != null) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+
+        long versionBeforeLoad = version.get();
+        Entry loaded = toEntry(loader.get());
+        // The version is checked while the key is locked, an invalidation either happened before this check or removes
+        // the stored entry after it.
+        entries.compute(clientId, (id, current) -> version.get() == versionBeforeLoad ? loaded : current);
+        return loaded;
+    }
+
+    /**
+     * The ETag of the client sites of a client, stored until the catalogue of the client is invalidated.  The loader
+     * must derive it from the client sites only, so every pod, before and after a restart, computes the same ETag for
+     * the same client sites.  It must be retrieved before the client sites it is used for are read, otherwise the
+     * client sites could predate an invalidation that the ETag does not.
+     *
+     * @param clientId the client for which to retrieve the ETag
+     * @param loader   computes the ETag of the client, only called if there is no ETag stored yet
+     */
+    String getETag(UUID clientId, Supplier<String> loader) {
+        String eTag = eTags.get(clientId);
+        if (eTag != null) {
+            return eTag;
+        }
+
+        long versionBeforeLoad = version.get();
+        String loaded = loader.get();
+        eTags.compute(clientId, (id, current) -> version.get() == versionBeforeLoad ? loaded : current);
+        return loaded;
+    }
+
+    /**
+     * Drop the catalogue of a single client on every pod, after the surrounding transaction commits (if any).
+     */
+    public void invalidate(UUID clientId) {
+        invalidateLocally(clientId);
+        clientSitesUpdateProducer.sendMessage(clientId);
+    }
+
+    /**
+     * Drop the catalogue of a single client on this pod only, after the surrounding transaction commits (if any).
+     */
+    public void invalidateLocally(UUID clientId) {
+        TransactionCallbacks.afterCommit(() -> {
+            version.incrementAndGet();
+            entries.remove(clientId);
+            eTags.remove(clientId);
+        });
+    }
+
+    /**
+     * Drop the catalogue of all clients on every pod, after the surrounding transaction commits (if any).
+     */
+    public void invalidateAll() {
+        invalidateAllLocally();
+        clientSitesUpdateProducer.sendMessage();
+    }
+
+    /**
+     * Drop the catalogue of all clients on this pod only, after the surrounding transaction commits (if any).
+     */
+    public void invalidateAllLocally() {
+        TransactionCallbacks.afterCommit(() -> {
+            version.incrementAndGet();
+            entries.clear();
+            eTags.clear();
+        });
+    }
+
+    private Entry toEntry(List<ClientSite> clientSites) {
+        List<ClientSite> sorted = clientSites.stream()
+                .sorted(Comparator.comparing(it -> it.getSite().getName()))
+                .collect(Collectors.toList());
+        List<ClientSiteDTO> clientSiteDTOs = sorted.stream()
+                .map(clientSiteDTOMapper::mapClientSiteDTO)
+                .collect(Collectors.toList());
+
+        Map<String, BitSet> sitesByTag = new HashMap<>();
+        Map<UUID, BitSet> sitesByRedirectUrlId = new HashMap<>();
+        for (int i = 0; i < sorted.size(); i++) {
+            ClientSite clientSite = sorted.get(i);
+            for (String tag : clientSite.getTags()) {
+                sitesByTag.computeIfAbsent(tag, it -> new BitSet()).set(i);
+            }
+            for (UUID redirectUrlId : clientSite.getRedirectUrlIds()) {
+                sitesByRedirectUrlId.computeIfAbsent(redirectUrlId, it -> new BitSet()).set(i);
+            }
+        }
+        return new Entry(sorted, clientSiteDTOs, sitesByTag, sitesByRedirectUrlId);
+    }
+
+    /**
+     * The enabled client sites of a single client, sorted by name.  {@link #clientSites} and {@link #clientSiteDTOs}
+     * have the same size and order.  {@link #sitesByTag} and {@link #sitesByRedirectUrlId} are inverted indexes that
+     * hold, per tag and per redirect url id, the positions of the sites in these lists.  The bitsets are shared and
+     * must not be modified.
+     */
+    @Value
+    static class Entry {
+        List<ClientSite> clientSites;
+        List<ClientSiteDTO> clientSiteDTOs;
+        Map<String, BitSet> sitesByTag;
+        Map<UUID, BitSet> sitesByRedirectUrlId;
+
+        List<ClientSiteDTO> filter(@Nullable UUID redirectUrlId, @Nullable List<String> tags) {
+            if (redirectUrlId == null && (tags == null || tags.isEmpty())) {
+                return clientSiteDTOs;
+            }
+            BitSet matches = new BitSet(clientSites.size());
+            matches.set(0, clientSites.size());
+            if (redirectUrlId != null) {
+                and(matches, sitesByRedirectUrlId.get(redirectUrlId));
+            }
+            if (tags != null) {
+                for (int i = 0; i < tags.size() && !matches.isEmpty(); i++) {
+                    and(matches, sitesByTag.get(tags.get(i)));
+                }
+            }
+
+            List<ClientSiteDTO> result = new ArrayList<>(matches.cardinality());
+            for (int i = matches.nextSetBit(0); i >= 0; i = matches.nextSetBit(i + 1)) {
+                result.add(clientSiteDTOs.get(i));
+            }
+            return result;
+        }
+
+        private static void and(BitSet matches, @Nullable BitSet sites) {
+            if (sites == null) {
+                matches.clear();
+            } else {
+                matches.and(sites);
+            }
+        }
+    }
+}
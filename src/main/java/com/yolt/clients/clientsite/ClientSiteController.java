@@ -1,6 +1,8 @@
 package com.yolt.clients.clientsite;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yolt.clients.clientsite.dto.ClientSiteDTO;
+import com.yolt.clients.clientsite.dto.ClientSitesPerClientDTO;
 import com.yolt.clients.clientsite.dto.ProviderClientSitesDTO;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -16,16 +18,21 @@ import nl.ing.lovebird.springdoc.annotations.ExternalApi;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Pattern;
 import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
+import static org.springframework.http.MediaType.APPLICATION_NDJSON_VALUE;
 
 @RestController
 @RequiredArgsConstructor
@@ -35,12 +42,17 @@ public class ClientSiteController {
 
     private final ClientSiteService clientSiteService;
     private final ClientSiteDTOMapper clientSiteDTOMapper;
+    private final ObjectMapper objectMapper;
 
     @ExternalApi
     @Operation(summary = "Retrieve sites", description = "Get all available sites, optionally filtered by tags and/or redirectUrlId.", responses = {
             @ApiResponse(
                     responseCode = "200",
                     description = "Successful"
+            ),
+            @ApiResponse(
+                    responseCode = "304",
+                    description = "Not modified, the sites did not change since the response with the ETag given in If-None-Match"
             )
     })
     @GetMapping(value = "/v2/sites", produces = APPLICATION_JSON_VALUE)
@@ -48,9 +60,12 @@ public class ClientSiteController {
                                                                 @Valid @Parameter(description = "An optional list of tags to use for filtering. Only sites containing ALL tags will be retrieved.")
                                                                 @RequestParam(name = "tag", required = false, defaultValue = "") @Size(max = 256) final List<@Pattern(regexp = "[A-Za-z0-9_]*") @Size(min = 1, max = 20) String> tags,
                                                                 @Parameter(description = "An optional redirectUrlId to use for filtering")
-                                                                @RequestParam(required = false) final UUID redirectUrlId) {
-        List<ClientSite> clientSiteDetailList = clientSiteService.listEnabledClientSites(clientToken, redirectUrlId, tags);
-        final List<ClientSiteDTO> siteGroupsDTO = clientSiteDTOMapper.mapClientSiteDTO(clientSiteDetailList);
+                                                                @RequestParam(required = false) final UUID redirectUrlId,
+                                                                @Parameter(hidden = true) final WebRequest webRequest) {
+        if (webRequest.checkNotModified(clientSiteService.getClientSitesETag(clientToken))) {
+            return null;
+        }
+        final List<ClientSiteDTO> siteGroupsDTO = clientSiteService.listEnabledClientSiteDTOs(clientToken, redirectUrlId, tags);
         return ResponseEntity.ok(siteGroupsDTO);
     }
 
@@ -201,7 +216,11 @@ public class ClientSiteController {
     })
     @GetMapping(value = "/client-sites", produces = APPLICATION_JSON_VALUE)
     public ResponseEntity<List<ProviderClientSitesDTO>> listEnabledSites(@Parameter(hidden = true) @VerifiedClientToken final ClientToken clientToken,
-                                                                         @RequestParam(value = "only-available", defaultValue = "false") boolean onlyAvailable) {
+                                                                         @RequestParam(value = "only-available", defaultValue = "false") boolean onlyAvailable,
+                                                                         @Parameter(hidden = true) final WebRequest webRequest) {
+        if (webRequest.checkNotModified(clientSiteService.getClientSitesETag(clientToken))) {
+            return null;
+        }
         List<ProviderClientSitesDTO> enabledSiteDetailList = clientSiteService.listAllClientSitesForInternalUsage(clientToken, onlyAvailable);
         return ResponseEntity.ok(enabledSiteDetailList);
     }
@@ -224,4 +243,27 @@ public class ClientSiteController {
         return ResponseEntity.ok(clientSiteDTOPerClient);
     }
 
+    /**
+     * Internal endpoint that exposes the sites for each client as newline delimited json, one client per line.  The
+     * response is written while the clients are read, so it can be processed before it is complete.
+     */
+    @Operation(summary = "Streams the client sites per client, one client per line.", responses = {
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "Successful"
+            )
+    })
+    @GetMapping(value = "/internal/v2/sites-per-client/stream", produces = APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamEnabledSitesPerClient() {
+        StreamingResponseBody body = outputStream -> clientSiteService.streamEnabledSitesPerClient((clientId, clientSites) -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(new ClientSitesPerClientDTO(clientId, clientSiteDTOMapper.mapClientSiteDTO(clientSites))));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok(body);
+    }
+
 }
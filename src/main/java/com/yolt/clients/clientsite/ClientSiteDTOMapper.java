@@ -84,7 +84,8 @@ class ClientSiteDTOMapper {
                     site.getUsesStepTypes().getOrDefault(ServiceType.PIS, Collections.emptyList()).contains(LoginRequirement.FORM),
                     sepaSingleDetails, ukDomesticSingleDetails, sepaPeriodicDetails, ukDomesticPeriodicDetails, sepaScheduledDetails, ukDomesticScheduledDetails);
         }
-        return new ClientSiteDTO(
+        return new PreSerializedClientSiteDTO(
+                site,
                 siteId,
                 site.getName(),
                 site.getAccountTypeWhitelist(),
@@ -0,0 +1,233 @@
+package com.yolt.clients.clientsite;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.yolt.clients.clientsite.dto.ClientSiteDTO;
+import com.yolt.clients.sites.Site;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.jackson.JsonComponent;
+import org.springframework.lang.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes a {@link PreSerializedClientSiteDTO} from the json of its {@link Site}, which is serialized once per site.
+ * <p>
+ * Most of a client site is the same for every client.  Per site, a client site with placeholders for the client
+ * specific fields is serialized, and the json is split at the placeholders into {@link Fragments}.  A client site is
+ * then written by copying the fragments and writing only the client specific fields in between.
+ * <p>
+ * The fragments of a site are replaced when {@link com.yolt.clients.sites.SitesProvider} replaces the {@link Site}
+ * instance (it keeps the instances of sites that did not change) or when a different {@link ObjectMapper} is used.
+ * Before fragments are used they are checked against the regular serialization of a client site, if that
+ * doesn't match (or if the output is pretty printed) the client site is serialized as a regular {@link ClientSiteDTO}.
+ */
+@Slf4j
+@JsonComponent
+class ClientSiteDTOSerializer extends JsonSerializer<PreSerializedClientSiteDTO> {
+
+    private final String placeholderTag = UUID.randomUUID().toString();
+    private final ClientSiteDTO.Services.Onboarded placeholderOnboarded = new ClientSiteDTO.Services.Onboarded(Set.of(UUID.randomUUID()), false);
+    private final Map<UUID, Fragments> fragmentsPerSite = new ConcurrentHashMap<>();
+
+    @Override
+    public void serialize(PreSerializedClientSiteDTO value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        Fragments fragments = null;
+        if (gen.getPrettyPrinter() == null && gen.getCodec() instanceof ObjectMapper) {
+            fragments = getFragments(value, (ObjectMapper) gen.getCodec());
+        }
+        if (fragments != null && fragments.canWrite(value)) {
+            fragments.write(value, gen);
+        } else {
+            serializers.findValueSerializer(ClientSiteDTO.class).serialize(value, gen, serializers);
+        }
+    }
+
+    @Override
+    public Class<PreSerializedClientSiteDTO> handledType() {
+        return PreSerializedClientSiteDTO.class;
+    }
+
+    /**
+     * @return the fragments of the site of {@code value}, or null if the site cannot be written from fragments
+     */
+    @Nullable
+    private Fragments getFragments(PreSerializedClientSiteDTO value, ObjectMapper objectMapper) {
+        Site site = value.getSite();
+        Fragments fragments = fragmentsPerSite.get(value.getId());
+        if (fragments == null || fragments.getSite() != site || fragments.getObjectMapper() != objectMapper) {
+            fragments = createFragments(value, objectMapper);
+            fragmentsPerSite.put(value.getId(), fragments);
+        }
+        return fragments.getStatics() != null ? fragments : null;
+    }
+
+    private Fragments createFragments(PreSerializedClientSiteDTO value, ObjectMapper objectMapper) {
+        try {
+            var services = value.getServices();
+            var slots = new ArrayList<Slot>();
+            if (services != null && services.getAis() != null) {
+                slots.add(Slot.AIS_ONBOARDED);
+            }
+            if (services != null && services.getPis() != null) {
+                slots.add(Slot.PIS_ONBOARDED);
+            }
+            slots.add(Slot.CLIENT_FIELDS);
+
+            String json = objectMapper.writerFor(ClientSiteDTO.class).writeValueAsString(
+                    withClientFields(value, List.of(placeholderTag), false, false, false, placeholderOnboarded, placeholderOnboarded));
+            String onboardedJson = objectMapper.writeValueAsString(placeholderOnboarded);
+            String clientFieldsJson = objectMapper.writeValueAsString(List.of(placeholderTag)) + ",\"available\":false,\"enabled\":false,\"useExperimentalVersion\":false";
+
+            var statics = new ArrayList<SerializableString>();
+            int from = 0;
+            for (Slot slot : slots) {
+                String placeholder = slot == Slot.CLIENT_FIELDS ? clientFieldsJson : onboardedJson;
+                int at = json.indexOf(placeholder, from);
+                if (at < 0) {
+                    return Fragments.unusable(value.getSite(), objectMapper);
+                }
+                statics.add(new SerializedString(json.substring(from, at)));
+                from = at + placeholder.length();
+            }
+            statics.add(new SerializedString(json.substring(from)));
+
+            var fragments = new Fragments(value.getSite(), objectMapper, statics, slots);
+            return verify(fragments, value, objectMapper) ? fragments : Fragments.unusable(value.getSite(), objectMapper);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to pre-serialize site {}, it will be serialized per client site.", value.getId(), e);
+            return Fragments.unusable(value.getSite(), objectMapper);
+        }
+    }
+
+    /**
+     * Check that the fragments produce the same json as the regular serialization, for client specific values that
+     * differ from the placeholders.
+     */
+    private static boolean verify(Fragments fragments, ClientSiteDTO value, ObjectMapper objectMapper) throws IOException {
+        var probe = withClientFields(value, List.of("a", "b"), true, true, true,
+                new ClientSiteDTO.Services.Onboarded(new LinkedHashSet<>(List.of(UUID.randomUUID(), UUID.randomUUID())), true),
+                new ClientSiteDTO.Services.Onboarded(Set.of(UUID.randomUUID()), false));
+        byte[] expected = objectMapper.writerFor(ClientSiteDTO.class).writeValueAsBytes(probe);
+
+        var actual = new ByteArrayOutputStream();
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(actual)) {
+            fragments.write(probe, gen);
+        }
+        return Arrays.equals(expected, actual.toByteArray());
+    }
+
+    private static ClientSiteDTO withClientFields(ClientSiteDTO value, List<String> tags, boolean available, boolean enabled, boolean useExperimentalVersion,
+                                                  ClientSiteDTO.Services.Onboarded aisOnboarded, ClientSiteDTO.Services.Onboarded pisOnboarded) {
+        ClientSiteDTO.Services services = value.getServices();
+        if (services != null) {
+            var ais = services.getAis();
+            var pis = services.getPis();
+            services = new ClientSiteDTO.Services(
+                    ais == null ? null : new ClientSiteDTO.Services.AIS(aisOnboarded, ais.isHasRedirectSteps(), ais.isHasFormSteps(), ais.getConsentBehavior()),
+                    pis == null ? null : new ClientSiteDTO.Services.PIS(pisOnboarded, pis.isHasRedirectSteps(), pis.isHasFormSteps(),
+                            pis.getSepaSingle(), pis.getUkDomesticSingle(), pis.getSepaPeriodic(), pis.getUkDomesticPeriodic(), pis.getSepaScheduled(), pis.getUkDomesticScheduled())
+            );
+        }
+        return new ClientSiteDTO(value.getId(), value.getName(), value.getSupportedAccountTypes(), value.getLoginType(), value.getConnectionType(),
+                services, value.getGroupingBy(), tags, available, enabled, useExperimentalVersion,
+                value.getAvailableInCountries(), value.getHealth(), value.getNoLongerSupported(), value.getIconLink());
+    }
+
+    private enum Slot {
+        AIS_ONBOARDED, PIS_ONBOARDED, CLIENT_FIELDS
+    }
+
+    /**
+     * The json of a site, split at the client specific fields: {@code statics} has one element more than {@code slots},
+     * and a client site is written as statics[0], slots[0], statics[1], ..., statics[n].
+     */
+    @lombok.Value
+    private static class Fragments {
+        Site site;
+        ObjectMapper objectMapper;
+        /**
+         * Null if the site cannot be written from fragments.
+         */
+        @Nullable
+        List<SerializableString> statics;
+        List<Slot> slots;
+
+        static Fragments unusable(Site site, ObjectMapper objectMapper) {
+            return new Fragments(site, objectMapper, null, List.of());
+        }
+
+        boolean canWrite(ClientSiteDTO value) {
+            if (value.getTags() == null || value.getTags().contains(null)) {
+                return false;
+            }
+            for (Slot slot : slots) {
+                if (slot != Slot.CLIENT_FIELDS) {
+                    var onboarded = onboarded(value, slot);
+                    if (onboarded == null || onboarded.getRedirectUrlIds() == null) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+
+        void write(ClientSiteDTO value, JsonGenerator gen) throws IOException {
+            gen.writeRawValue(statics.get(0));
+            for (int i = 0; i < slots.size(); i++) {
+                Slot slot = slots.get(i);
+                if (slot == Slot.CLIENT_FIELDS) {
+                    writeClientFields(value, gen);
+                } else {
+                    writeOnboarded(onboarded(value, slot), gen);
+                }
+                gen.writeRaw(statics.get(i + 1));
+            }
+        }
+
+        @Nullable
+        private static ClientSiteDTO.Services.Onboarded onboarded(ClientSiteDTO value, Slot slot) {
+            var services = value.getServices();
+            if (slot == Slot.AIS_ONBOARDED) {
+                return services.getAis() != null ? services.getAis().getOnboarded() : null;
+            }
+            return services.getPis() != null ? services.getPis().getOnboarded() : null;
+        }
+
+        private static void writeOnboarded(ClientSiteDTO.Services.Onboarded onboarded, JsonGenerator gen) throws IOException {
+            gen.writeRaw("{\"redirectUrlIds\":[");
+            String separator = "";
+            for (UUID redirectUrlId : onboarded.getRedirectUrlIds()) {
+                gen.writeRaw(separator);
+                gen.writeRaw('"');
+                gen.writeRaw(redirectUrlId.toString());
+                gen.writeRaw('"');
+                separator = ",";
+            }
+            gen.writeRaw(onboarded.isClient() ? "],\"client\":true}" : "],\"client\":false}");
+        }
+
+        private static void writeClientFields(ClientSiteDTO value, JsonGenerator gen) throws IOException {
+            gen.writeRaw('[');
+            String separator = "";
+            for (String tag : value.getTags()) {
+                gen.writeRaw(separator);
+                gen.writeRaw('"');
+                gen.writeRaw(new String(JsonStringEncoder.getInstance().quoteAsString(tag)));
+                gen.writeRaw('"');
+                separator = ",";
+            }
+            gen.writeRaw("],\"available\":" + value.isAvailable()
+                    + ",\"enabled\":" + value.isEnabled()
+                    + ",\"useExperimentalVersion\":" + value.isUseExperimentalVersion());
+        }
+    }
+}
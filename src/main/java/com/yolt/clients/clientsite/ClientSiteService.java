@@ -1,8 +1,11 @@
 package com.yolt.clients.clientsite;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yolt.clients.authmeans.OnboardedProviderView;
 import com.yolt.clients.authmeans.OnboardedProviderViewRepository;
 import com.yolt.clients.authmeans.ServiceType;
+import com.yolt.clients.clientsite.dto.ClientSiteDTO;
 import com.yolt.clients.clientsite.dto.ProviderClientSitesDTO;
 import com.yolt.clients.clientsitemetadata.ClientSiteMetadata;
 import com.yolt.clients.clientsitemetadata.ClientSiteMetadataRepository;
@@ -16,8 +19,10 @@ import nl.ing.lovebird.clienttokens.ClientToken;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -29,10 +34,12 @@ import static java.util.stream.Collectors.*;
 public class ClientSiteService {
 
     private final ClientSiteMetadataRepository clientSiteMetadataRepository;
-    private final ClientSitesUpdateProducer clientSitesUpdateProducer;
     private final OnboardedProviderViewRepository onboardedProviderViewRepository;
     private final ClientSiteDTOMapper clientSiteDTOMapper;
     private final SitesProvider sitesProvider;
+    private final ClientSiteCatalogue clientSiteCatalogue;
+    private final SitesPerClientJdbcRepository sitesPerClientJdbcRepository;
+    private final ObjectMapper objectMapper;
 
     /**
      * Provide tags to a site for a specific client (ClientSite).
@@ -149,6 +156,34 @@ public class ClientSiteService {
         save(clientSiteMetadata);
     }
 
+    /**
+     * Onboardings on client group level apply to every redirect url of a client, so adding or removing a redirect url
+     * changes the client sites of that client.
+     *
+     * @param clientId The client of which the redirect urls changed.
+     */
+    public void redirectUrlsChanged(final UUID clientId) {
+        clientSiteCatalogue.invalidate(clientId);
+    }
+
+    /**
+     * The ETag of the client sites of the client, as returned by {@link #listEnabledClientSiteDTOs} and
+     * {@link #listAllClientSitesForInternalUsage}.  Retrieve it before retrieving the client sites.
+     * <p>
+     * It is a hash of all client sites of the client, enabled or not, so it is the same on every pod and changes with
+     * the response of either endpoint.
+     */
+    String getClientSitesETag(final ClientToken clientToken) {
+        return clientSiteCatalogue.getETag(clientToken.getClientIdClaim(), () -> {
+            try {
+                byte[] clientSites = objectMapper.writeValueAsBytes(listAllClientSitesForInternalUsage(clientToken, false));
+                return "\"" + DigestUtils.md5DigestAsHex(clientSites) + "\"";
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to write the client sites", e);
+            }
+        });
+    }
+
     ClientSite getEnabledClientSite(final ClientToken clientToken, final UUID siteUUID) {
         UUID clientId = clientToken.getClientIdClaim();
         Site.SiteId siteId = new Site.SiteId(siteUUID);
@@ -163,18 +198,18 @@ public class ClientSiteService {
     }
 
 
-    List<ClientSite> listEnabledClientSites(@NonNull final ClientToken clientToken, @Nullable UUID redirectUrlId, @Nullable List<String> tags) {
+    /**
+     * Same as {@link #listEnabledClientSites}, but served from the {@link ClientSiteCatalogue} and already mapped to DTOs.
+     */
+    List<ClientSiteDTO> listEnabledClientSiteDTOs(@NonNull final ClientToken clientToken, @Nullable UUID redirectUrlId, @Nullable List<String> tags) {
         UUID clientId = clientToken.getClientIdClaim();
+        return clientSiteCatalogue.getOrLoad(clientId, () -> listEnabledClientSites(clientId))
+                .filter(redirectUrlId, tags);
+    }
 
-        Map<String, List<OnboardedProviderView>> onboardingsByProvider = onboardedProviderViewRepository.selectAllForClient(clientId).stream()
-                .collect(Collectors.groupingBy(OnboardedProviderView::getProvider));
-
-        return clientSiteMetadataRepository.findAllByIdClientId(clientId)
+    List<ClientSite> listEnabledClientSites(@NonNull final ClientToken clientToken, @Nullable UUID redirectUrlId, @Nullable List<String> tags) {
+        return listEnabledClientSites(clientToken.getClientIdClaim())
                 .stream()
-                .filter(ClientSiteMetadata::isEnabled)
-                .map(metaData -> toClientSite(metaData, onboardingsByProvider.get(metaData.getProvider())))
-                .filter(Optional::isPresent)
-                .map(Optional::get)
                 .filter(entry -> {
                     if (redirectUrlId != null) {
                         return entry.getRedirectUrlIds().contains(redirectUrlId);
@@ -190,6 +225,19 @@ public class ClientSiteService {
                 .collect(toList());
     }
 
+    private List<ClientSite> listEnabledClientSites(UUID clientId) {
+        Map<String, List<OnboardedProviderView>> onboardingsByProvider = onboardedProviderViewRepository.selectAllForClient(clientId).stream()
+                .collect(Collectors.groupingBy(OnboardedProviderView::getProvider));
+
+        return clientSiteMetadataRepository.findAllByIdClientId(clientId)
+                .stream()
+                .filter(ClientSiteMetadata::isEnabled)
+                .map(metaData -> toClientSite(metaData, onboardingsByProvider.get(metaData.getProvider())))
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(toList());
+    }
+
     private Set<String> toSimpleTags(ClientSiteMetadata metaData) {
         if (metaData == null || metaData.getTags() == null || metaData.getTags().isEmpty()) {
             return Set.of();
@@ -259,6 +307,24 @@ public class ClientSiteService {
                 }).collect(toMap(Map.Entry::getKey, Map.Entry::getValue));
     }
 
+    /**
+     * Same as {@link #listEnabledSitesPerClient}, but hands the client sites to {@code consumer} one client at a time (in
+     * order of client id) while the data is being read, instead of collecting the client sites of all clients first.
+     */
+    @Transactional(readOnly = true)
+    public void streamEnabledSitesPerClient(BiConsumer<UUID, List<ClientSite>> consumer) {
+        sitesPerClientJdbcRepository.forEachClient(clientRows -> {
+            Map<String, List<OnboardedProviderView>> onboardingsByProvider = clientRows.getOnboardings().stream()
+                    .collect(groupingBy(OnboardedProviderView::getProvider));
+            List<ClientSite> clientSitesForClient = clientRows.getMetadata().stream()
+                    .map(metaData -> toClientSite(metaData, onboardingsByProvider.get(metaData.getProvider())))
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .collect(toList());
+            consumer.accept(clientRows.getClientId(), clientSitesForClient);
+        });
+    }
+
     private ClientSiteMetadata getOrCreateClientSiteMetaData(ClientToken clientToken, UUID siteId) {
         UUID clientId = clientToken.getClientIdClaim();
         Site site = sitesProvider.findByIdOrThrow(new Site.SiteId(siteId));
@@ -288,7 +354,7 @@ public class ClientSiteService {
 
     private void save(ClientSiteMetadata clientSiteMetadata) {
         clientSiteMetadataRepository.save(clientSiteMetadata);
-        clientSitesUpdateProducer.sendMessage();
+        clientSiteCatalogue.invalidate(clientSiteMetadata.getId().getClientId());
     }
 
     private Optional<ClientSite> toClientSite(ClientSiteMetadata metaData, List<OnboardedProviderView> onboardings) {
@@ -0,0 +1,63 @@
+package com.yolt.clients.clientsite;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.ConsumerSeekAware;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the {@link ClientSiteCatalogue} of this pod in sync with changes made by other pods.
+ * <p>
+ * Every pod reads all partitions of the client-sites-updates topic from the end, without a consumer group and without
+ * committing offsets, so pods do not leave consumer groups behind on the broker.  A message that lists the clients
+ * that changed only invalidates those clients, other messages invalidate the whole catalogue.  Messages sent by this
+ * pod are skipped, the pod already invalidated its own catalogue.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+class ClientSitesUpdateConsumer implements ConsumerSeekAware {
+
+    private final ClientSiteCatalogue clientSiteCatalogue;
+    private final ClientSitesUpdateProducer clientSitesUpdateProducer;
+
+    @KafkaListener(
+            topicPartitions = @org.springframework.kafka.annotation.TopicPartition(
+                    topic = "${yolt.kafka.topics.client-sites-updates.topic-name}",
+                    partitions = "#{@kafkaPartitionFinder.partitions('${yolt.kafka.topics.client-sites-updates.topic-name}')}"
+            ),
+            containerFactory = "manualAssignmentKafkaListenerContainerFactory"
+    )
+    public void clientSitesUpdated(final ConsumerRecord<?, ?> message) {
+        Header sender = message.headers().lastHeader(ClientSitesUpdateProducer.SENDER_HEADER);
+        if (sender != null && clientSitesUpdateProducer.isSentByThisInstance(sender.value())) {
+            return;
+        }
+
+        Header clientIds = message.headers().lastHeader(ClientSitesUpdateProducer.CLIENT_IDS_HEADER);
+        if (clientIds == null) {
+            log.debug("client sites have been updated, invalidating the client site catalogue");
+            clientSiteCatalogue.invalidateAllLocally();
+            return;
+        }
+        for (String clientId : new String(clientIds.value(), StandardCharsets.UTF_8).split(",")) {
+            clientSiteCatalogue.invalidateLocally(UUID.fromString(clientId));
+        }
+    }
+
+    /**
+     * Only changes made after this pod started matter, its catalogue starts out empty.
+     */
+    @Override
+    public void onPartitionsAssigned(final Map<TopicPartition, Long> assignments, final ConsumerSeekCallback callback) {
+        callback.seekToEnd(assignments.keySet());
+    }
+}
@@ -1,33 +1,160 @@
 package com.yolt.clients.clientsite;
 
+import com.yolt.clients.config.TransactionCallbacks;
 import com.yolt.clients.events.ClientEvent;
-import nl.ing.lovebird.clienttokens.AbstractClientToken;
-import nl.ing.lovebird.clienttokens.constants.ClientTokenConstants;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.Message;
 import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Signals consumers that the client sites changed.  The message has no content, consumers reload whatever they need.
+ * <p>
+ * Because of that, a burst of changes (for example a synchronization of all client sites, or a lot of onboarding
+ * events) only needs a single message.  {@link #sendMessage()} therefore doesn't send anything itself, but schedules a
+ * message to be sent at the end of a window of {@code clients.client-sites-updates.coalesce-window}.  All requests
+ * within that window result in that one message.  Requests made in a transaction only count once the transaction has
+ * been committed, so consumers never reload before the change is visible.
+ * <p>
+ * Two headers let the {@link ClientSitesUpdateConsumer} of the pods of this service do less work: {@link #SENDER_HEADER}
+ * identifies the pod that sent the message, and {@link #CLIENT_IDS_HEADER} lists the clients that changed if all
+ * requests in the window were made with {@link #sendMessage(UUID)}.  Without it, every client may have changed.
+ */
+@Slf4j
 @Service
 public class ClientSitesUpdateProducer {
 
+    static final String SENDER_HEADER = "clients-sender";
+    static final String CLIENT_IDS_HEADER = "clients-client-ids";
+    /**
+     * Above this number of clients the message signals that every client changed, to keep the header small.
+     */
+    private static final int MAX_CLIENT_IDS = 100;
+
     private final KafkaTemplate<String, ClientEvent> kafkaTemplate;
     private final String topic;
+    private final TaskScheduler taskScheduler;
+    private final Clock clock;
+    private final Duration coalesceWindow;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean allClientsChanged = new AtomicBoolean();
+    private final Set<UUID> changedClientIds = ConcurrentHashMap.newKeySet();
+    private final byte[] sender = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+    private final Counter requested;
+    private final Counter emitted;
 
     public ClientSitesUpdateProducer(KafkaTemplate<String, ClientEvent> kafkaTemplate,
-                                     @Value("${yolt.kafka.topics.client-sites-updates.topic-name}") String topic) {
+                                     @Value("${yolt.kafka.topics.client-sites-updates.topic-name}") String topic,
+                                     TaskScheduler taskScheduler,
+                                     Clock clock,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${clients.client-sites-updates.coalesce-window:1s}") Duration coalesceWindow) {
         this.kafkaTemplate = kafkaTemplate;
         this.topic = topic;
+        this.taskScheduler = taskScheduler;
+        this.clock = clock;
+        this.coalesceWindow = coalesceWindow;
+        this.requested = Counter.builder("client_sites_updates_requested")
+                .description("number of times a client sites update was requested")
+                .register(meterRegistry);
+        this.emitted = Counter.builder("client_sites_updates_emitted")
+                .description("number of client sites update messages sent")
+                .register(meterRegistry);
     }
 
+    /**
+     * Signal that the client sites of any client may have changed.
+     */
     public void sendMessage() {
-        Message<String> message = MessageBuilder
+        TransactionCallbacks.afterCommit(() -> {
+            allClientsChanged.set(true);
+            schedule();
+        });
+    }
+
+    /**
+     * Signal that the client sites of a single client changed.
+     */
+    public void sendMessage(UUID clientId) {
+        TransactionCallbacks.afterCommit(() -> {
+            changedClientIds.add(clientId);
+            schedule();
+        });
+    }
+
+    /**
+     * @return whether a message with the given {@link #SENDER_HEADER} was sent by this instance
+     */
+    boolean isSentByThisInstance(byte[] sender) {
+        return Arrays.equals(this.sender, sender);
+    }
+
+    private void schedule() {
+        requested.increment();
+        if (scheduled.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::emit, Instant.now(clock).plus(coalesceWindow));
+        }
+    }
+
+    private void emit() {
+        // Reset before taking the changes, a request that arrives after this schedules a new message.  Its change is
+        // either taken by this message, in which case the next message is skipped, or by the next message.
+        scheduled.set(false);
+        boolean allClients = allClientsChanged.getAndSet(false);
+        Set<UUID> clientIds = takeChangedClientIds();
+        if (!allClients && clientIds.isEmpty()) {
+            return;
+        }
+
+        MessageBuilder<String> message = MessageBuilder
                 .withPayload("{}")
                 .setHeader(KafkaHeaders.TOPIC, topic)
                 .setHeader(KafkaHeaders.MESSAGE_KEY, "1")
-                .build();
-        kafkaTemplate.send(message);
+                .setHeader(SENDER_HEADER, sender);
+        if (!allClients && clientIds.size() <= MAX_CLIENT_IDS) {
+            String header = clientIds.stream().map(UUID::toString).collect(Collectors.joining(","));
+            message.setHeader(CLIENT_IDS_HEADER, header.getBytes(StandardCharsets.UTF_8));
+        }
+        kafkaTemplate.send(message.build());
+        emitted.increment();
+    }
+
+    private Set<UUID> takeChangedClientIds() {
+        Set<UUID> clientIds = new HashSet<>();
+        for (Iterator<UUID> iterator = changedClientIds.iterator(); iterator.hasNext(); ) {
+            clientIds.add(iterator.next());
+            iterator.remove();
+        }
+        return clientIds;
+    }
+
+    /**
+     * Don't lose a scheduled message when the application stops.
+     */
+    @PreDestroy
+    void flush() {
+        if (scheduled.get()) {
+            log.info("sending pending client sites update before shutdown");
+            emit();
+        }
     }
 }
@@ -0,0 +1,36 @@
+package com.yolt.clients.clientsite;
+
+import com.yolt.clients.clientsite.dto.ClientSiteDTO;
+import com.yolt.clients.clientsite.dto.ConnectionType;
+import com.yolt.clients.clientsite.dto.LoginType;
+import com.yolt.clients.clientsite.dto.SiteConnectionHealthStatus;
+import com.yolt.clients.sites.CountryCode;
+import com.yolt.clients.sites.Site;
+import nl.ing.lovebird.providerdomain.AccountType;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A {@link ClientSiteDTO} that remembers the {@link Site} it was created from, so {@link ClientSiteDTOSerializer} can
+ * write the part that is the same for every client from the pre-serialized json of that site.
+ * <p>
+ * Only the client specific fields (tags, available, enabled, useExperimentalVersion and the onboarded scopes) are
+ * written per instance, the other fields must therefore not be modified.
+ */
+class PreSerializedClientSiteDTO extends ClientSiteDTO {
+
+    private final Site site;
+
+    PreSerializedClientSiteDTO(Site site, UUID id, String name, List<AccountType> supportedAccountTypes, LoginType loginType, ConnectionType connectionType,
+                               Services services, String groupingBy, List<String> tags, boolean available, boolean enabled, boolean useExperimentalVersion,
+                               List<CountryCode> availableInCountries, SiteConnectionHealthStatus health, Boolean noLongerSupported, String iconLink) {
+        super(id, name, supportedAccountTypes, loginType, connectionType, services, groupingBy, tags, available, enabled, useExperimentalVersion,
+                availableInCountries, health, noLongerSupported, iconLink);
+        this.site = site;
+    }
+
+    Site getSite() {
+        return site;
+    }
+}
@@ -0,0 +1,134 @@
+package com.yolt.clients.clientsite;
+
+import com.yolt.clients.authmeans.OnboardedProviderView;
+import com.yolt.clients.authmeans.OnboardedProviderViewRepository;
+import com.yolt.clients.clientsitemetadata.ClientSiteMetadata;
+import com.yolt.clients.clientsitemetadata.ClientSiteMetadataTags;
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads the client site metadata and the onboardings of all clients, one client at a time.
+ * <p>
+ * Both tables are read with a server-side cursor ({@link #FETCH_SIZE} rows per round trip) ordered by client id, and
+ * the two cursors are merged on the client id.  Only the rows of a single client are held in memory at any time.
+ * Postgres only uses a cursor inside a transaction, hence the mandatory transaction.
+ */
+@Repository
+class SitesPerClientJdbcRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    /**
+     * Postgres orders uuids by their bytes, which is not the same as {@link UUID#compareTo} (that compares signed).
+     */
+    private static final Comparator<UUID> POSTGRES_UUID_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    SitesPerClientJdbcRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * Calls {@code consumer} for every client that has client site metadata, in order of client id.
+     */
+    @Transactional(propagation = Propagation.MANDATORY, readOnly = true)
+    public void forEachClient(Consumer<ClientRows> consumer) {
+        try (Stream<ClientSiteMetadata> metadata = jdbcTemplate.queryForStream("""
+                select csm.client_id
+                     , csm.site_id
+                     , csm.provider
+                     , csm.available
+                     , csm.enabled
+                     , csm.use_experimental_version
+                     , array_remove(array_agg(t.tag), null) as tags
+                  from client_site_metadata csm
+                  left join client_site_metadata_tags t on t.client_id = csm.client_id and t.site_id = csm.site_id
+                 group by csm.client_id, csm.site_id
+                 order by csm.client_id
+                """, (rs, rowNum) -> mapMetadata(rs));
+             Stream<OnboardedProviderView> onboardings = jdbcTemplate.queryForStream("""
+                     select client_id
+                          , provider
+                          , service_type
+                          , redirect_url_id
+                       from onboarded_provider_materialized
+                      order by client_id
+                     """, OnboardedProviderViewRepository::mapRow)) {
+            merge(metadata.iterator(), onboardings.iterator(), consumer);
+        }
+    }
+
+    private static void merge(Iterator<ClientSiteMetadata> metadata, Iterator<OnboardedProviderView> onboardings, Consumer<ClientRows> consumer) {
+        ClientSiteMetadata nextMetadata = next(metadata);
+        OnboardedProviderView nextOnboarding = next(onboardings);
+        while (nextMetadata != null) {
+            UUID clientId = nextMetadata.getId().getClientId();
+
+            List<ClientSiteMetadata> metadataOfClient = new ArrayList<>();
+            while (nextMetadata != null && nextMetadata.getId().getClientId().equals(clientId)) {
+                metadataOfClient.add(nextMetadata);
+                nextMetadata = next(metadata);
+            }
+
+            // Onboardings of clients without metadata are skipped.
+            List<OnboardedProviderView> onboardingsOfClient = new ArrayList<>();
+            while (nextOnboarding != null && POSTGRES_UUID_ORDER.compare(nextOnboarding.getClientId(), clientId) <= 0) {
+                if (nextOnboarding.getClientId().equals(clientId)) {
+                    onboardingsOfClient.add(nextOnboarding);
+                }
+                nextOnboarding = next(onboardings);
+            }
+
+            consumer.accept(new ClientRows(clientId, metadataOfClient, onboardingsOfClient));
+        }
+    }
+
+    @Nullable
+    private static <T> T next(Iterator<T> iterator) {
+        return iterator.hasNext() ? iterator.next() : null;
+    }
+
+    private static ClientSiteMetadata mapMetadata(ResultSet rs) throws SQLException {
+        UUID clientId = rs.getObject("client_id", UUID.class);
+        UUID siteId = rs.getObject("site_id", UUID.class);
+        Set<ClientSiteMetadataTags> tags = Arrays.stream((String[]) rs.getArray("tags").getArray())
+                .map(tag -> new ClientSiteMetadataTags(clientId, siteId, tag))
+                .collect(Collectors.toSet());
+        return new ClientSiteMetadata(
+                new ClientSiteMetadata.ClientSiteMetadataId(clientId, siteId),
+                rs.getString("provider"),
+                rs.getBoolean("available"),
+                rs.getBoolean("enabled"),
+                rs.getBoolean("use_experimental_version"),
+                null,
+                tags
+        );
+    }
+
+    /**
+     * The rows of a single client, {@link #metadata} is never empty.
+     */
+    @Value
+    static class ClientRows {
+        UUID clientId;
+        List<ClientSiteMetadata> metadata;
+        List<OnboardedProviderView> onboardings;
+    }
+}
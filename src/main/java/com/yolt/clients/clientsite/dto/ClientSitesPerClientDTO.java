@@ -0,0 +1,19 @@
+package com.yolt.clients.clientsite.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * A single line of the newline delimited json stream of client sites per client.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClientSitesPerClientDTO {
+    UUID clientId;
+    List<ClientSiteDTO> sites;
+}
@@ -1,17 +1,15 @@
 package com.yolt.clients.clientsitemetadata;
 
+import com.yolt.clients.http.OutboundHttpClients;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.RequestEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
-import java.net.URI;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -21,16 +19,13 @@ import java.util.UUID;
 class SiteManagementClient {
 
     private final RestTemplate restTemplate;
-    private final URI endpoint;
 
-    public SiteManagementClient(RestTemplateBuilder restTemplateBuilder, @Value("${service.site-management.url}") String providersUrl) {
-        this.restTemplate = restTemplateBuilder.build();
-        this.endpoint = URI.create(providersUrl + "/internal/client-site-entities");
+    public SiteManagementClient(OutboundHttpClients outboundHttpClients, @Value("${service.site-management.url}") String providersUrl) {
+        this.restTemplate = outboundHttpClients.restTemplateBuilder("site-management").rootUri(providersUrl).build();
     }
 
     public Optional<List<ClientSiteFromSiteManagement>> retrieveAllClientSiteMetadata() {
-        RequestEntity<?> entity = new RequestEntity<Void>(HttpMethod.GET, endpoint);
-        var response = restTemplate.exchange(entity, new ParameterizedTypeReference<List<ClientSiteFromSiteManagement>>() {
+        var response = restTemplate.exchange("/internal/client-site-entities", HttpMethod.GET, null, new ParameterizedTypeReference<List<ClientSiteFromSiteManagement>>() {
         });
 
         if (response.getStatusCode() != HttpStatus.OK) {
@@ -1,6 +1,7 @@
 package com.yolt.clients.clientsitemetadata;
 
 import com.yolt.clients.client.ClientsRepository;
+import com.yolt.clients.clientsite.ClientSiteCatalogue;
 import com.yolt.clients.model.Client;
 import com.yolt.clients.sites.Site;
 import com.yolt.clients.sites.SitesProvider;
@@ -32,6 +33,7 @@ class SynchronizeWithSiteManagementService {
     private final TransactionTemplate transactionTemplate;
     private final SitesProvider sitesProvider;
     private final ClientsRepository clientsRepository;
+    private final ClientSiteCatalogue clientSiteCatalogue;
 
     private String providerFromSiteId(@NonNull UUID siteId) {
         return sitesProvider.findById(new Site.SiteId(siteId)).map(Site::getProvider).orElse("UNKNOWN-DELETED-SITE");
@@ -104,6 +106,8 @@ class SynchronizeWithSiteManagementService {
 
             if (dryrun) {
                 ctx.setRollbackOnly();
+            } else {
+                clientSiteCatalogue.invalidateAll();
             }
 
             return null;
@@ -19,4 +19,17 @@ public class ApplicationConfiguration {
     public ThreadPoolTaskExecutor threadPoolTaskExecutor(TaskExecutorBuilder builder) {
         return builder.build();
     }
+
+    /**
+     * Runs the jobs that call slow services, the refresh of the sites list and the dispatch of jira issues, so they don't
+     * hold up the short jobs on the task scheduler.  Every job has at most one run and one waiting run.
+     */
+    @Bean(name = "backgroundJobsExecutor")
+    public ThreadPoolTaskExecutor backgroundJobsExecutor(TaskExecutorBuilder builder) {
+        return builder
+                .corePoolSize(4)
+                .maxPoolSize(4)
+                .threadNamePrefix("background-jobs-")
+                .build();
+    }
 }
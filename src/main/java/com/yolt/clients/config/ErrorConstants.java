@@ -45,7 +45,9 @@ public enum ErrorConstants implements ErrorInfo {
     SITE_NOT_AVAILABLE("040", "The client site is not available."),
     PROVIDER_NOT_ENABLED("041", "The site provider is not enabled. Enable the provider by providing authentication means before continuing."),
     CLIENT_CONFIGURATION_ERROR("042", "Client configuration error."),
-    SITE_ID_NOT_FOUND("043", "Site not found");
+    SITE_ID_NOT_FOUND("043", "Site not found"),
+    ALLOWED_IP_OVERLAPS("044", "The IP block overlaps with another IP block of the client."),
+    INVALID_IP_ADDRESS("045", "The IP address is not valid.");
 
     private final String code;
     private final String message;
@@ -3,6 +3,8 @@ package com.yolt.clients.config;
 import com.yolt.clients.client.ClientHasUsersException;
 import com.yolt.clients.client.admins.*;
 import com.yolt.clients.client.ipallowlist.AllowedIPNotInExpectedStateException;
+import com.yolt.clients.client.ipallowlist.AllowedIPOverlapsException;
+import com.yolt.clients.client.ipallowlist.InvalidIPAddressException;
 import com.yolt.clients.client.ipallowlist.TooManyPendingTasksException;
 import com.yolt.clients.client.mtlscertificates.MTLSCertificateExistsException;
 import com.yolt.clients.client.mtlsdn.exceptions.DistinguishedNameDeniedException;
@@ -198,6 +200,20 @@ public class ExceptionHandlers {
         return service.logAndConstruct(ErrorConstants.ALLOWED_IP_IN_WRONG_STATE, ex);
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    protected ErrorDTO handle(AllowedIPOverlapsException ex) {
+        return service.logAndConstruct(ErrorConstants.ALLOWED_IP_OVERLAPS, ex);
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    @ResponseBody
+    protected ErrorDTO handle(InvalidIPAddressException ex) {
+        return service.logAndConstruct(ErrorConstants.INVALID_IP_ADDRESS, ex);
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
@@ -1,10 +1,17 @@
 package com.yolt.clients.config;
 
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.PartitionInfo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.annotation.KafkaListenerConfigurer;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.KafkaListenerEndpointRegistrar;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
 
 @Configuration
@@ -18,4 +25,39 @@ public class KafkaConfiguration implements KafkaListenerConfigurer {
     public void configureKafkaListeners(KafkaListenerEndpointRegistrar registrar) {
         registrar.setValidator(this.validator);
     }
+
+    /**
+     * For listeners that assign themselves all partitions of a topic (see {@link KafkaPartitionFinder}) instead of
+     * joining a consumer group.  The records are never acknowledged, so no offsets are committed.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> manualAssignmentKafkaListenerContainerFactory(ConsumerFactory<Object, Object> consumerFactory) {
+        var factory = new ConcurrentKafkaListenerContainerFactory<Object, Object>();
+        factory.setConsumerFactory(consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+
+    @Bean
+    public KafkaPartitionFinder kafkaPartitionFinder(ConsumerFactory<Object, Object> consumerFactory) {
+        return new KafkaPartitionFinder(consumerFactory);
+    }
+
+    @RequiredArgsConstructor
+    public static class KafkaPartitionFinder {
+
+        private final ConsumerFactory<Object, Object> consumerFactory;
+
+        /**
+         * @return the partitions of the topic, for {@link org.springframework.kafka.annotation.TopicPartition#partitions}
+         */
+        public String[] partitions(String topic) {
+            try (Consumer<Object, Object> consumer = consumerFactory.createConsumer()) {
+                return consumer.partitionsFor(topic).stream()
+                        .map(PartitionInfo::partition)
+                        .map(String::valueOf)
+                        .toArray(String[]::new);
+            }
+        }
+    }
 }
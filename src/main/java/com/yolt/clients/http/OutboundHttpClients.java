@@ -0,0 +1,131 @@
+package com.yolt.clients.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The http clients for the calls to other services.
+ * <p>
+ * Every target (a downstream service, e.g. "crypto") gets one pool of keep-alive connections, with the limits and
+ * timeouts of {@link OutboundHttpProperties}.  The pool is shared by all {@link org.springframework.web.client.RestTemplate}s
+ * of that target, so they reuse each other's connections instead of setting up a connection, and a TLS session, per
+ * request.  The requests are timed per target and operation, see {@link OutboundRequestMetrics}.
+ * <p>
+ * The clients use the system properties for TLS and proxy settings, like the http client that Spring Boot picks by
+ * default.
+ */
+@Slf4j
+@Component
+public class OutboundHttpClients {
+
+    private final RestTemplateBuilder restTemplateBuilder;
+    private final OutboundHttpProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final OutboundRequestMetrics requestMetrics;
+    private final Map<String, CloseableHttpClient> httpClients = new ConcurrentHashMap<>();
+
+    OutboundHttpClients(RestTemplateBuilder restTemplateBuilder, OutboundHttpProperties properties, MeterRegistry meterRegistry) {
+        this.restTemplateBuilder = restTemplateBuilder;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.requestMetrics = new OutboundRequestMetrics(meterRegistry);
+    }
+
+    /**
+     * @param target the name of the downstream service, used for the configuration and the metrics
+     * @return a builder for a {@link org.springframework.web.client.RestTemplate} that uses the connection pool of the
+     * target
+     */
+    public RestTemplateBuilder restTemplateBuilder(String target) {
+        return restTemplateBuilder(target, null);
+    }
+
+    /**
+     * @param proxy the proxy through which the target is called, a target is always called through the same proxy
+     */
+    public RestTemplateBuilder restTemplateBuilder(String target, @Nullable HttpHost proxy) {
+        CloseableHttpClient httpClient = httpClients.computeIfAbsent(target, name -> createHttpClient(name, proxy));
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient))
+                .additionalInterceptors(requestMetrics.interceptor(target))
+                .additionalCustomizers(restTemplate -> restTemplate.setUriTemplateHandler(requestMetrics.wrap(restTemplate.getUriTemplateHandler())));
+    }
+
+    private CloseableHttpClient createHttpClient(String target, @Nullable HttpHost proxy) {
+        OutboundHttpProperties.Pool pool = properties.forTarget(target);
+
+        // The builder ignores its own TLS settings when it is given a connection manager, hence the socket factories.
+        var connectionManager = new PoolingHttpClientConnectionManager(RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", SSLConnectionSocketFactory.getSystemSocketFactory())
+                .build());
+        // A target is a single host, so the pool of the route is the pool of the target.
+        connectionManager.setMaxTotal(pool.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(pool.getMaxConnections());
+        connectionManager.setValidateAfterInactivity(2000);
+
+        var requestConfig = RequestConfig.custom()
+                .setConnectTimeout((int) pool.getConnectTimeout().toMillis())
+                .setConnectionRequestTimeout((int) pool.getConnectionRequestTimeout().toMillis())
+                .setSocketTimeout((int) pool.getReadTimeout().toMillis())
+                .build();
+
+        CloseableHttpClient httpClient = HttpClientBuilder.create()
+                .useSystemProperties()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setProxy(proxy)
+                .evictExpiredConnections()
+                .evictIdleConnections(pool.getIdleTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .build();
+
+        Gauge.builder("outbound_http_pool_connections", connectionManager, manager -> manager.getTotalStats().getLeased())
+                .description("number of pooled connections to the target that are in use")
+                .tag("target", target)
+                .tag("state", "leased")
+                .register(meterRegistry);
+        Gauge.builder("outbound_http_pool_connections", connectionManager, manager -> manager.getTotalStats().getAvailable())
+                .description("number of pooled connections to the target that are idle")
+                .tag("target", target)
+                .tag("state", "available")
+                .register(meterRegistry);
+        Gauge.builder("outbound_http_pool_pending", connectionManager, manager -> manager.getTotalStats().getPending())
+                .description("number of requests to the target that wait for a connection")
+                .tag("target", target)
+                .register(meterRegistry);
+
+        log.info("Created a connection pool for {} with at most {} connections.", target, pool.getMaxConnections());
+        return httpClient;
+    }
+
+    @PreDestroy
+    void close() {
+        httpClients.forEach((target, httpClient) -> {
+            try {
+                httpClient.close();
+            } catch (IOException e) {
+                log.warn("Failed to close the http client for {}.", target, e);
+            }
+        });
+    }
+}
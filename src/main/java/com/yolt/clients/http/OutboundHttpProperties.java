@@ -0,0 +1,69 @@
+package com.yolt.clients.http;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Connection pool limits and timeouts of the outbound http clients, see {@link OutboundHttpClients}.
+ * <p>
+ * {@code clients.http.defaults} applies to every target, {@code clients.http.targets.<target>} overrides a part of it
+ * for a single target.
+ */
+@Validated
+@Data
+@Configuration
+@ConfigurationProperties("clients.http")
+public class OutboundHttpProperties {
+
+    private @Valid @NotNull Pool defaults = new Pool(20, Duration.ofSeconds(2), Duration.ofSeconds(2), Duration.ofSeconds(30), Duration.ofSeconds(30));
+    private @NotNull Map<String, Pool> targets = new HashMap<>();
+
+    Pool forTarget(String target) {
+        Pool pool = targets.getOrDefault(target, new Pool());
+        return new Pool(
+                Optional.ofNullable(pool.getMaxConnections()).orElse(defaults.getMaxConnections()),
+                Optional.ofNullable(pool.getConnectTimeout()).orElse(defaults.getConnectTimeout()),
+                Optional.ofNullable(pool.getConnectionRequestTimeout()).orElse(defaults.getConnectionRequestTimeout()),
+                Optional.ofNullable(pool.getReadTimeout()).orElse(defaults.getReadTimeout()),
+                Optional.ofNullable(pool.getIdleTimeout()).orElse(defaults.getIdleTimeout())
+        );
+    }
+
+    @Data
+    public static class Pool {
+        /**
+         * The maximum number of open connections to the target.
+         */
+        private @NotNull Integer maxConnections;
+        private @NotNull Duration connectTimeout;
+        /**
+         * How long to wait for a connection from the pool when all connections are in use.
+         */
+        private @NotNull Duration connectionRequestTimeout;
+        private @NotNull Duration readTimeout;
+        /**
+         * How long an unused connection is kept alive.
+         */
+        private @NotNull Duration idleTimeout;
+
+        public Pool() {
+        }
+
+        Pool(Integer maxConnections, Duration connectTimeout, Duration connectionRequestTimeout, Duration readTimeout, Duration idleTimeout) {
+            this.maxConnections = maxConnections;
+            this.connectTimeout = connectTimeout;
+            this.connectionRequestTimeout = connectionRequestTimeout;
+            this.readTimeout = readTimeout;
+            this.idleTimeout = idleTimeout;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.yolt.clients.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import lombok.Value;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.util.UriTemplateHandler;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Times the outbound requests and counts the requests in flight, per target and operation.
+ * <p>
+ * The operation is the http method and the uri template of the request, e.g. "POST /key/{kid}/csr", so it does not
+ * contain identifiers.  The template is captured by the {@link UriTemplateHandler} of {@link #wrap} together with the
+ * uri it expanded to, and only used for a request to that uri.  A request that was made with a {@link URI} instead of
+ * a template gets the operation "GET unknown" (with its own method), as its path could contain identifiers.
+ */
+class OutboundRequestMetrics {
+
+    private static final String UNKNOWN_PATH = "unknown";
+
+    /**
+     * The last expansion on the thread, the request that follows it is made on the same thread.
+     */
+    private static final ThreadLocal<Expansion> LAST_EXPANSION = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Tags, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    OutboundRequestMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    ClientHttpRequestInterceptor interceptor(String target) {
+        return (request, body, execution) -> record(target, request, body, execution);
+    }
+
+    UriTemplateHandler wrap(UriTemplateHandler delegate) {
+        return new UriTemplateHandler() {
+            @Override
+            public URI expand(String uriTemplate, Map<String, ?> uriVariables) {
+                URI uri = delegate.expand(uriTemplate, uriVariables);
+                LAST_EXPANSION.set(new Expansion(uriTemplate, uri));
+                return uri;
+            }
+
+            @Override
+            public URI expand(String uriTemplate, Object... uriVariables) {
+                URI uri = delegate.expand(uriTemplate, uriVariables);
+                LAST_EXPANSION.set(new Expansion(uriTemplate, uri));
+                return uri;
+            }
+        };
+    }
+
+    private ClientHttpResponse record(String target, HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        Tags tags = Tags.of("target", target, "operation", request.getMethodValue() + " " + operationPath(request));
+        AtomicInteger requestsInFlight = inFlight.computeIfAbsent(tags, t -> meterRegistry.gauge("outbound_http_requests_in_flight", t, new AtomicInteger()));
+
+        String status = "IO_ERROR";
+        long start = System.nanoTime();
+        requestsInFlight.incrementAndGet();
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            status = String.valueOf(response.getRawStatusCode());
+            return response;
+        } finally {
+            requestsInFlight.decrementAndGet();
+            Timer.builder("outbound_http_requests")
+                    .description("duration of the requests to other services")
+                    .tags(tags)
+                    .tag("status", status)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static String operationPath(HttpRequest request) {
+        Expansion expansion = LAST_EXPANSION.get();
+        LAST_EXPANSION.remove();
+        if (expansion == null || !expansion.getUri().equals(request.getURI())) {
+            return UNKNOWN_PATH;
+        }
+        // Strip a query string that was part of the template, the variables in it are not part of the operation.
+        String uriTemplate = expansion.getUriTemplate();
+        int query = uriTemplate.indexOf('?');
+        return query < 0 ? uriTemplate : uriTemplate.substring(0, query);
+    }
+
+    @Value
+    private static class Expansion {
+        String uriTemplate;
+        URI uri;
+    }
+}
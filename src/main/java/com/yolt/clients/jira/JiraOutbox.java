@@ -0,0 +1,112 @@
+package com.yolt.clients.jira;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yolt.clients.config.TransactionCallbacks;
+import com.yolt.clients.jira.JiraOutboxEntry.Type;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import nl.ing.lovebird.clienttokens.ClientToken;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Creates jira issues and comments asynchronously, with the same methods as the {@link JiraService}.
+ * <p>
+ * The issue or comment is written to the jira_outbox table in the transaction of the caller, so it is only sent when
+ * the change it is about is committed, and it is sent by the {@link JiraOutboxDispatcher} after the commit.  Instead
+ * of the key of the issue {@link #createIssue} returns a pending ticket, which the caller stores like before.  The
+ * dispatcher replaces the pending ticket with the key of the issue once it has been created, or with
+ * {@link JiraService#TICKET_CREATION_FAILED} when it gives up.  A comment on a pending ticket waits until the issue has
+ * been created.  The api does not show a pending ticket, see {@link #publicTicket}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class JiraOutbox {
+
+    private static final String PENDING_TICKET_PREFIX = "pending-";
+
+    private final JiraService jiraService;
+    private final JiraOutboxRepository jiraOutboxRepository;
+    private final JiraOutboxDispatcher jiraOutboxDispatcher;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+
+    /**
+     * @return the pending ticket of the issue, or null if there is nothing to add, edit or remove
+     */
+    @Transactional
+    public <T, U extends AbstractJiraData<T, ?>> String createIssue(ClientToken clientToken, AbstractJiraData<T, U> jiraData) {
+        String description = jiraService.getDescription(jiraData);
+        if (description == null) {
+            return null;
+        }
+        return createIssue(clientToken, description, jiraData.getSummary());
+    }
+
+    @Transactional
+    public <T, U extends AbstractJiraData<T, ?>> void updateIssue(AbstractJiraData<T, U> jiraData) {
+        if (!jiraService.isEnabled()) {
+            log.warn("Jira connection is not enabled, no comment will be added.");
+            return;
+        }
+        jiraService.getComments(jiraData).forEach((ticket, comment) -> {
+            if (ticket == null || JiraService.TICKET_CREATION_FAILED.equals(ticket)) {
+                log.warn("Not adding a comment to jira ticket {}.", ticket); //NOSHERIFF
+                return;
+            }
+            add(new JiraOutboxEntry(UUID.randomUUID(), null, Type.COMMENT, toJson(comment), ticket, 0));
+        });
+    }
+
+    /**
+     * @return the pending ticket of the issue
+     */
+    @Transactional
+    public String createIssue(ClientToken clientToken, String description, String summary) {
+        if (!jiraService.isEnabled()) {
+            log.warn("Jira connection is not enabled.");
+            return null;
+        }
+        var issueDTO = jiraService.toIssue(clientToken, description, summary);
+        var entry = new JiraOutboxEntry(UUID.randomUUID(), clientToken.getClientIdClaim(), Type.ISSUE, toJson(issueDTO), null, 0);
+        add(entry);
+        return pendingTicket(entry.getId());
+    }
+
+    /**
+     * @return the ticket as it is shown to the users of the api, null while the issue has not been created yet
+     */
+    public static String publicTicket(String ticket) {
+        return ticket != null && ticket.startsWith(PENDING_TICKET_PREFIX) ? null : ticket;
+    }
+
+    static String pendingTicket(UUID id) {
+        return PENDING_TICKET_PREFIX + id;
+    }
+
+    /**
+     * @return the id of the issue the given ticket refers to, or null if the ticket is not pending
+     */
+    static UUID pendingIssueId(String ticket) {
+        return ticket != null && ticket.startsWith(PENDING_TICKET_PREFIX) ? UUID.fromString(ticket.substring(PENDING_TICKET_PREFIX.length())) : null;
+    }
+
+    private void add(JiraOutboxEntry entry) {
+        jiraOutboxRepository.insert(entry, LocalDateTime.now(clock));
+        TransactionCallbacks.afterCommit(jiraOutboxDispatcher::dispatchSoon);
+    }
+
+    private String toJson(Object request) {
+        try {
+            return objectMapper.writeValueAsString(request);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to write the jira request", e);
+        }
+    }
+}
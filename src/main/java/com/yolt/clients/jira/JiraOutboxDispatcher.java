@@ -0,0 +1,146 @@
+package com.yolt.clients.jira;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yolt.clients.jira.JiraOutboxRepository.IssueState;
+import com.yolt.clients.jira.dto.CommentDTO;
+import com.yolt.clients.jira.dto.IssueDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends the issues and comments of the {@link JiraOutbox} to jira, outside of the http requests that created them.
+ * <p>
+ * A commit that added to the outbox triggers a dispatch, and every minute the entries of which the next attempt is
+ * due are retried.  After {@code clients.jira.outbox.max-attempts} failed attempts an entry is given up on: the
+ * pending ticket of an issue is then replaced by {@link JiraService#TICKET_CREATION_FAILED}, like a failed synchronous
+ * call did.  Dispatched entries are kept for a week, so comments on their pending ticket can still be dispatched.
+ * <p>
+ * An entry is claimed one at a time, which commits right away and moves its next attempt
+ * {@code clients.jira.outbox.claim-timeout} ahead, longer than a call to jira can take.  No transaction or row lock is
+ * held during the call, and other instances skip the entry until the claim times out.  The result is stored after the
+ * call.  Whatever goes wrong with an entry, it is then due again later than the entries queued after it, so a single
+ * entry cannot hold up the others.
+ */
+@Slf4j
+@Component
+class JiraOutboxDispatcher {
+
+    private static final Duration RETENTION = Duration.ofDays(7);
+
+    private final JiraOutboxRepository jiraOutboxRepository;
+    private final JiraService jiraService;
+    private final ObjectMapper objectMapper;
+    private final Executor backgroundJobsExecutor;
+    private final Clock clock;
+    private final Duration retryDelay;
+    private final Duration claimTimeout;
+    private final int maxAttempts;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    JiraOutboxDispatcher(JiraOutboxRepository jiraOutboxRepository,
+                         JiraService jiraService,
+                         ObjectMapper objectMapper,
+                         @Qualifier("backgroundJobsExecutor") Executor backgroundJobsExecutor,
+                         Clock clock,
+                         @Value("${clients.jira.outbox.retry-delay:30s}") Duration retryDelay,
+                         @Value("${clients.jira.outbox.claim-timeout:2m}") Duration claimTimeout,
+                         @Value("${clients.jira.outbox.max-attempts:10}") int maxAttempts) {
+        this.jiraOutboxRepository = jiraOutboxRepository;
+        this.jiraService = jiraService;
+        this.objectMapper = objectMapper;
+        this.backgroundJobsExecutor = backgroundJobsExecutor;
+        this.clock = clock;
+        this.retryDelay = retryDelay;
+        this.claimTimeout = claimTimeout;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Dispatch on the background jobs executor, a dispatch that is already waiting there also picks up the new entries.
+     */
+    void dispatchSoon() {
+        if (scheduled.compareAndSet(false, true)) {
+            backgroundJobsExecutor.execute(this::dispatch);
+        }
+    }
+
+    @Scheduled(cron = "0 * * * * *")
+    void dispatchPeriodically() {
+        dispatchSoon();
+    }
+
+    synchronized void dispatch() {
+        // Reset before claiming, an entry committed while dispatching schedules a new dispatch.
+        scheduled.set(false);
+        Optional<JiraOutboxEntry> entry;
+        while ((entry = jiraOutboxRepository.claimNext(LocalDateTime.now(clock), claimTimeout)).isPresent()) {
+            send(entry.get());
+        }
+
+        jiraOutboxRepository.deleteDispatchedBefore(LocalDateTime.now(clock).minus(RETENTION));
+    }
+
+    private void send(JiraOutboxEntry entry) {
+        try {
+            switch (entry.getType()) {
+                case ISSUE -> {
+                    String ticket = jiraService.createIssue(objectMapper.readValue(entry.getRequest(), IssueDTO.class));
+                    jiraOutboxRepository.markIssueDispatched(entry.getId(), ticket, LocalDateTime.now(clock));
+                }
+                case COMMENT -> sendComment(entry);
+            }
+        } catch (Exception e) {
+            try {
+                recordFailure(entry, e);
+            } catch (RuntimeException e2) {
+                // The claim times out, and the entry is attempted again after that.
+                log.error("Failed to record the failed attempt of jira {} {}: {}", entry.getType(), entry.getId(), e2.getMessage(), e2); //NOSHERIFF
+            }
+        }
+    }
+
+    private void recordFailure(JiraOutboxEntry entry, Exception e) {
+        if (entry.getAttempts() < maxAttempts) {
+            log.warn("Failed to send jira {} {} (attempt {}), will retry: {}", entry.getType(), entry.getId(), entry.getAttempts(), e.getMessage()); //NOSHERIFF
+            Duration delay = retryDelay.multipliedBy(1L << Math.min(entry.getAttempts() - 1, 20));
+            jiraOutboxRepository.retryAt(entry.getId(), LocalDateTime.now(clock).plus(delay));
+            return;
+        }
+        log.error("Failed to send jira {} {} after {} attempts, giving up.", entry.getType(), entry.getId(), entry.getAttempts(), e); //NOSHERIFF
+        switch (entry.getType()) {
+            case ISSUE -> jiraOutboxRepository.markIssueDispatched(entry.getId(), JiraService.TICKET_CREATION_FAILED, LocalDateTime.now(clock));
+            case COMMENT -> jiraOutboxRepository.markCommentDispatched(entry.getId(), LocalDateTime.now(clock));
+        }
+    }
+
+    private void sendComment(JiraOutboxEntry entry) throws JsonProcessingException {
+        String ticket = entry.getTicket();
+        UUID pendingIssueId = JiraOutbox.pendingIssueId(ticket);
+        if (pendingIssueId != null) {
+            Optional<IssueState> issue = jiraOutboxRepository.findIssue(pendingIssueId);
+            if (issue.isPresent() && !issue.get().isDispatched()) {
+                jiraOutboxRepository.release(entry.getId(), LocalDateTime.now(clock).plus(retryDelay));
+                return;
+            }
+            ticket = issue.map(IssueState::getTicket).orElse(null);
+        }
+        if (ticket == null || JiraService.TICKET_CREATION_FAILED.equals(ticket)) {
+            log.warn("Not adding comment {} to jira ticket {}, the issue was not created.", entry.getId(), entry.getTicket()); //NOSHERIFF
+        } else {
+            jiraService.addComment(ticket, objectMapper.readValue(entry.getRequest(), CommentDTO.class));
+        }
+        jiraOutboxRepository.markCommentDispatched(entry.getId(), LocalDateTime.now(clock));
+    }
+}
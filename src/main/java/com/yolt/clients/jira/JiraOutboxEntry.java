@@ -0,0 +1,26 @@
+package com.yolt.clients.jira;
+
+import lombok.Value;
+
+import java.util.UUID;
+
+@Value
+class JiraOutboxEntry {
+    UUID id;
+    UUID clientId;
+    Type type;
+    /**
+     * The body of the request to jira, an {@link com.yolt.clients.jira.dto.IssueDTO} or a
+     * {@link com.yolt.clients.jira.dto.CommentDTO} as json.
+     */
+    String request;
+    /**
+     * For an issue the key of the created issue, for a comment the ticket to comment on.
+     */
+    String ticket;
+    int attempts;
+
+    enum Type {
+        ISSUE, COMMENT
+    }
+}
@@ -0,0 +1,123 @@
+package com.yolt.clients.jira;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+@RequiredArgsConstructor
+class JiraOutboxRepository {
+
+    /**
+     * The tables with a jira_ticket column, in which a pending ticket is replaced by the key of the created issue.
+     */
+    private static final List<String> TICKET_TABLES = List.of(
+            "ip_allow_list",
+            "allowed_outbound_hosts",
+            "client_mtls_certificates_dn",
+            "redirect_url_changelog"
+    );
+
+    private static final RowMapper<JiraOutboxEntry> ROW_MAPPER = (rs, rowNum) -> new JiraOutboxEntry(
+            rs.getObject("id", UUID.class),
+            rs.getObject("client_id", UUID.class),
+            JiraOutboxEntry.Type.valueOf(rs.getString("type")),
+            rs.getString("request"),
+            rs.getString("ticket"),
+            rs.getInt("attempts")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    void insert(JiraOutboxEntry entry, LocalDateTime now) {
+        jdbcTemplate.update("""
+                        insert into jira_outbox (id, client_id, type, request, ticket, created_at, next_attempt_at)
+                        values (?, ?, ?, ?, ?, ?, ?)
+                        """,
+                entry.getId(), entry.getClientId(), entry.getType().name(), entry.getRequest(), entry.getTicket(), now, now);
+    }
+
+    /**
+     * Claim the oldest pending entry of which the next attempt is due.  The attempt is counted and the next attempt is
+     * moved claimTimeout ahead, so other instances skip the entry while it is being sent.  Entries that are claimed
+     * concurrently by another instance are skipped.
+     */
+    Optional<JiraOutboxEntry> claimNext(LocalDateTime now, Duration claimTimeout) {
+        return jdbcTemplate.query("""
+                        update jira_outbox
+                           set attempts = attempts + 1
+                             , next_attempt_at = ?
+                         where id = (select id
+                                       from jira_outbox
+                                      where dispatched_at is null
+                                        and next_attempt_at <= ?
+                                      order by created_at
+                                      limit 1
+                                        for update skip locked)
+                        returning id, client_id, type, request, ticket, attempts
+                        """,
+                ROW_MAPPER, now.plus(claimTimeout), now)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * Pick a claimed entry up again at the given time, after a failed attempt.
+     */
+    void retryAt(UUID id, LocalDateTime nextAttemptAt) {
+        jdbcTemplate.update("update jira_outbox set next_attempt_at = ? where id = ?", nextAttemptAt, id);
+    }
+
+    /**
+     * Give back a claimed entry without counting the attempt, for a comment on an issue that has not been created yet.
+     */
+    void release(UUID id, LocalDateTime nextAttemptAt) {
+        jdbcTemplate.update("update jira_outbox set attempts = attempts - 1, next_attempt_at = ? where id = ?", nextAttemptAt, id);
+    }
+
+    void markCommentDispatched(UUID id, LocalDateTime now) {
+        jdbcTemplate.update("update jira_outbox set dispatched_at = ? where id = ?", now, id);
+    }
+
+    /**
+     * Mark the issue as dispatched, and replace its pending ticket with the given ticket wherever it is used.  A row
+     * that has moved on to another status in the meantime no longer refers to the pending ticket and is left as it is.
+     */
+    @Transactional
+    void markIssueDispatched(UUID id, String ticket, LocalDateTime now) {
+        jdbcTemplate.update("update jira_outbox set ticket = ?, dispatched_at = ? where id = ?", ticket, now, id);
+        String pendingTicket = JiraOutbox.pendingTicket(id);
+        for (String table : TICKET_TABLES) {
+            jdbcTemplate.update("update " + table + " set jira_ticket = ? where jira_ticket = ?", ticket, pendingTicket);
+        }
+    }
+
+    /**
+     * @return the state of the issue with the given id, empty if there is no such issue (anymore)
+     */
+    Optional<IssueState> findIssue(UUID id) {
+        return jdbcTemplate.query("select ticket, dispatched_at from jira_outbox where id = ? and type = 'ISSUE'",
+                (rs, rowNum) -> new IssueState(rs.getString("ticket"), rs.getObject("dispatched_at") != null), id)
+                .stream()
+                .findFirst();
+    }
+
+    int deleteDispatchedBefore(LocalDateTime before) {
+        return jdbcTemplate.update("delete from jira_outbox where dispatched_at < ?", before);
+    }
+
+    @Value
+    static class IssueState {
+        String ticket;
+        boolean dispatched;
+    }
+}
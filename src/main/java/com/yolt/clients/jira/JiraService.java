@@ -1,25 +1,25 @@
 package com.yolt.clients.jira;
 
 import com.yolt.clients.client.ClientService;
+import com.yolt.clients.http.OutboundHttpClients;
 import com.yolt.clients.jira.dto.*;
 import lombok.extern.slf4j.Slf4j;
 import nl.ing.lovebird.clienttokens.ClientToken;
 import nl.ing.lovebird.secretspipeline.VaultKeys;
 import org.apache.commons.codec.binary.Base64;
+import org.apache.http.HttpHost;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import java.net.InetSocketAddress;
-import java.net.Proxy;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -33,6 +33,7 @@ public class JiraService {
     private static final String PROJECT_KEY = "YT";
     private static final String ISSUE_TYPE = "Submit a request or incident";
     private static final String REQUEST_TYPE = "yt/bbda6e6e-255e-48c4-9d34-f8ba05374247";
+    static final String TICKET_CREATION_FAILED = "ticket_creation_failed";
 
     private final RestTemplate restTemplate;
     private final ClientService clientService;
@@ -48,7 +49,7 @@ public class JiraService {
                        @Value("${isp.proxy.port}") int port,
                        @Value("${environment}") String environment,
                        VaultKeys vaultKeys,
-                       RestTemplateBuilder restTemplateBuilder,
+                       OutboundHttpClients outboundHttpClients,
                        ClientService clientService) {
 
         this.isEnabled = isEnabled;
@@ -59,12 +60,7 @@ public class JiraService {
             this.apiToken = new String(vaultKeys.getPassword("clients-jira-token").getEncoded(), StandardCharsets.UTF_8);
         }
 
-        this.restTemplate = restTemplateBuilder.rootUri(jiraUrl).requestFactory(() -> {
-            var proxy = new Proxy(Proxy.Type.HTTP, new InetSocketAddress(host, port));
-            var requestFactory = new SimpleClientHttpRequestFactory();
-            requestFactory.setProxy(proxy);
-            return requestFactory;
-        }).build();
+        this.restTemplate = outboundHttpClients.restTemplateBuilder("jira", new HttpHost(host, port)).rootUri(jiraUrl).build();
     }
 
     private String userFriendlyEnvironmentName(String environment) {
@@ -76,7 +72,14 @@ public class JiraService {
         };
     }
 
-    public <T, U extends AbstractJiraData<T, ?>> String createIssue(ClientToken clientToken, AbstractJiraData<T, U> jiraData) {
+    boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * @return the description of the issue for the given data, or null if there is nothing to add, edit or remove
+     */
+    <T, U extends AbstractJiraData<T, ?>> String getDescription(AbstractJiraData<T, U> jiraData) {
         Set<T> toBeAdded = jiraData.getItemsToBeAdded();
         Set<T> toBeEdited = jiraData.getItemsToBeEdited();
         Set<T> toBeRemoved = jiraData.getItemsToBeRemoved();
@@ -91,19 +94,22 @@ public class JiraService {
         String toBeEditedList = formatItems(toBeEdited, mapper);
         String toBeRemovedList = formatItems(toBeRemoved, mapper);
 
-        return createIssue(clientToken, jiraData.getDescription(toBeAddedList, toBeEditedList, toBeRemovedList), jiraData.getSummary());
+        return jiraData.getDescription(toBeAddedList, toBeEditedList, toBeRemovedList);
     }
 
-    public <T, U extends AbstractJiraData<T, ?>> void updateIssue(AbstractJiraData<T, U> jiraData) {
-        updateIssue(jiraData.getJiraTicketsToBeEdited(), jiraData.getMapperToDescription(), jiraData.getComment());
+    /**
+     * @return the comment to add per jira ticket of the given data
+     */
+    <T, U extends AbstractJiraData<T, ?>> Map<String, CommentDTO> getComments(AbstractJiraData<T, U> jiraData) {
+        Map<String, CommentDTO> comments = new LinkedHashMap<>();
+        jiraData.getJiraTicketsToBeEdited().forEach((ticketKey, items) -> {
+            String itemsHandled = formatItems(items, jiraData.getMapperToDescription());
+            comments.put(ticketKey, new CommentDTO(String.format(jiraData.getComment(), itemsHandled)));
+        });
+        return comments;
     }
 
-    public String createIssue(ClientToken clientToken, String description, String summary) {
-        if (!isEnabled) {
-            log.warn("Jira connection is not enabled.");
-            return null;
-        }
-
+    IssueDTO toIssue(ClientToken clientToken, String description, String summary) {
         var client = clientService.getClient(clientToken);
 
         var jiraClientId = Optional.ofNullable(client.getJiraId())
@@ -121,23 +127,32 @@ public class JiraService {
                                 
                 %s""".formatted(client.getClientId(), client.getName(), description);
         var fieldDTO = new FieldDTO(projectDTO, environmentAndSummary, clientDescription, issueTypeDTO, jiraClientId, REQUEST_TYPE);
-        var issueDTO = new IssueDTO(fieldDTO);
-        var request = new HttpEntity<>(issueDTO, getHeaders());
+        return new IssueDTO(fieldDTO);
+    }
 
-        ResponseEntity<IssueResponseDTO> response;
-        try {
-            response = restTemplate.exchange("/rest/api/2/issue/", HttpMethod.POST, request, IssueResponseDTO.class);
-        } catch (Exception e ) {
-            log.error("Jira Integration is broken, can not create an issue", e);
-            return "ticket_creation_failed";
-        }
+    /**
+     * @return the key of the created issue
+     * @throws RestClientException if jira could not be reached or returned an error
+     */
+    String createIssue(IssueDTO issueDTO) {
+        var request = new HttpEntity<>(issueDTO, getHeaders());
+        ResponseEntity<IssueResponseDTO> response = restTemplate.exchange("/rest/api/2/issue/", HttpMethod.POST, request, IssueResponseDTO.class);
         IssueResponseDTO responseDTO = Optional.ofNullable(response.getBody()).orElseThrow(() -> new IllegalStateException("Expected an issue key in the response from jira, but got null."));
 
-
         log.info("Created issue with key {} and url {}.", responseDTO.getKey(), responseDTO.getSelf()); //NOSHERIFF
         return responseDTO.getKey();
     }
 
+    /**
+     * @throws RestClientException if jira could not be reached or returned an error
+     */
+    void addComment(String ticketKey, CommentDTO comment) {
+        var request = new HttpEntity<>(comment, getHeaders());
+        restTemplate.exchange("/rest/api/2/issue/{issueIdOrKey}/comment", HttpMethod.POST, request, Void.class, ticketKey);
+
+        log.info("Added the comment {} to the jira ticket {}.", comment.getBody(), ticketKey); //NOSHERIFF
+    }
+
     private <T> String formatItems(Set<T> items, Function<T, String> mapper) {
         if (items.isEmpty()) return "<n/a>";
 
@@ -147,21 +162,6 @@ public class JiraService {
                 .collect(Collectors.joining(System.lineSeparator()));
     }
 
-    private <T> void updateIssue(Map<String, Set<T>> jiraTicketsToBeEdited, Function<T, String> mapper, String hostComment) {
-        if (isEnabled) {
-            jiraTicketsToBeEdited.forEach((ticketKey, items) -> {
-                String itemsHandled = formatItems(items, mapper);
-                var comment = new CommentDTO(String.format(hostComment, itemsHandled));
-                var request = new HttpEntity<>(comment, getHeaders());
-                restTemplate.exchange("/rest/api/2/issue/{issueIdOrKey}/comment", HttpMethod.POST, request, Void.class, ticketKey);
-
-                log.info("Added the comment {} to the jira ticket {}.", comment.getBody(), ticketKey); //NOSHERIFF
-            });
-        } else {
-            log.warn("Jira connection is not enabled, no comment will be added.");
-        }
-    }
-
     private HttpHeaders getHeaders() {
         var authorizationHeader = String.format("%s:%s", jiraUser, apiToken);
         var httpHeaders = new HttpHeaders();
@@ -0,0 +1,91 @@
+package com.yolt.clients.jira;
+
+import com.yolt.clients.client.ipallowlist.TooManyPendingTasksException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Limits the number of jira tickets a client can have created for a resource in a sliding window of 24 hours.
+ * <p>
+ * A ticket counts if an item of the resource that refers to it has been updated within the window, like the services
+ * counted it before.  The items are the source of truth, so the distinct tickets are counted with a single query on
+ * the (client_id, updated) index of the table of the resource, rather than kept in a separate counter.
+ * <p>
+ * Exposes the metrics jira_tickets_rate_limited{resource}, the number of rejected requests, and
+ * jira_tickets_remaining{resource}, the remaining budget of the clients at the time of their requests.
+ */
+@Component
+public class JiraTicketRateLimiter {
+
+    private static final Duration WINDOW = Duration.ofDays(1);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final int maxTickets;
+    private final Map<Resource, Counter> rejections = new EnumMap<>(Resource.class);
+    private final Map<Resource, DistributionSummary> remaining = new EnumMap<>(Resource.class);
+
+    JiraTicketRateLimiter(JdbcTemplate jdbcTemplate,
+                          Clock clock,
+                          MeterRegistry meterRegistry,
+                          @Value("${yolt.jira.max_open_tickets}") int maxTickets) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = clock;
+        this.maxTickets = maxTickets;
+        for (Resource resource : Resource.values()) {
+            rejections.put(resource, Counter.builder("jira_tickets_rate_limited")
+                    .description("number of requests rejected because the client created too many jira tickets")
+                    .tag("resource", resource.getTable())
+                    .register(meterRegistry));
+            remaining.put(resource, DistributionSummary.builder("jira_tickets_remaining")
+                    .description("number of jira tickets a client could still create when it made a request")
+                    .tag("resource", resource.getTable())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * @throws TooManyPendingTasksException if the client already has the maximum number of tickets for the resource
+     */
+    public void check(UUID clientId, Resource resource) {
+        LocalDateTime countAfter = LocalDateTime.now(clock).minus(WINDOW);
+        Integer tickets = jdbcTemplate.queryForObject("""
+                        select count(distinct jira_ticket)
+                          from %s
+                         where client_id = ?
+                           and %s > ?
+                           and jira_ticket is not null
+                        """.formatted(resource.getTable(), resource.getUpdatedColumn()),
+                Integer.class, clientId, countAfter);
+        int budget = Math.max(0, maxTickets - (tickets == null ? 0 : tickets));
+        remaining.get(resource).record(budget);
+        if (budget == 0) {
+            rejections.get(resource).increment();
+            throw new TooManyPendingTasksException(clientId);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public enum Resource {
+        IP_ALLOW_LIST("ip_allow_list", "last_updated"),
+        OUTBOUND_ALLOW_LIST("allowed_outbound_hosts", "last_updated"),
+        DISTINGUISHED_NAMES("client_mtls_certificates_dn", "updated_at");
+
+        private final String table;
+        private final String updatedColumn;
+    }
+}
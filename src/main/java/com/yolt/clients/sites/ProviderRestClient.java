@@ -1,25 +1,85 @@
 package com.yolt.clients.sites;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yolt.clients.http.OutboundHttpClients;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.client.RestTemplate;
 
-import java.time.Duration;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.Optional;
 
 @Component
 class ProviderRestClient {
     private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper;
 
-    ProviderRestClient(RestTemplateBuilder builder, @Value("${service.providers.url}") String endpointBaseUrl) {
-        this.restTemplate = builder
+    ProviderRestClient(OutboundHttpClients outboundHttpClients, ObjectMapper objectMapper, @Value("${service.providers.url}") String endpointBaseUrl) {
+        this.restTemplate = outboundHttpClients.restTemplateBuilder("providers")
                 .rootUri(endpointBaseUrl)
-                .setReadTimeout(Duration.ofSeconds(81)) // Match the read-timeout of provider plus some margin
                 .build();
+        this.objectMapper = objectMapper;
     }
 
-    ProvidersSites getProvidersSites() {
-        return restTemplate.getForEntity("/sites-details", ProvidersSites.class).getBody();
+    /**
+     * Retrieve the sites details, unless they did not change compared to {@code knownVersion}.
+     * <p>
+     * If providers returned an ETag for the known version the request is conditional and providers can answer with a
+     * 304 without sending the sites.  Otherwise the response body is compared by its hash, which still saves the
+     * deserialization and all further processing of an unchanged list.
+     *
+     * @param knownVersion the version of the sites that the caller already has, null if it has none
+     * @return the sites details, or empty if they are the same as {@code knownVersion}
+     */
+    Optional<VersionedProvidersSites> getProvidersSitesIfChanged(@Nullable SitesVersion knownVersion) {
+        HttpHeaders headers = new HttpHeaders();
+        if (knownVersion != null && knownVersion.getETag() != null) {
+            headers.setIfNoneMatch(knownVersion.getETag());
+        }
+        ResponseEntity<byte[]> response = restTemplate.exchange("/sites-details", HttpMethod.GET, new HttpEntity<>(headers), byte[].class);
+        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+            return Optional.empty();
+        }
+
+        byte[] body = Objects.requireNonNull(response.getBody(), "providers returned an empty sites-details response");
+        var version = new SitesVersion(response.getHeaders().getETag(), DigestUtils.md5DigestAsHex(body));
+        if (knownVersion != null && version.getContentHash().equals(knownVersion.getContentHash())) {
+            return Optional.empty();
+        }
+        return Optional.of(new VersionedProvidersSites(version, body, read(body)));
+    }
+
+    ProvidersSites read(byte[] content) {
+        try {
+            return objectMapper.readValue(content, ProvidersSites.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the sites-details from providers", e);
+        }
     }
 
+    @lombok.Value
+    static class SitesVersion {
+        @Nullable
+        String eTag;
+        String contentHash;
+    }
+
+    @lombok.Value
+    static class VersionedProvidersSites {
+        SitesVersion version;
+        /**
+         * The sites-details as returned by providers.
+         */
+        byte[] content;
+        ProvidersSites providersSites;
+    }
 }
@@ -1,5 +1,6 @@
 package com.yolt.clients.sites;
 
+import com.yolt.clients.clientsite.ClientSiteCatalogue;
 import com.yolt.clients.clientsite.ClientSitesUpdateProducer;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -7,6 +8,7 @@ import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.SmartLifecycle;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
@@ -14,6 +16,8 @@ import java.time.Clock;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -26,6 +30,11 @@ public class SitesProvider implements SmartLifecycle {
     private final Clock clock;
     private final MeterRegistry meterRegistry;
     private final ClientSitesUpdateProducer clientSitesUpdateProducer;
+    private final ClientSiteCatalogue clientSiteCatalogue;
+    private final SitesSnapshotStore sitesSnapshotStore;
+    @Qualifier("backgroundJobsExecutor")
+    private final Executor backgroundJobsExecutor;
+    private final AtomicBoolean updateScheduled = new AtomicBoolean();
 
     private List<Site> sites = List.of();
     private Map<Site.SiteId, Site> sitesById = Map.of();
@@ -33,6 +42,7 @@ public class SitesProvider implements SmartLifecycle {
 
     volatile boolean loaded = false;
     private Instant lastLoaded = Instant.EPOCH;
+    private ProviderRestClient.SitesVersion sitesVersion;
 
     /**
      * By setting the lifecycle phase of this bean to a negative integer, we ensure that this service will be initialized
@@ -43,10 +53,26 @@ public class SitesProvider implements SmartLifecycle {
         return -1;
     }
 
+    /**
+     * Start from the snapshot of the last known sites if there is one, and refresh it in the background.  Otherwise,
+     * the sites have to be retrieved from providers before this service can become ready.
+     */
     @Override
     public void start() {
         registerMetric();
-        update();
+        sitesSnapshotStore.load().ifPresent(snapshot -> {
+            try {
+                apply(snapshot.getSites(), snapshot.getStoredAt());
+                log.info("started from a snapshot of the sites list of {}", snapshot.getStoredAt());
+            } catch (RuntimeException e) {
+                log.warn("Failed to start from the sites snapshot", e);
+            }
+        });
+        if (loaded) {
+            updateInBackground();
+        } else {
+            update();
+        }
     }
 
     @Override
@@ -65,41 +91,83 @@ public class SitesProvider implements SmartLifecycle {
     // second, minute, hour, day of month, month, day(s) of week
     @Scheduled(cron = "0 0/7 * * * *")
     public void retrieveSitesPeriodically() {
-        update();
+        updateInBackground();
+    }
+
+    /**
+     * Update on the background jobs executor, an update that is already waiting there is not scheduled again.
+     */
+    private void updateInBackground() {
+        if (updateScheduled.compareAndSet(false, true)) {
+            backgroundJobsExecutor.execute(() -> {
+                updateScheduled.set(false);
+                update();
+            });
+        }
     }
 
     /**
      * TODO make this non-public
      */
-    public void update() {
+    public synchronized void update() {
         try {
-            Set<UUID> previousSiteIds = sites.stream().map(Site::getId).map(Site.SiteId::unwrap).collect(Collectors.toSet());
-            var providersSites = providerRestClient.getProvidersSites();
-
-            // This is a really nasty assumption, but there should be AIS details if there are PIS details..
-            // because the AIS details contains, for example, the bankname.
-            Map<UUID, List<ProvidersSites.RegisteredPisSite>> pisDetailsBySiteId = providersSites.getPisSiteDetails().stream()
-                    .collect(Collectors.groupingBy(ProvidersSites.RegisteredPisSite::getId));
-
-            this.sitesById = providersSites.getAisSiteDetails().stream()
-                    .map(entry ->
-                        Map.entry(new Site.SiteId(entry.getId()), toSite(entry, pisDetailsBySiteId.getOrDefault(entry.getId(), null)))
-                    )
-                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
-            this.sites = List.copyOf(this.sitesById.values());
-            this.sitesByProvider = this.sites.stream().collect(Collectors.groupingBy(Site::getProvider));
-            this.loaded = true;
-            this.lastLoaded = Instant.now(clock);
-            log.info("loaded {} sites", sitesById.size());
-            Set<UUID> newSiteIds = sites.stream().map(Site::getId).map(Site.SiteId::unwrap).collect(Collectors.toSet());
-            if (!previousSiteIds.isEmpty() && !newSiteIds.equals(previousSiteIds)) {
-                clientSitesUpdateProducer.sendMessage();
+            Optional<ProviderRestClient.VersionedProvidersSites> changedSites = providerRestClient.getProvidersSitesIfChanged(sitesVersion);
+            if (changedSites.isEmpty()) {
+                this.lastLoaded = Instant.now(clock);
+                log.debug("sites list did not change");
+                return;
             }
+            apply(changedSites.get(), Instant.now(clock));
+            sitesSnapshotStore.save(changedSites.get());
         } catch (RuntimeException e) {
             log.warn("Failed to call providers/sites-details", e);
         }
     }
 
+    private synchronized void apply(ProviderRestClient.VersionedProvidersSites versionedProvidersSites, Instant loadedAt) {
+        var providersSites = versionedProvidersSites.getProvidersSites();
+
+        // This is a really nasty assumption, but there should be AIS details if there are PIS details..
+        // because the AIS details contains, for example, the bankname.
+        Map<UUID, List<ProvidersSites.RegisteredPisSite>> pisDetailsBySiteId = providersSites.getPisSiteDetails().stream()
+                .collect(Collectors.groupingBy(ProvidersSites.RegisteredPisSite::getId));
+
+        // Sites that did not change keep their current instance, so a small change in the list doesn't replace
+        // every site that is in memory.
+        Map<Site.SiteId, Site> previousSitesById = this.sitesById;
+        Map<Site.SiteId, Site> newSitesById = new HashMap<>();
+        for (ProvidersSites.RegisteredSite registeredSite : providersSites.getAisSiteDetails()) {
+            var siteId = new Site.SiteId(registeredSite.getId());
+            Site site = toSite(registeredSite, pisDetailsBySiteId.get(registeredSite.getId()));
+            Site previousSite = previousSitesById.get(siteId);
+            if (site.equals(previousSite)) {
+                site = previousSite;
+            }
+            if (newSitesById.putIfAbsent(siteId, site) != null) {
+                throw new IllegalStateException("Duplicate site id " + siteId.unwrap());
+            }
+        }
+
+        this.sitesVersion = versionedProvidersSites.getVersion();
+        this.loaded = true;
+        this.lastLoaded = loadedAt;
+        if (newSitesById.equals(previousSitesById)) {
+            log.info("sites list did not change, keeping {} sites", previousSitesById.size());
+            return;
+        }
+
+        this.sitesById = Map.copyOf(newSitesById);
+        this.sites = List.copyOf(this.sitesById.values());
+        this.sitesByProvider = this.sites.stream().collect(Collectors.groupingBy(Site::getProvider));
+        log.info("loaded {} sites", sitesById.size());
+        if (!previousSitesById.isEmpty() && !sitesById.keySet().equals(previousSitesById.keySet())) {
+            clientSitesUpdateProducer.sendMessage();
+        }
+        // Not only the set of sites, but also the details of a site end up in the client site catalogue.  Every pod
+        // refreshes the sites list by itself, so there is no need to tell the other pods.
+        clientSiteCatalogue.invalidateAllLocally();
+    }
+
     private Site toSite(ProvidersSites.RegisteredSite registeredSite, List<ProvidersSites.RegisteredPisSite> pisDetails) {
         return sitesMapper.mapToSite(registeredSite, pisDetails);
     }
@@ -0,0 +1,43 @@
+package com.yolt.clients.sites;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * The last sites-details response of providers that was successfully loaded, so a pod can start without waiting for
+ * providers.  There is only a single row, with id {@link #ID}.
+ */
+@Entity
+@Table(name = "sites_snapshot")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+class SitesSnapshot {
+
+    static final int ID = 1;
+
+    @Id
+    private int id;
+
+    @Column(name = "e_tag")
+    private String eTag;
+
+    @Column(name = "content_hash")
+    private String contentHash;
+
+    /**
+     * The gzipped response body of providers.
+     */
+    @Column(name = "content")
+    private byte[] content;
+
+    @Column(name = "updated_at")
+    private Instant updatedAt;
+}
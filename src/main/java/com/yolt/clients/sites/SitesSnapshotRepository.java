@@ -0,0 +1,6 @@
+package com.yolt.clients.sites;
+
+import org.springframework.data.repository.CrudRepository;
+
+interface SitesSnapshotRepository extends CrudRepository<SitesSnapshot, Integer> {
+}
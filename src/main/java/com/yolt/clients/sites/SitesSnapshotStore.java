@@ -0,0 +1,86 @@
+package com.yolt.clients.sites;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps the last sites-details response of providers in the database, gzipped, so {@link SitesProvider} can start
+ * from it instead of waiting for providers.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+class SitesSnapshotStore {
+
+    private final SitesSnapshotRepository sitesSnapshotRepository;
+    private final ProviderRestClient providerRestClient;
+    private final Clock clock;
+
+    /**
+     * @return the last stored sites, empty if there are none or if they cannot be read
+     */
+    Optional<Snapshot> load() {
+        try {
+            return sitesSnapshotRepository.findById(SitesSnapshot.ID)
+                    .map(snapshot -> {
+                        byte[] content = gunzip(snapshot.getContent());
+                        var version = new ProviderRestClient.SitesVersion(snapshot.getETag(), snapshot.getContentHash());
+                        var sites = new ProviderRestClient.VersionedProvidersSites(version, content, providerRestClient.read(content));
+                        return new Snapshot(sites, snapshot.getUpdatedAt());
+                    });
+        } catch (RuntimeException e) {
+            log.warn("Failed to load the sites snapshot", e);
+            return Optional.empty();
+        }
+    }
+
+    void save(ProviderRestClient.VersionedProvidersSites sites) {
+        try {
+            sitesSnapshotRepository.save(new SitesSnapshot(
+                    SitesSnapshot.ID,
+                    sites.getVersion().getETag(),
+                    sites.getVersion().getContentHash(),
+                    gzip(sites.getContent()),
+                    Instant.now(clock)
+            ));
+        } catch (RuntimeException e) {
+            log.warn("Failed to save the sites snapshot", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] content) {
+        var bytes = new ByteArrayOutputStream(content.length / 8);
+        try (var out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] content) {
+        try (var in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Value
+    static class Snapshot {
+        ProviderRestClient.VersionedProvidersSites sites;
+        Instant storedAt;
+    }
+}
@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS sites_snapshot
+(
+    id           integer      NOT NULL,
+    e_tag        varchar(256),
+    content_hash varchar(32)  NOT NULL,
+    content      bytea        NOT NULL,
+    updated_at   timestamp    NOT NULL,
+    PRIMARY KEY (id)
+);
@@ -0,0 +1,213 @@
+--
+-- A maintained replacement of onboarded_provider_view.  The view expands every onboarding on client group level into a row
+-- per redirect_url of every client in the group, on every read.  This table contains the same rows, and is kept up to
+-- date by the triggers below whenever one of the tables it is derived from changes, so reads are index scans.
+--
+-- Note: the column redirect_url_id is only null for scraping providers
+--
+create table onboarded_provider_materialized (
+    source          text not null,
+    client_id       uuid not null,
+    provider        text not null,
+    service_type    text not null,
+    redirect_url_id uuid,
+    constraint source_valid_values check (source in ('SCRAPING', 'CLIENT', 'CLIENT_GROUP'))
+);
+create index onboarded_provider_materialized_client_id_provider_idx on onboarded_provider_materialized (client_id, provider);
+comment on table onboarded_provider_materialized is 'Contains a row for every onboarded bank from the perspective of a client, see onboarded_provider_view.';
+comment on column onboarded_provider_materialized.source is 'The table the row is derived from: client_onboarded_scraping_provider (SCRAPING), client_onboarded_provider (CLIENT) or client_group_onboarded_provider (CLIENT_GROUP).';
+comment on column onboarded_provider_materialized.client_id is 'The client for which the provider is onboarded.';
+comment on column onboarded_provider_materialized.provider is 'Identifier of the onboarded provider.';
+comment on column onboarded_provider_materialized.service_type is 'The service type for which the provider is onboarded.';
+comment on column onboarded_provider_materialized.redirect_url_id is 'The redirectUrl with which the provider is onboarded, null for scraping providers.';
+
+--
+-- Rebuild the table from scratch, used to fill it initially and after a truncate of one of the source tables.
+--
+create function onboarded_provider_materialized_refresh() returns trigger language plpgsql as $$
+begin
+    delete from onboarded_provider_materialized;
+    insert into onboarded_provider_materialized (source, client_id, provider, service_type, redirect_url_id)
+         select 'SCRAPING', cosp.client_id, cosp.provider, cosp.service_type, null
+           from client_onboarded_scraping_provider cosp
+      union all
+         select 'CLIENT', cop.client_id, cop.provider, cop.service_type, cop.redirect_url_id
+           from client_onboarded_provider cop
+      union all
+         select 'CLIENT_GROUP', ru.client_id, cgop.provider, cgop.service_type, ru.redirect_url_id
+           from client_group_onboarded_provider cgop
+           join client c on cgop.client_group_id = c.client_group_id
+           join redirect_url ru on c.client_id = ru.client_id;
+    return null;
+end;
+$$;
+
+--
+-- The functions below apply the changes of a single statement, old_rows and new_rows are the transition tables of
+-- the statement.  An update is applied as a delete of the old rows followed by an insert of the new rows.
+--
+create function onboarded_provider_materialized_sync_scraping() returns trigger language plpgsql as $$
+begin
+    if tg_op in ('DELETE', 'UPDATE') then
+        delete from onboarded_provider_materialized m
+         using old_rows o
+         where m.source = 'SCRAPING'
+           and m.client_id = o.client_id
+           and m.provider = o.provider
+           and m.service_type = o.service_type;
+    end if;
+    if tg_op in ('INSERT', 'UPDATE') then
+        insert into onboarded_provider_materialized (source, client_id, provider, service_type, redirect_url_id)
+             select 'SCRAPING', n.client_id, n.provider, n.service_type, null
+               from new_rows n;
+    end if;
+    return null;
+end;
+$$;
+
+create function onboarded_provider_materialized_sync_client() returns trigger language plpgsql as $$
+begin
+    if tg_op in ('DELETE', 'UPDATE') then
+        delete from onboarded_provider_materialized m
+         using old_rows o
+         where m.source = 'CLIENT'
+           and m.client_id = o.client_id
+           and m.redirect_url_id = o.redirect_url_id
+           and m.provider = o.provider
+           and m.service_type = o.service_type;
+    end if;
+    if tg_op in ('INSERT', 'UPDATE') then
+        insert into onboarded_provider_materialized (source, client_id, provider, service_type, redirect_url_id)
+             select 'CLIENT', n.client_id, n.provider, n.service_type, n.redirect_url_id
+               from new_rows n;
+    end if;
+    return null;
+end;
+$$;
+
+create function onboarded_provider_materialized_sync_client_group() returns trigger language plpgsql as $$
+begin
+    if tg_op in ('DELETE', 'UPDATE') then
+        delete from onboarded_provider_materialized m
+         using old_rows o
+          join client c on c.client_group_id = o.client_group_id
+         where m.source = 'CLIENT_GROUP'
+           and m.client_id = c.client_id
+           and m.provider = o.provider
+           and m.service_type = o.service_type;
+    end if;
+    if tg_op in ('INSERT', 'UPDATE') then
+        insert into onboarded_provider_materialized (source, client_id, provider, service_type, redirect_url_id)
+             select 'CLIENT_GROUP', ru.client_id, n.provider, n.service_type, ru.redirect_url_id
+               from new_rows n
+               join client c on c.client_group_id = n.client_group_id
+               join redirect_url ru on ru.client_id = c.client_id;
+    end if;
+    return null;
+end;
+$$;
+
+create function onboarded_provider_materialized_sync_redirect_url() returns trigger language plpgsql as $$
+begin
+    if tg_op in ('DELETE', 'UPDATE') then
+        delete from onboarded_provider_materialized m
+         using old_rows o
+         where m.source = 'CLIENT_GROUP'
+           and m.client_id = o.client_id
+           and m.redirect_url_id = o.redirect_url_id;
+    end if;
+    if tg_op in ('INSERT', 'UPDATE') then
+        insert into onboarded_provider_materialized (source, client_id, provider, service_type, redirect_url_id)
+             select 'CLIENT_GROUP', n.client_id, cgop.provider, cgop.service_type, n.redirect_url_id
+               from new_rows n
+               join client c on c.client_id = n.client_id
+               join client_group_onboarded_provider cgop on cgop.client_group_id = c.client_group_id;
+    end if;
+    return null;
+end;
+$$;
+
+--
+-- Only a client that moves to another client group affects the table.  A new client has no redirect urls yet, and
+-- the redirect urls of a client are deleted before the client itself.
+--
+create function onboarded_provider_materialized_sync_client_update() returns trigger language plpgsql as $$
+begin
+    delete from onboarded_provider_materialized m
+     using old_rows o
+      join new_rows n on n.client_id = o.client_id
+     where o.client_group_id <> n.client_group_id
+       and m.source = 'CLIENT_GROUP'
+       and m.client_id = o.client_id;
+    insert into onboarded_provider_materialized (source, client_id, provider, service_type, redirect_url_id)
+         select 'CLIENT_GROUP', n.client_id, cgop.provider, cgop.service_type, ru.redirect_url_id
+           from old_rows o
+           join new_rows n on n.client_id = o.client_id
+           join client_group_onboarded_provider cgop on cgop.client_group_id = n.client_group_id
+           join redirect_url ru on ru.client_id = n.client_id
+          where o.client_group_id <> n.client_group_id;
+    return null;
+end;
+$$;
+
+create trigger onboarded_provider_materialized_scraping_insert after insert on client_onboarded_scraping_provider
+    referencing new table as new_rows for each statement execute procedure onboarded_provider_materialized_sync_scraping();
+create trigger onboarded_provider_materialized_scraping_update after update on client_onboarded_scraping_provider
+    referencing old table as old_rows new table as new_rows for each statement execute procedure onboarded_provider_materialized_sync_scraping();
+create trigger onboarded_provider_materialized_scraping_delete after delete on client_onboarded_scraping_provider
+    referencing old table as old_rows for each statement execute procedure onboarded_provider_materialized_sync_scraping();
+
+create trigger onboarded_provider_materialized_client_insert after insert on client_onboarded_provider
+    referencing new table as new_rows for each statement execute procedure onboarded_provider_materialized_sync_client();
+create trigger onboarded_provider_materialized_client_update after update on client_onboarded_provider
+    referencing old table as old_rows new table as new_rows for each statement execute procedure onboarded_provider_materialized_sync_client();
+create trigger onboarded_provider_materialized_client_delete after delete on client_onboarded_provider
+    referencing old table as old_rows for each statement execute procedure onboarded_provider_materialized_sync_client();
+
+create trigger onboarded_provider_materialized_client_group_insert after insert on client_group_onboarded_provider
+    referencing new table as new_rows for each statement execute procedure onboarded_provider_materialized_sync_client_group();
+create trigger onboarded_provider_materialized_client_group_update after update on client_group_onboarded_provider
+    referencing old table as old_rows new table as new_rows for each statement execute procedure onboarded_provider_materialized_sync_client_group();
+create trigger onboarded_provider_materialized_client_group_delete after delete on client_group_onboarded_provider
+    referencing old table as old_rows for each statement execute procedure onboarded_provider_materialized_sync_client_group();
+
+create trigger onboarded_provider_materialized_redirect_url_insert after insert on redirect_url
+    referencing new table as new_rows for each statement execute procedure onboarded_provider_materialized_sync_redirect_url();
+create trigger onboarded_provider_materialized_redirect_url_update after update on redirect_url
+    referencing old table as old_rows new table as new_rows for each statement execute procedure onboarded_provider_materialized_sync_redirect_url();
+create trigger onboarded_provider_materialized_redirect_url_delete after delete on redirect_url
+    referencing old table as old_rows for each statement execute procedure onboarded_provider_materialized_sync_redirect_url();
+
+create trigger onboarded_provider_materialized_client_table_update after update on client
+    referencing old table as old_rows new table as new_rows for each statement execute procedure onboarded_provider_materialized_sync_client_update();
+
+--
+-- Truncates don't fire delete triggers, rebuild everything instead.
+--
+create trigger onboarded_provider_materialized_scraping_truncate after truncate on client_onboarded_scraping_provider
+    for each statement execute procedure onboarded_provider_materialized_refresh();
+create trigger onboarded_provider_materialized_client_truncate after truncate on client_onboarded_provider
+    for each statement execute procedure onboarded_provider_materialized_refresh();
+create trigger onboarded_provider_materialized_client_group_truncate after truncate on client_group_onboarded_provider
+    for each statement execute procedure onboarded_provider_materialized_refresh();
+create trigger onboarded_provider_materialized_redirect_url_truncate after truncate on redirect_url
+    for each statement execute procedure onboarded_provider_materialized_refresh();
+create trigger onboarded_provider_materialized_client_table_truncate after truncate on client
+    for each statement execute procedure onboarded_provider_materialized_refresh();
+
+--
+-- Fill the table with the current data.
+--
+insert into onboarded_provider_materialized (source, client_id, provider, service_type, redirect_url_id)
+     select 'SCRAPING', cosp.client_id, cosp.provider, cosp.service_type, null
+       from client_onboarded_scraping_provider cosp
+  union all
+     select 'CLIENT', cop.client_id, cop.provider, cop.service_type, cop.redirect_url_id
+       from client_onboarded_provider cop
+  union all
+     select 'CLIENT_GROUP', ru.client_id, cgop.provider, cgop.service_type, ru.redirect_url_id
+       from client_group_onboarded_provider cgop
+       join client c on cgop.client_group_id = c.client_group_id
+       join redirect_url ru on c.client_id = ru.client_id;
+
+drop view onboarded_provider_view;
@@ -0,0 +1,26 @@
+--
+-- The jira issues and comments to send.  A row is written in the same transaction as the change it is about, and sent
+-- to jira afterwards by the JiraOutboxDispatcher.  Until the issue has been created the entities refer to it with the
+-- ticket 'pending-<id>', which is replaced by the key of the created issue.
+--
+create table jira_outbox (
+    id              uuid primary key,
+    client_id       uuid,
+    type            varchar(16) not null,
+    request         text not null,
+    ticket          varchar(256),
+    created_at      timestamp not null,
+    attempts        integer not null default 0,
+    next_attempt_at timestamp not null,
+    dispatched_at   timestamp,
+    constraint type_valid_values check (type in ('ISSUE', 'COMMENT'))
+);
+create index jira_outbox_next_attempt_at_idx on jira_outbox (next_attempt_at) where dispatched_at is null;
+comment on table jira_outbox is 'Contains the jira issues and comments that are sent asynchronously, see JiraOutbox.';
+comment on column jira_outbox.client_id is 'The client the issue is about, null for a comment.';
+comment on column jira_outbox.type is 'Whether the row creates an issue (ISSUE) or adds a comment to an issue (COMMENT).';
+comment on column jira_outbox.request is 'The body of the request to jira, json.';
+comment on column jira_outbox.ticket is 'ISSUE: the key of the created issue, once it is dispatched.  COMMENT: the ticket to comment on, possibly still pending.';
+comment on column jira_outbox.attempts is 'The number of times the row has been picked up for dispatching.';
+comment on column jira_outbox.next_attempt_at is 'The row is not dispatched before this time, it is moved forward every attempt.';
+comment on column jira_outbox.dispatched_at is 'When the row has been dispatched (or given up on), null while it is pending.';
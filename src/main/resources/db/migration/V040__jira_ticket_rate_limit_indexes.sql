@@ -0,0 +1,7 @@
+--
+-- The JiraTicketRateLimiter counts the distinct jira tickets of the items of a client that were updated in the last
+-- 24 hours, these indexes let it do so without reading the other items of the client.
+--
+create index ip_allow_list_client_id_last_updated_idx on ip_allow_list (client_id, last_updated) include (jira_ticket) where jira_ticket is not null;
+create index allowed_outbound_hosts_client_id_last_updated_idx on allowed_outbound_hosts (client_id, last_updated) include (jira_ticket) where jira_ticket is not null;
+create index client_mtls_certificates_dn_client_id_updated_at_idx on client_mtls_certificates_dn (client_id, updated_at) include (jira_ticket) where jira_ticket is not null;
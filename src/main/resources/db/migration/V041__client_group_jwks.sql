@@ -0,0 +1,14 @@
+--
+-- The JWKS of the EIDAS certificates of a client group as it was last published to S3, see JWKSService.  A signed
+-- certificate updates the stored JWKS instead of rebuilding it from all certificates, and the upload is skipped when
+-- the content did not change.  A row without jwks has been locked for a first publication.
+--
+create table client_group_jwks (
+    client_group_id uuid primary key references client_group (id),
+    jwks            text,
+    content_hash    varchar(64),
+    published_at    timestamp
+);
+comment on table client_group_jwks is 'Contains the JWKS per client group as it was last published to S3.';
+comment on column client_group_jwks.jwks is 'The published JWKS, json.';
+comment on column client_group_jwks.content_hash is 'The SHA-256 hash of jwks, hex encoded.';
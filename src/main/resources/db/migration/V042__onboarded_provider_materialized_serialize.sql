@@ -0,0 +1,129 @@
+--
+-- The triggers of V038 that derive the CLIENT_GROUP rows of onboarded_provider_materialized combine the changed rows of
+-- one table with the other tables as seen by the current transaction.  Under read committed two concurrent
+-- transactions, for example one adding a client group onboarding and one adding a redirect url to a client in that
+-- group, could each miss the uncommitted row of the other, so the combination of the two was never added.
+--
+-- These triggers now first take a transaction level advisory lock per affected client group.  A transaction that
+-- changes the rows of a client group waits for the other transactions that did so to commit, and the statements after
+-- the lock see their rows.  The locks are taken in the order of the client group ids.
+--
+create function onboarded_provider_materialized_lock(client_group_ids uuid[]) returns void language plpgsql as $$
+begin
+    perform pg_advisory_xact_lock(hashtext('onboarded_provider_materialized'), hashtext(ids.client_group_id::text))
+       from (select distinct unnest(client_group_ids) as client_group_id order by 1) ids;
+end;
+$$;
+
+create or replace function onboarded_provider_materialized_sync_client_group() returns trigger language plpgsql as $$
+begin
+    if tg_op = 'INSERT' then
+        perform onboarded_provider_materialized_lock(array(select n.client_group_id from new_rows n));
+    elsif tg_op = 'DELETE' then
+        perform onboarded_provider_materialized_lock(array(select o.client_group_id from old_rows o));
+    else
+        perform onboarded_provider_materialized_lock(array(select o.client_group_id from old_rows o
+                                                           union
+                                                           select n.client_group_id from new_rows n));
+    end if;
+
+    if tg_op in ('DELETE', 'UPDATE') then
+        delete from onboarded_provider_materialized m
+         using old_rows o
+          join client c on c.client_group_id = o.client_group_id
+         where m.source = 'CLIENT_GROUP'
+           and m.client_id = c.client_id
+           and m.provider = o.provider
+           and m.service_type = o.service_type;
+    end if;
+    if tg_op in ('INSERT', 'UPDATE') then
+        insert into onboarded_provider_materialized (source, client_id, provider, service_type, redirect_url_id)
+             select 'CLIENT_GROUP', ru.client_id, n.provider, n.service_type, ru.redirect_url_id
+               from new_rows n
+               join client c on c.client_group_id = n.client_group_id
+               join redirect_url ru on ru.client_id = c.client_id;
+    end if;
+    return null;
+end;
+$$;
+
+create or replace function onboarded_provider_materialized_sync_redirect_url() returns trigger language plpgsql as $$
+begin
+    if tg_op = 'INSERT' then
+        perform onboarded_provider_materialized_lock(array(select c.client_group_id from new_rows n join client c on c.client_id = n.client_id));
+    elsif tg_op = 'DELETE' then
+        perform onboarded_provider_materialized_lock(array(select c.client_group_id from old_rows o join client c on c.client_id = o.client_id));
+    else
+        perform onboarded_provider_materialized_lock(array(select c.client_group_id from old_rows o join client c on c.client_id = o.client_id
+                                                           union
+                                                           select c.client_group_id from new_rows n join client c on c.client_id = n.client_id));
+    end if;
+
+    if tg_op in ('DELETE', 'UPDATE') then
+        delete from onboarded_provider_materialized m
+         using old_rows o
+         where m.source = 'CLIENT_GROUP'
+           and m.client_id = o.client_id
+           and m.redirect_url_id = o.redirect_url_id;
+    end if;
+    if tg_op in ('INSERT', 'UPDATE') then
+        insert into onboarded_provider_materialized (source, client_id, provider, service_type, redirect_url_id)
+             select 'CLIENT_GROUP', n.client_id, cgop.provider, cgop.service_type, n.redirect_url_id
+               from new_rows n
+               join client c on c.client_id = n.client_id
+               join client_group_onboarded_provider cgop on cgop.client_group_id = c.client_group_id;
+    end if;
+    return null;
+end;
+$$;
+
+create or replace function onboarded_provider_materialized_sync_client_update() returns trigger language plpgsql as $$
+begin
+    perform onboarded_provider_materialized_lock(array(select unnest(array[o.client_group_id, n.client_group_id])
+                                                         from old_rows o
+                                                         join new_rows n on n.client_id = o.client_id
+                                                        where o.client_group_id <> n.client_group_id));
+
+    delete from onboarded_provider_materialized m
+     using old_rows o
+      join new_rows n on n.client_id = o.client_id
+     where o.client_group_id <> n.client_group_id
+       and m.source = 'CLIENT_GROUP'
+       and m.client_id = o.client_id;
+    insert into onboarded_provider_materialized (source, client_id, provider, service_type, redirect_url_id)
+         select 'CLIENT_GROUP', n.client_id, cgop.provider, cgop.service_type, ru.redirect_url_id
+           from old_rows o
+           join new_rows n on n.client_id = o.client_id
+           join client_group_onboarded_provider cgop on cgop.client_group_id = n.client_group_id
+           join redirect_url ru on ru.client_id = n.client_id
+          where o.client_group_id <> n.client_group_id;
+    return null;
+end;
+$$;
+
+--
+-- Rebuild the table, to add the rows that were missed and drop duplicates before the unique indexes are created.
+--
+delete from onboarded_provider_materialized;
+insert into onboarded_provider_materialized (source, client_id, provider, service_type, redirect_url_id)
+     select 'SCRAPING', cosp.client_id, cosp.provider, cosp.service_type, null
+       from client_onboarded_scraping_provider cosp
+  union all
+     select 'CLIENT', cop.client_id, cop.provider, cop.service_type, cop.redirect_url_id
+       from client_onboarded_provider cop
+  union all
+     select 'CLIENT_GROUP', ru.client_id, cgop.provider, cgop.service_type, ru.redirect_url_id
+       from client_group_onboarded_provider cgop
+       join client c on cgop.client_group_id = c.client_group_id
+       join redirect_url ru on c.client_id = ru.client_id;
+
+--
+-- A row is unique by its source and the primary key of the row(s) it is derived from.  Only scraping rows have no
+-- redirect url, null values are never equal in a unique index so those get an index of their own.
+--
+create unique index onboarded_provider_materialized_key_idx
+    on onboarded_provider_materialized (source, client_id, provider, service_type, redirect_url_id)
+    where redirect_url_id is not null;
+create unique index onboarded_provider_materialized_scraping_key_idx
+    on onboarded_provider_materialized (source, client_id, provider, service_type)
+    where redirect_url_id is null;
@@ -0,0 +1,6 @@
+--
+-- The JiraOutboxDispatcher claims one entry at a time, for longer than a call to jira can take, instead of a batch of
+-- entries for the retry delay.  After the call the next attempt is set to the retry delay, or the entry is dispatched.
+--
+comment on column jira_outbox.attempts is 'The number of times the row has been claimed for dispatching.';
+comment on column jira_outbox.next_attempt_at is 'The row is not dispatched before this time, it is moved forward when the row is claimed and after a failed attempt.';
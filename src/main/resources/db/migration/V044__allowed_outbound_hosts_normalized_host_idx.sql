@@ -0,0 +1,5 @@
+--
+-- The webhook upsert checks whether a client is allowed to call a host by looking up the host and its wildcards
+-- (*.example.com) by their normalized name, this index lets it do so without reading the other hosts of the client.
+--
+create index allowed_outbound_hosts_client_id_normalized_host_idx on allowed_outbound_hosts (client_id, rtrim(lower(host), '.'));
@@ -10,9 +10,16 @@ import com.yolt.clients.model.ClientGroup;
 import org.jetbrains.annotations.NotNull;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Collections;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -34,6 +41,11 @@ class OnboardedProviderViewRepositoryTest {
     @Autowired
     ClientOnboardedScrapingProviderRepository clientOnboardedScrapingProviderRepository;
 
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
     // Under test
     @Autowired
     OnboardedProviderViewRepository onboardedProviderViewRepository;
@@ -115,6 +127,88 @@ class OnboardedProviderViewRepositoryTest {
         assertThat(onboardedProviderViewRepository.selectAllForClientAndProvider(UUID.randomUUID(), "TEST3")).doesNotContain(expected3);
     }
 
+    @Test
+    public void given_changesToTheUnderlyingTables_then_theViewShouldFollow() {
+        var clientGroupId = UUID.randomUUID();
+        clientGroupRepository.save(new ClientGroup(clientGroupId, "garbage-" + clientGroupId));
+        var clientId = UUID.randomUUID();
+        clientRepository.save(makeClient(clientGroupId, clientId));
+        final UUID redirectUrlId = UUID.randomUUID();
+        final UUID otherRedirectUrlId = UUID.randomUUID();
+        redirectUrlRepository.save(new RedirectURL(clientId, redirectUrlId, "https://example.com"));
+        var clientGroupOnboardedProviderId = ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId.builder()
+                .clientGroupId(clientGroupId)
+                .provider("TEST4")
+                .serviceType(ServiceType.AIS)
+                .build();
+        clientGroupOnboardedProviderRepository.save(ClientGroupOnboardedProvider.builder()
+                .clientGroupOnboardedProviderId(clientGroupOnboardedProviderId)
+                .build()
+        );
+
+        // a redirect url that is added later on should also be expanded
+        RedirectURL otherRedirectUrl = redirectUrlRepository.save(new RedirectURL(clientId, otherRedirectUrlId, "https://example.org"));
+        assertThat(onboardedProviderViewRepository.selectAllForClientAndProvider(clientId, "TEST4")).containsExactlyInAnyOrder(
+                new OnboardedProviderView(clientId, "TEST4", ServiceType.AIS, redirectUrlId),
+                new OnboardedProviderView(clientId, "TEST4", ServiceType.AIS, otherRedirectUrlId)
+        );
+
+        // a removed redirect url should be removed
+        redirectUrlRepository.delete(otherRedirectUrl);
+        assertThat(onboardedProviderViewRepository.selectAllForClientAndProvider(clientId, "TEST4")).containsExactly(
+                new OnboardedProviderView(clientId, "TEST4", ServiceType.AIS, redirectUrlId)
+        );
+
+        // a removed onboarding should be removed
+        clientGroupOnboardedProviderRepository.deleteById(clientGroupOnboardedProviderId);
+        assertThat(onboardedProviderViewRepository.selectAllForClient(clientId)).isEmpty();
+    }
+
+    @Test
+    public void given_aRedirectUrlAddedWhileAClientGroupOnboardingIsUncommitted_then_theViewShouldContainTheirCombination() throws Exception {
+        var clientGroupId = UUID.randomUUID();
+        clientGroupRepository.save(new ClientGroup(clientGroupId, "garbage-" + clientGroupId));
+        var clientId = UUID.randomUUID();
+        clientRepository.save(makeClient(clientGroupId, clientId));
+        var redirectUrlId = UUID.randomUUID();
+
+        var onboardingInserted = new CountDownLatch(1);
+        var redirectUrlInserted = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> onboarding = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("insert into client_group_onboarded_provider (client_group_id, provider, service_type) values (?, 'TEST5', 'AIS')", clientGroupId);
+                onboardingInserted.countDown();
+                // Keep the onboarding uncommitted until the redirect url is inserted.  The insert of the redirect url
+                // waits for this transaction to commit, so this times out.
+                await(redirectUrlInserted, 2);
+            }));
+            Future<?> redirectUrl = executor.submit(() -> {
+                await(onboardingInserted, 10);
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update("insert into redirect_url (client_id, redirect_url_id, redirect_url) values (?, ?, 'https://example.com')", clientId, redirectUrlId);
+                    redirectUrlInserted.countDown();
+                });
+            });
+            onboarding.get(30, TimeUnit.SECONDS);
+            redirectUrl.get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(onboardedProviderViewRepository.selectAllForClientAndProvider(clientId, "TEST5")).containsExactly(
+                new OnboardedProviderView(clientId, "TEST5", ServiceType.AIS, redirectUrlId)
+        );
+    }
+
+    private static void await(CountDownLatch latch, long seconds) {
+        try {
+            latch.await(seconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     @NotNull
     private Client makeClient(UUID clientGroupId, UUID clientId) {
         return new Client(
@@ -0,0 +1,126 @@
+package com.yolt.clients.authmeans;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.utility.DockerImageName;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares reading 100k rows from onboarded_provider_materialized with the previous mapping of
+ * {@link OnboardedProviderViewRepository} (uuids cast to text, rows collected as {@code Object[]} and parsed
+ * afterwards) with the current one (uuid columns bound as {@link UUID}, rows mapped while reading).
+ * <p>
+ * Requires docker, run it with the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OnboardedProviderViewRowMappingBenchmark {
+
+    private static final int ROWS = 100_000;
+
+    private GenericContainer<?> postgres;
+    private JdbcTemplate jdbcTemplate;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OnboardedProviderViewRowMappingBenchmark.class.getSimpleName())
+                .build()
+        ).run();
+    }
+
+    @Setup
+    public void setUp() {
+        postgres = new GenericContainer<>(DockerImageName.parse("postgres:13"))
+                .withEnv("POSTGRES_PASSWORD", "benchmark")
+                .withExposedPorts(5432)
+                .waitingFor(Wait.forLogMessage(".*database system is ready to accept connections.*", 2));
+        postgres.start();
+
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl("jdbc:postgresql://" + postgres.getHost() + ":" + postgres.getMappedPort(5432) + "/postgres");
+        dataSource.setUser("postgres");
+        dataSource.setPassword("benchmark");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        jdbcTemplate.execute("""
+                create table onboarded_provider_materialized (
+                    source          text not null,
+                    client_id       uuid not null,
+                    provider        text not null,
+                    service_type    text not null,
+                    redirect_url_id uuid
+                )
+                """);
+        // 5000 clients with 20 onboardings each, every 10th onboarding is a scraper (without redirect url id).
+        jdbcTemplate.update("""
+                insert into onboarded_provider_materialized (source, client_id, provider, service_type, redirect_url_id)
+                     select case when i % 10 = 0 then 'SCRAPING' else 'CLIENT_GROUP' end
+                          , md5((i / 20)::text)::uuid
+                          , 'PROVIDER_' || (i % 50)
+                          , case when i % 2 = 0 then 'AIS' else 'PIS' end
+                          , case when i % 10 = 0 then null else md5('redirect-url-' || (i % 3))::uuid end
+                       from generate_series(1, ?) i
+                """, ROWS);
+        jdbcTemplate.execute("analyze onboarded_provider_materialized");
+    }
+
+    @TearDown
+    public void tearDown() {
+        postgres.stop();
+    }
+
+    @Benchmark
+    public List<OnboardedProviderView> textColumnsMappedFromObjectArrays() {
+        List<Object[]> rows = jdbcTemplate.query("""
+                        select cast(client_id as text)
+                             , provider
+                             , service_type
+                             , cast(redirect_url_id as text)
+                          from onboarded_provider_materialized
+                        """,
+                (rs, rowNum) -> new Object[]{rs.getObject(1), rs.getObject(2), rs.getObject(3), rs.getObject(4)}
+        );
+        return rows.stream()
+                .map(OnboardedProviderViewRowMappingBenchmark::map)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<OnboardedProviderView> uuidColumnsMappedPerRow() {
+        return jdbcTemplate.query("""
+                        select client_id
+                             , provider
+                             , service_type
+                             , redirect_url_id
+                          from onboarded_provider_materialized
+                        """,
+                OnboardedProviderViewRepository::mapRow
+        );
+    }
+
+    /**
+     * The mapping as it was before {@link OnboardedProviderViewRepository#mapRow}.
+     */
+    private static OnboardedProviderView map(Object[] row) {
+        return new OnboardedProviderView(
+                UUID.fromString((String) row[0]),
+                (String) row[1],
+                ServiceType.valueOf((String) row[2]),
+                row[3] != null ? UUID.fromString((String) row[3]) : null
+        );
+    }
+}
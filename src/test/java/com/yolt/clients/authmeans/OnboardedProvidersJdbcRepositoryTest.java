@@ -0,0 +1,94 @@
+package com.yolt.clients.authmeans;
+
+import com.yolt.clients.IntegrationTest;
+import com.yolt.clients.client.ClientsRepository;
+import com.yolt.clients.clientgroup.ClientGroupRepository;
+import com.yolt.clients.model.Client;
+import com.yolt.clients.model.ClientGroup;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@IntegrationTest
+class OnboardedProvidersJdbcRepositoryTest {
+
+    // For setup
+    @Autowired
+    ClientGroupRepository clientGroupRepository;
+    @Autowired
+    ClientsRepository clientRepository;
+
+    // Under test
+    @Autowired
+    OnboardedProvidersJdbcRepository onboardedProvidersJdbcRepository;
+
+    // For checks
+    @Autowired
+    ClientOnboardedScrapingProviderRepository clientOnboardedScrapingProviderRepository;
+
+    @Test
+    void given_client_when_insertAndDeleteClientOnboardedScrapingProviders_then_existingAndMissingRowsShouldBeIgnored() {
+        // given a Client
+        var clientGroupId = UUID.randomUUID();
+        clientGroupRepository.save(new ClientGroup(clientGroupId, "garbage-" + clientGroupId));
+        var clientId = UUID.randomUUID();
+        clientRepository.save(makeClient(clientGroupId, clientId));
+        var key1 = key(clientId, "TEST1");
+        var key2 = key(clientId, "TEST2");
+
+        // Insert twice, the second insert should not fail on the existing row.
+        onboardedProvidersJdbcRepository.insertClientOnboardedScrapingProviders(List.of(key1));
+        onboardedProvidersJdbcRepository.insertClientOnboardedScrapingProviders(List.of(key1, key2));
+
+        assertThat(clientOnboardedScrapingProviderRepository.findById(key1)).hasValueSatisfying(it -> assertThat(it.getCreatedAt()).isNotNull());
+        assertThat(clientOnboardedScrapingProviderRepository.findById(key2)).isPresent();
+
+        // Delete both, together with a row that doesn't exist.
+        onboardedProvidersJdbcRepository.deleteClientOnboardedScrapingProviders(List.of(key1, key2, key(clientId, "TEST3")));
+
+        assertThat(clientOnboardedScrapingProviderRepository.findById(key1)).isEmpty();
+        assertThat(clientOnboardedScrapingProviderRepository.findById(key2)).isEmpty();
+    }
+
+    private static ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId key(UUID clientId, String provider) {
+        return ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId.builder()
+                .clientId(clientId)
+                .serviceType(ServiceType.AIS)
+                .provider(provider)
+                .build();
+    }
+
+    @NotNull
+    private Client makeClient(UUID clientGroupId, UUID clientId) {
+        return new Client(
+                clientId,
+                clientGroupId,
+                "garbage-" + clientId,
+                "NL",
+                false,
+                false,
+                "10.71",
+                null,
+                false,
+                false,
+                false,
+                false,
+                false,
+                false,
+                true,
+                true,
+                false,
+                false,
+                false,
+                false,
+                1L,
+                Collections.emptySet()
+        );
+    }
+}
@@ -0,0 +1,61 @@
+package com.yolt.clients.authmeans;
+
+import nl.ing.lovebird.providerdomain.ServiceType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.UUID;
+
+import static com.yolt.clients.authmeans.ClientAuthenticationMeansKafkaConsumer.ClientAuthenticationMeansMessageType.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class OnboardingChangesTest {
+
+    private static final UUID CLIENT_GROUP_ID = UUID.randomUUID();
+    private static final UUID CLIENT_ID = UUID.randomUUID();
+    private static final UUID REDIRECT_URL_ID = UUID.randomUUID();
+
+    @Mock
+    private OnboardedProvidersJdbcRepository repository;
+
+    @Test
+    void applyTo_given_multipleEventsForTheSameOnboarding_then_onlyTheLastOneShouldBeApplied() {
+        var changes = new ClientAuthenticationMeansKafkaConsumer.OnboardingChanges();
+        var updatedThenDeleted = event(null, CLIENT_ID, REDIRECT_URL_ID, "PROVIDER_1");
+        var deletedThenUpdated = event(null, CLIENT_ID, null, "PROVIDER_2");
+
+        changes.add(CLIENT_AUTHENTICATION_MEANS_UPDATED, updatedThenDeleted);
+        changes.add(CLIENT_AUTHENTICATION_MEANS_DELETED, deletedThenUpdated);
+        changes.add(CLIENT_AUTHENTICATION_MEANS_DELETED, updatedThenDeleted);
+        changes.add(CLIENT_AUTHENTICATION_MEANS_UPDATED, deletedThenUpdated);
+        changes.applyTo(repository);
+
+        assertThat(changes.size()).isEqualTo(2);
+        assertThat(changes.getChangedClientIds()).containsExactly(CLIENT_ID);
+        assertThat(changes.isClientGroupChanged()).isFalse();
+        verify(repository).deleteClientOnboardedProviders(List.of(new ClientOnboardedProvider.ClientOnboardedProviderId(CLIENT_ID, REDIRECT_URL_ID, com.yolt.clients.authmeans.ServiceType.AIS, "PROVIDER_1")));
+        verify(repository).insertClientOnboardedProviders(List.of());
+        verify(repository).deleteClientOnboardedScrapingProviders(List.of());
+        verify(repository).insertClientOnboardedScrapingProviders(List.of(new ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId(CLIENT_ID, "PROVIDER_2", com.yolt.clients.authmeans.ServiceType.AIS)));
+    }
+
+    @Test
+    void add_given_aClientGroupEvent_then_theClientGroupShouldBeMarkedAsChanged() {
+        var changes = new ClientAuthenticationMeansKafkaConsumer.OnboardingChanges();
+
+        changes.add(CLIENT_GROUP_AUTHENTICATION_MEANS_UPDATED, event(CLIENT_GROUP_ID, CLIENT_GROUP_ID, null, "PROVIDER"));
+        changes.applyTo(repository);
+
+        assertThat(changes.isClientGroupChanged()).isTrue();
+        verify(repository).insertClientGroupOnboardedProviders(List.of(new ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId(CLIENT_GROUP_ID, "PROVIDER", com.yolt.clients.authmeans.ServiceType.AIS)));
+    }
+
+    private static ClientAuthenticationMeansKafkaConsumer.ClientAuthenticationMeansEventDTO event(UUID clientGroupId, UUID clientId, UUID redirectUrlId, String provider) {
+        return new ClientAuthenticationMeansKafkaConsumer.ClientAuthenticationMeansEventDTO(clientGroupId, clientId, redirectUrlId, provider, ServiceType.AIS);
+    }
+}
@@ -223,11 +223,41 @@ class SynchronizeWithProvidersServiceTest {
         assertThat(clientOnboardedScrapingProviderRepository.findAll()).isEmpty();
         assertThat(clientOnboardedProviderRepository.findAll()).isEmpty();
         assertThat(clientGroupOnboardedProviderRepository.findAll()).isEmpty();
-        assertLogMessageDoesContain("Dropping ClientGroupOnboardedProvider(clientGroupOnboardedProviderId=ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId(clientGroupId=" + unknownClientGroupId + ", provider=test1, serviceType=AIS), createdAt=null) because the client group Id does not exist in clients.");
-        assertLogMessageDoesContain("Dropping ClientOnboardedProvider(clientOnboardedProviderId=ClientOnboardedProvider.ClientOnboardedProviderId(clientId=" + clientId + ", redirectUrlId=" + unknownRedirectUrlId + ", serviceType=AIS, provider=test2), createdAt=null) because the client redirect url does not exist in clients.");
-        assertLogMessageDoesContain("Dropping ClientOnboardedScrapingProvider(clientOnboardedScrapingProviderId=ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId(clientId=" + unknownClientId +", provider=test3, serviceType=AIS), createdAt=null) because the client group Id does not exist in clients.");
+        assertLogMessageDoesContain("Dropping 1 entries because the client group Id does not exist in clients: [ClientGroupOnboardedProvider(clientGroupOnboardedProviderId=ClientGroupOnboardedProvider.ClientGroupOnboardedProviderId(clientGroupId=" + unknownClientGroupId + ", provider=test1, serviceType=AIS), createdAt=null)]");
+        assertLogMessageDoesContain("Dropping 1 entries because the client redirect url does not exist in clients: [ClientOnboardedProvider(clientOnboardedProviderId=ClientOnboardedProvider.ClientOnboardedProviderId(clientId=" + clientId + ", redirectUrlId=" + unknownRedirectUrlId + ", serviceType=AIS, provider=test2), createdAt=null)]");
+        assertLogMessageDoesContain("Dropping 1 entries because the client Id does not exist in clients: [ClientOnboardedScrapingProvider(clientOnboardedScrapingProviderId=ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId(clientId=" + unknownClientId + ", provider=test3, serviceType=AIS), createdAt=null)]");
     }
 
+    @Test
+    @SneakyThrows
+    void given_anUnchangedSnapshot_then_theExistingRowsShouldBeKept() {
+        var clientGroupId = UUID.randomUUID();
+        clientGroupRepository.save(new ClientGroup(clientGroupId, "garbage-" + clientGroupId));
+        var clientId = UUID.randomUUID();
+        clientRepository.save(makeClient(clientGroupId, clientId));
+        var responseJson = objectMapperBuilder.build().writeValueAsString(List.of(
+                new ProvidersClient.OnboardedProvider(null, clientId, "test4", ServiceType.AIS, null)
+        ));
+        wireMockServer.stubFor(
+                WireMock.get("/providers/all-onboarded-providers")
+                        .willReturn(aResponse()
+                                .withHeader("Content-Type", MediaType.APPLICATION_JSON_VALUE)
+                                .withBody(responseJson))
+        );
+        var id = ClientOnboardedScrapingProvider.ClientOnboardedScrapingProviderId.builder()
+                .clientId(clientId)
+                .provider("test4")
+                .serviceType(com.yolt.clients.authmeans.ServiceType.AIS)
+                .build();
+
+        synchronizeWithProvidersService.synchronizeWithProviders(false);
+        var createdAt = clientOnboardedScrapingProviderRepository.findById(id).orElseThrow().getCreatedAt();
+        synchronizeWithProvidersService.synchronizeWithProviders(false);
+
+        // The row was not deleted and re-inserted.
+        assertThat(clientOnboardedScrapingProviderRepository.findById(id).orElseThrow().getCreatedAt()).isEqualTo(createdAt);
+        assertThat(clientOnboardedScrapingProviderRepository.findAll()).hasSize(1);
+    }
 
     @NotNull
     private Client makeClient(UUID clientGroupId, UUID clientId) {
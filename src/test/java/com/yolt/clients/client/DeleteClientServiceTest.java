@@ -15,7 +15,7 @@ import com.yolt.clients.client.requesttokenpublickeys.dto.RequestTokenPublicKeyD
 import com.yolt.clients.client.webhooks.WebhookService;
 import com.yolt.clients.client.webhooks.dto.WebhookDTO;
 import com.yolt.clients.events.ClientDeletedEvent;
-import com.yolt.clients.jira.JiraService;
+import com.yolt.clients.jira.JiraOutbox;
 import nl.ing.lovebird.clienttokens.ClientToken;
 import org.jose4j.jwt.JwtClaims;
 import org.junit.jupiter.api.Test;
@@ -60,7 +60,7 @@ class DeleteClientServiceTest {
     @Mock
     private IPAllowListService ipAllowListService;
     @Mock
-    private JiraService jiraService;
+    private JiraOutbox jiraOutbox;
     @Mock
     private ClientDeletedEventProducer clientDeletedEventProducer;
 
@@ -125,7 +125,7 @@ class DeleteClientServiceTest {
         verify(webhookService).delete(clientToken, webhook2.getUrl());
         verify(outboundAllowListService).delete(clientToken);
         verify(ipAllowListService).delete(clientToken);
-        verify(jiraService).createIssue(
+        verify(jiraOutbox).createIssue(
                 clientToken,
                 """
                         Delete client: %s
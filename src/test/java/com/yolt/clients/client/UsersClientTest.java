@@ -1,6 +1,7 @@
 package com.yolt.clients.client;
 
 import com.yolt.clients.client.dto.CountDTO;
+import com.yolt.clients.http.OutboundHttpClients;
 import nl.ing.lovebird.clienttokens.ClientToken;
 import nl.ing.lovebird.clienttokens.constants.ClientTokenConstants;
 import org.junit.jupiter.api.BeforeEach;
@@ -30,7 +31,9 @@ class UsersClientTest {
         RestTemplateBuilder restTemplateBuilder = mock(RestTemplateBuilder.class);
         when(restTemplateBuilder.rootUri("usersURI")).thenReturn(restTemplateBuilder);
         when(restTemplateBuilder.build()).thenReturn(usersRestTemplate);
-        usersClient = new UsersClient(restTemplateBuilder, "usersURI");
+        OutboundHttpClients outboundHttpClients = mock(OutboundHttpClients.class);
+        when(outboundHttpClients.restTemplateBuilder("users")).thenReturn(restTemplateBuilder);
+        usersClient = new UsersClient(outboundHttpClients, "usersURI");
     }
 
     @Test
@@ -0,0 +1,64 @@
+package com.yolt.clients.client.ipallowlist;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AllowedIPTrieTest {
+
+    private AllowedIPTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new AllowedIPTrie();
+        trie.add(AllowedIPTrie.toBlock("10.0.0.0/24"));
+        trie.add(AllowedIPTrie.toBlock("192.168.1.7/32"));
+        trie.add(AllowedIPTrie.toBlock("2001:db8:1234::/48"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "10.0.0.0, true",
+            "10.0.0.255, true",
+            "10.0.1.0, false",
+            "192.168.1.7, true",
+            "192.168.1.8, false",
+            "2001:db8:1234:1a00::1, true",
+            "2001:db8:1235::1, false",
+            "::ffff:10.0.0.1, false"
+    })
+    void covers_an_address_in_one_of_the_blocks(String ip, boolean covered) {
+        assertThat(trie.covers(AllowedIPTrie.toBlock(ip))).isEqualTo(covered);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "10.0.0.0/24, true",
+            "10.0.0.128/25, true",
+            "10.0.0.0/16, true",
+            "10.0.1.0/24, false",
+            "192.168.1.0/24, true",
+            "2001:db8::/32, true",
+            "2001:db8:1235::/48, false"
+    })
+    void overlaps_a_block_that_contains_or_is_contained_by_a_block(String cidr, boolean overlaps) {
+        assertThat(trie.overlaps(AllowedIPTrie.toBlock(cidr))).isEqualTo(overlaps);
+    }
+
+    @Test
+    void contains_only_the_added_blocks() {
+        assertThat(trie.contains(AllowedIPTrie.toBlock("10.0.0.0/24"))).isTrue();
+        assertThat(trie.contains(AllowedIPTrie.toBlock("10.0.0.17/24"))).isTrue();
+        assertThat(trie.contains(AllowedIPTrie.toBlock("10.0.0.0/25"))).isFalse();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"bad/32", "''", "10.0.0.256"})
+    void toBlock_rejects_something_that_is_not_an_ip(String cidr) {
+        assertThatThrownBy(() -> AllowedIPTrie.toBlock(cidr)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
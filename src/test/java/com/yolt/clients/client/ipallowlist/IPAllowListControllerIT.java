@@ -6,6 +6,8 @@ import com.github.tomakehurst.wiremock.client.WireMock;
 import com.yolt.clients.IntegrationTest;
 import com.yolt.clients.client.ipallowlist.dto.AllowedIPDTO;
 import com.yolt.clients.client.ipallowlist.dto.AllowedIPIdListDTO;
+import com.yolt.clients.client.ipallowlist.dto.IPAddressesDTO;
+import com.yolt.clients.client.ipallowlist.dto.IPAllowedDTO;
 import com.yolt.clients.client.ipallowlist.dto.NewAllowedIPsDTO;
 import com.yolt.clients.clientgroup.ClientGroupRepository;
 import com.yolt.clients.jira.Status;
@@ -43,11 +45,13 @@ import java.util.stream.IntStream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 @IntegrationTest
 class IPAllowListControllerIT {
 
     private static final String ASSISTANCE_PORTAL_YTS = "assistance-portal-yts";
+    private static final String API_GATEWAY = "api-gateway";
     private static final String DEV_PORTAL = "dev-portal";
 
     @Autowired
@@ -70,6 +74,7 @@ class IPAllowListControllerIT {
     private ClientGroup clientGroup;
     private UUID allowedIPId;
     private ClientToken clientToken;
+    private ClientToken apiGatewayToken;
 
     @BeforeEach
     void setup() {
@@ -106,6 +111,8 @@ class IPAllowListControllerIT {
 
         clientToken = testClientTokens.createClientToken(clientGroupId, clientId,
                 claims -> claims.setClaim(ClientTokenConstants.EXTRA_CLAIM_ISSUED_FOR, ASSISTANCE_PORTAL_YTS));
+        apiGatewayToken = testClientTokens.createClientToken(clientGroupId, clientId,
+                claims -> claims.setClaim(ClientTokenConstants.EXTRA_CLAIM_ISSUED_FOR, API_GATEWAY));
     }
 
     @ParameterizedTest
@@ -115,6 +122,8 @@ class IPAllowListControllerIT {
             "other,     POST, '/apply'",    // markApplied
             "dev-portal,POST, '/apply'",    // markApplied
             "other,     POST, '/delete'",   // delete
+            "dev-portal,GET, '/allowed?ip=127.0.0.1'", // isAllowed
+            "dev-portal,POST, '/allowed'",  // areAllowed
     })
     void test_invalid_client_token_for_all_uris(
             String issuedForClaim,
@@ -197,22 +206,23 @@ class IPAllowListControllerIT {
                 .filter(id -> !Set.of(allowedIPId1, allowedIPId2, allowedIPId3, allowedIPId4).contains(id))
                 .findAny().orElseThrow(() -> new IllegalStateException("expected a new ID to be present"));
 
+        // the jira ticket is created after the response, until then the items have no ticket
         assertThat(response.getBody()).extracting("id", "cidr", "lastUpdated", "status", "jiraTicket").containsExactlyInAnyOrder(
                 Tuple.tuple(allowedIPId1, "127.0.0.1/32", LocalDateTime.now(clock), Status.PENDING_ADDITION, "JIRA-999"),
                 Tuple.tuple(allowedIPId2, "127.0.0.2/32", LocalDateTime.now(clock), Status.ADDED, null),
                 Tuple.tuple(allowedIPId3, "127.0.0.3/32", LocalDateTime.now(clock), Status.ADDED, null),
-                Tuple.tuple(allowedIPId4, "127.0.0.4/32", LocalDateTime.now(clock), Status.PENDING_ADDITION, "JIRA-123"),
-                Tuple.tuple(allowedIPId5, "127.0.0.5/32", LocalDateTime.now(clock), Status.PENDING_ADDITION, "JIRA-123")
+                Tuple.tuple(allowedIPId4, "127.0.0.4/32", LocalDateTime.now(clock), Status.PENDING_ADDITION, null),
+                Tuple.tuple(allowedIPId5, "127.0.0.5/32", LocalDateTime.now(clock), Status.PENDING_ADDITION, null)
         );
 
-        assertThat(ipAllowListRepository.findAllByClientIdOrderByLastUpdatedDesc(clientId)).containsExactlyInAnyOrder(
+        await().untilAsserted(() -> assertThat(ipAllowListRepository.findAllByClientIdOrderByLastUpdatedDesc(clientId)).containsExactlyInAnyOrder(
                 new AllowedIP(allowedIPId, clientId, "127.0.0.0/24", Status.REMOVED, LocalDateTime.now(clock), null),
                 new AllowedIP(allowedIPId1, clientId, "127.0.0.1/32", Status.PENDING_ADDITION, LocalDateTime.now(clock), "JIRA-999"),
                 new AllowedIP(allowedIPId2, clientId, "127.0.0.2/32", Status.ADDED, LocalDateTime.now(clock), null),
                 new AllowedIP(allowedIPId3, clientId, "127.0.0.3/32", Status.ADDED, LocalDateTime.now(clock), null),
                 new AllowedIP(allowedIPId4, clientId, "127.0.0.4/32", Status.PENDING_ADDITION, LocalDateTime.now(clock), "JIRA-123"),
                 new AllowedIP(allowedIPId5, clientId, "127.0.0.5/32", Status.PENDING_ADDITION, LocalDateTime.now(clock), "JIRA-123")
-        );
+        ));
     }
 
     @Test
@@ -351,18 +361,18 @@ class IPAllowListControllerIT {
 
         assertThat(response.getBody()).extracting("id", "cidr", "lastUpdated", "status", "jiraTicket").containsExactlyInAnyOrder(
                 Tuple.tuple(allowedIPId1, "127.0.0.1/32", LocalDateTime.now(clock), Status.REMOVED, null),
-                Tuple.tuple(allowedIPId2, "127.0.0.2/32", LocalDateTime.now(clock), Status.PENDING_REMOVAL, "JIRA-123"),
+                Tuple.tuple(allowedIPId2, "127.0.0.2/32", LocalDateTime.now(clock), Status.PENDING_REMOVAL, null),
                 Tuple.tuple(allowedIPId3, "127.0.0.3/32", LocalDateTime.now(clock), Status.PENDING_REMOVAL, "JIRA-999"),
                 Tuple.tuple(allowedIPId4, "127.0.0.4/32", LocalDateTime.now(clock), Status.REMOVED, null)
         );
 
-        assertThat(ipAllowListRepository.findAllByClientIdOrderByLastUpdatedDesc(clientId)).containsExactlyInAnyOrder(
+        await().untilAsserted(() -> assertThat(ipAllowListRepository.findAllByClientIdOrderByLastUpdatedDesc(clientId)).containsExactlyInAnyOrder(
                 new AllowedIP(allowedIPId, clientId, "127.0.0.0/24", Status.PENDING_REMOVAL, LocalDateTime.now(clock), "JIRA-999"),
                 new AllowedIP(allowedIPId1, clientId, "127.0.0.1/32", Status.REMOVED, LocalDateTime.now(clock), null),
                 new AllowedIP(allowedIPId2, clientId, "127.0.0.2/32", Status.PENDING_REMOVAL, LocalDateTime.now(clock), "JIRA-123"),
                 new AllowedIP(allowedIPId3, clientId, "127.0.0.3/32", Status.PENDING_REMOVAL, LocalDateTime.now(clock), "JIRA-999"),
                 new AllowedIP(allowedIPId4, clientId, "127.0.0.4/32", Status.REMOVED, LocalDateTime.now(clock), null)
-        );
+        ));
     }
 
     @Test
@@ -441,6 +451,93 @@ class IPAllowListControllerIT {
         assertThat(response.getBody().getCode()).isEqualTo("CLS019");
     }
 
+    @Test
+    void create_with_cidr_overlapping_an_existing_block_should_fail() {
+        clientGroupRepository.save(clientGroup);
+        ipAllowListRepository.save(new AllowedIP(allowedIPId, clientId, "127.0.0.0/24", Status.ADDED, LocalDateTime.now(clock)));
+
+        NewAllowedIPsDTO newAllowedIPsDTO = new NewAllowedIPsDTO(Set.of("127.0.0.5/32"));
+        HttpEntity<NewAllowedIPsDTO> request = new HttpEntity<>(newAllowedIPsDTO, getHttpHeaders(clientToken));
+        ResponseEntity<ErrorDTO> response = testRestTemplate.exchange("/internal/clients/{clientId}/ip-allow-list", HttpMethod.POST, request, new ParameterizedTypeReference<>() {
+        }, clientId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getCode()).isEqualTo("CLS044");
+        assertThat(ipAllowListRepository.findAllByClientIdOrderByLastUpdatedDesc(clientId)).containsExactlyInAnyOrder(
+                new AllowedIP(allowedIPId, clientId, "127.0.0.0/24", Status.ADDED, LocalDateTime.now(clock), null)
+        );
+    }
+
+    @Test
+    void create_with_overlapping_cidrs_should_fail() {
+        clientGroupRepository.save(clientGroup);
+
+        NewAllowedIPsDTO newAllowedIPsDTO = new NewAllowedIPsDTO(Set.of("127.0.0.0/24", "127.0.0.5/32"));
+        HttpEntity<NewAllowedIPsDTO> request = new HttpEntity<>(newAllowedIPsDTO, getHttpHeaders(clientToken));
+        ResponseEntity<ErrorDTO> response = testRestTemplate.exchange("/internal/clients/{clientId}/ip-allow-list", HttpMethod.POST, request, new ParameterizedTypeReference<>() {
+        }, clientId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getCode()).isEqualTo("CLS044");
+        assertThat(ipAllowListRepository.findAllByClientIdOrderByLastUpdatedDesc(clientId)).isEmpty();
+    }
+
+    @Test
+    void isAllowed_should_check_the_applied_blocks() {
+        clientGroupRepository.save(clientGroup);
+        ipAllowListRepository.save(new AllowedIP(UUID.randomUUID(), clientId, "127.0.0.0/24", Status.ADDED, LocalDateTime.now(clock)));
+        ipAllowListRepository.save(new AllowedIP(UUID.randomUUID(), clientId, "127.0.1.0/24", Status.PENDING_REMOVAL, LocalDateTime.now(clock), "JIRA-999"));
+        ipAllowListRepository.save(new AllowedIP(UUID.randomUUID(), clientId, "127.0.2.0/24", Status.PENDING_ADDITION, LocalDateTime.now(clock), "JIRA-999"));
+        ipAllowListRepository.save(new AllowedIP(UUID.randomUUID(), clientId, "127.0.3.0/24", Status.REMOVED, LocalDateTime.now(clock)));
+
+        ResponseEntity<IPAllowedDTO> response = testRestTemplate.exchange("/internal/clients/{clientId}/ip-allow-list/allowed?ip={ip}", HttpMethod.GET, new HttpEntity<>(getHttpHeaders(apiGatewayToken)), IPAllowedDTO.class, clientId, "127.0.0.42");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).isEqualTo(new IPAllowedDTO("127.0.0.42", true));
+
+        var request = new HttpEntity<>(new IPAddressesDTO(Set.of("127.0.0.1", "127.0.1.1", "127.0.2.1", "127.0.3.1", "::1")), getHttpHeaders(apiGatewayToken));
+        ResponseEntity<Set<IPAllowedDTO>> bulkResponse = testRestTemplate.exchange("/internal/clients/{clientId}/ip-allow-list/allowed", HttpMethod.POST, request, new ParameterizedTypeReference<>() {
+        }, clientId);
+
+        assertThat(bulkResponse.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(bulkResponse.getBody()).containsExactlyInAnyOrder(
+                new IPAllowedDTO("127.0.0.1", true),
+                new IPAllowedDTO("127.0.1.1", true),
+                new IPAllowedDTO("127.0.2.1", false),
+                new IPAllowedDTO("127.0.3.1", false),
+                new IPAllowedDTO("::1", false)
+        );
+    }
+
+    @Test
+    void isAllowed_should_see_applied_changes() {
+        clientGroupRepository.save(clientGroup);
+        ipAllowListRepository.save(new AllowedIP(allowedIPId, clientId, "127.0.0.0/24", Status.PENDING_ADDITION, LocalDateTime.now(clock), "JIRA-999"));
+        assertThat(isAllowed("127.0.0.42")).isFalse();
+
+        HttpEntity<AllowedIPIdListDTO> request = new HttpEntity<>(new AllowedIPIdListDTO(Set.of(allowedIPId)), getHttpHeaders(clientToken));
+        testRestTemplate.exchange("/internal/clients/{clientId}/ip-allow-list/apply", HttpMethod.POST, request, new ParameterizedTypeReference<Set<AllowedIPDTO>>() {
+        }, clientId);
+
+        assertThat(isAllowed("127.0.0.42")).isTrue();
+    }
+
+    @Test
+    void isAllowed_with_invalid_ip_should_fail() {
+        ResponseEntity<ErrorDTO> response = testRestTemplate.exchange("/internal/clients/{clientId}/ip-allow-list/allowed?ip={ip}", HttpMethod.GET, new HttpEntity<>(getHttpHeaders(apiGatewayToken)), ErrorDTO.class, clientId, "127.0.0.256");
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getCode()).isEqualTo("CLS045");
+    }
+
+    private boolean isAllowed(String ip) {
+        return testRestTemplate.exchange("/internal/clients/{clientId}/ip-allow-list/allowed?ip={ip}", HttpMethod.GET, new HttpEntity<>(getHttpHeaders(apiGatewayToken)), IPAllowedDTO.class, clientId, ip)
+                .getBody().isAllowed();
+    }
+
     private HttpHeaders getHttpHeaders(ClientToken clientToken) {
         HttpHeaders headers = new HttpHeaders();
         headers.add(ClientTokenConstants.CLIENT_TOKEN_HEADER_NAME, clientToken.getSerialized());
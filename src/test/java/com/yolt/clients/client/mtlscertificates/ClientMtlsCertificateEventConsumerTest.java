@@ -2,6 +2,7 @@ package com.yolt.clients.client.mtlscertificates;
 
 import nl.ing.lovebird.clienttokens.ClientToken;
 import nl.ing.lovebird.clienttokens.verification.ClientIdVerificationService;
+import nl.ing.lovebird.clienttokens.verification.ClientTokenParser;
 import nl.ing.lovebird.clienttokens.verification.exception.MismatchedClientIdAndClientTokenException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -9,16 +10,19 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
 
-import java.math.BigInteger;
-import java.time.Clock;
-import java.time.Instant;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.time.ZoneId;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 import static com.yolt.clients.TestConfiguration.FIXED_CLOCK;
-import static org.junit.jupiter.api.Assertions.assertThrows;
+import static nl.ing.lovebird.clienttokens.constants.ClientTokenConstants.CLIENT_TOKEN_HEADER_NAME;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -65,18 +69,19 @@ class ClientMtlsCertificateEventConsumerTest {
     @Mock
     private ClientIdVerificationService clientIdVerificationService;
     @Mock
-    private ClientMTLSCertificateRepository clientMTLSCertificateRepository;
+    private ClientTokenParser clientTokenParser;
     @Mock
-    private MTLSCertificateProbeRegistry certificateProbeRegistry;
-    private Clock clock = Clock.fixed(Instant.parse("2018-08-19T16:45:42.00Z"), ZoneId.of("Europe/Amsterdam"));
+    private Validator validator;
+    @Mock
+    private ClientMTLSCertificateSeenWriter clientMTLSCertificateSeenWriter;
 
     @BeforeEach
     void setUp() {
         clientMtlsCertificateEventConsumer = new ClientMtlsCertificateEventConsumer(
                 clientIdVerificationService,
-                clientMTLSCertificateRepository,
-                certificateProbeRegistry,
-                clock
+                clientTokenParser,
+                validator,
+                clientMTLSCertificateSeenWriter
         );
     }
 
@@ -84,82 +89,64 @@ class ClientMtlsCertificateEventConsumerTest {
     void validateMocks() {
         verifyNoMoreInteractions(
                 clientIdVerificationService,
-                clientMTLSCertificateRepository
+                clientMTLSCertificateSeenWriter
         );
     }
 
     @Test
-    void consumeClientCertificateEvent_no_preexisting_cert() {
+    void consumeClientCertificateEvents() {
         var clientId = UUID.randomUUID();
-        ClientCertificateEvent event = new ClientCertificateEvent(
-                clientId,
-                CERTIFICATE_FINGERPRINT,
-                CERTIFICATE,
-                NOW
-        );
+        ClientCertificateEvent event1 = new ClientCertificateEvent(clientId, CERTIFICATE_FINGERPRINT, CERTIFICATE, NOW);
+        ClientCertificateEvent event2 = new ClientCertificateEvent(clientId, CERTIFICATE_FINGERPRINT, CERTIFICATE, NOW.plusSeconds(1));
         ClientToken clientToken = mock(ClientToken.class);
+        when(clientTokenParser.parseClientToken("serialized-client-token")).thenReturn(clientToken);
 
-        when(clientMTLSCertificateRepository.existsByClientIdAndFingerprint(any(), any())).thenReturn(false);
-
-        clientMtlsCertificateEventConsumer.consumeClientCertificateEvent(event, clientToken);
-
-        ClientMTLSCertificate expectedCertificate = new ClientMTLSCertificate(
-                clientId,
-                CERTIFICATE_FINGERPRINT,
-                new BigInteger("17763103175091891438"),
-                "C=NL,ST=Amsterdam,L=Amsterdam,O=ING,OU=Yolt,CN=Yolt",
-                "C=NL,ST=Amsterdam,L=Amsterdam,O=ING,OU=Yolt,CN=Yolt",
-                LocalDateTime.of(2017, 8, 21, 11, 26, 44),
-                LocalDateTime.of(2027, 8, 19, 11, 26, 44),
-                NOW,
-                NOW,
-                CERTIFICATE,
-                NOW
-        );
+        clientMtlsCertificateEventConsumer.consumeClientCertificateEvents(List.of(
+                message(event1, "serialized-client-token"),
+                // The header is not converted in batch mode, it can be received as bytes.
+                message(event2, "serialized-client-token".getBytes(StandardCharsets.UTF_8))
+        ));
 
-        verify(clientIdVerificationService).verify(clientToken, clientId);
-        verify(clientMTLSCertificateRepository).existsByClientIdAndFingerprint(clientId, CERTIFICATE_FINGERPRINT);
-        verify(clientMTLSCertificateRepository).save(expectedCertificate);
-        verify(certificateProbeRegistry).registerProbeAndCertificate(expectedCertificate, LocalDateTime.now(clock));
+        verify(clientIdVerificationService, times(2)).verify(clientToken, clientId);
+        verify(clientMTLSCertificateSeenWriter).add(event1);
+        verify(clientMTLSCertificateSeenWriter).add(event2);
     }
 
     @Test
-    void consumeClientCertificateEvent_preexisting_cert() {
+    void consumeClientCertificateEvents_mismatching_clientId() {
         var clientId = UUID.randomUUID();
-        ClientCertificateEvent event = new ClientCertificateEvent(
-                clientId,
-                CERTIFICATE_FINGERPRINT,
-                CERTIFICATE,
-                NOW
-        );
+        var otherClientId = UUID.randomUUID();
+        ClientCertificateEvent event = new ClientCertificateEvent(clientId, CERTIFICATE_FINGERPRINT, CERTIFICATE, NOW);
+        ClientCertificateEvent otherEvent = new ClientCertificateEvent(otherClientId, CERTIFICATE_FINGERPRINT, CERTIFICATE, NOW);
         ClientToken clientToken = mock(ClientToken.class);
+        when(clientTokenParser.parseClientToken("serialized-client-token")).thenReturn(clientToken);
+        doThrow(new MismatchedClientIdAndClientTokenException("oops")).when(clientIdVerificationService).verify(clientToken, clientId);
 
-        when(clientMTLSCertificateRepository.existsByClientIdAndFingerprint(any(), any())).thenReturn(true);
-
-        clientMtlsCertificateEventConsumer.consumeClientCertificateEvent(event, clientToken);
+        clientMtlsCertificateEventConsumer.consumeClientCertificateEvents(List.of(
+                message(event, "serialized-client-token"),
+                message(otherEvent, "serialized-client-token")
+        ));
 
+        // The invalid event is skipped, the rest of the batch is still processed.
         verify(clientIdVerificationService).verify(clientToken, clientId);
-        verify(clientMTLSCertificateRepository).existsByClientIdAndFingerprint(clientId, CERTIFICATE_FINGERPRINT);
-        verify(clientMTLSCertificateRepository).updateFirstSeen(clientId, CERTIFICATE_FINGERPRINT, NOW);
-        verify(clientMTLSCertificateRepository).updateLastSeen(clientId, CERTIFICATE_FINGERPRINT, NOW);
-        verify(certificateProbeRegistry).updateCertificateCache(clientId, CERTIFICATE_FINGERPRINT, NOW);
+        verify(clientIdVerificationService).verify(clientToken, otherClientId);
+        verify(clientMTLSCertificateSeenWriter).add(otherEvent);
     }
 
     @Test
-    void consumeClientCertificateEvent_mismatching_clientId() {
-        var clientId = UUID.randomUUID();
-        ClientCertificateEvent event = new ClientCertificateEvent(
-                clientId,
-                CERTIFICATE_FINGERPRINT,
-                CERTIFICATE,
-                NOW
-        );
-        ClientToken clientToken = mock(ClientToken.class);
-        var cause = new MismatchedClientIdAndClientTokenException("oops");
-        doThrow(cause).when(clientIdVerificationService).verify(clientToken, clientId);
+    @SuppressWarnings("unchecked")
+    void consumeClientCertificateEvents_invalid_event() {
+        ClientCertificateEvent event = new ClientCertificateEvent(UUID.randomUUID(), "not a fingerprint", CERTIFICATE, NOW);
+        when(validator.validate(event)).thenReturn(Set.of(mock(ConstraintViolation.class)));
 
-        assertThrows(MismatchedClientIdAndClientTokenException.class, () -> clientMtlsCertificateEventConsumer.consumeClientCertificateEvent(event, clientToken));
+        clientMtlsCertificateEventConsumer.consumeClientCertificateEvents(List.of(message(event, "serialized-client-token")));
 
-        verify(clientIdVerificationService).verify(clientToken, clientId);
+        verifyNoInteractions(clientTokenParser);
+    }
+
+    private static Message<ClientCertificateEvent> message(ClientCertificateEvent event, Object clientToken) {
+        return MessageBuilder.withPayload(event)
+                .setHeader(CLIENT_TOKEN_HEADER_NAME, clientToken)
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -1,6 +1,8 @@
 package com.yolt.clients.client.mtlscertificates;
 
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
@@ -10,14 +12,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
-import static java.time.LocalDateTime.now;
 import static java.util.stream.StreamSupport.stream;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.groups.Tuple.tuple;
@@ -108,7 +112,7 @@ class MTLSCertificateProbeRegistryTest {
 
         config.customizeMeterRegistry();
 
-        assertThat(registry.getMeters()).hasSize(4)
+        assertThat(certificateMeters(registry)).hasSize(4)
                 .extracting("id.name", "id.tags")
                 .contains(
                         tuple("client_mtls_certificate_expiration", List.of(
@@ -129,7 +133,7 @@ class MTLSCertificateProbeRegistryTest {
                         ))
                 );
 
-        List<Double> gauges = registry.getMeters().stream()
+        List<Double> gauges = certificateMeters(registry).stream()
                 .flatMap(meter -> stream(meter.measure().spliterator(), false))
                 .map(Measurement::getValue)
                 .collect(Collectors.toList());
@@ -165,7 +169,7 @@ class MTLSCertificateProbeRegistryTest {
 
         config.customizeMeterRegistry();
 
-        assertThat(registry.getMeters()).hasSize(4)
+        assertThat(certificateMeters(registry)).hasSize(4)
                 .extracting("id.name", "id.tags")
                 .contains(
                         tuple("client_mtls_certificate_expiration", List.of(
@@ -186,7 +190,7 @@ class MTLSCertificateProbeRegistryTest {
                         ))
                 );
 
-        List<Double> gauges = registry.getMeters().stream()
+        List<Double> gauges = certificateMeters(registry).stream()
                 .flatMap(meter -> stream(meter.measure().spliterator(), false))
                 .map(Measurement::getValue)
                 .collect(Collectors.toList());
@@ -194,9 +198,9 @@ class MTLSCertificateProbeRegistryTest {
         assertThat(gauges).hasSize(4)
                 .containsExactlyInAnyOrder(726.0, 4.0, 4.0, 369.0);
 
-        config.registerProbeAndCertificate(cert3, now(clock));
+        config.registerProbeAndCertificate(cert3);
 
-        assertThat(registry.getMeters()).hasSize(6)
+        assertThat(certificateMeters(registry)).hasSize(6)
                 .extracting("id.name", "id.tags")
                 .contains(
                         tuple("client_mtls_certificate_expiration", List.of(
@@ -225,7 +229,7 @@ class MTLSCertificateProbeRegistryTest {
                         ))
                 );
 
-        gauges = registry.getMeters().stream()
+        gauges = certificateMeters(registry).stream()
                 .flatMap(meter -> stream(meter.measure().spliterator(), false))
                 .map(Measurement::getValue)
                 .collect(Collectors.toList());
@@ -234,4 +238,138 @@ class MTLSCertificateProbeRegistryTest {
                 .containsExactlyInAnyOrder(4.0, 369.0, 4.0, 4.0, 726.0, 369.0);
     }
 
+    @Test
+    void shouldCountExpiringCertificatesPerClient() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MTLSCertificateProbeRegistry config = new MTLSCertificateProbeRegistry(registry, repository, clock);
+
+        when(repository.findAll()).thenReturn(List.of(
+                certificate(CLIENT_ID_1, "fingerprint_cert_1", now().plusDays(3)),
+                certificate(CLIENT_ID_1, "fingerprint_cert_2", now().plusDays(20)),
+                certificate(CLIENT_ID_1, "fingerprint_cert_3", now().plusDays(60)),
+                certificate(CLIENT_ID_1, "fingerprint_cert_4", now().plusDays(200)),
+                certificate(CLIENT_ID_1, "fingerprint_cert_5", now().minusDays(1)),
+                certificate(CLIENT_ID_2, "fingerprint_cert_6", now().plusDays(100))
+        ));
+
+        config.customizeMeterRegistry();
+
+        assertThat(expiring(registry, CLIENT_ID_1)).isEqualTo(Map.of("7", 1.0, "30", 2.0, "90", 3.0, "+Inf", 4.0));
+        assertThat(expiring(registry, CLIENT_ID_2)).isEqualTo(Map.of("7", 0.0, "30", 0.0, "90", 0.0, "+Inf", 1.0));
+        assertThat(expiring(registry, CLIENT_ID_3)).isEmpty();
+
+        config.registerProbeAndCertificate(certificate(CLIENT_ID_2, "fingerprint_cert_7", now().plusDays(5)));
+
+        assertThat(expiring(registry, CLIENT_ID_2)).isEqualTo(Map.of("7", 1.0, "30", 1.0, "90", 1.0, "+Inf", 2.0));
+    }
+
+    @Test
+    void shouldOnlyRegisterGaugesForTheCertificatesThatExpireFirst() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MTLSCertificateProbeRegistry config = new MTLSCertificateProbeRegistry(registry, repository, clock);
+
+        List<ClientMTLSCertificate> certificates = new ArrayList<>();
+        for (int i = 1; i <= MTLSCertificateProbeRegistry.TOP_N + 5; i++) {
+            certificates.add(certificate(UUID.randomUUID(), "fingerprint_cert_" + i, now().plusDays(i)));
+        }
+        when(repository.findAll()).thenReturn(certificates);
+
+        config.customizeMeterRegistry();
+
+        assertThat(expirations(registry)).hasSize(MTLSCertificateProbeRegistry.TOP_N)
+                .contains(1.0, (double) MTLSCertificateProbeRegistry.TOP_N)
+                .doesNotContain(MTLSCertificateProbeRegistry.TOP_N + 1.0);
+
+        config.registerProbeAndCertificate(certificate(CLIENT_ID_1, "fingerprint_cert_0", now().plusHours(1)));
+
+        assertThat(expirations(registry)).hasSize(MTLSCertificateProbeRegistry.TOP_N)
+                .contains(0.0, MTLSCertificateProbeRegistry.TOP_N - 1.0)
+                .doesNotContain((double) MTLSCertificateProbeRegistry.TOP_N);
+        assertThat(registry.find("client_mtls_certificate_last_seen").gauges()).hasSize(MTLSCertificateProbeRegistry.TOP_N);
+    }
+
+    @Test
+    void shouldDropExpiredCertificatesOnRefresh() {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MutableClock mutableClock = new MutableClock(clock.instant(), clock.getZone());
+        MTLSCertificateProbeRegistry config = new MTLSCertificateProbeRegistry(registry, repository, mutableClock);
+
+        when(repository.findAll()).thenReturn(List.of(
+                certificate(CLIENT_ID_1, "fingerprint_cert_1", now().plusDays(1)),
+                certificate(CLIENT_ID_2, "fingerprint_cert_2", now().plusDays(10))
+        ));
+
+        config.customizeMeterRegistry();
+
+        assertThat(expirations(registry)).containsExactlyInAnyOrder(1.0, 10.0);
+
+        mutableClock.advance(Duration.ofDays(2));
+        config.refresh();
+
+        assertThat(expirations(registry)).containsExactly(8.0);
+        assertThat(expiring(registry, CLIENT_ID_1)).isEmpty();
+        assertThat(expiring(registry, CLIENT_ID_2)).containsEntry("+Inf", 1.0);
+
+        config.registerProbeAndCertificate(certificate(CLIENT_ID_1, "fingerprint_cert_3", now().plusDays(30)));
+
+        assertThat(expiring(registry, CLIENT_ID_1)).containsEntry("+Inf", 1.0).hasSize(4);
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    private static ClientMTLSCertificate certificate(UUID clientId, String fingerprint, LocalDateTime validEnd) {
+        ClientMTLSCertificate certificate = new ClientMTLSCertificate();
+        certificate.setClientId(clientId);
+        certificate.setFingerprint(fingerprint);
+        certificate.setValidEnd(validEnd);
+        return certificate;
+    }
+
+    private static List<Meter> certificateMeters(MeterRegistry registry) {
+        return registry.getMeters().stream()
+                .filter(meter -> meter.getId().getTag("fingerprint") != null)
+                .collect(Collectors.toList());
+    }
+
+    private static List<Double> expirations(MeterRegistry registry) {
+        return registry.find("client_mtls_certificate_expiration").gauges().stream()
+                .map(Gauge::value)
+                .collect(Collectors.toList());
+    }
+
+    private static Map<String, Double> expiring(MeterRegistry registry, UUID clientId) {
+        return registry.find("client_mtls_certificates_expiring").tag("client_id", clientId.toString()).gauges().stream()
+                .collect(Collectors.toMap(gauge -> gauge.getId().getTag("within_days"), Gauge::value));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+        private final ZoneId zone;
+
+        MutableClock(Instant instant, ZoneId zone) {
+            this.instant = instant;
+            this.zone = zone;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new MutableClock(instant, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
 }
@@ -44,6 +44,7 @@ import java.util.stream.IntStream;
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 @IntegrationTest
 class ClientMTLSDistinguishedNameControllerIT {
@@ -254,6 +255,7 @@ class ClientMTLSDistinguishedNameControllerIT {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
+        // the jira ticket is created after the response, until then the item has no ticket
         assertThat(response.getBody()).isEqualTo(
                 new DistinguishedNameDTO(
                         response.getBody().getId(),
@@ -264,10 +266,10 @@ class ClientMTLSDistinguishedNameControllerIT {
                         Status.PENDING_ADDITION,
                         LocalDateTime.now(clock),
                         LocalDateTime.now(clock),
-                        "JIRA-123"
+                        null
                 )
         );
-        assertThat(clientMTLSCertificateDNRepository.findAllByClientId(clientId)).usingFieldByFieldElementComparator().containsExactlyInAnyOrder(
+        await().untilAsserted(() -> assertThat(clientMTLSCertificateDNRepository.findAllByClientId(clientId)).usingFieldByFieldElementComparator().containsExactlyInAnyOrder(
                 new ClientMTLSCertificateDN(
                         response.getBody().getId(),
                         clientId,
@@ -279,7 +281,7 @@ class ClientMTLSDistinguishedNameControllerIT {
                         LocalDateTime.now(clock),
                         "JIRA-123"
                 )
-        );
+        ));
     }
 
     @Test
@@ -546,6 +548,7 @@ class ClientMTLSDistinguishedNameControllerIT {
 
         assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(response.getBody()).isNotNull();
+        // the jira ticket is created after the response, until then the item has no ticket
         assertThat(response.getBody()).isEqualTo(
                 new DistinguishedNameDTO(
                         dnId,
@@ -556,10 +559,10 @@ class ClientMTLSDistinguishedNameControllerIT {
                         Status.PENDING_ADDITION,
                         LocalDateTime.now(clock).minusDays(10),
                         LocalDateTime.now(clock),
-                        "JIRA-123"
+                        null
                 )
         );
-        assertThat(clientMTLSCertificateDNRepository.findAllByClientId(clientId)).usingFieldByFieldElementComparator().containsExactlyInAnyOrder(
+        await().untilAsserted(() -> assertThat(clientMTLSCertificateDNRepository.findAllByClientId(clientId)).usingFieldByFieldElementComparator().containsExactlyInAnyOrder(
                 new ClientMTLSCertificateDN(
                         dnId,
                         clientId,
@@ -571,7 +574,7 @@ class ClientMTLSDistinguishedNameControllerIT {
                         LocalDateTime.now(clock),
                         "JIRA-123"
                 )
-        );
+        ));
     }
 
     @Test
@@ -0,0 +1,64 @@
+package com.yolt.clients.client.outboundallowlist;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AllowedHostTrieTest {
+
+    private AllowedHostTrie trie;
+
+    @BeforeEach
+    void setUp() {
+        trie = new AllowedHostTrie();
+        trie.add("api.example.com");
+        trie.add("*.hooks.example.org");
+        trie.add("Junit.Test");
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "api.example.com, true",
+            "API.example.com., true",
+            "example.com, false",
+            "www.api.example.com, false",
+            "other.example.com, false",
+            "a.hooks.example.org, true",
+            "a.b.hooks.example.org, true",
+            "hooks.example.org, false",
+            "example.org, false",
+            "junit.test, true",
+            "test, false"
+    })
+    void allows_the_added_hosts_and_the_sub_domains_of_wildcards(String host, boolean allowed) {
+        assertThat(trie.allows(host)).isEqualTo(allowed);
+    }
+
+    @Test
+    void entriesAllowing_returns_the_host_and_the_wildcards_of_its_parent_domains() {
+        assertThat(AllowedHostTrie.entriesAllowing("A.Hooks.example.org."))
+                .containsExactly("a.hooks.example.org", "*.hooks.example.org", "*.example.org", "*.org");
+        assertThat(AllowedHostTrie.entriesAllowing("test")).containsExactly("test");
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "api.example.com",
+            "API.example.com.",
+            "www.api.example.com",
+            "a.b.hooks.example.org",
+            "hooks.example.org",
+            "junit.test",
+            "test"
+    })
+    void entriesAllowing_contains_an_added_entry_if_and_only_if_the_trie_allows_the_host(String host) {
+        var added = Set.of("api.example.com", "*.hooks.example.org", "junit.test");
+
+        assertThat(AllowedHostTrie.entriesAllowing(host).stream().anyMatch(added::contains)).isEqualTo(trie.allows(host));
+    }
+}
@@ -43,6 +43,7 @@ import java.util.stream.IntStream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 @IntegrationTest
 class OutboundAllowListControllerIT {
@@ -196,22 +197,23 @@ class OutboundAllowListControllerIT {
                 .filter(id -> !Set.of(allowedOutboundHostId1, allowedOutboundHostId2, allowedOutboundHostId3, allowedOutboundHostId4).contains(id))
                 .findAny().orElseThrow(() -> new IllegalStateException("expected a new ID to be present"));
 
+        // the jira ticket is created after the response, until then the items have no ticket
         assertThat(response.getBody()).extracting("id", "host", "lastUpdated", "status", "jiraTicket").containsExactlyInAnyOrder(
                 Tuple.tuple(allowedOutboundHostId1, "my.host.a.rest", LocalDateTime.now(clock), Status.PENDING_ADDITION, "JIRA-999"),
                 Tuple.tuple(allowedOutboundHostId2, "my.host.b.rest", LocalDateTime.now(clock), Status.ADDED, null),
                 Tuple.tuple(allowedOutboundHostId3, "my.host.c.rest", LocalDateTime.now(clock), Status.ADDED, null),
-                Tuple.tuple(allowedOutboundHostId4, "my.host.d.rest", LocalDateTime.now(clock), Status.PENDING_ADDITION, "JIRA-123"),
-                Tuple.tuple(allowedOutboundHostId5, "my.host.e.rest", LocalDateTime.now(clock), Status.PENDING_ADDITION, "JIRA-123")
+                Tuple.tuple(allowedOutboundHostId4, "my.host.d.rest", LocalDateTime.now(clock), Status.PENDING_ADDITION, null),
+                Tuple.tuple(allowedOutboundHostId5, "my.host.e.rest", LocalDateTime.now(clock), Status.PENDING_ADDITION, null)
         );
 
-        assertThat(allowedOutboundHostRepository.findAllByClientIdOrderByLastUpdatedDesc(clientId)).containsExactlyInAnyOrder(
+        await().untilAsserted(() -> assertThat(allowedOutboundHostRepository.findAllByClientIdOrderByLastUpdatedDesc(clientId)).containsExactlyInAnyOrder(
                 new AllowedOutboundHost(allowedOutboundHostId, clientId, allowedOutboundHost, Status.REMOVED, LocalDateTime.now(clock), null),
                 new AllowedOutboundHost(allowedOutboundHostId1, clientId, "my.host.a.rest", Status.PENDING_ADDITION, LocalDateTime.now(clock), "JIRA-999"),
                 new AllowedOutboundHost(allowedOutboundHostId2, clientId, "my.host.b.rest", Status.ADDED, LocalDateTime.now(clock), null),
                 new AllowedOutboundHost(allowedOutboundHostId3, clientId, "my.host.c.rest", Status.ADDED, LocalDateTime.now(clock), null),
                 new AllowedOutboundHost(allowedOutboundHostId4, clientId, "my.host.d.rest", Status.PENDING_ADDITION, LocalDateTime.now(clock), "JIRA-123"),
                 new AllowedOutboundHost(allowedOutboundHostId5, clientId, "my.host.e.rest", Status.PENDING_ADDITION, LocalDateTime.now(clock), "JIRA-123")
-        );
+        ));
     }
 
     @Test
@@ -243,7 +245,7 @@ class OutboundAllowListControllerIT {
 
 
     @ParameterizedTest
-    @ValueSource(strings = {"ab.com/de", "http://my.host.rest", "https://my.host.rest", "my.host.rest:8443", "1.256.0.0", "2001:db8:1234:1a00::"})
+    @ValueSource(strings = {"ab.com/de", "http://my.host.rest", "https://my.host.rest", "my.host.rest:8443", "1.256.0.0", "2001:db8:1234:1a00::", "*", "*.com", "a.*.com"})
     void create_with_invalid_host_should_fail(String host) {
         clientGroupRepository.save(clientGroup);
 
@@ -359,18 +361,18 @@ class OutboundAllowListControllerIT {
 
         assertThat(response.getBody()).extracting("id", "host", "lastUpdated", "status", "jiraTicket").containsExactlyInAnyOrder(
                 Tuple.tuple(allowedOutboundHostId1, "my.host.a.rest", LocalDateTime.now(clock), Status.REMOVED, null),
-                Tuple.tuple(allowedOutboundHostId2, "my.host.b.rest", LocalDateTime.now(clock), Status.PENDING_REMOVAL, "JIRA-123"),
+                Tuple.tuple(allowedOutboundHostId2, "my.host.b.rest", LocalDateTime.now(clock), Status.PENDING_REMOVAL, null),
                 Tuple.tuple(allowedOutboundHostId3, "my.host.c.rest", LocalDateTime.now(clock), Status.PENDING_REMOVAL, "JIRA-999"),
                 Tuple.tuple(allowedOutboundHostId4, "my.host.d.rest", LocalDateTime.now(clock), Status.REMOVED, null)
         );
 
-        assertThat(allowedOutboundHostRepository.findAllByClientIdOrderByLastUpdatedDesc(clientId)).containsExactlyInAnyOrder(
+        await().untilAsserted(() -> assertThat(allowedOutboundHostRepository.findAllByClientIdOrderByLastUpdatedDesc(clientId)).containsExactlyInAnyOrder(
                 new AllowedOutboundHost(allowedOutboundHostId, clientId, allowedOutboundHost, Status.PENDING_REMOVAL, LocalDateTime.now(clock), "JIRA-999"),
                 new AllowedOutboundHost(allowedOutboundHostId1, clientId, "my.host.a.rest", Status.REMOVED, LocalDateTime.now(clock), null),
                 new AllowedOutboundHost(allowedOutboundHostId2, clientId, "my.host.b.rest", Status.PENDING_REMOVAL, LocalDateTime.now(clock), "JIRA-123"),
                 new AllowedOutboundHost(allowedOutboundHostId3, clientId, "my.host.c.rest", Status.PENDING_REMOVAL, LocalDateTime.now(clock), "JIRA-999"),
                 new AllowedOutboundHost(allowedOutboundHostId4, clientId, "my.host.d.rest", Status.REMOVED, LocalDateTime.now(clock), null)
-        );
+        ));
     }
 
     @Test
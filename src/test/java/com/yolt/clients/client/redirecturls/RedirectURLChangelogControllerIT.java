@@ -49,6 +49,7 @@ import java.util.UUID;
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static java.time.LocalDateTime.now;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 @IntegrationTest
 class RedirectURLChangelogControllerIT {
@@ -219,7 +220,10 @@ class RedirectURLChangelogControllerIT {
         assertThat(response.getBody().getRedirectURL()).isNull();
         assertThat(response.getBody().getNewRedirectURL()).isEqualTo(redirectURL);
         assertThat(response.getBody().getStatus()).isEqualTo(ChangelogStatus.PENDING);
-        assertThat(response.getBody().getJiraTicket()).isEqualTo("JIRA-111");
+        // the jira ticket is created after the response, until then the entry has no ticket
+        assertThat(response.getBody().getJiraTicket()).isNull();
+        await().untilAsserted(() -> assertThat(changeRequestRepository.findByClientIdAndId(clientId, response.getBody().getId()))
+                .hasValueSatisfying(entry -> assertThat(entry.getJiraTicket()).isEqualTo("JIRA-111")));
     }
 
     @Test
@@ -293,7 +297,10 @@ class RedirectURLChangelogControllerIT {
         assertThat(response.getBody().getRedirectURL()).isEqualTo(redirectURL);
         assertThat(response.getBody().getNewRedirectURL()).isEqualTo("https://new-url.org");
         assertThat(response.getBody().getStatus()).isEqualTo(ChangelogStatus.PENDING);
-        assertThat(response.getBody().getJiraTicket()).isEqualTo("JIRA-111");
+        // the jira ticket is created after the response, until then the entry has no ticket
+        assertThat(response.getBody().getJiraTicket()).isNull();
+        await().untilAsserted(() -> assertThat(changeRequestRepository.findByClientIdAndId(clientId, response.getBody().getId()))
+                .hasValueSatisfying(entry -> assertThat(entry.getJiraTicket()).isEqualTo("JIRA-111")));
     }
 
     @Test
@@ -392,7 +399,10 @@ class RedirectURLChangelogControllerIT {
         assertThat(response.getBody().getRedirectURL()).isEqualTo(redirectURL);
         assertThat(response.getBody().getNewRedirectURL()).isNull();
         assertThat(response.getBody().getStatus()).isEqualTo(ChangelogStatus.PENDING);
-        assertThat(response.getBody().getJiraTicket()).isEqualTo("JIRA-111");
+        // the jira ticket is created after the response, until then the entry has no ticket
+        assertThat(response.getBody().getJiraTicket()).isNull();
+        await().untilAsserted(() -> assertThat(changeRequestRepository.findByClientIdAndId(clientId, response.getBody().getId()))
+                .hasValueSatisfying(entry -> assertThat(entry.getJiraTicket()).isEqualTo("JIRA-111")));
     }
 
     /* User input verification */
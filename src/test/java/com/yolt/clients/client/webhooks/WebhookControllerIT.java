@@ -6,6 +6,8 @@ import com.yolt.clients.client.outboundallowlist.AllowedOutboundHost;
 import com.yolt.clients.client.outboundallowlist.AllowedOutboundHostRepository;
 import com.yolt.clients.client.webhooks.dto.WebhookDTO;
 import com.yolt.clients.client.webhooks.dto.WebhookURLDTO;
+import com.yolt.clients.client.webhooks.dto.WebhookURLValidationDTO;
+import com.yolt.clients.client.webhooks.dto.WebhookURLsDTO;
 import com.yolt.clients.client.webhooks.repository.Webhook;
 import com.yolt.clients.client.webhooks.repository.WebhookRepository;
 import com.yolt.clients.clientgroup.ClientGroupRepository;
@@ -190,6 +192,33 @@ class WebhookControllerIT {
         assertThat(response.getBody().getCode()).isEqualTo("CLS030");
     }
 
+    @Test
+    void validate_should_check_the_hosts_against_the_outbound_allowlist() {
+        ClientToken clientToken = createClientToken(DEV_PORTAL);
+        clientGroupRepository.save(clientGroup);
+        clientsRepository.save(client);
+        allowedOutboundHostRepository.save(new AllowedOutboundHost(UUID.randomUUID(), clientId, "junit.test", Status.ADDED, LocalDateTime.of(1985, 9, 5, 3, 7)));
+        allowedOutboundHostRepository.save(new AllowedOutboundHost(UUID.randomUUID(), clientId, "*.hooks.junit.test", Status.ADDED, LocalDateTime.of(1985, 9, 5, 3, 7)));
+        allowedOutboundHostRepository.save(new AllowedOutboundHost(UUID.randomUUID(), clientId, "pending.test", Status.PENDING_ADDITION, LocalDateTime.of(1985, 9, 5, 3, 7)));
+
+        var urls = List.of("https://junit.test/hook", "https://a.hooks.junit.test", "https://pending.test", "http://junit.test", "https://other.test", "not a url");
+        HttpEntity<WebhookURLsDTO> request = new HttpEntity<>(new WebhookURLsDTO(urls), getHttpHeaders(clientToken));
+        ResponseEntity<List<WebhookURLValidationDTO>> response = testRestTemplate.exchange(
+                "/internal/clients/{clientId}/webhooks/validate", HttpMethod.POST,
+                request, new ParameterizedTypeReference<>() {}, clientId);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getBody()).containsExactly(
+                new WebhookURLValidationDTO("https://junit.test/hook", true),
+                new WebhookURLValidationDTO("https://a.hooks.junit.test", true),
+                new WebhookURLValidationDTO("https://pending.test", false),
+                new WebhookURLValidationDTO("http://junit.test", false),
+                new WebhookURLValidationDTO("https://other.test", false),
+                new WebhookURLValidationDTO("not a url", false)
+        );
+        assertThat(webhookRepository.findAllByClientId(clientId)).isEmpty();
+    }
+
     @Test
     void upsert_with_existing_webhook_should_succeed() {
         var clientToken = createClientToken(DEV_PORTAL);
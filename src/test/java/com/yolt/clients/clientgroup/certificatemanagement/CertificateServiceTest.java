@@ -66,6 +66,8 @@ class CertificateServiceTest {
     private CertificateValidationService certificateValidationService;
     @Mock
     private ProvidersService providersService;
+    @Mock
+    private VerifiedKeyCache verifiedKeyCache;
 
     private CertificateService certificateService;
 
@@ -111,7 +113,7 @@ class CertificateServiceTest {
                 certificateSigningRequest,
                 null
         );
-        certificateService = new CertificateService(certificateRepository, cryptoService, certificateValidationService, providersService, 10);
+        certificateService = new CertificateService(certificateRepository, cryptoService, certificateValidationService, providersService, verifiedKeyCache, 10);
     }
 
     @ParameterizedTest
@@ -675,6 +677,7 @@ class CertificateServiceTest {
 
         verify(certificateRepository).findCertificateByClientGroupIdAndKid(clientGroupId, keyId);
         verify(cryptoService).deletePrivateKey(clientGroupToken, keyId);
+        verify(verifiedKeyCache).evict(clientGroupId, keyId);
         verify(certificateRepository).delete(certificate);
     }
 
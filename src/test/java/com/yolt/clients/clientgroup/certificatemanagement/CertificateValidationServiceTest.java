@@ -5,6 +5,7 @@ import com.yolt.clients.clientgroup.certificatemanagement.crypto.CryptoService;
 import com.yolt.clients.clientgroup.certificatemanagement.crypto.SignatureAlgorithm;
 import com.yolt.clients.clientgroup.certificatemanagement.dto.CertificateUsageType;
 import com.yolt.clients.clientgroup.certificatemanagement.exceptions.CertificateValidationException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import nl.ing.lovebird.clienttokens.ClientGroupToken;
 import org.bouncycastle.asn1.x509.Extension;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
@@ -100,6 +101,7 @@ class CertificateValidationServiceTest {
     }
 
     private CertificateValidationService certificateValidationService;
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
 
     @Mock
     private CryptoService cryptoService;
@@ -109,11 +111,11 @@ class CertificateValidationServiceTest {
     private CertificateUsageType certificateUsageType;
     private String certificateId;
     private X509Certificate x509Certificate;
-    private X509Certificate[] trustedCAs;
+    private TrustAnchors trustAnchors;
 
     @BeforeEach
     void setUp() {
-        certificateValidationService = new CertificateValidationService(cryptoService, TestConfiguration.FIXED_CLOCK);
+        certificateValidationService = new CertificateValidationService(cryptoService, new VerifiedKeyCache(TestConfiguration.FIXED_CLOCK, meterRegistry, 10), new CertPathValidationCache(TestConfiguration.FIXED_CLOCK, meterRegistry, 10), TestConfiguration.FIXED_CLOCK);
 
         clientGroupId = UUID.randomUUID();
         JwtClaims jwtClaims = new JwtClaims();
@@ -122,7 +124,7 @@ class CertificateValidationServiceTest {
         certificateUsageType = CertificateUsageType.TRANSPORT;
         certificateId = UUID.randomUUID().toString();
         x509Certificate = KeyUtil.parseCertificateChain(CERTIFICATE).get(0);
-        trustedCAs = getTrustedCAs();
+        trustAnchors = TrustAnchors.of(getTrustedCAs());
     }
 
     @AfterEach
@@ -175,6 +177,30 @@ class CertificateValidationServiceTest {
         verify(cryptoService).sign(clientGroupToken, certificateUsageType, certificateId, SignatureAlgorithm.SHA256_WITH_RSA, SECRET);
     }
 
+    @Test
+    void validateCertificateWithPrivateKey_remembers_a_verified_certificate() throws Exception {
+        when(cryptoService.sign(clientGroupToken, certificateUsageType, certificateId, SignatureAlgorithm.SHA256_WITH_RSA, SECRET))
+                .thenReturn(createSignature());
+
+        certificateValidationService.validateCertificateWithPrivateKey(clientGroupToken, certificateUsageType, certificateId, x509Certificate);
+        certificateValidationService.validateCertificateWithPrivateKey(clientGroupToken, certificateUsageType, certificateId, x509Certificate);
+
+        verify(cryptoService, times(1)).sign(clientGroupToken, certificateUsageType, certificateId, SignatureAlgorithm.SHA256_WITH_RSA, SECRET);
+        assertThat(meterRegistry.get("certificate_verified_key_cache_lookups").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("certificate_verified_key_cache_lookups").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void validateCertificateWithPrivateKey_does_not_remember_a_failed_verification() {
+        when(cryptoService.sign(clientGroupToken, certificateUsageType, certificateId, SignatureAlgorithm.SHA256_WITH_RSA, SECRET))
+                .thenReturn(new String(Base64.encode("corrupted private key".getBytes())));
+
+        assertThrows(CertificateValidationException.class, () -> certificateValidationService.validateCertificateWithPrivateKey(clientGroupToken, certificateUsageType, certificateId, x509Certificate));
+        assertThrows(CertificateValidationException.class, () -> certificateValidationService.validateCertificateWithPrivateKey(clientGroupToken, certificateUsageType, certificateId, x509Certificate));
+
+        verify(cryptoService, times(2)).sign(clientGroupToken, certificateUsageType, certificateId, SignatureAlgorithm.SHA256_WITH_RSA, SECRET);
+    }
+
     @Test
     void validateCertificateWithPrivateKey_with_non_mathing_private_key() {
         when(cryptoService.sign(clientGroupToken, certificateUsageType, certificateId, SignatureAlgorithm.SHA256_WITH_RSA, SECRET))
@@ -221,7 +247,21 @@ class CertificateValidationServiceTest {
         List<X509Certificate> certificateChain = KeyUtil.parseCertificateChain(
                 new String(this.getClass().getResourceAsStream("valid-yoltbank-chain.pem").readAllBytes())
         );
-        certificateValidationService.validateCertPath(trustedCAs, certificateChain);
+        certificateValidationService.validateCertPath(trustAnchors, certificateChain);
+    }
+
+    @Test
+    void validateCertPath_remembers_a_valid_chain() throws Exception {
+        List<X509Certificate> certificateChain = KeyUtil.parseCertificateChain(
+                new String(this.getClass().getResourceAsStream("valid-yoltbank-chain.pem").readAllBytes())
+        );
+        TrustAnchors yoltbankRoot = TrustAnchors.of(new X509Certificate[]{certificateChain.get(1)});
+
+        certificateValidationService.validateCertPath(yoltbankRoot, certificateChain);
+        certificateValidationService.validateCertPath(yoltbankRoot, certificateChain);
+
+        assertThat(meterRegistry.get("certificate_path_validation_cache_lookups").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("certificate_path_validation_cache_lookups").tag("result", "miss").counter().count()).isEqualTo(1);
     }
 
     @Test
@@ -231,7 +271,7 @@ class CertificateValidationServiceTest {
         );
         CertificateValidationException exception = assertThrows(
                 CertificateValidationException.class,
-                () -> certificateValidationService.validateCertPath(trustedCAs, certificateChain)
+                () -> certificateValidationService.validateCertPath(trustAnchors, certificateChain)
         );
         assertThat(exception.getMessage()).isEqualTo("Certificate chain is not trusted");
     }
@@ -243,7 +283,7 @@ class CertificateValidationServiceTest {
         );
         CertificateValidationException exception = assertThrows(
                 CertificateValidationException.class,
-                () -> certificateValidationService.validateCertPath(trustedCAs, certificateChain)
+                () -> certificateValidationService.validateCertPath(trustAnchors, certificateChain)
         );
         assertThat(exception.getMessage()).isEqualTo("Certificate chain is incorrect");
     }
@@ -0,0 +1,91 @@
+package com.yolt.clients.clientgroup.certificatemanagement;
+
+import com.yolt.clients.TestConfiguration;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringCacheTest {
+
+    private static final Instant NOW = Instant.now(TestConfiguration.FIXED_CLOCK);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void contains_a_key_until_it_expires() {
+        var cache = new ExpiringCache<String>(TestConfiguration.FIXED_CLOCK, meterRegistry, "test_cache", "keys", 10);
+        cache.add("key", NOW.plusSeconds(60));
+        cache.add("expired", NOW);
+
+        assertThat(cache.contains("key")).isTrue();
+        assertThat(cache.contains("expired")).isFalse();
+        assertThat(meterRegistry.get("test_cache_lookups").tag("result", "hit").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("test_cache_lookups").tag("result", "miss").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("test_cache_size").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void drops_the_expired_keys_when_full_and_skips_a_key_that_does_not_fit() {
+        var clock = new MutableClock(NOW, TestConfiguration.FIXED_CLOCK.getZone());
+        var cache = new ExpiringCache<String>(clock, meterRegistry, "test_cache", "keys", 2);
+        cache.add("short", NOW.plusSeconds(10));
+        cache.add("long", NOW.plusSeconds(60));
+
+        cache.add("skipped", NOW.plusSeconds(60));
+        clock.advance(Duration.ofSeconds(30));
+        cache.add("added", NOW.plusSeconds(60));
+
+        assertThat(cache.contains("skipped")).isFalse();
+        assertThat(cache.contains("long")).isTrue();
+        assertThat(cache.contains("added")).isTrue();
+    }
+
+    @Test
+    void removeIf_drops_the_matching_keys_before_they_expire() {
+        var cache = new ExpiringCache<String>(TestConfiguration.FIXED_CLOCK, meterRegistry, "test_cache", "keys", 10);
+        cache.add("kid-1/a", NOW.plusSeconds(60));
+        cache.add("kid-1/b", NOW.plusSeconds(60));
+        cache.add("kid-2/a", NOW.plusSeconds(60));
+
+        cache.removeIf(key -> key.startsWith("kid-1/"));
+
+        assertThat(cache.contains("kid-1/a")).isFalse();
+        assertThat(cache.contains("kid-1/b")).isFalse();
+        assertThat(cache.contains("kid-2/a")).isTrue();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant;
+        private final ZoneId zone;
+
+        MutableClock(Instant instant, ZoneId zone) {
+            this.instant = instant;
+            this.zone = zone;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new MutableClock(instant, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
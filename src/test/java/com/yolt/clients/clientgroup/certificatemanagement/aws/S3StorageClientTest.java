@@ -1,6 +1,6 @@
 package com.yolt.clients.clientgroup.certificatemanagement.aws;
 
-import nl.ing.lovebird.clienttokens.ClientGroupToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.commons.io.IOUtils;
 import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
@@ -13,21 +13,29 @@ import org.mockito.ArgumentCaptor;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.skyscreamer.jsonassert.JSONCompareMode;
 import org.springframework.http.MediaType;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
 
 import java.io.IOException;
 import java.io.StringReader;
 import java.security.cert.CertificateException;
 import java.security.cert.X509Certificate;
 import java.security.interfaces.RSAPublicKey;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -100,6 +108,7 @@ class S3StorageClientTest {
 
     private S3Properties s3Properties;
     private S3Client s3Client;
+    private SimpleMeterRegistry meterRegistry;
     private S3StorageClient s3StorageClient;
 
     @BeforeEach
@@ -107,8 +116,9 @@ class S3StorageClientTest {
         s3Properties = new S3Properties();
         s3Properties.setBucket(BUCKET_NAME);
         s3Client = mock(S3Client.class);
+        meterRegistry = new SimpleMeterRegistry();
 
-        s3StorageClient = new S3StorageClient(s3Properties, s3Client);
+        s3StorageClient = new S3StorageClient(s3Properties, s3Client, null, meterRegistry);
 
     }
 
@@ -166,11 +176,55 @@ class S3StorageClientTest {
         assertThat(postedChain).isEqualToNormalizingNewlines(CERTIFICATE_CHAIN);
     }
 
+    @Test
+    void testStoreCertificateAsyncUploadsConcurrently() throws Exception {
+        S3AsyncClient s3AsyncClient = mock(S3AsyncClient.class);
+        List<CompletableFuture<PutObjectResponse>> responses = new ArrayList<>();
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class))).thenAnswer(invocation -> {
+            CompletableFuture<PutObjectResponse> response = new CompletableFuture<>();
+            responses.add(response);
+            return response;
+        });
+        s3StorageClient = new S3StorageClient(s3Properties, s3Client, s3AsyncClient, meterRegistry);
+
+        CompletableFuture<Void> stored = s3StorageClient.storeCertificateAsync(parsePemChain(CERTIFICATE_CHAIN));
+
+        // All uploads are issued before any of them completes.
+        ArgumentCaptor<PutObjectRequest> requestCaptor = ArgumentCaptor.forClass(PutObjectRequest.class);
+        verify(s3AsyncClient, times(3)).putObject(requestCaptor.capture(), any(AsyncRequestBody.class));
+        assertThat(requestCaptor.getAllValues()).extracting(PutObjectRequest::key).containsExactlyInAnyOrder(
+                "db:12:5b:53:b8:29:4c:e0:92:cd:04:07:04:6d:a9:aa:a5:ac:d1:55.pem",
+                "db:12:5b:53:b8:29:4c:e0:92:cd:04:07:04:6d:a9:aa:a5:ac:d1:55.der",
+                "db:12:5b:53:b8:29:4c:e0:92:cd:04:07:04:6d:a9:aa:a5:ac:d1:55-chain.pem");
+        assertThat(stored).isNotDone();
+
+        responses.get(0).complete(PutObjectResponse.builder().build());
+        responses.get(2).complete(PutObjectResponse.builder().build());
+        assertThat(stored).isNotDone();
+        responses.get(1).complete(PutObjectResponse.builder().build());
+
+        assertThat(stored).isCompleted();
+        assertThat(meterRegistry.get("s3_uploads").tag("kind", "chain").tag("result", "success").timer().count()).isEqualTo(1);
+        verifyNoInteractions(s3Client);
+    }
+
+    @Test
+    void testStoreCertificateRethrowsAFailedAsyncUpload() {
+        S3AsyncClient s3AsyncClient = mock(S3AsyncClient.class);
+        S3Exception failure = (S3Exception) S3Exception.builder().message("slow down").statusCode(503).build();
+        when(s3AsyncClient.putObject(any(PutObjectRequest.class), any(AsyncRequestBody.class)))
+                .thenReturn(CompletableFuture.completedFuture(PutObjectResponse.builder().build()))
+                .thenReturn(CompletableFuture.failedFuture(failure));
+        s3StorageClient = new S3StorageClient(s3Properties, s3Client, s3AsyncClient, meterRegistry);
+
+        assertThatThrownBy(() -> s3StorageClient.storeCertificate(parsePemChain(CERTIFICATE_CHAIN))).isSameAs(failure);
+
+        assertThat(meterRegistry.get("s3_uploads").tag("kind", "der").tag("result", "failure").timer().count()).isEqualTo(1);
+    }
+
     @Test
     void testStoreJWKS() throws Exception{
         UUID clientGroupId = UUID.randomUUID();
-        ClientGroupToken clientGroupToken = mock(ClientGroupToken.class);
-        when(clientGroupToken.getClientGroupIdClaim()).thenReturn(clientGroupId);
 
         X509CertificateHolder x509CertificateHolder = (X509CertificateHolder) new PEMParser(new StringReader(CERTIFICATE)).readObject();
         X509Certificate certificate = new JcaX509CertificateConverter().getCertificate(x509CertificateHolder);
@@ -186,7 +240,7 @@ class S3StorageClientTest {
 
         ArgumentCaptor<RequestBody> bodyArgumentCaptor = ArgumentCaptor.forClass(RequestBody.class);
 
-        s3StorageClient.storeJWKS(clientGroupToken, jsonWebKeySet);
+        s3StorageClient.storeJWKS(clientGroupId, jsonWebKeySet);
 
         verify(s3Client).putObject(eq(expectedPutObjectRequest), bodyArgumentCaptor.capture());
         String postedJWKS = new String(IOUtils.toByteArray(bodyArgumentCaptor.getValue().contentStreamProvider().newStream()));
@@ -3,6 +3,7 @@ package com.yolt.clients.clientgroup.certificatemanagement.crypto;
 import com.yolt.clients.clientgroup.certificatemanagement.crypto.dto.*;
 import com.yolt.clients.clientgroup.certificatemanagement.dto.CertificateUsageType;
 import com.yolt.clients.clientgroup.certificatemanagement.dto.SimpleDistinguishedNameElement;
+import com.yolt.clients.http.OutboundHttpClients;
 import nl.ing.lovebird.clienttokens.ClientGroupToken;
 import nl.ing.lovebird.clienttokens.ClientToken;
 import nl.ing.lovebird.providerdomain.ServiceType;
@@ -51,7 +52,9 @@ class CryptoServiceTest {
         RestTemplateBuilder restTemplateBuilder = mock(RestTemplateBuilder.class);
         when(restTemplateBuilder.rootUri(cryptoUrl)).thenReturn(restTemplateBuilder);
         when(restTemplateBuilder.build()).thenReturn(restTemplate);
-        cryptoService = new CryptoService(cryptoUrl, restTemplateBuilder);
+        OutboundHttpClients outboundHttpClients = mock(OutboundHttpClients.class);
+        when(outboundHttpClients.restTemplateBuilder("crypto")).thenReturn(restTemplateBuilder);
+        cryptoService = new CryptoService(cryptoUrl, outboundHttpClients);
         verifyNoMoreInteractions(ignoreStubs(restTemplateBuilder));
 
         reset(clientGroupToken);
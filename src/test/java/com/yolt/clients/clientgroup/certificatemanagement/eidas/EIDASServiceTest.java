@@ -235,7 +235,7 @@ class EIDASServiceTest {
         assertThat(result).containsExactly(certificateInfoDTO);
         verify(eidasValidationService).validateCertificateChain(certificateChain);
         verify(s3StorageClient).storeCertificate(certificateChain);
-        verify(jwksService).createJWKSJsonOnS3(clientGroupToken);
+        verify(jwksService).updateJWKSOnS3(clientGroupToken, certificateId);
     }
 
     @Test
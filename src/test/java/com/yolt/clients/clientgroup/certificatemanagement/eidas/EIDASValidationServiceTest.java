@@ -1,6 +1,7 @@
 package com.yolt.clients.clientgroup.certificatemanagement.eidas;
 
 import com.yolt.clients.clientgroup.certificatemanagement.CertificateValidationService;
+import com.yolt.clients.clientgroup.certificatemanagement.TrustAnchors;
 import com.yolt.clients.clientgroup.certificatemanagement.KeyUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -28,7 +29,7 @@ class EIDASValidationServiceTest {
     private CertificateValidationService certificateValidationService;
 
     @Captor
-    private ArgumentCaptor<X509Certificate[]> certificatesCaptor;
+    private ArgumentCaptor<TrustAnchors> certificatesCaptor;
 
     @BeforeEach
     void setUp() {
@@ -55,7 +56,7 @@ class EIDASValidationServiceTest {
         verify(certificateValidationService).validateCertPath(certificatesCaptor.capture(), eq(certificateChain));
         verify(certificateValidationService).hasQCStatementsExtension(certificateChain.get(0));
 
-        assertThat(certificatesCaptor.getValue()).extracting(X509Certificate::getSubjectX500Principal).asString().doesNotContain(
+        assertThat(certificatesCaptor.getValue().getCertificates()).extracting(X509Certificate::getSubjectX500Principal).asString().doesNotContain(
                 "CN=Root, OU=Yolt, O=Yolt, L=Amsterdam, ST=Noord-Holland, C=NL"
         );
     }
@@ -70,7 +71,7 @@ class EIDASValidationServiceTest {
         verify(certificateValidationService).validateCertPath(certificatesCaptor.capture(), eq(certificateChain));
         verify(certificateValidationService).hasQCStatementsExtension(certificateChain.get(0));
 
-        assertThat(certificatesCaptor.getValue()).extracting(X509Certificate::getSubjectX500Principal).asString().contains(
+        assertThat(certificatesCaptor.getValue().getCertificates()).extracting(X509Certificate::getSubjectX500Principal).asString().contains(
                 "CN=Root, OU=Yolt, O=Yolt, L=Amsterdam, ST=Noord-Holland, C=NL"
         );
     }
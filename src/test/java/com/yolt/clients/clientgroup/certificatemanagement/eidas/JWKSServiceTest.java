@@ -1,12 +1,18 @@
 package com.yolt.clients.clientgroup.certificatemanagement.eidas;
 
+import com.yolt.clients.TestConfiguration;
 import com.yolt.clients.clientgroup.certificatemanagement.aws.S3StorageClient;
 import com.yolt.clients.clientgroup.certificatemanagement.dto.CertificateType;
 import com.yolt.clients.clientgroup.certificatemanagement.repository.Certificate;
 import com.yolt.clients.clientgroup.certificatemanagement.repository.CertificateRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.SneakyThrows;
 import nl.ing.lovebird.clienttokens.ClientGroupToken;
+import org.bouncycastle.util.encoders.Hex;
+import org.jose4j.jwk.JsonWebKey;
 import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwk.RsaJsonWebKey;
+import org.jose4j.jwk.RsaJwkGenerator;
 import org.jose4j.jwt.JwtClaims;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,16 +20,21 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.security.cert.CertPathValidatorException;
 import java.security.cert.X509Certificate;
+import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -39,6 +50,7 @@ import static org.mockito.Mockito.*;
 class JWKSServiceTest {
     private static final String KEY_ID = "KEY-0";
     private static final UUID CLIENT_GROUP_ID = UUID.randomUUID();
+    private static final String EMPTY_JWKS = "{\"keys\":[]}";
     private static final ClientGroupToken CLIENT_GROUP_TOKEN;
     private static final String CERTIFICATE = "MIIDcDCCAlgCFEPpOVAIl/ww58ivKIaNafqaSZclMA0GCSqGSIb3DQEBCwUAMG4x" +
             "CzAJBgNVBAYTAk5MMRYwFAYDVQQIDA1Ob29yZC1Ib2xsYW5kMRIwEAYDVQQHDAlB" +
@@ -91,7 +103,6 @@ class JWKSServiceTest {
         CLIENT_GROUP_TOKEN = new ClientGroupToken("serialized", claims);
     }
 
-    @InjectMocks
     private JWKSService jwksService;
 
     @Mock
@@ -100,6 +111,9 @@ class JWKSServiceTest {
     private S3StorageClient s3StorageClient;
     @Mock
     private EIDASValidationService eidasValidationService;
+    @Mock
+    private ClientGroupJWKSRepository clientGroupJWKSRepository;
+    private SimpleMeterRegistry meterRegistry;
     @Captor
     private ArgumentCaptor<List<X509Certificate>> certChainCaptor;
     @Captor
@@ -107,6 +121,17 @@ class JWKSServiceTest {
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        jwksService = new JWKSService(
+                certificateRepository,
+                s3StorageClient,
+                eidasValidationService,
+                clientGroupJWKSRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                TestConfiguration.FIXED_CLOCK,
+                meterRegistry
+        );
+        when(clientGroupJWKSRepository.lock(CLIENT_GROUP_ID)).thenReturn(new ClientGroupJWKSRepository.PublishedJWKS(null, null));
     }
 
     @AfterEach
@@ -132,7 +157,7 @@ class JWKSServiceTest {
 
         jwksService.createJWKSJsonOnS3(CLIENT_GROUP_TOKEN);
 
-        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_TOKEN), keySetArgumentCaptor.capture());
+        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_ID), keySetArgumentCaptor.capture());
         String expectedJson = "{\"keys\":[{\"kty\":\"RSA\",\"e\":\"AQAB\",\"use\":\"sig\",\"kid\":\"KEY-0\",\"x5c\":[\"MIIDcDCCAlgCFEPpOVAIl\\/ww58ivKIaNafqaSZclMA0GCSqGSIb3DQEBCwUAMG4xCzAJBgNVBAYTAk5MMRYwFAYDVQQIDA1Ob29yZC1Ib2xsYW5kMRIwEAYDVQQHDAlBbXN0ZXJkYW0xDTALBgNVBAoMBFlvbHQxDTALBgNVBAsMBFlvbHQxFTATBgNVBAMMDEludGVybWVkaWF0ZTAeFw0yMDAyMDcxMjI2MjRaFw0zMDAyMDQxMjI2MjRaMHsxCzAJBgNVBAYTAk5MMRYwFAYDVQQIDA1Ob29yZC1Ib2xsYW5kMRIwEAYDVQQHDAlBbXN0ZXJkYW0xDTALBgNVBAoMBFlvbHQxDTALBgNVBAsMBFlvbHQxIjAgBgNVBAMMGUxlYWYtV2l0aG91dCBRY1N0YXRlbWVudHMwggEiMA0GCSqGSIb3DQEBAQUAA4IBDwAwggEKAoIBAQCY4VwqHuZUzlNYoiulRL+HcP8o6e4xD6Wa4Beug70Q7oZptHPvwMILwnYGFPFG7SawK4QtDZgmJ0DxMxaB7Crp5EoT5agmReGsPe8NqgPn\\/AQrWidSyJUZfDhjwTVzf8QxjqBRQAuWS4t+HYpt1REp9QfhLK9k1Q89\\/BOTUfPtKAmTBvsHfvLKlGrOH4d84rrUIJDrxA9bEI\\/qOQ8J9qyYm1E0R3JupcMM+MqX+VGq5se0+xOVTLTGwH4nqpEPzX\\/nrbrwADcQqDMDZ\\/VzBYmzBbNdoiC7gaUodCeWcrE9h9aCpJaHLpDJus5NHz\\/JQLjTEVLIa8LOGjGdq8DuR8vJAgMBAAEwDQYJKoZIhvcNAQELBQADggEBAIPX4vSJJ3DQuXGq2+jsLgEbMEfNacQ9xsDpWfbyIwGSXVA4oEa7HsaYsYmI9CfUtt5BNzwluoEBqLRm0h1gW9\\/\\/utVqm9RJIyNfhuvRA0UpAcL90hheeQdPJRgUFvGWpdiLk4uWmf\\/Ejr9VZnldt\\/pAYume0PNQqTfPWoubiHMDrUN5oa7J7XZRRcG9fWoVKb0TTFQVblhl0lOO3q\\/W7xm4l40iIuIBawAgY1lB1X14fhotQPEIumHESc8caMWosew+74IzS9DqN1VMlri2PcAQHpL+bNMHq6+uN2zW2NUo0T9xAhUMPEM7YSQHNjYgPsHskYHnERCbMPVYqog609Q=\",\"MIIDdTCCAl2gAwIBAgIUHp\\/eJEDoE4xxjpsqTR9yU4Ye8S0wDQYJKoZIhvcNAQELBQAwZjELMAkGA1UEBhMCTkwxFjAUBgNVBAgMDU5vb3JkLUhvbGxhbmQxEjAQBgNVBAcMCUFtc3RlcmRhbTENMAsGA1UECgwEWW9sdDENMAsGA1UECwwEWW9sdDENMAsGA1UEAwwEUm9vdDAeFw0yMDAyMDcxMjI2MjRaFw0zMDAyMDQxMjI2MjRaMG4xCzAJBgNVBAYTAk5MMRYwFAYDVQQIDA1Ob29yZC1Ib2xsYW5kMRIwEAYDVQQHDAlBbXN0ZXJkYW0xDTALBgNVBAoMBFlvbHQxDTALBgNVBAsMBFlvbHQxFTATBgNVBAMMDEludGVybWVkaWF0ZTCCASIwDQYJKoZIhvcNAQEBBQADggEPADCCAQoCggEBAMed1DRyp6\\/rGNDZMnc+ghQECMXoDAfnFqtnb5sZg0XqoJIE4+U7Q5zFm085Wg8q\\/qym9\\/ItGxUHgPpY3FPnEz82t3BgzHdwW+Fgoej0nk1DYfOMtVnBswEQ+YoUXkWleoRcnyZZa\\/r5gYhgzUCwb2miS3MMP3pvRQG42XEO41\\/4DKG+3gjSKL2vuj6BjyrNJzoMzus5xiemE+iZNxaAIocOHSBPtGAZR1DyND1+IHDIpnr7XUYf4\\/lKqlMtv3PXvDE2M5VsgVv2lEa2ZO1VpgoxTUMfdiHi5OFmeJlvbPjBD86M2hkhS0U4N\\/iURuuWo995ytHO55ksxMcXj7m\\/RqUCAwEAAaMTMBEwDwYDVR0TAQH\\/BAUwAwEB\\/zANBgkqhkiG9w0BAQsFAAOCAQEAvvx7WQq7X6MFRCX3dyRytIo0x2bRi1s3CfxaU3hca7Fif4prDmjCXN0rtWz22pyCSdIHVy6JW9vf448r772a3bv0QFXKP39MSW\\/nKOoS\\/go8dd09jHsj8XmuIMlT8eOnCxMwOPykFWMXOImiOaIv0oAOyFY0Kv0cFT8nDpLmd56Dgav8wb\\/0pW\\/n03dkhKnuwhHicZ0HcIa60UjgVCDCxVlMhG0mnzkHGt1EDjJE+WvZQT7s6EmMfInoIN9TqPaCLeAIm+C8wNUBv+Vdh5o2LdKg\\/4N4sn3zbhuPPPynvopKD1KGgz1mz+UoI8W9cD183MKjGenZkA8MPnONZbzzTw==\"],\"alg\":\"RS256\",\"n\":\"mOFcKh7mVM5TWKIrpUS_h3D_KOnuMQ-lmuAXroO9EO6GabRz78DCC8J2BhTxRu0msCuELQ2YJidA8TMWgewq6eRKE-WoJkXhrD3vDaoD5_wEK1onUsiVGXw4Y8E1c3_EMY6gUUALlkuLfh2KbdURKfUH4SyvZNUPPfwTk1Hz7SgJkwb7B37yypRqzh-HfOK61CCQ68QPWxCP6jkPCfasmJtRNEdybqXDDPjKl_lRqubHtPsTlUy0xsB-J6qRD81_56268AA3EKgzA2f1cwWJswWzXaIgu4GlKHQnlnKxPYfWgqSWhy6QybrOTR8_yUC40xFSyGvCzhoxnavA7kfLyQ\"}]}";
         JSONAssert.assertEquals(expectedJson, keySetArgumentCaptor.getValue().toJson(), JSONCompareMode.STRICT);
 
@@ -160,7 +185,7 @@ class JWKSServiceTest {
 
         jwksService.createJWKSJsonOnS3(CLIENT_GROUP_TOKEN);
 
-        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_TOKEN), keySetArgumentCaptor.capture());
+        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_ID), keySetArgumentCaptor.capture());
         String expectedJson = "{\"keys\":[{\"kty\":\"RSA\",\"e\":\"AQAB\",\"use\":\"enc\",\"kid\":\"KEY-0\",\"x5c\":[\"MIIDcDCCAlgCFEPpOVAIl\\/ww58ivKIaNafqaSZclMA0GCSqGSIb3DQEBCwUAMG4xCzAJBgNVBAYTAk5MMRYwFAYDVQQIDA1Ob29yZC1Ib2xsYW5kMRIwEAYDVQQHDAlBbXN0ZXJkYW0xDTALBgNVBAoMBFlvbHQxDTALBgNVBAsMBFlvbHQxFTATBgNVBAMMDEludGVybWVkaWF0ZTAeFw0yMDAyMDcxMjI2MjRaFw0zMDAyMDQxMjI2MjRaMHsxCzAJBgNVBAYTAk5MMRYwFAYDVQQIDA1Ob29yZC1Ib2xsYW5kMRIwEAYDVQQHDAlBbXN0ZXJkYW0xDTALBgNVBAoMBFlvbHQxDTALBgNVBAsMBFlvbHQxIjAgBgNVBAMMGUxlYWYtV2l0aG91dCBRY1N0YXRlbWVudHMwggEiMA0GCSqGSIb3DQEBAQUAA4IBDwAwggEKAoIBAQCY4VwqHuZUzlNYoiulRL+HcP8o6e4xD6Wa4Beug70Q7oZptHPvwMILwnYGFPFG7SawK4QtDZgmJ0DxMxaB7Crp5EoT5agmReGsPe8NqgPn\\/AQrWidSyJUZfDhjwTVzf8QxjqBRQAuWS4t+HYpt1REp9QfhLK9k1Q89\\/BOTUfPtKAmTBvsHfvLKlGrOH4d84rrUIJDrxA9bEI\\/qOQ8J9qyYm1E0R3JupcMM+MqX+VGq5se0+xOVTLTGwH4nqpEPzX\\/nrbrwADcQqDMDZ\\/VzBYmzBbNdoiC7gaUodCeWcrE9h9aCpJaHLpDJus5NHz\\/JQLjTEVLIa8LOGjGdq8DuR8vJAgMBAAEwDQYJKoZIhvcNAQELBQADggEBAIPX4vSJJ3DQuXGq2+jsLgEbMEfNacQ9xsDpWfbyIwGSXVA4oEa7HsaYsYmI9CfUtt5BNzwluoEBqLRm0h1gW9\\/\\/utVqm9RJIyNfhuvRA0UpAcL90hheeQdPJRgUFvGWpdiLk4uWmf\\/Ejr9VZnldt\\/pAYume0PNQqTfPWoubiHMDrUN5oa7J7XZRRcG9fWoVKb0TTFQVblhl0lOO3q\\/W7xm4l40iIuIBawAgY1lB1X14fhotQPEIumHESc8caMWosew+74IzS9DqN1VMlri2PcAQHpL+bNMHq6+uN2zW2NUo0T9xAhUMPEM7YSQHNjYgPsHskYHnERCbMPVYqog609Q=\",\"MIIDdTCCAl2gAwIBAgIUHp\\/eJEDoE4xxjpsqTR9yU4Ye8S0wDQYJKoZIhvcNAQELBQAwZjELMAkGA1UEBhMCTkwxFjAUBgNVBAgMDU5vb3JkLUhvbGxhbmQxEjAQBgNVBAcMCUFtc3RlcmRhbTENMAsGA1UECgwEWW9sdDENMAsGA1UECwwEWW9sdDENMAsGA1UEAwwEUm9vdDAeFw0yMDAyMDcxMjI2MjRaFw0zMDAyMDQxMjI2MjRaMG4xCzAJBgNVBAYTAk5MMRYwFAYDVQQIDA1Ob29yZC1Ib2xsYW5kMRIwEAYDVQQHDAlBbXN0ZXJkYW0xDTALBgNVBAoMBFlvbHQxDTALBgNVBAsMBFlvbHQxFTATBgNVBAMMDEludGVybWVkaWF0ZTCCASIwDQYJKoZIhvcNAQEBBQADggEPADCCAQoCggEBAMed1DRyp6\\/rGNDZMnc+ghQECMXoDAfnFqtnb5sZg0XqoJIE4+U7Q5zFm085Wg8q\\/qym9\\/ItGxUHgPpY3FPnEz82t3BgzHdwW+Fgoej0nk1DYfOMtVnBswEQ+YoUXkWleoRcnyZZa\\/r5gYhgzUCwb2miS3MMP3pvRQG42XEO41\\/4DKG+3gjSKL2vuj6BjyrNJzoMzus5xiemE+iZNxaAIocOHSBPtGAZR1DyND1+IHDIpnr7XUYf4\\/lKqlMtv3PXvDE2M5VsgVv2lEa2ZO1VpgoxTUMfdiHi5OFmeJlvbPjBD86M2hkhS0U4N\\/iURuuWo995ytHO55ksxMcXj7m\\/RqUCAwEAAaMTMBEwDwYDVR0TAQH\\/BAUwAwEB\\/zANBgkqhkiG9w0BAQsFAAOCAQEAvvx7WQq7X6MFRCX3dyRytIo0x2bRi1s3CfxaU3hca7Fif4prDmjCXN0rtWz22pyCSdIHVy6JW9vf448r772a3bv0QFXKP39MSW\\/nKOoS\\/go8dd09jHsj8XmuIMlT8eOnCxMwOPykFWMXOImiOaIv0oAOyFY0Kv0cFT8nDpLmd56Dgav8wb\\/0pW\\/n03dkhKnuwhHicZ0HcIa60UjgVCDCxVlMhG0mnzkHGt1EDjJE+WvZQT7s6EmMfInoIN9TqPaCLeAIm+C8wNUBv+Vdh5o2LdKg\\/4N4sn3zbhuPPPynvopKD1KGgz1mz+UoI8W9cD183MKjGenZkA8MPnONZbzzTw==\"],\"alg\":\"RS256\",\"n\":\"mOFcKh7mVM5TWKIrpUS_h3D_KOnuMQ-lmuAXroO9EO6GabRz78DCC8J2BhTxRu0msCuELQ2YJidA8TMWgewq6eRKE-WoJkXhrD3vDaoD5_wEK1onUsiVGXw4Y8E1c3_EMY6gUUALlkuLfh2KbdURKfUH4SyvZNUPPfwTk1Hz7SgJkwb7B37yypRqzh-HfOK61CCQ68QPWxCP6jkPCfasmJtRNEdybqXDDPjKl_lRqubHtPsTlUy0xsB-J6qRD81_56268AA3EKgzA2f1cwWJswWzXaIgu4GlKHQnlnKxPYfWgqSWhy6QybrOTR8_yUC40xFSyGvCzhoxnavA7kfLyQ\"}]}";
         JSONAssert.assertEquals(expectedJson, keySetArgumentCaptor.getValue().toJson(), JSONCompareMode.STRICT);
 
@@ -193,7 +218,7 @@ class JWKSServiceTest {
 
         jwksService.createJWKSJsonOnS3(CLIENT_GROUP_TOKEN);
 
-        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_TOKEN), keySetArgumentCaptor.capture());
+        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_ID), keySetArgumentCaptor.capture());
         String expectedJson = "{\"keys\":[]}";
         JSONAssert.assertEquals(expectedJson, keySetArgumentCaptor.getValue().toJson(), JSONCompareMode.STRICT);
 
@@ -225,7 +250,7 @@ class JWKSServiceTest {
 
         jwksService.createJWKSJsonOnS3(CLIENT_GROUP_TOKEN);
 
-        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_TOKEN), keySetArgumentCaptor.capture());
+        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_ID), keySetArgumentCaptor.capture());
         String expectedJson = "{\"keys\":[]}";
         JSONAssert.assertEquals(expectedJson, keySetArgumentCaptor.getValue().toJson(), JSONCompareMode.STRICT);
 
@@ -253,7 +278,7 @@ class JWKSServiceTest {
 
         jwksService.createJWKSJsonOnS3(CLIENT_GROUP_TOKEN);
 
-        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_TOKEN), keySetArgumentCaptor.capture());
+        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_ID), keySetArgumentCaptor.capture());
 
         String expectedJson = "{\"keys\":[]}";
         JSONAssert.assertEquals(expectedJson, keySetArgumentCaptor.getValue().toJson(), JSONCompareMode.STRICT);
@@ -278,12 +303,112 @@ class JWKSServiceTest {
 
         jwksService.createJWKSJsonOnS3(CLIENT_GROUP_TOKEN);
 
-        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_TOKEN), keySetArgumentCaptor.capture());
+        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_ID), keySetArgumentCaptor.capture());
 
         String expectedJson = "{\"keys\":[]}";
         JSONAssert.assertEquals(expectedJson, keySetArgumentCaptor.getValue().toJson(), JSONCompareMode.STRICT);
     }
 
+    @Test
+    void createJWKSJsonOnS3SavesThePublishedJWKS() {
+        when(certificateRepository.findCertificatesByClientGroupIdAndCertificateType(CLIENT_GROUP_ID, CertificateType.EIDAS)).thenReturn(List.of());
+
+        jwksService.createJWKSJsonOnS3(CLIENT_GROUP_TOKEN);
+
+        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_ID), any());
+        verify(clientGroupJWKSRepository).save(CLIENT_GROUP_ID, EMPTY_JWKS, sha256(EMPTY_JWKS), LocalDateTime.now(TestConfiguration.FIXED_CLOCK));
+        assertThat(meterRegistry.get("jwks_publications").tag("result", "uploaded").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void createJWKSJsonOnS3SkipsAnUnchangedJWKS() {
+        when(clientGroupJWKSRepository.lock(CLIENT_GROUP_ID)).thenReturn(new ClientGroupJWKSRepository.PublishedJWKS(EMPTY_JWKS, sha256(EMPTY_JWKS)));
+        when(certificateRepository.findCertificatesByClientGroupIdAndCertificateType(CLIENT_GROUP_ID, CertificateType.EIDAS)).thenReturn(List.of());
+
+        jwksService.createJWKSJsonOnS3(CLIENT_GROUP_TOKEN);
+
+        verifyNoInteractions(s3StorageClient);
+        verify(clientGroupJWKSRepository, never()).save(any(), any(), any(), any());
+        assertThat(meterRegistry.get("jwks_publications").tag("result", "unchanged").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void updateJWKSOnS3ReplacesOnlyTheKeyOfTheCertificate() throws Exception {
+        RsaJsonWebKey otherKey = (RsaJsonWebKey) JsonWebKey.Factory.newJwk(RsaJwkGenerator.generateJwk(2048).getPublicKey());
+        otherKey.setKeyId("KEY-1");
+        RsaJsonWebKey oldKey = (RsaJsonWebKey) JsonWebKey.Factory.newJwk(RsaJwkGenerator.generateJwk(2048).getPublicKey());
+        oldKey.setKeyId(KEY_ID);
+        String published = new JsonWebKeySet(otherKey, oldKey).toJson();
+        when(clientGroupJWKSRepository.lock(CLIENT_GROUP_ID)).thenReturn(new ClientGroupJWKSRepository.PublishedJWKS(published, sha256(published)));
+        Certificate certificate = new Certificate(
+                CertificateType.EIDAS,
+                KEY_ID,
+                CLIENT_GROUP_ID,
+                "certificateName",
+                Set.of(),
+                SIGNING,
+                null,
+                null,
+                null,
+                null,
+                CERTIFICATE_CHAIN
+        );
+        when(certificateRepository.findCertificateByClientGroupIdAndCertificateTypeAndKid(CLIENT_GROUP_ID, CertificateType.EIDAS, KEY_ID)).thenReturn(Optional.of(certificate));
+
+        jwksService.updateJWKSOnS3(CLIENT_GROUP_TOKEN, KEY_ID);
+
+        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_ID), keySetArgumentCaptor.capture());
+        List<JsonWebKey> keys = keySetArgumentCaptor.getValue().getJsonWebKeys();
+        assertThat(keys).extracting(JsonWebKey::getKeyId).containsExactly("KEY-1", KEY_ID);
+        assertThat(keys.get(0).toJson()).isEqualTo(otherKey.toJson());
+        assertThat(((RsaJsonWebKey) keys.get(1)).getCertificateChain()).hasSize(2);
+        verify(eidasValidationService).validateCertificateChain(any());
+        verify(certificateRepository, never()).findCertificatesByClientGroupIdAndCertificateType(any(), any());
+    }
+
+    @Test
+    void updateJWKSOnS3RemovesTheKeyOfARemovedCertificate() throws Exception {
+        RsaJsonWebKey oldKey = (RsaJsonWebKey) JsonWebKey.Factory.newJwk(RsaJwkGenerator.generateJwk(2048).getPublicKey());
+        oldKey.setKeyId(KEY_ID);
+        String published = new JsonWebKeySet(oldKey).toJson();
+        when(clientGroupJWKSRepository.lock(CLIENT_GROUP_ID)).thenReturn(new ClientGroupJWKSRepository.PublishedJWKS(published, sha256(published)));
+        when(certificateRepository.findCertificateByClientGroupIdAndCertificateTypeAndKid(CLIENT_GROUP_ID, CertificateType.EIDAS, KEY_ID)).thenReturn(Optional.empty());
+
+        jwksService.updateJWKSOnS3(CLIENT_GROUP_TOKEN, KEY_ID);
+
+        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_ID), keySetArgumentCaptor.capture());
+        assertThat(keySetArgumentCaptor.getValue().getJsonWebKeys()).isEmpty();
+        verify(clientGroupJWKSRepository).save(CLIENT_GROUP_ID, EMPTY_JWKS, sha256(EMPTY_JWKS), LocalDateTime.now(TestConfiguration.FIXED_CLOCK));
+    }
+
+    @Test
+    void updateJWKSOnS3BuildsTheJWKSWhenNothingIsPublished() {
+        when(certificateRepository.findCertificatesByClientGroupIdAndCertificateType(CLIENT_GROUP_ID, CertificateType.EIDAS)).thenReturn(List.of());
+
+        jwksService.updateJWKSOnS3(CLIENT_GROUP_TOKEN, KEY_ID);
+
+        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_ID), any());
+        verify(certificateRepository, never()).findCertificateByClientGroupIdAndCertificateTypeAndKid(any(), any(), any());
+    }
+
+    @Test
+    void rebuildAllJWKSContinuesAfterAFailure() {
+        UUID otherClientGroupId = UUID.randomUUID();
+        when(clientGroupJWKSRepository.findClientGroupIds()).thenReturn(List.of(otherClientGroupId, CLIENT_GROUP_ID));
+        when(clientGroupJWKSRepository.lock(otherClientGroupId)).thenThrow(new IllegalStateException("database down"));
+        when(certificateRepository.findCertificatesByClientGroupIdAndCertificateType(CLIENT_GROUP_ID, CertificateType.EIDAS)).thenReturn(List.of());
+
+        jwksService.rebuildAllJWKS();
+
+        verify(s3StorageClient).storeJWKS(eq(CLIENT_GROUP_ID), any());
+        verifyNoMoreInteractions(s3StorageClient);
+    }
+
+    @SneakyThrows
+    private static String sha256(String json) {
+        return Hex.toHexString(MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8)));
+    }
+
     @SneakyThrows
     private String x509ToPem(X509Certificate x509Certificate) {
         return new String(Base64.getEncoder().encode(x509Certificate.getEncoded()));
@@ -1,6 +1,7 @@
 package com.yolt.clients.clientgroup.certificatemanagement.openbanking;
 
 import com.yolt.clients.clientgroup.certificatemanagement.CertificateValidationService;
+import com.yolt.clients.clientgroup.certificatemanagement.TrustAnchors;
 import com.yolt.clients.clientgroup.certificatemanagement.exceptions.CertificateValidationException;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -28,7 +29,7 @@ class OpenBankingValidationServiceTest {
     @Mock
     private CertificateValidationService certificateValidationService;
     @Captor
-    private ArgumentCaptor<X509Certificate[]> certificatesCaptor;
+    private ArgumentCaptor<TrustAnchors> certificatesCaptor;
 
     @BeforeEach
     void setUp() {
@@ -53,7 +54,7 @@ class OpenBankingValidationServiceTest {
 
         verify(certificateValidationService).validateCertPath(certificatesCaptor.capture(), eq(certificateChain));
 
-        assertThat(certificatesCaptor.getValue()).extracting(X509Certificate::getSubjectX500Principal).asString().contains(
+        assertThat(certificatesCaptor.getValue().getCertificates()).extracting(X509Certificate::getSubjectX500Principal).asString().contains(
                 "CN=Root, OU=Yolt, O=Yolt, L=Amsterdam, ST=Noord-Holland, C=NL"
         );
     }
@@ -68,7 +69,7 @@ class OpenBankingValidationServiceTest {
 
         assertThat(exception.getMessage()).isEqualTo("Expected C to be GB for certificate");
         verify(certificateValidationService).validateCertPath(certificatesCaptor.capture(), eq(certificateChain));
-        assertThat(certificatesCaptor.getValue()).extracting(X509Certificate::getSubjectX500Principal).asString().contains(
+        assertThat(certificatesCaptor.getValue().getCertificates()).extracting(X509Certificate::getSubjectX500Principal).asString().contains(
                 "CN=Root, OU=Yolt, O=Yolt, L=Amsterdam, ST=Noord-Holland, C=NL"
         );
     }
@@ -83,7 +84,7 @@ class OpenBankingValidationServiceTest {
 
         assertThat(exception.getMessage()).isEqualTo("Expected O to be OpenBanking for certificate");
         verify(certificateValidationService).validateCertPath(certificatesCaptor.capture(), eq(certificateChain));
-        assertThat(certificatesCaptor.getValue()).extracting(X509Certificate::getSubjectX500Principal).asString().contains(
+        assertThat(certificatesCaptor.getValue().getCertificates()).extracting(X509Certificate::getSubjectX500Principal).asString().contains(
                 "CN=Root, OU=Yolt, O=Yolt, L=Amsterdam, ST=Noord-Holland, C=NL"
         );
     }
@@ -98,7 +99,7 @@ class OpenBankingValidationServiceTest {
         verify(certificateValidationService).validateCertPath(certificatesCaptor.capture(), eq(certificateChain));
         verify(certificateValidationService).hasQCStatementsExtension(certificateChain.get(0));
 
-        assertThat(certificatesCaptor.getValue()).extracting(X509Certificate::getSubjectX500Principal).asString().contains(
+        assertThat(certificatesCaptor.getValue().getCertificates()).extracting(X509Certificate::getSubjectX500Principal).asString().contains(
                 "CN=Root, OU=Yolt, O=Yolt, L=Amsterdam, ST=Noord-Holland, C=NL"
         );
     }
@@ -5,6 +5,7 @@ import com.yolt.clients.clientgroup.certificatemanagement.dto.serviceinfo.KeyReq
 import com.yolt.clients.clientgroup.certificatemanagement.dto.serviceinfo.ServiceInfo;
 import com.yolt.clients.clientgroup.certificatemanagement.providers.dto.ProviderInfo;
 import com.yolt.clients.clientgroup.certificatemanagement.providers.exceptions.ProviderInfoFetchException;
+import com.yolt.clients.http.OutboundHttpClients;
 import nl.ing.lovebird.providerdomain.ServiceType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -41,7 +42,9 @@ class ProvidersServiceTest {
         RestTemplateBuilder restTemplateBuilder = mock(RestTemplateBuilder.class);
         when(restTemplateBuilder.rootUri(providersURL)).thenReturn(restTemplateBuilder);
         when(restTemplateBuilder.build()).thenReturn(restTemplate);
-        providersService = new ProvidersService(providersURL, restTemplateBuilder);
+        OutboundHttpClients outboundHttpClients = mock(OutboundHttpClients.class);
+        when(outboundHttpClients.restTemplateBuilder("providers")).thenReturn(restTemplateBuilder);
+        providersService = new ProvidersService(providersURL, outboundHttpClients);
         verifyNoMoreInteractions(ignoreStubs(restTemplateBuilder));
     }
 
@@ -1,5 +1,6 @@
 package com.yolt.clients.clientgroup.certificatemanagement.yoltbank;
 
+import com.yolt.clients.http.OutboundHttpClients;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -34,7 +35,9 @@ class YoltbankServiceTest {
         RestTemplateBuilder restTemplateBuilder = mock(RestTemplateBuilder.class);
         when(restTemplateBuilder.rootUri(yoltbankurl)).thenReturn(restTemplateBuilder);
         when(restTemplateBuilder.build()).thenReturn(restTemplate);
-        yoltbankService = new YoltbankService(restTemplateBuilder, yoltbankurl);
+        OutboundHttpClients outboundHttpClients = mock(OutboundHttpClients.class);
+        when(outboundHttpClients.restTemplateBuilder("yoltbank")).thenReturn(restTemplateBuilder);
+        yoltbankService = new YoltbankService(outboundHttpClients, yoltbankurl);
         verifyNoMoreInteractions(ignoreStubs(restTemplateBuilder));
     }
 
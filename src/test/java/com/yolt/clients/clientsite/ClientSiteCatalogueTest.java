@@ -0,0 +1,170 @@
+package com.yolt.clients.clientsite;
+
+import com.yolt.clients.clientsite.dto.ClientSiteDTO;
+import com.yolt.clients.sites.SiteCreatorUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import nl.ing.lovebird.providerdomain.ServiceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ClientSiteCatalogueTest {
+
+    private static final UUID CLIENT_ID = UUID.randomUUID();
+
+    private final ClientSitesUpdateProducer clientSitesUpdateProducer = mock(ClientSitesUpdateProducer.class);
+    private final ClientSiteCatalogue clientSiteCatalogue = new ClientSiteCatalogue(new ClientSiteDTOMapper("https://icon.com"), clientSitesUpdateProducer, new SimpleMeterRegistry());
+
+    @Test
+    void getOrLoad_given_aCachedEntry_then_theLoaderShouldNotBeCalledAgain() {
+        AtomicInteger loads = new AtomicInteger();
+
+        clientSiteCatalogue.getOrLoad(CLIENT_ID, () -> {
+            loads.incrementAndGet();
+            return List.of(clientSite("b", Set.of(), UUID.randomUUID()));
+        });
+        ClientSiteCatalogue.Entry entry = clientSiteCatalogue.getOrLoad(CLIENT_ID, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+
+        assertThat(loads).hasValue(1);
+        assertThat(entry.getClientSiteDTOs()).extracting(ClientSiteDTO::getName).containsExactly("b");
+    }
+
+    @Test
+    void getOrLoad_given_anInvalidatedEntry_then_theEntryShouldBeReloaded() {
+        clientSiteCatalogue.getOrLoad(CLIENT_ID, () -> List.of(clientSite("a", Set.of(), UUID.randomUUID())));
+        clientSiteCatalogue.invalidate(CLIENT_ID);
+
+        ClientSiteCatalogue.Entry entry = clientSiteCatalogue.getOrLoad(CLIENT_ID, List::of);
+
+        assertThat(entry.getClientSiteDTOs()).isEmpty();
+    }
+
+    @Test
+    void getOrLoad_given_anInvalidationDuringTheLoad_then_theResultShouldNotBeCached() {
+        clientSiteCatalogue.getOrLoad(CLIENT_ID, () -> {
+            clientSiteCatalogue.invalidateAll();
+            return List.of(clientSite("stale", Set.of(), UUID.randomUUID()));
+        });
+
+        ClientSiteCatalogue.Entry entry = clientSiteCatalogue.getOrLoad(CLIENT_ID, List::of);
+
+        assertThat(entry.getClientSiteDTOs()).isEmpty();
+    }
+
+    @Test
+    void invalidate_then_theOtherPodsShouldBeSignalled() {
+        clientSiteCatalogue.invalidate(CLIENT_ID);
+        clientSiteCatalogue.invalidateAll();
+
+        verify(clientSitesUpdateProducer).sendMessage(CLIENT_ID);
+        verify(clientSitesUpdateProducer).sendMessage();
+    }
+
+    @Test
+    void invalidateLocally_then_onlyThatClientShouldBeDroppedAndTheOtherPodsShouldNotBeSignalled() {
+        UUID otherClientId = UUID.randomUUID();
+        clientSiteCatalogue.getOrLoad(CLIENT_ID, () -> List.of(clientSite("a", Set.of(), UUID.randomUUID())));
+        clientSiteCatalogue.getOrLoad(otherClientId, () -> List.of(clientSite("b", Set.of(), UUID.randomUUID())));
+
+        clientSiteCatalogue.invalidateLocally(CLIENT_ID);
+
+        assertThat(clientSiteCatalogue.getOrLoad(CLIENT_ID, List::of).getClientSiteDTOs()).isEmpty();
+        assertThat(clientSiteCatalogue.getOrLoad(otherClientId, List::of).getClientSiteDTOs()).extracting(ClientSiteDTO::getName).containsExactly("b");
+        verifyNoInteractions(clientSitesUpdateProducer);
+    }
+
+    @Test
+    void invalidateAllLocally_then_theOtherPodsShouldNotBeSignalled() {
+        clientSiteCatalogue.getOrLoad(CLIENT_ID, () -> List.of(clientSite("a", Set.of(), UUID.randomUUID())));
+
+        clientSiteCatalogue.invalidateAllLocally();
+
+        assertThat(clientSiteCatalogue.getOrLoad(CLIENT_ID, List::of).getClientSiteDTOs()).isEmpty();
+        verifyNoInteractions(clientSitesUpdateProducer);
+    }
+
+    @Test
+    void getETag_given_aStoredETag_then_theLoaderShouldNotBeCalledAgain() {
+        AtomicInteger loads = new AtomicInteger();
+
+        clientSiteCatalogue.getETag(CLIENT_ID, () -> "\"a-" + loads.incrementAndGet() + "\"");
+        String eTag = clientSiteCatalogue.getETag(CLIENT_ID, () -> "\"a-" + loads.incrementAndGet() + "\"");
+
+        assertThat(loads).hasValue(1);
+        assertThat(eTag).isEqualTo("\"a-1\"");
+    }
+
+    @Test
+    void getETag_given_anInvalidation_then_theETagShouldBeReloaded() {
+        UUID otherClientId = UUID.randomUUID();
+        clientSiteCatalogue.getETag(CLIENT_ID, () -> "\"a\"");
+        clientSiteCatalogue.getETag(otherClientId, () -> "\"b\"");
+
+        clientSiteCatalogue.invalidate(CLIENT_ID);
+        assertThat(clientSiteCatalogue.getETag(CLIENT_ID, () -> "\"c\"")).isEqualTo("\"c\"");
+        assertThat(clientSiteCatalogue.getETag(otherClientId, () -> "\"d\"")).isEqualTo("\"b\"");
+
+        clientSiteCatalogue.invalidateAll();
+        assertThat(clientSiteCatalogue.getETag(otherClientId, () -> "\"d\"")).isEqualTo("\"d\"");
+    }
+
+    @Test
+    void getETag_given_anInvalidationDuringTheLoad_then_theETagShouldNotBeStored() {
+        clientSiteCatalogue.getETag(CLIENT_ID, () -> {
+            clientSiteCatalogue.invalidateAll();
+            return "\"stale\"";
+        });
+
+        assertThat(clientSiteCatalogue.getETag(CLIENT_ID, () -> "\"fresh\"")).isEqualTo("\"fresh\"");
+    }
+
+    @Test
+    void filter_given_tagsAndRedirectUrlId_then_onlyMatchingSitesShouldBeReturnedSortedByName() {
+        UUID redirectUrlId = UUID.randomUUID();
+        ClientSiteCatalogue.Entry entry = clientSiteCatalogue.getOrLoad(CLIENT_ID, () -> List.of(
+                clientSite("d", Set.of("x", "y"), redirectUrlId),
+                clientSite("c", Set.of("x"), redirectUrlId),
+                clientSite("b", Set.of("x", "y"), UUID.randomUUID()),
+                clientSite("a", Set.of("x", "y", "z"), redirectUrlId)
+        ));
+
+        assertThat(entry.filter(null, null)).extracting(ClientSiteDTO::getName).containsExactly("a", "b", "c", "d");
+        assertThat(entry.filter(null, List.of("x", "y"))).extracting(ClientSiteDTO::getName).containsExactly("a", "b", "d");
+        assertThat(entry.filter(redirectUrlId, List.of())).extracting(ClientSiteDTO::getName).containsExactly("a", "c", "d");
+        assertThat(entry.filter(redirectUrlId, List.of("x", "y"))).extracting(ClientSiteDTO::getName).containsExactly("a", "d");
+        assertThat(entry.filter(UUID.randomUUID(), null)).isEmpty();
+    }
+
+    @Test
+    void filter_given_anUnknownTag_then_nothingShouldBeReturned() {
+        UUID redirectUrlId = UUID.randomUUID();
+        ClientSiteCatalogue.Entry entry = clientSiteCatalogue.getOrLoad(CLIENT_ID, () -> List.of(
+                clientSite("a", Set.of("x"), redirectUrlId),
+                clientSite("b", Set.of("x"), redirectUrlId)
+        ));
+
+        assertThat(entry.filter(null, List.of("x", "unknown"))).isEmpty();
+        assertThat(entry.filter(redirectUrlId, List.of("unknown"))).isEmpty();
+        assertThat(entry.getSitesByTag().get("x").cardinality()).isEqualTo(2);
+        assertThat(entry.filter(redirectUrlId, List.of("x"))).extracting(ClientSiteDTO::getName).containsExactly("a", "b");
+    }
+
+    private static ClientSite clientSite(String name, Set<String> tags, UUID redirectUrlId) {
+        return new ClientSite(
+                SiteCreatorUtil.createTestSite(UUID.randomUUID(), name, "provider", List.of(), List.of(), Map.of()),
+                true, true, false,
+                tags,
+                List.of(new AuthenticationMeansScope(AuthenticationMeansScope.Type.REDIRECT_URL, List.of(redirectUrlId), ServiceType.AIS))
+        );
+    }
+}
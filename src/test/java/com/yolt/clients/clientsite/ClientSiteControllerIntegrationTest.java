@@ -1,6 +1,7 @@
 package com.yolt.clients.clientsite;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.WireMockServer;
 import com.github.tomakehurst.wiremock.client.WireMock;
 import com.yolt.clients.IntegrationTest;
@@ -9,6 +10,7 @@ import com.yolt.clients.client.ClientsRepository;
 import com.yolt.clients.client.redirecturls.RedirectURLService;
 import com.yolt.clients.clientgroup.ClientGroupRepository;
 import com.yolt.clients.clientsite.dto.ClientSiteDTO;
+import com.yolt.clients.clientsite.dto.ClientSitesPerClientDTO;
 import com.yolt.clients.clientsitemetadata.ClientSiteMetadata;
 import com.yolt.clients.clientsitemetadata.ClientSiteMetadataRepository;
 import com.yolt.clients.model.Client;
@@ -76,6 +78,8 @@ class ClientSiteControllerIntegrationTest {
 
     @Autowired
     private ClientSiteMetadataRepository clientSiteMetadataRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
 
     private ClientToken clientToken;
 
@@ -329,6 +333,27 @@ class ClientSiteControllerIntegrationTest {
 
     }
 
+    @Test
+    void when_streamingTheSitesPerClient_then_everyClientShouldBeOnItsOwnLine() throws Exception {
+        clientOnboardingsTestUtility.addOnboardedAISProviderForClient(CLIENT_ID.unwrap(), REDIRECT_URL_ID, PROVIDER);
+        assertThat(updateSiteAvailable(SITE_ID, true).getStatusCode().value()).isEqualTo(200);
+        assertThat(enableSite(SITE_ID).getStatusCode().value()).isEqualTo(200);
+        restTemplate.exchange(new URI(String.format("/client-sites/%s/tags", SITE_ID)), HttpMethod.PUT, createHttpEntity("[\"NL\"]"), Void.class);
+
+        ResponseEntity<String> response = restTemplate.getForEntity("/internal/v2/sites-per-client/stream", String.class);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+        List<ClientSitesPerClientDTO> lines = new ArrayList<>();
+        for (String line : response.getBody().split("\n")) {
+            lines.add(objectMapper.readValue(line, ClientSitesPerClientDTO.class));
+        }
+        ClientSitesPerClientDTO client = lines.stream().filter(it -> it.getClientId().equals(CLIENT_ID.unwrap())).findFirst().orElseThrow();
+        assertThat(client.getSites()).hasSize(1);
+        assertThat(client.getSites().get(0).getId()).isEqualTo(SITE_ID);
+        assertThat(client.getSites().get(0).getTags()).containsExactly("NL");
+        assertThat(client.getSites().get(0).getServices().getAis().getOnboarded().getRedirectUrlIds()).containsExactly(REDIRECT_URL_ID);
+    }
 
     private HttpEntity<?> createHttpEntity(String body) {
         HttpHeaders requestHeaders = new HttpHeaders();
@@ -52,6 +52,8 @@ class ClientSiteControllerTest {
     private static final ClientId CLIENT_ID = new ClientId(UUID.randomUUID());
     @MockBean
     private ClientSiteService clientSiteService;
+    @Autowired
+    private ClientSiteDTOMapper clientSiteDTOMapper;
 
     private HttpHeaders headers;
 
@@ -274,7 +276,7 @@ class ClientSiteControllerTest {
                 Collections.emptySet(),
                 Collections.singletonList(new AuthenticationMeansScope(AuthenticationMeansScope.Type.CLIENT, null, ServiceType.AIS)));
 
-        when(clientSiteService.listEnabledClientSites(eq(clientToken), eq(redirectUrlId), anyList())).thenReturn(List.of(clientSite1, clientSite2));
+        when(clientSiteService.listEnabledClientSiteDTOs(eq(clientToken), eq(redirectUrlId), anyList())).thenReturn(clientSiteDTOMapper.mapClientSiteDTO(List.of(clientSite1, clientSite2)));
 
         // Hit the controller and verify
         this.mockMvc.perform(get(uri)
@@ -294,7 +296,32 @@ class ClientSiteControllerTest {
                 .andExpect(jsonPath("$[1].name").value(siteName2));
 
         // verify mock
-        verify(clientSiteService).listEnabledClientSites(eq(clientToken), eq(redirectUrlId), anyList());
+        verify(clientSiteService).listEnabledClientSiteDTOs(eq(clientToken), eq(redirectUrlId), anyList());
+    }
+
+    @Test
+    void testGetSitesV2WithETag() throws Exception {
+        when(clientSiteService.getClientSitesETag(clientToken)).thenReturn("\"etag-1\"");
+        when(clientSiteService.listEnabledClientSiteDTOs(eq(clientToken), isNull(), anyList())).thenReturn(List.of());
+
+        this.mockMvc.perform(get("/v2/sites")
+                        .headers(headers))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"etag-1\""));
+
+        this.mockMvc.perform(get("/v2/sites")
+                        .headers(headers)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"etag-1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        this.mockMvc.perform(get("/client-sites")
+                        .headers(headers)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"etag-1\""))
+                .andExpect(status().isNotModified());
+
+        verify(clientSiteService, times(1)).listEnabledClientSiteDTOs(eq(clientToken), isNull(), anyList());
+        verify(clientSiteService, never()).listAllClientSitesForInternalUsage(any(), anyBoolean());
     }
 
     @Test
@@ -320,7 +347,7 @@ class ClientSiteControllerTest {
                 )
         );
 
-        when(clientSiteService.listEnabledClientSites(eq(clientToken), eq(redirectUrlId), anyList())).thenReturn(List.of(clientSite1));
+        when(clientSiteService.listEnabledClientSiteDTOs(eq(clientToken), eq(redirectUrlId), anyList())).thenReturn(clientSiteDTOMapper.mapClientSiteDTO(List.of(clientSite1)));
 
         // Hit the controller and verify
         this.mockMvc.perform(get(uri)
@@ -0,0 +1,68 @@
+package com.yolt.clients.clientsite;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.yolt.clients.clientsite.dto.ClientSiteDTO;
+import com.yolt.clients.sites.CountryCode;
+import com.yolt.clients.sites.Site;
+import com.yolt.clients.sites.SiteCreatorUtil;
+import com.yolt.clients.sites.ais.LoginRequirement;
+import nl.ing.lovebird.providerdomain.AccountType;
+import nl.ing.lovebird.providerdomain.ServiceType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClientSiteDTOSerializerTest {
+
+    private static final TypeReference<List<ClientSiteDTO>> CLIENT_SITE_DTOS = new TypeReference<>() {
+    };
+
+    private final ClientSiteDTOMapper clientSiteDTOMapper = new ClientSiteDTOMapper("https://icon.com/{siteId}");
+    private final ObjectMapper plainObjectMapper = new ObjectMapper();
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new SimpleModule().addSerializer(new ClientSiteDTOSerializer()));
+
+    @Test
+    void serialize_given_clientSitesOfSeveralClients_then_theJsonShouldBeTheSameAsWithoutPreSerialization() throws Exception {
+        Site aisAndPis = SiteCreatorUtil.createTestSite(UUID.randomUUID(), "Bank \"quoted\" ü", "MONZO", List.of(AccountType.CURRENT_ACCOUNT), List.of(CountryCode.GB),
+                Map.of(ServiceType.AIS, List.of(LoginRequirement.REDIRECT), ServiceType.PIS, List.of(LoginRequirement.FORM)));
+        Site scraper = SiteCreatorUtil.createTestSite(UUID.randomUUID(), "Scraper", "YODLEE", List.of(), List.of(), Map.of(ServiceType.AIS, List.of(LoginRequirement.FORM)));
+        UUID redirectUrlId = UUID.randomUUID();
+
+        List<ClientSiteDTO> clientA = clientSiteDTOMapper.mapClientSiteDTO(List.of(
+                new ClientSite(aisAndPis, true, true, false, Set.of("NL", "tag_1"), List.of(
+                        new AuthenticationMeansScope(AuthenticationMeansScope.Type.REDIRECT_URL, List.of(redirectUrlId, UUID.randomUUID()), ServiceType.AIS),
+                        new AuthenticationMeansScope(AuthenticationMeansScope.Type.CLIENT, List.of(), ServiceType.PIS))),
+                new ClientSite(scraper, false, false, true, Set.of(), List.of(
+                        new AuthenticationMeansScope(AuthenticationMeansScope.Type.CLIENT, List.of(), ServiceType.AIS)))
+        ));
+        List<ClientSiteDTO> clientB = clientSiteDTOMapper.mapClientSiteDTO(List.of(
+                new ClientSite(aisAndPis, false, true, true, Set.of(), List.of(
+                        new AuthenticationMeansScope(AuthenticationMeansScope.Type.REDIRECT_URL, List.of(redirectUrlId), ServiceType.PIS)))
+        ));
+
+        for (List<ClientSiteDTO> clientSiteDTOs : List.of(clientA, clientB, clientA)) {
+            assertThat(objectMapper.writeValueAsString(clientSiteDTOs))
+                    .isEqualTo(plainObjectMapper.writerFor(CLIENT_SITE_DTOS).writeValueAsString(clientSiteDTOs));
+        }
+    }
+
+    @Test
+    void serialize_given_aNewSiteInstance_then_theNewSiteShouldBeWritten() throws Exception {
+        UUID siteId = UUID.randomUUID();
+        Site site = SiteCreatorUtil.createTestSite(siteId, "Old name", "MONZO", List.of(), List.of(), Map.of(ServiceType.AIS, List.of(LoginRequirement.REDIRECT)));
+        Site updatedSite = SiteCreatorUtil.createTestSite(siteId, "New name", "MONZO", List.of(), List.of(), Map.of(ServiceType.AIS, List.of(LoginRequirement.REDIRECT)));
+
+        objectMapper.writeValueAsString(clientSiteDTOMapper.mapClientSiteDTO(new ClientSite(site, true, true, false, Set.of(), List.of())));
+        String json = objectMapper.writeValueAsString(clientSiteDTOMapper.mapClientSiteDTO(new ClientSite(updatedSite, true, true, false, Set.of(), List.of())));
+
+        assertThat(objectMapper.readValue(json, Map.class)).containsEntry("name", "New name");
+    }
+}
@@ -1,5 +1,6 @@
 package com.yolt.clients.clientsite;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yolt.clients.authmeans.OnboardedProviderView;
 import com.yolt.clients.authmeans.OnboardedProviderViewRepository;
 import com.yolt.clients.authmeans.ServiceType;
@@ -12,6 +13,7 @@ import com.yolt.clients.sites.Site;
 import com.yolt.clients.sites.SiteCreatorUtil;
 import com.yolt.clients.sites.SiteNotFoundException;
 import com.yolt.clients.sites.SitesProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import nl.ing.lovebird.clienttokens.ClientToken;
 import nl.ing.lovebird.clienttokens.test.TestJwtClaims;
 import org.junit.jupiter.api.Test;
@@ -29,6 +31,7 @@ import java.util.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 @MockitoSettings(strictness = Strictness.WARN)
@@ -296,6 +299,37 @@ class ClientSiteServiceTest {
         assertThat(providerEntry.getSites().stream().map(ClientSiteDTO::isAvailable)).allMatch(it -> !it);
     }
 
+    @Test
+    void getClientSitesETag_given_theSameClientSites_then_everyInstanceShouldReturnTheSameETag() {
+        UUID enabledSite = UUID.randomUUID();
+        UUID disabledSite = UUID.randomUUID();
+        when(sitesProvider.findByProvider("YODLEE")).thenReturn(List.of(
+                randomSite(new Site.SiteId(enabledSite), "YODLEE"),
+                randomSite(new Site.SiteId(disabledSite), "YODLEE")));
+        when(onboardedProviderViewRepository.selectAllForClient(CLIENT_ID)).thenReturn(
+                List.of(new OnboardedProviderView(CLIENT_ID, "YODLEE", ServiceType.AIS, UUID.fromString("7b1d4de3-3c95-4b0a-8b0f-2a0b1fa5fc7a"))));
+        when(clientSiteMetadataRepository.findAllByIdClientId(CLIENT_ID)).thenReturn(List.of(
+                new ClientSiteMetadata(new ClientSiteMetadata.ClientSiteMetadataId(CLIENT_ID, enabledSite), "YODLEE", true, true, false, Instant.now(), Set.of())));
+        ClientToken clientToken = new ClientToken("stubbed-client-token", TestJwtClaims.createClientClaims("junit", UUID.randomUUID(), CLIENT_ID));
+
+        String eTag = newClientSiteService().getClientSitesETag(clientToken);
+        assertThat(newClientSiteService().getClientSitesETag(clientToken)).isEqualTo(eTag).startsWith("\"").endsWith("\"");
+
+        when(clientSiteMetadataRepository.findAllByIdClientId(CLIENT_ID)).thenReturn(List.of(
+                new ClientSiteMetadata(new ClientSiteMetadata.ClientSiteMetadataId(CLIENT_ID, enabledSite), "YODLEE", true, true, false, Instant.now(), Set.of()),
+                new ClientSiteMetadata(new ClientSiteMetadata.ClientSiteMetadataId(CLIENT_ID, disabledSite), "YODLEE", true, false, false, Instant.now(), Set.of())));
+        assertThat(newClientSiteService().getClientSitesETag(clientToken)).isNotEqualTo(eTag);
+    }
+
+    /**
+     * A service with its own catalogue, like the one of another pod.
+     */
+    private ClientSiteService newClientSiteService() {
+        var clientSiteCatalogue = new ClientSiteCatalogue(clientSiteDTOMapper, mock(ClientSitesUpdateProducer.class), new SimpleMeterRegistry());
+        return new ClientSiteService(clientSiteMetadataRepository, onboardedProviderViewRepository, clientSiteDTOMapper, sitesProvider,
+                clientSiteCatalogue, null, new ObjectMapper());
+    }
+
     private Site randomSite(Site.SiteId siteId) {
         return randomSite(siteId, "provider");
     }
@@ -0,0 +1,65 @@
+package com.yolt.clients.clientsite;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ClientSitesUpdateConsumerTest {
+
+    private static final byte[] SENDER = "other-pod".getBytes(StandardCharsets.UTF_8);
+
+    @Mock
+    private ClientSiteCatalogue clientSiteCatalogue;
+    @Mock
+    private ClientSitesUpdateProducer clientSitesUpdateProducer;
+    @InjectMocks
+    private ClientSitesUpdateConsumer clientSitesUpdateConsumer;
+
+    @Test
+    void clientSitesUpdated_given_aMessageWithClientIds_then_onlyThoseClientsShouldBeInvalidated() {
+        UUID clientId = UUID.randomUUID();
+        UUID otherClientId = UUID.randomUUID();
+        var message = message(SENDER);
+        message.headers().add(ClientSitesUpdateProducer.CLIENT_IDS_HEADER, (clientId + "," + otherClientId).getBytes(StandardCharsets.UTF_8));
+
+        clientSitesUpdateConsumer.clientSitesUpdated(message);
+
+        verify(clientSiteCatalogue).invalidateLocally(clientId);
+        verify(clientSiteCatalogue).invalidateLocally(otherClientId);
+        verifyNoMoreInteractions(clientSiteCatalogue);
+    }
+
+    @Test
+    void clientSitesUpdated_given_aMessageWithoutClientIds_then_everythingShouldBeInvalidated() {
+        clientSitesUpdateConsumer.clientSitesUpdated(message(null));
+
+        verify(clientSiteCatalogue).invalidateAllLocally();
+        verifyNoMoreInteractions(clientSiteCatalogue);
+    }
+
+    @Test
+    void clientSitesUpdated_given_aMessageOfThisPod_then_nothingShouldBeInvalidated() {
+        when(clientSitesUpdateProducer.isSentByThisInstance(SENDER)).thenReturn(true);
+
+        clientSitesUpdateConsumer.clientSitesUpdated(message(SENDER));
+
+        verifyNoInteractions(clientSiteCatalogue);
+    }
+
+    private static ConsumerRecord<String, String> message(byte[] sender) {
+        var message = new ConsumerRecord<>("client-sites-updates", 0, 0L, "1", "{}");
+        if (sender != null) {
+            message.headers().add(ClientSitesUpdateProducer.SENDER_HEADER, sender);
+        }
+        return message;
+    }
+}
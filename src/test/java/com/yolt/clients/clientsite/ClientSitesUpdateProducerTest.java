@@ -0,0 +1,143 @@
+package com.yolt.clients.clientsite;
+
+import com.yolt.clients.events.ClientEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.Message;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class ClientSitesUpdateProducerTest {
+
+    private static final Instant NOW = Instant.parse("2022-04-01T12:00:00Z");
+
+    @Mock
+    private KafkaTemplate<String, ClientEvent> kafkaTemplate;
+    @Mock
+    private TaskScheduler taskScheduler;
+    @Captor
+    private ArgumentCaptor<Runnable> taskCaptor;
+    @Captor
+    private ArgumentCaptor<Message<String>> messageCaptor;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ClientSitesUpdateProducer clientSitesUpdateProducer;
+
+    @BeforeEach
+    void setUp() {
+        clientSitesUpdateProducer = new ClientSitesUpdateProducer(kafkaTemplate, "client-sites-updates", taskScheduler,
+                Clock.fixed(NOW, ZoneOffset.UTC), meterRegistry, Duration.ofSeconds(1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void sendMessage_given_aBurstOfRequests_then_aSingleMessageShouldBeSentAtTheEndOfTheWindow() {
+        clientSitesUpdateProducer.sendMessage();
+        clientSitesUpdateProducer.sendMessage();
+        clientSitesUpdateProducer.sendMessage();
+
+        verify(taskScheduler).schedule(taskCaptor.capture(), eq(NOW.plusSeconds(1)));
+        verifyNoInteractions(kafkaTemplate);
+
+        taskCaptor.getValue().run();
+
+        verify(kafkaTemplate).send(messageCaptor.capture());
+        assertThat(messageCaptor.getValue().getPayload()).isEqualTo("{}");
+        assertThat(messageCaptor.getValue().getHeaders()).containsEntry(KafkaHeaders.TOPIC, "client-sites-updates");
+        assertThat(messageCaptor.getValue().getHeaders()).doesNotContainKey(ClientSitesUpdateProducer.CLIENT_IDS_HEADER);
+        assertThat(meterRegistry.counter("client_sites_updates_requested").count()).isEqualTo(3);
+        assertThat(meterRegistry.counter("client_sites_updates_emitted").count()).isEqualTo(1);
+    }
+
+    @Test
+    void sendMessage_given_onlyRequestsForClients_then_theMessageShouldListTheClients() {
+        UUID clientId = UUID.randomUUID();
+        UUID otherClientId = UUID.randomUUID();
+        clientSitesUpdateProducer.sendMessage(clientId);
+        clientSitesUpdateProducer.sendMessage(otherClientId);
+        clientSitesUpdateProducer.sendMessage(clientId);
+
+        verify(taskScheduler).schedule(taskCaptor.capture(), eq(NOW.plusSeconds(1)));
+        taskCaptor.getValue().run();
+
+        verify(kafkaTemplate).send(messageCaptor.capture());
+        byte[] clientIds = messageCaptor.getValue().getHeaders().get(ClientSitesUpdateProducer.CLIENT_IDS_HEADER, byte[].class);
+        assertThat(new String(clientIds, StandardCharsets.UTF_8).split(",")).containsExactlyInAnyOrder(clientId.toString(), otherClientId.toString());
+        byte[] sender = messageCaptor.getValue().getHeaders().get(ClientSitesUpdateProducer.SENDER_HEADER, byte[].class);
+        assertThat(clientSitesUpdateProducer.isSentByThisInstance(sender)).isTrue();
+    }
+
+    @Test
+    void sendMessage_given_aRequestForAllClients_then_theMessageShouldNotListClients() {
+        clientSitesUpdateProducer.sendMessage(UUID.randomUUID());
+        clientSitesUpdateProducer.sendMessage();
+
+        verify(taskScheduler).schedule(taskCaptor.capture(), eq(NOW.plusSeconds(1)));
+        taskCaptor.getValue().run();
+
+        verify(kafkaTemplate).send(messageCaptor.capture());
+        assertThat(messageCaptor.getValue().getHeaders()).doesNotContainKey(ClientSitesUpdateProducer.CLIENT_IDS_HEADER);
+    }
+
+    @Test
+    void sendMessage_given_aRequestAfterTheMessageWasSent_then_anotherMessageShouldBeScheduled() {
+        clientSitesUpdateProducer.sendMessage();
+        verify(taskScheduler).schedule(taskCaptor.capture(), any(Instant.class));
+        taskCaptor.getValue().run();
+
+        clientSitesUpdateProducer.sendMessage();
+
+        verify(taskScheduler, times(2)).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    void sendMessage_given_aTransaction_then_nothingShouldBeScheduledBeforeTheCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        clientSitesUpdateProducer.sendMessage();
+        verifyNoInteractions(taskScheduler);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(taskScheduler).schedule(any(Runnable.class), eq(NOW.plusSeconds(1)));
+    }
+
+    @Test
+    void flush_given_aScheduledMessage_then_itShouldBeSentImmediately() {
+        clientSitesUpdateProducer.sendMessage();
+
+        clientSitesUpdateProducer.flush();
+
+        verify(kafkaTemplate).send(any(Message.class));
+    }
+}
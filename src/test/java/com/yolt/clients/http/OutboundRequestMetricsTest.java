@@ -0,0 +1,85 @@
+package com.yolt.clients.http;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.URI;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withStatus;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class OutboundRequestMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RestTemplate restTemplate;
+    private MockRestServiceServer server;
+
+    @BeforeEach
+    void setUp() {
+        var requestMetrics = new OutboundRequestMetrics(meterRegistry);
+        restTemplate = new RestTemplateBuilder()
+                .rootUri("https://crypto/crypto")
+                .additionalInterceptors(requestMetrics.interceptor("crypto"))
+                .additionalCustomizers(template -> template.setUriTemplateHandler(requestMetrics.wrap(template.getUriTemplateHandler())))
+                .build();
+        server = MockRestServiceServer.bindTo(restTemplate).build();
+    }
+
+    @Test
+    void times_a_request_by_its_uri_template() {
+        var kid = UUID.randomUUID();
+        server.expect(requestTo("https://crypto/crypto/key/" + kid)).andExpect(method(HttpMethod.DELETE)).andRespond(withSuccess());
+
+        restTemplate.delete("/key/{kid}", kid);
+
+        assertThat(meterRegistry.get("outbound_http_requests")
+                .tag("target", "crypto")
+                .tag("operation", "DELETE /key/{kid}")
+                .tag("status", "200")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("outbound_http_requests_in_flight")
+                .tag("operation", "DELETE /key/{kid}")
+                .gauge().value()).isZero();
+        server.verify();
+    }
+
+    @Test
+    void times_a_request_without_a_template_as_an_unknown_operation() {
+        server.expect(requestTo("https://crypto/crypto/sign?kid=1")).andRespond(withStatus(HttpStatus.NOT_FOUND));
+
+        assertThatThrownBy(() -> restTemplate.getForObject(URI.create("https://crypto/crypto/sign?kid=1"), String.class))
+                .isInstanceOf(HttpClientErrorException.NotFound.class);
+
+        assertThat(meterRegistry.get("outbound_http_requests")
+                .tag("operation", "GET unknown")
+                .tag("status", "404")
+                .timer().count()).isEqualTo(1);
+        server.verify();
+    }
+
+    @Test
+    void does_not_tag_a_request_with_a_template_that_was_expanded_for_another_uri() {
+        var kid = UUID.randomUUID();
+        server.expect(requestTo("https://crypto/crypto/sign?kid=1")).andRespond(withSuccess());
+
+        restTemplate.getUriTemplateHandler().expand("/key/{kid}", kid);
+        restTemplate.getForObject(URI.create("https://crypto/crypto/sign?kid=1"), String.class);
+
+        assertThat(meterRegistry.get("outbound_http_requests")
+                .tag("operation", "GET unknown")
+                .timer().count()).isEqualTo(1);
+        server.verify();
+    }
+}
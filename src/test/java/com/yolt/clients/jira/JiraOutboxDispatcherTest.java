@@ -0,0 +1,179 @@
+package com.yolt.clients.jira;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yolt.clients.TestConfiguration;
+import com.yolt.clients.jira.JiraOutboxEntry.Type;
+import com.yolt.clients.jira.JiraOutboxRepository.IssueState;
+import com.yolt.clients.jira.dto.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JiraOutboxDispatcherTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now(TestConfiguration.FIXED_CLOCK);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(30);
+    private static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(2);
+
+    @Mock
+    private JiraOutboxRepository jiraOutboxRepository;
+    @Mock
+    private JiraService jiraService;
+    @Mock
+    private Executor backgroundJobsExecutor;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UUID clientId = UUID.randomUUID();
+    private JiraOutboxDispatcher jiraOutboxDispatcher;
+
+    @BeforeEach
+    void setUp() {
+        jiraOutboxDispatcher = new JiraOutboxDispatcher(jiraOutboxRepository, jiraService, objectMapper, backgroundJobsExecutor, TestConfiguration.FIXED_CLOCK, RETRY_DELAY, CLAIM_TIMEOUT, 3);
+    }
+
+    @Test
+    void dispatchSoon_runs_a_single_waiting_dispatch_on_the_background_jobs_executor() {
+        jiraOutboxDispatcher.dispatchSoon();
+        jiraOutboxDispatcher.dispatchPeriodically();
+
+        verify(backgroundJobsExecutor, times(1)).execute(any(Runnable.class));
+    }
+
+    @Test
+    void dispatch_creates_the_issue_and_replaces_the_pending_ticket() throws Exception {
+        var issueDTO = issue();
+        var entry = new JiraOutboxEntry(UUID.randomUUID(), clientId, Type.ISSUE, objectMapper.writeValueAsString(issueDTO), null, 1);
+        when(jiraOutboxRepository.claimNext(NOW, CLAIM_TIMEOUT)).thenReturn(Optional.of(entry), Optional.empty());
+        when(jiraService.createIssue(issueDTO)).thenReturn("JIRA-123");
+
+        jiraOutboxDispatcher.dispatch();
+
+        verify(jiraOutboxRepository).markIssueDispatched(entry.getId(), "JIRA-123", NOW);
+        verify(jiraOutboxRepository).deleteDispatchedBefore(NOW.minusDays(7));
+    }
+
+    @Test
+    void dispatch_leaves_a_failed_issue_for_a_retry() throws Exception {
+        var entry = new JiraOutboxEntry(UUID.randomUUID(), clientId, Type.ISSUE, objectMapper.writeValueAsString(issue()), null, 2);
+        when(jiraOutboxRepository.claimNext(NOW, CLAIM_TIMEOUT)).thenReturn(Optional.of(entry), Optional.empty());
+        when(jiraService.createIssue(any(IssueDTO.class))).thenThrow(new ResourceAccessException("timeout"));
+
+        jiraOutboxDispatcher.dispatch();
+
+        verify(jiraOutboxRepository).retryAt(entry.getId(), NOW.plus(RETRY_DELAY.multipliedBy(2)));
+        verify(jiraOutboxRepository, never()).markIssueDispatched(any(), any(), any());
+    }
+
+    @Test
+    void dispatch_gives_up_on_an_issue_after_the_last_attempt() throws Exception {
+        var entry = new JiraOutboxEntry(UUID.randomUUID(), clientId, Type.ISSUE, objectMapper.writeValueAsString(issue()), null, 3);
+        when(jiraOutboxRepository.claimNext(NOW, CLAIM_TIMEOUT)).thenReturn(Optional.of(entry), Optional.empty());
+        when(jiraService.createIssue(any(IssueDTO.class))).thenThrow(new ResourceAccessException("timeout"));
+
+        jiraOutboxDispatcher.dispatch();
+
+        verify(jiraOutboxRepository).markIssueDispatched(entry.getId(), "ticket_creation_failed", NOW);
+        verify(jiraOutboxRepository, never()).retryAt(any(), any());
+    }
+
+    @Test
+    void dispatch_waits_with_a_comment_until_its_issue_has_been_created() throws Exception {
+        var issueId = UUID.randomUUID();
+        var entry = new JiraOutboxEntry(UUID.randomUUID(), null, Type.COMMENT, objectMapper.writeValueAsString(new CommentDTO("comment")), JiraOutbox.pendingTicket(issueId), 1);
+        when(jiraOutboxRepository.claimNext(NOW, CLAIM_TIMEOUT)).thenReturn(Optional.of(entry), Optional.empty());
+        when(jiraOutboxRepository.findIssue(issueId)).thenReturn(Optional.of(new IssueState(null, false)));
+
+        jiraOutboxDispatcher.dispatch();
+
+        verify(jiraOutboxRepository).release(entry.getId(), NOW.plus(RETRY_DELAY));
+        verify(jiraService, never()).addComment(any(), any());
+        verify(jiraOutboxRepository, never()).markCommentDispatched(any(), any());
+    }
+
+    @Test
+    void dispatch_adds_a_comment_to_the_created_issue() throws Exception {
+        var issueId = UUID.randomUUID();
+        var entry = new JiraOutboxEntry(UUID.randomUUID(), null, Type.COMMENT, objectMapper.writeValueAsString(new CommentDTO("comment")), JiraOutbox.pendingTicket(issueId), 1);
+        when(jiraOutboxRepository.claimNext(NOW, CLAIM_TIMEOUT)).thenReturn(Optional.of(entry), Optional.empty());
+        when(jiraOutboxRepository.findIssue(issueId)).thenReturn(Optional.of(new IssueState("JIRA-123", true)));
+
+        jiraOutboxDispatcher.dispatch();
+
+        verify(jiraService).addComment("JIRA-123", new CommentDTO("comment"));
+        verify(jiraOutboxRepository).markCommentDispatched(entry.getId(), NOW);
+    }
+
+    @Test
+    void dispatch_drops_a_comment_on_an_issue_that_could_not_be_created() throws Exception {
+        var entry = new JiraOutboxEntry(UUID.randomUUID(), null, Type.COMMENT, objectMapper.writeValueAsString(new CommentDTO("comment")), "ticket_creation_failed", 1);
+        when(jiraOutboxRepository.claimNext(NOW, CLAIM_TIMEOUT)).thenReturn(Optional.of(entry), Optional.empty());
+
+        jiraOutboxDispatcher.dispatch();
+
+        verify(jiraService, never()).addComment(any(), any());
+        verify(jiraOutboxRepository).markCommentDispatched(entry.getId(), NOW);
+    }
+
+    @Test
+    void dispatch_sends_entries_until_there_are_no_more_due() {
+        var first = new JiraOutboxEntry(UUID.randomUUID(), null, Type.COMMENT, "{\"body\":\"first\"}", "JIRA-1", 1);
+        var second = new JiraOutboxEntry(UUID.randomUUID(), null, Type.COMMENT, "{\"body\":\"second\"}", "JIRA-2", 1);
+        when(jiraOutboxRepository.claimNext(NOW, CLAIM_TIMEOUT)).thenReturn(Optional.of(first), Optional.of(second), Optional.empty());
+
+        jiraOutboxDispatcher.dispatch();
+
+        verify(jiraOutboxRepository, times(3)).claimNext(NOW, CLAIM_TIMEOUT);
+        verify(jiraService).addComment("JIRA-1", new CommentDTO("first"));
+        verify(jiraService).addComment("JIRA-2", new CommentDTO("second"));
+    }
+
+    @Test
+    void dispatch_retries_an_entry_of_which_the_result_could_not_be_stored_later() throws Exception {
+        var issueDTO = issue();
+        var entry = new JiraOutboxEntry(UUID.randomUUID(), clientId, Type.ISSUE, objectMapper.writeValueAsString(issueDTO), null, 1);
+        when(jiraOutboxRepository.claimNext(NOW, CLAIM_TIMEOUT)).thenReturn(Optional.of(entry), Optional.empty());
+        when(jiraService.createIssue(issueDTO)).thenReturn("JIRA-123");
+        doThrow(new QueryTimeoutException("timeout")).when(jiraOutboxRepository).markIssueDispatched(entry.getId(), "JIRA-123", NOW);
+
+        jiraOutboxDispatcher.dispatch();
+
+        verify(jiraOutboxRepository).retryAt(entry.getId(), NOW.plus(RETRY_DELAY));
+        verify(jiraOutboxRepository).deleteDispatchedBefore(NOW.minusDays(7));
+    }
+
+    @Test
+    void dispatch_continues_with_the_next_entry_if_a_failure_could_not_be_recorded() throws Exception {
+        var first = new JiraOutboxEntry(UUID.randomUUID(), clientId, Type.ISSUE, "not json", null, 1);
+        var second = new JiraOutboxEntry(UUID.randomUUID(), null, Type.COMMENT, "{\"body\":\"comment\"}", "JIRA-1", 1);
+        when(jiraOutboxRepository.claimNext(NOW, CLAIM_TIMEOUT)).thenReturn(Optional.of(first), Optional.of(second), Optional.empty());
+        doThrow(new QueryTimeoutException("timeout")).when(jiraOutboxRepository).retryAt(any(), any());
+
+        jiraOutboxDispatcher.dispatch();
+
+        verify(jiraService).addComment("JIRA-1", new CommentDTO("comment"));
+        verify(jiraOutboxRepository).markCommentDispatched(second.getId(), NOW);
+    }
+
+    private static IssueDTO issue() {
+        return new IssueDTO(new FieldDTO(new ProjectDTO("YT"), "[test] summary", "description", new IssueTypeDTO("Submit a request or incident"), Set.of(123L), "yt/request-type"));
+    }
+}
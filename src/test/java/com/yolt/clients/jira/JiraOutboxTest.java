@@ -0,0 +1,129 @@
+package com.yolt.clients.jira;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yolt.clients.TestConfiguration;
+import com.yolt.clients.client.ipallowlist.AllowedIP;
+import com.yolt.clients.client.ipallowlist.JiraAllowedIPData;
+import com.yolt.clients.client.redirecturls.Action;
+import com.yolt.clients.jira.JiraOutboxEntry.Type;
+import com.yolt.clients.jira.dto.*;
+import nl.ing.lovebird.clienttokens.ClientToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JiraOutboxTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now(TestConfiguration.FIXED_CLOCK);
+
+    @Mock
+    private JiraService jiraService;
+    @Mock
+    private JiraOutboxRepository jiraOutboxRepository;
+    @Mock
+    private JiraOutboxDispatcher jiraOutboxDispatcher;
+    @Mock
+    private ClientToken clientToken;
+    @Captor
+    private ArgumentCaptor<JiraOutboxEntry> entryCaptor;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final UUID clientId = UUID.randomUUID();
+    private JiraOutbox jiraOutbox;
+
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.initSynchronization();
+        jiraOutbox = new JiraOutbox(jiraService, jiraOutboxRepository, jiraOutboxDispatcher, objectMapper, TestConfiguration.FIXED_CLOCK);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void createIssue_adds_the_issue_to_the_outbox_and_returns_a_pending_ticket() throws Exception {
+        var allowedIP = new AllowedIP(UUID.randomUUID(), clientId, "127.0.0.1/32", Status.PENDING_ADDITION, NOW, null);
+        var jiraData = new JiraAllowedIPData(Action.CREATE).withItemToBeAdded(allowedIP);
+        var issueDTO = new IssueDTO(new FieldDTO(new ProjectDTO("YT"), "[test] summary", "description", new IssueTypeDTO("Submit a request or incident"), Set.of(), "yt/request-type"));
+        when(jiraService.isEnabled()).thenReturn(true);
+        when(jiraService.getDescription(jiraData)).thenReturn("description");
+        when(jiraService.toIssue(clientToken, "description", jiraData.getSummary())).thenReturn(issueDTO);
+        when(clientToken.getClientIdClaim()).thenReturn(clientId);
+
+        String ticket = jiraOutbox.createIssue(clientToken, jiraData);
+
+        verify(jiraOutboxRepository).insert(entryCaptor.capture(), any());
+        JiraOutboxEntry entry = entryCaptor.getValue();
+        assertThat(ticket).isEqualTo("pending-" + entry.getId());
+        assertThat(JiraOutbox.pendingIssueId(ticket)).isEqualTo(entry.getId());
+        assertThat(entry.getClientId()).isEqualTo(clientId);
+        assertThat(entry.getType()).isEqualTo(Type.ISSUE);
+        assertThat(objectMapper.readValue(entry.getRequest(), IssueDTO.class)).isEqualTo(issueDTO);
+
+        // the issue is only dispatched once the transaction commits
+        verifyNoInteractions(jiraOutboxDispatcher);
+        TransactionSynchronizationManager.getSynchronizations().forEach(synchronization -> synchronization.afterCommit());
+        verify(jiraOutboxDispatcher).dispatchSoon();
+    }
+
+    @Test
+    void createIssue_does_nothing_if_there_is_nothing_to_add() {
+        var jiraData = new JiraAllowedIPData(Action.CREATE);
+        when(jiraService.getDescription(jiraData)).thenReturn(null);
+
+        assertThat(jiraOutbox.createIssue(clientToken, jiraData)).isNull();
+        verify(jiraOutboxRepository, never()).insert(any(), any());
+    }
+
+    @Test
+    void createIssue_does_nothing_if_jira_is_not_enabled() {
+        when(jiraService.isEnabled()).thenReturn(false);
+
+        assertThat(jiraOutbox.createIssue(clientToken, "description", "summary")).isNull();
+        verify(jiraOutboxRepository, never()).insert(any(), any());
+    }
+
+    @Test
+    void updateIssue_adds_a_comment_per_ticket_to_the_outbox() throws Exception {
+        var jiraData = new JiraAllowedIPData(Action.DELETE);
+        when(jiraService.isEnabled()).thenReturn(true);
+        when(jiraService.getComments(jiraData)).thenReturn(Map.of("JIRA-123", new CommentDTO("comment")));
+
+        jiraOutbox.updateIssue(jiraData);
+
+        verify(jiraOutboxRepository).insert(entryCaptor.capture(), any());
+        JiraOutboxEntry entry = entryCaptor.getValue();
+        assertThat(entry.getType()).isEqualTo(Type.COMMENT);
+        assertThat(entry.getTicket()).isEqualTo("JIRA-123");
+        assertThat(objectMapper.readValue(entry.getRequest(), CommentDTO.class)).isEqualTo(new CommentDTO("comment"));
+    }
+
+    @Test
+    void publicTicket_hides_a_pending_ticket() {
+        assertThat(JiraOutbox.publicTicket(JiraOutbox.pendingTicket(UUID.randomUUID()))).isNull();
+        assertThat(JiraOutbox.publicTicket("JIRA-123")).isEqualTo("JIRA-123");
+        assertThat(JiraOutbox.publicTicket(JiraService.TICKET_CREATION_FAILED)).isEqualTo(JiraService.TICKET_CREATION_FAILED);
+        assertThat(JiraOutbox.publicTicket(null)).isNull();
+    }
+}
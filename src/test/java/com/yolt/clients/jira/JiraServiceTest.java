@@ -8,6 +8,7 @@ import com.yolt.clients.client.ipallowlist.JiraAllowedIPData;
 import com.yolt.clients.client.redirecturls.Action;
 import com.yolt.clients.client.redirecturls.jira.RedirectURLChangelogJiraData;
 import com.yolt.clients.client.redirecturls.repository.RedirectURLChangelogEntry;
+import com.yolt.clients.http.OutboundHttpClients;
 import com.yolt.clients.jira.dto.CommentDTO;
 import com.yolt.clients.jira.dto.FieldDTO;
 import com.yolt.clients.jira.dto.IssueDTO;
@@ -35,7 +36,6 @@ import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.function.Supplier;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -105,15 +105,16 @@ class JiraServiceTest {
 
         RestTemplateBuilder restTemplateBuilder = mock(RestTemplateBuilder.class);
         when(restTemplateBuilder.rootUri(anyString())).thenReturn(restTemplateBuilder);
-        when(restTemplateBuilder.requestFactory(any(Supplier.class))).thenReturn(restTemplateBuilder);
         when(restTemplateBuilder.build()).thenReturn(restTemplate);
+        OutboundHttpClients outboundHttpClients = mock(OutboundHttpClients.class);
+        when(outboundHttpClients.restTemplateBuilder(eq("jira"), any())).thenReturn(restTemplateBuilder);
 
         when(vaultKeys.getPassword("clients-jira-token")).thenReturn(new PasswordKey("secret-token".toCharArray()));
 
-        jiraService = new JiraService("https://jira.com", "npa@yolt.com", true, "squid", 3128, "test environment", vaultKeys, restTemplateBuilder, clientService);
-        jiraServiceING = new JiraService("https://jira.com", "npa@yolt.com", true, "squid", 3128, "yfb-prd", vaultKeys, restTemplateBuilder, clientService);
-        jiraServiceProduction = new JiraService("https://jira.com", "npa@yolt.com", true, "squid", 3128, "yfb-ext-prd", vaultKeys, restTemplateBuilder, clientService);
-        jiraServiceSandbox = new JiraService("https://jira.com", "npa@yolt.com", true, "squid", 3128, "yfb-sandbox", vaultKeys, restTemplateBuilder, clientService);
+        jiraService = new JiraService("https://jira.com", "npa@yolt.com", true, "squid", 3128, "test environment", vaultKeys, outboundHttpClients, clientService);
+        jiraServiceING = new JiraService("https://jira.com", "npa@yolt.com", true, "squid", 3128, "yfb-prd", vaultKeys, outboundHttpClients, clientService);
+        jiraServiceProduction = new JiraService("https://jira.com", "npa@yolt.com", true, "squid", 3128, "yfb-ext-prd", vaultKeys, outboundHttpClients, clientService);
+        jiraServiceSandbox = new JiraService("https://jira.com", "npa@yolt.com", true, "squid", 3128, "yfb-sandbox", vaultKeys, outboundHttpClients, clientService);
     }
 
     @Test
@@ -132,7 +133,7 @@ class JiraServiceTest {
                 .withItemToBeAdded(allowedIP2)
                 .withItemToBeAdded(allowedIP3);
 
-        String issueKey = jiraService.createIssue(clientToken, jiraAllowedIPData);
+        String issueKey = createIssue(jiraService, jiraAllowedIPData);
         assertThat(issueKey).isEqualTo("JIRA-123");
 
         FieldDTO request = entityArgumentCaptor.getValue().getBody().getFields();
@@ -167,7 +168,7 @@ class JiraServiceTest {
 
         final JiraAllowedIPData jiraAllowedIPData = new JiraAllowedIPData(Action.DELETE).withItemToBeRemoved(allowedIP);
 
-        String issueKey = jiraService.createIssue(clientToken, jiraAllowedIPData);
+        String issueKey = createIssue(jiraService, jiraAllowedIPData);
         assertThat(issueKey).isEqualTo("JIRA-123");
         FieldDTO request = entityArgumentCaptor.getValue().getBody().getFields();
 
@@ -198,7 +199,7 @@ class JiraServiceTest {
 
         final JiraAllowedIPData jiraAllowedIPData = new JiraAllowedIPData(Action.DELETE).withItemToBeRemoved(allowedIP);
 
-        assertThrows(IllegalStateException.class, () -> jiraService.createIssue(clientToken, jiraAllowedIPData));
+        assertThrows(IllegalStateException.class, () -> createIssue(jiraService, jiraAllowedIPData));
     }
 
     @Test
@@ -236,7 +237,7 @@ class JiraServiceTest {
 
         final JiraAllowedIPData jiraAllowedIPData = new JiraAllowedIPData(Action.CREATE).withItemToBeAdded(allowedIP);
 
-        String issueKey = jiraService.createIssue(clientToken, jiraAllowedIPData);
+        String issueKey = createIssue(jiraService, jiraAllowedIPData);
         assertThat(issueKey).isEqualTo("JIRA-123");
         FieldDTO request = entityArgumentCaptor.getValue().getBody().getFields();
 
@@ -289,7 +290,7 @@ class JiraServiceTest {
 
         final JiraAllowedIPData jiraAllowedIPData = new JiraAllowedIPData(Action.CREATE).withItemToBeAdded(allowedIP);
 
-        String issueKey = jiraServiceING.createIssue(clientToken, jiraAllowedIPData);
+        String issueKey = createIssue(jiraServiceING, jiraAllowedIPData);
         assertThat(issueKey).isEqualTo("JIRA-123");
         FieldDTO request = entityArgumentCaptor.getValue().getBody().getFields();
 
@@ -342,7 +343,7 @@ class JiraServiceTest {
 
         final JiraAllowedIPData jiraAllowedIPData = new JiraAllowedIPData(Action.CREATE).withItemToBeAdded(allowedIP);
 
-        String issueKey = jiraServiceProduction.createIssue(clientToken, jiraAllowedIPData);
+        String issueKey = createIssue(jiraServiceProduction, jiraAllowedIPData);
         assertThat(issueKey).isEqualTo("JIRA-123");
         FieldDTO request = entityArgumentCaptor.getValue().getBody().getFields();
 
@@ -395,7 +396,7 @@ class JiraServiceTest {
 
         final JiraAllowedIPData jiraAllowedIPData = new JiraAllowedIPData(Action.CREATE).withItemToBeAdded(allowedIP);
 
-        String issueKey = jiraServiceSandbox.createIssue(clientToken, jiraAllowedIPData);
+        String issueKey = createIssue(jiraServiceSandbox, jiraAllowedIPData);
         assertThat(issueKey).isEqualTo("JIRA-123");
         FieldDTO request = entityArgumentCaptor.getValue().getBody().getFields();
 
@@ -421,7 +422,7 @@ class JiraServiceTest {
 
         when(restTemplate.exchange(eq("/rest/api/2/issue/{issueIdOrKey}/comment"), eq(HttpMethod.POST), commentArgumentCaptor.capture(), eq(Void.class), eq("JIRA-123"))).thenReturn(ResponseEntity.of(Optional.empty()));
 
-        jiraService.updateIssue(jiraAllowedIPData);
+        jiraService.getComments(jiraAllowedIPData).forEach(jiraService::addComment);
 
         assertThat(commentArgumentCaptor.getValue().getBody().getBody()).isEqualTo("""
                 The following IPs have been handled:
@@ -430,11 +431,10 @@ class JiraServiceTest {
     }
 
     @Test
-    void does_not_create_issue_if_there_is_nothing_to_add() {
+    void has_no_description_if_there_is_nothing_to_add() {
         final JiraAllowedIPData jiraAllowedIPData = new JiraAllowedIPData(Action.CREATE);
 
-        String issueKey = jiraService.createIssue(clientToken, jiraAllowedIPData);
-        assertThat(issueKey).isNull();
+        assertThat(jiraService.getDescription(jiraAllowedIPData)).isNull();
         verify(restTemplate, never()).exchange(eq("/rest/api/2/issue/"), eq(HttpMethod.POST), entityArgumentCaptor.capture(), eq(IssueResponseDTO.class));
     }
 
@@ -460,7 +460,7 @@ class JiraServiceTest {
             case DELETE -> new RedirectURLChangelogJiraData().withItemToBeRemoved(changelogEntry);
         };
 
-        String issueKey = jiraService.createIssue(clientToken, changelogJiraData);
+        String issueKey = createIssue(jiraService, changelogJiraData);
         assertThat(issueKey).isEqualTo("JIRA-123");
 
         FieldDTO request = entityArgumentCaptor.getValue().getBody().getFields();
@@ -491,4 +491,11 @@ class JiraServiceTest {
                     .containsIgnoringCase(description.formatted("<n/a>", "<n/a>", "- delete url with id: %s, and url: %s (req id: %s)".formatted(changelogEntry.getRedirectURLId(), changelogEntry.getRedirectURL(), changelogEntry.getId())));
         }
     }
+
+    /**
+     * Creates the issue the way {@link JiraOutboxDispatcher} does for an entry {@link JiraOutbox} queued.
+     */
+    private <T, U extends AbstractJiraData<T, ?>> String createIssue(JiraService service, AbstractJiraData<T, U> jiraData) {
+        return service.createIssue(service.toIssue(clientToken, service.getDescription(jiraData), jiraData.getSummary()));
+    }
 }
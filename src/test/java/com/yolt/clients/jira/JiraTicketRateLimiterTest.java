@@ -0,0 +1,61 @@
+package com.yolt.clients.jira;
+
+import com.yolt.clients.TestConfiguration;
+import com.yolt.clients.client.ipallowlist.TooManyPendingTasksException;
+import com.yolt.clients.jira.JiraTicketRateLimiter.Resource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class JiraTicketRateLimiterTest {
+
+    private static final LocalDateTime ONE_DAY_AGO = LocalDateTime.now(TestConfiguration.FIXED_CLOCK).minusDays(1);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UUID clientId = UUID.randomUUID();
+    private JiraTicketRateLimiter jiraTicketRateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        jiraTicketRateLimiter = new JiraTicketRateLimiter(jdbcTemplate, TestConfiguration.FIXED_CLOCK, meterRegistry, 10);
+    }
+
+    @Test
+    void check_allows_a_client_with_tickets_left() {
+        when(jdbcTemplate.queryForObject(contains("from ip_allow_list"), eq(Integer.class), eq(clientId), eq(ONE_DAY_AGO))).thenReturn(9);
+
+        jiraTicketRateLimiter.check(clientId, Resource.IP_ALLOW_LIST);
+
+        assertThat(meterRegistry.get("jira_tickets_remaining").tag("resource", "ip_allow_list").summary().totalAmount()).isEqualTo(1);
+        assertThat(meterRegistry.get("jira_tickets_rate_limited").tag("resource", "ip_allow_list").counter().count()).isZero();
+    }
+
+    @Test
+    void check_rejects_a_client_without_tickets_left() {
+        when(jdbcTemplate.queryForObject(contains("from client_mtls_certificates_dn"), eq(Integer.class), eq(clientId), eq(ONE_DAY_AGO))).thenReturn(10);
+
+        assertThatThrownBy(() -> jiraTicketRateLimiter.check(clientId, Resource.DISTINGUISHED_NAMES))
+                .isInstanceOf(TooManyPendingTasksException.class);
+
+        assertThat(meterRegistry.get("jira_tickets_remaining").tag("resource", "client_mtls_certificates_dn").summary().totalAmount()).isZero();
+        assertThat(meterRegistry.get("jira_tickets_rate_limited").tag("resource", "client_mtls_certificates_dn").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("jira_tickets_rate_limited").tag("resource", "allowed_outbound_hosts").counter().count()).isZero();
+    }
+}
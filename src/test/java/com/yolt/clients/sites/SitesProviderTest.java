@@ -16,9 +16,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.util.*;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
+import static org.springframework.http.HttpStatus.NOT_MODIFIED;
 import static org.springframework.http.HttpStatus.OK;
 
 @IntegrationTest
@@ -33,6 +35,9 @@ class SitesProviderTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private SitesSnapshotStore sitesSnapshotStore;
+
     @BeforeEach
     public void beforeEach() {
         WireMock.removeAllMappings();
@@ -107,6 +112,74 @@ class SitesProviderTest {
         assertThat(sitesProvider.allSites().size()).isEqualTo(295);
     }
 
+    @Test
+    public void update_given_notModified_then_theSitesShouldBeKept() throws JsonProcessingException {
+        wireMockServer.stubFor(WireMock.get(urlMatching("/providers/sites-details"))
+                .willReturn(aResponse()
+                        .withBody(objectMapper.writeValueAsString(createExampleProvidersSites(3)))
+                        .withHeader("content-type", "application/json")
+                        .withHeader("ETag", "\"v1\"")
+                        .withStatus(OK.value())
+                ));
+        sitesProvider.update();
+        List<Site> sitesAfterFirstUpdate = sitesProvider.allSites();
+
+        wireMockServer.stubFor(WireMock.get(urlMatching("/providers/sites-details"))
+                .withHeader("If-None-Match", equalTo("\"v1\""))
+                .willReturn(aResponse()
+                        .withStatus(NOT_MODIFIED.value())
+                ));
+        sitesProvider.update();
+
+        assertThat(sitesAfterFirstUpdate).hasSize(3);
+        assertThat(sitesProvider.allSites()).isSameAs(sitesAfterFirstUpdate);
+    }
+
+    @Test
+    public void update_given_aChangedSitesList_then_unchangedSitesShouldKeepTheirInstance() throws JsonProcessingException {
+        ProvidersSites providersSites = createExampleProvidersSites(2);
+        wireMockServer.stubFor(WireMock.get(urlMatching("/providers/sites-details"))
+                .willReturn(aResponse()
+                        .withBody(objectMapper.writeValueAsString(providersSites))
+                        .withHeader("content-type", "application/json")
+                        .withStatus(OK.value())
+                ));
+        sitesProvider.update();
+        Site.SiteId siteId = new Site.SiteId(providersSites.getAisSiteDetails().get(0).getId());
+        Site siteAfterFirstUpdate = sitesProvider.findByIdOrThrow(siteId);
+
+        List<ProvidersSites.RegisteredSite> moreSites = new ArrayList<>(providersSites.getAisSiteDetails());
+        moreSites.addAll(createExampleProvidersSites(1).getAisSiteDetails());
+        wireMockServer.stubFor(WireMock.get(urlMatching("/providers/sites-details"))
+                .willReturn(aResponse()
+                        .withBody(objectMapper.writeValueAsString(new ProvidersSites(moreSites, Collections.emptyList())))
+                        .withHeader("content-type", "application/json")
+                        .withStatus(OK.value())
+                ));
+        sitesProvider.update();
+
+        assertThat(sitesProvider.allSites()).hasSize(3);
+        assertThat(sitesProvider.findByIdOrThrow(siteId)).isSameAs(siteAfterFirstUpdate);
+    }
+
+    @Test
+    public void update_given_aChangedSitesList_then_aSnapshotShouldBeStored() throws JsonProcessingException {
+        ProvidersSites providersSites = createExampleProvidersSites(2);
+        wireMockServer.stubFor(WireMock.get(urlMatching("/providers/sites-details"))
+                .willReturn(aResponse()
+                        .withBody(objectMapper.writeValueAsString(providersSites))
+                        .withHeader("content-type", "application/json")
+                        .withHeader("ETag", "\"v2\"")
+                        .withStatus(OK.value())
+                ));
+
+        sitesProvider.update();
+
+        SitesSnapshotStore.Snapshot snapshot = sitesSnapshotStore.load().orElseThrow();
+        assertThat(snapshot.getSites().getVersion().getETag()).isEqualTo("\"v2\"");
+        assertThat(snapshot.getSites().getProvidersSites()).isEqualTo(providersSites);
+    }
+
     private ProvidersSites createExampleProvidersSites(int numberOfSites) {
         List<ProvidersSites.RegisteredSite> sites = new ArrayList<>();
         for (int i = 0; i < numberOfSites; i++) {